@@ -0,0 +1,58 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import be.seeseemelk.mockbukkit.MockBukkit;
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.services.features.portfolio.HoldingsService;
+import net.cyberneticforge.quickstocks.core.services.features.portfolio.WalletService;
+import net.cyberneticforge.quickstocks.infrastructure.db.DatabaseConfig;
+import net.cyberneticforge.quickstocks.infrastructure.db.DatabaseManager;
+
+import java.lang.reflect.Field;
+import java.nio.file.Path;
+import java.util.logging.Level;
+
+/**
+ * Hosts the plugin on MockBukkit for benchmarks that go through the real services.
+ * <p>
+ * Enabling stops at the WorldGuard check like in {@code TestBase}, after configs, translations and the
+ * logger are loaded. The database is then replaced by a migrated SQLite file in the trial's directory
+ * and the services the benchmarks need are wired in, so the measured paths match production.
+ */
+final class BenchmarkPlugin {
+
+    private static QuickStocksPlugin plugin;
+
+    private BenchmarkPlugin() {
+    }
+
+    static synchronized QuickStocksPlugin start(Path directory) throws Exception {
+        MockBukkit.mock();
+        plugin = MockBukkit.load(QuickStocksPlugin.class);
+        // Per-trade info logging would measure the console, not the code
+        plugin.getLogger().setLevel(Level.WARNING);
+
+        DatabaseConfig config = new DatabaseConfig();
+        config.setProvider("sqlite");
+        config.setSqliteFile(directory.resolve("bench.db").toString());
+        DatabaseManager databaseManager = new DatabaseManager(config, false);
+        databaseManager.initialize();
+        inject("databaseManager", databaseManager);
+        inject("walletService", new WalletService());
+        inject("holdingsService", new HoldingsService());
+        return plugin;
+    }
+
+    static synchronized void stop() {
+        if (QuickStocksPlugin.getDatabaseManager() != null) {
+            QuickStocksPlugin.getDatabaseManager().shutdown();
+        }
+        MockBukkit.unmock();
+        plugin = null;
+    }
+
+    private static void inject(String field, Object value) throws ReflectiveOperationException {
+        Field f = QuickStocksPlugin.class.getDeclaredField(field);
+        f.setAccessible(true);
+        f.set(null, value);
+    }
+}
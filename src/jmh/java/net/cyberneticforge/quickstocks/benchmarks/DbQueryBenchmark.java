@@ -0,0 +1,100 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteDataSource;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Row mapping cost of {@link Db#query}: generic {@code Map} rows against a typed {@link Db.RowMapper},
+ * on an in-memory SQLite database shaped like instrument_state.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class DbQueryBenchmark {
+
+    private static final String SQL = "SELECT instrument_id, last_price, last_volume, change_24h, market_cap, updated_at "
+        + "FROM instrument_state ORDER BY instrument_id LIMIT ?";
+
+    private static final Db.RowMapper<InstrumentRow> STATE_MAPPER = rs -> new InstrumentRow(
+        rs.getString("instrument_id"),
+        rs.getDouble("last_price"),
+        rs.getDouble("last_volume"),
+        rs.getDouble("change_24h"),
+        rs.getDouble("market_cap"),
+        rs.getLong("updated_at")
+    );
+
+    record InstrumentRow(String instrumentId, double lastPrice, double lastVolume, double change24h, double marketCap, long updatedAt) {
+    }
+
+    @Param({"1", "100", "1000"})
+    public int rows;
+
+    private Connection keepAlive; // the shared in-memory database lives as long as one connection is open
+    private Db db;
+
+    @Setup(Level.Trial)
+    public void setUp() throws SQLException {
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:file:quickstocks-bench?mode=memory&cache=shared");
+        keepAlive = dataSource.getConnection();
+        db = new Db(dataSource);
+        db.execute("""
+            CREATE TABLE instrument_state (
+              instrument_id TEXT PRIMARY KEY,
+              last_price    REAL NOT NULL,
+              last_volume   REAL NOT NULL DEFAULT 0,
+              change_24h    REAL NOT NULL DEFAULT 0,
+              market_cap    REAL NOT NULL DEFAULT 0,
+              updated_at    INTEGER NOT NULL
+            )
+            """);
+        List<Object[]> batch = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            batch.add(new Object[]{String.format("instrument-%04d", i), 10.0 + i, 1000.0 + i, i % 7 - 3.0, 1e6 * i, 1_700_000_000_000L + i});
+        }
+        db.executeTransaction(tx -> {
+            for (Object[] row : batch) {
+                tx.execute("INSERT INTO instrument_state VALUES (?, ?, ?, ?, ?, ?)", row);
+            }
+        });
+    }
+
+    @Benchmark
+    public List<Map<String, Object>> mapRows() throws SQLException {
+        return db.query(SQL, rows);
+    }
+
+    @Benchmark
+    public List<InstrumentRow> rowMapper() throws SQLException {
+        return db.query(SQL, STATE_MAPPER, rows);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws SQLException {
+        keepAlive.close();
+    }
+}
@@ -0,0 +1,97 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.model.CompanyPlot;
+import net.cyberneticforge.quickstocks.core.services.features.companies.CompanyPlotService;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link CompanyPlotService#getPlotByLocation}, which the protection listeners call on block and
+ * interact events, for owned and unowned chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PlotLookupBenchmark {
+
+    private static final String WORLD = "world";
+
+    @Param({"10000"})
+    public int plots;
+
+    private Path directory;
+    private CompanyPlotService plotService;
+    private final Random random = new Random(42);
+    private int side;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("quickstocks-plots");
+        BenchmarkPlugin.start(directory);
+        Db db = QuickStocksPlugin.getDatabaseManager().getDb();
+        long now = System.currentTimeMillis();
+        db.execute("INSERT INTO companies (id, name, type, owner_uuid, balance, created_at) VALUES ('bench-company', 'Benchmark Corp', 'PRIVATE', ?, 0, ?)",
+            "00000000-0000-0000-0000-00000000b001", now);
+
+        // Owned chunks fill a square around the origin, lookups outside it miss
+        side = (int) Math.ceil(Math.sqrt(plots));
+        List<Object[]> rows = new ArrayList<>(plots);
+        for (int i = 0; i < plots; i++) {
+            rows.add(new Object[]{"plot-" + i, WORLD, i % side, i / side, now});
+        }
+        db.executeTransaction(tx -> {
+            for (Object[] row : rows) {
+                tx.execute("INSERT INTO company_plots (id, company_id, world_name, chunk_x, chunk_z, buy_price, purchased_at) "
+                    + "VALUES (?, 'bench-company', ?, ?, ?, 1000.0, ?)", row);
+            }
+        });
+        plotService = new CompanyPlotService();
+    }
+
+    @Benchmark
+    public Optional<CompanyPlot> ownedChunk() throws SQLException {
+        int i = random.nextInt(plots);
+        return plotService.getPlotByLocation(WORLD, i % side, i / side);
+    }
+
+    @Benchmark
+    public Optional<CompanyPlot> unownedChunk() throws SQLException {
+        return plotService.getPlotByLocation(WORLD, -1 - random.nextInt(side), random.nextInt(side));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkPlugin.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
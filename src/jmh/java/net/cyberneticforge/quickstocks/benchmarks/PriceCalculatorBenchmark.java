@@ -0,0 +1,65 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import net.cyberneticforge.quickstocks.core.algorithms.StockPriceCalculator;
+import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
+import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
+import net.cyberneticforge.quickstocks.core.model.Stock;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prices one stock with {@link StockPriceCalculator#calculateNewPrice(Stock, List)} at different history
+ * sizes. The indicators are incremental, so the cost should not grow with the history.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PriceCalculatorBenchmark {
+
+    @Param({"1", "10", "100", "1000"})
+    public int historySize;
+
+    private StockPriceCalculator calculator;
+    private List<MarketInfluence> influences;
+    private Stock stock;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        Random random = new Random(42);
+        calculator = new StockPriceCalculator(42L);
+        influences = new ArrayList<>();
+        for (MarketFactor factor : MarketFactor.values()) {
+            influences.add(new MarketInfluence(factor, (random.nextDouble() - 0.5) * 0.4, 0.3 + random.nextDouble() * 0.4));
+        }
+        stock = new Stock("BENCH", "Benchmark Corp", "technology", 100.0);
+        stock.setVolatilityRating(0.6);
+        double price = 100.0;
+        for (int i = 1; i < historySize; i++) {
+            price = Math.max(0.01, price * (1 + random.nextGaussian() * 0.01));
+            stock.updatePrice(price);
+        }
+    }
+
+    @Benchmark
+    public double calculateNewPrice() {
+        return calculator.calculateNewPrice(stock, influences);
+    }
+}
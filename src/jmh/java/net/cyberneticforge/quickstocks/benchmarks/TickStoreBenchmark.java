@@ -0,0 +1,162 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.FileTickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.SqlTickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore.Tick;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.sqlite.SQLiteDataSource;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Compares the SQL tick path (instrument_price_history on SQLite) with the compressed file store:
+ * appending a flush worth of ticks, range scans and latest-N reads. Storage size per tick of the
+ * preloaded history is printed after setup.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TickStoreBenchmark {
+
+    private static final int INSTRUMENTS = 50;
+    private static final long TICK_INTERVAL_MILLIS = 5_000L;
+
+    @Param({"sql", "file"})
+    public String store;
+
+    @Param({"20000"})
+    public int ticksPerInstrument;
+
+    private Path directory;
+    private Db db;
+    private TickStore tickStore;
+    private List<Tick> flushBatch;
+    private long startTs;
+    private long nextTs;
+    private final Random random = new Random(42);
+    private final double[] prices = new double[INSTRUMENTS];
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("quickstocks-ticks");
+        SQLiteDataSource dataSource = new SQLiteDataSource();
+        dataSource.setUrl("jdbc:sqlite:" + directory.resolve("bench.db"));
+        db = new Db(dataSource);
+        db.execute("""
+            CREATE TABLE instrument_price_history (
+              id TEXT PRIMARY KEY,
+              instrument_id TEXT NOT NULL,
+              ts INTEGER NOT NULL,
+              price REAL NOT NULL,
+              volume REAL NOT NULL DEFAULT 0,
+              reason TEXT
+            )
+            """);
+        db.execute("CREATE INDEX idx_hist_instrument_ts ON instrument_price_history(instrument_id, ts)");
+
+        tickStore = "file".equals(store)
+            ? new FileTickStore(directory.resolve("ticks"), 4096)
+            : new SqlTickStore(db, 500);
+
+        for (int i = 0; i < INSTRUMENTS; i++) {
+            prices[i] = 50 + random.nextInt(500);
+        }
+        startTs = 1_700_000_000_000L;
+        nextTs = startTs;
+        for (int n = 0; n < ticksPerInstrument; n += 100) {
+            List<Tick> chunk = new ArrayList<>(INSTRUMENTS * 100);
+            for (int k = 0; k < 100; k++) {
+                chunk.addAll(nextFlush());
+            }
+            append(chunk);
+        }
+        printStorageSize();
+        flushBatch = nextFlush();
+    }
+
+    private void printStorageSize() throws IOException {
+        boolean fileStore = "file".equals(store);
+        long bytes;
+        try (Stream<Path> files = Files.walk(directory)) {
+            bytes = files.filter(Files::isRegularFile)
+                .filter(p -> fileStore != p.getFileName().toString().startsWith("bench.db"))
+                .mapToLong(p -> p.toFile().length())
+                .sum();
+        }
+        long ticks = (long) INSTRUMENTS * ((nextTs - startTs) / TICK_INTERVAL_MILLIS);
+        System.out.printf("%n[%s] %d bytes for %d ticks (%.1f bytes/tick)%n", store, bytes, ticks, bytes / (double) ticks);
+    }
+
+    /**
+     * One market update: a tick per instrument with a small random walk, like the persister flushes.
+     */
+    private List<Tick> nextFlush() {
+        List<Tick> ticks = new ArrayList<>(INSTRUMENTS);
+        long ts = nextTs;
+        for (int i = 0; i < INSTRUMENTS; i++) {
+            prices[i] = Math.max(0.01, Math.round(prices[i] * (1 + random.nextGaussian() * 0.002) * 100) / 100.0);
+            ticks.add(new Tick("instrument-" + i, ts + random.nextInt(5), prices[i], 1000 + random.nextInt(50), "MARKET_UPDATE"));
+        }
+        nextTs += TICK_INTERVAL_MILLIS;
+        return ticks;
+    }
+
+    private void append(List<Tick> ticks) throws Exception {
+        db.executeTransaction(tx -> tickStore.append(tx, ticks));
+    }
+
+    @Benchmark
+    public void appendFlush() throws Exception {
+        append(flushBatch);
+    }
+
+    @Benchmark
+    public List<Tick> rangeOneHour() throws Exception {
+        long from = startTs + (ticksPerInstrument / 2) * TICK_INTERVAL_MILLIS;
+        return tickStore.range("instrument-7", from, from + 3_600_000L);
+    }
+
+    @Benchmark
+    public List<Tick> rangeOneDay() throws Exception {
+        long from = startTs + (ticksPerInstrument / 4) * TICK_INTERVAL_MILLIS;
+        return tickStore.range("instrument-7", from, from + 86_400_000L);
+    }
+
+    @Benchmark
+    public List<Tick> recent100() throws Exception {
+        return tickStore.recent("instrument-7", 100);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        tickStore.close();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
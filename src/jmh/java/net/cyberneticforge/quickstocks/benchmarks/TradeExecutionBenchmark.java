@@ -0,0 +1,87 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.model.OrderRequest;
+import net.cyberneticforge.quickstocks.core.services.features.market.EnhancedTradingService;
+import net.cyberneticforge.quickstocks.core.services.features.market.TradingService.TradeResult;
+import net.cyberneticforge.quickstocks.infrastructure.config.TradingCfg;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link EnhancedTradingService#executeOrder} end to end on a migrated SQLite file: halt check, price lookup,
+ * rate limits, wallet, holdings and the order record. Each invocation buys and sells one share so the
+ * wallet and holdings stay level across iterations.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TradeExecutionBenchmark {
+
+    private static final String PLAYER = "00000000-0000-0000-0000-00000000b001";
+    private static final String INSTRUMENT = "bench-instrument";
+
+    private Path directory;
+    private EnhancedTradingService tradingService;
+    private OrderRequest buy;
+    private OrderRequest sell;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("quickstocks-trades");
+        BenchmarkPlugin.start(directory);
+        Db db = QuickStocksPlugin.getDatabaseManager().getDb();
+        long now = System.currentTimeMillis();
+        db.execute("INSERT INTO instruments (id, type, symbol, display_name, decimals, created_at) VALUES (?, 'EQUITY', 'BNCH', 'Benchmark Corp', 2, ?)",
+            INSTRUMENT, now);
+        db.execute("INSERT INTO instrument_state (instrument_id, last_price, last_volume, updated_at) VALUES (?, 100.0, 0, ?)",
+            INSTRUMENT, now);
+        QuickStocksPlugin.getWalletService().setBalance(PLAYER, 1e12);
+
+        // Measure the trade path, not the cooldown and notional limits rejecting it
+        TradingCfg tradingCfg = QuickStocksPlugin.getTradingCfg();
+        tradingCfg.getLimitsConfig().setPerPlayerCooldownMs(0);
+        tradingCfg.getLimitsConfig().setMaxNotionalPerMinute(Double.MAX_VALUE);
+        tradingService = new EnhancedTradingService(db, tradingCfg);
+        buy = OrderRequest.marketOrder(PLAYER, INSTRUMENT, "BUY", 1);
+        sell = OrderRequest.marketOrder(PLAYER, INSTRUMENT, "SELL", 1);
+    }
+
+    @Benchmark
+    public TradeResult buyAndSell() {
+        TradeResult bought = tradingService.executeOrder(buy);
+        if (!bought.success()) {
+            throw new IllegalStateException(bought.message());
+        }
+        return tradingService.executeOrder(sell);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkPlugin.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
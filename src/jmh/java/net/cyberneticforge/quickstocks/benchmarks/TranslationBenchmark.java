@@ -0,0 +1,75 @@
+package net.cyberneticforge.quickstocks.benchmarks;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.enums.Translation;
+import net.cyberneticforge.quickstocks.core.model.Replaceable;
+import net.cyberneticforge.quickstocks.core.services.TranslationService;
+import net.kyori.adventure.text.Component;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * {@link TranslationService#message} with replaceables, as rendered for every market overview line,
+ * against the plain string variant.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class TranslationBenchmark {
+
+    private Path directory;
+    private TranslationService translations;
+    private Replaceable[] replaceables;
+
+    @Setup(Level.Trial)
+    public void setUp() throws Exception {
+        directory = Files.createTempDirectory("quickstocks-translations");
+        BenchmarkPlugin.start(directory);
+        translations = QuickStocksPlugin.getTranslationService();
+        replaceables = new Replaceable[]{
+            new Replaceable("%num%", "1"),
+            new Replaceable("%company%", "Benchmark Corp"),
+            new Replaceable("%symbol%", "BNCH"),
+            new Replaceable("%price%", "123.45"),
+            new Replaceable("%balance%", "98765.43")
+        };
+    }
+
+    @Benchmark
+    public Component message() {
+        return translations.message(Translation.Market_Overview_CompanyItem, replaceables);
+    }
+
+    @Benchmark
+    public String messageString() {
+        return translations.messageString(Translation.Market_Overview_CompanyItem, replaceables);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws IOException {
+        BenchmarkPlugin.stop();
+        try (Stream<Path> files = Files.walk(directory)) {
+            files.sorted(Comparator.reverseOrder()).forEach(p -> p.toFile().delete());
+        }
+    }
+}
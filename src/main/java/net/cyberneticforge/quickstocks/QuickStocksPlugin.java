@@ -21,19 +21,25 @@ import net.cyberneticforge.quickstocks.hooks.worldguard.WorldGuardFlags;
 import net.cyberneticforge.quickstocks.hooks.worldguard.WorldGuardHook;
 import net.cyberneticforge.quickstocks.hooks.chestshop.ChestShopAccountProvider;
 import net.cyberneticforge.quickstocks.hooks.chestshop.ChestShopHook;
+import net.cyberneticforge.quickstocks.infrastructure.bootstrap.ServiceContainer;
 import net.cyberneticforge.quickstocks.infrastructure.config.*;
 import net.cyberneticforge.quickstocks.infrastructure.db.ConfigLoader;
 import net.cyberneticforge.quickstocks.infrastructure.db.DatabaseConfig;
 import net.cyberneticforge.quickstocks.infrastructure.db.DatabaseManager;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.FileTickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.SqlTickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore;
 import net.cyberneticforge.quickstocks.listeners.*;
 import net.cyberneticforge.quickstocks.listeners.shops.ChestShopListener;
+import net.cyberneticforge.quickstocks.listeners.shops.ChestShopOrderFlowListener;
 import net.cyberneticforge.quickstocks.listeners.shops.ChestShopProtectionListener;
 import net.cyberneticforge.quickstocks.listeners.shops.ChestShopTransactionListener;
 import org.bukkit.command.CommandExecutor;
 import org.bukkit.plugin.java.JavaPlugin;
 import org.bukkit.scheduler.BukkitRunnable;
 
+import java.io.IOException;
 import java.sql.SQLException;
 import java.util.Arrays;
 import java.util.List;
@@ -68,8 +74,7 @@ public final class QuickStocksPlugin extends JavaPlugin {
     private static DatabaseManager databaseManager;
     @Getter
     private static QueryService queryService;
-    @Getter
-    private static CryptoService cryptoService;
+    private static ServiceContainer.Lazy<CryptoService> cryptoService;
     @Getter
     private static GuiConfig guiConfig;
     @Getter
@@ -79,22 +84,36 @@ public final class QuickStocksPlugin extends JavaPlugin {
     @Getter
     private static TradingService tradingService;
     @Getter
+    private static PendingOrderService pendingOrderService;
+    @Getter
+    private static RateLimitService rateLimitService;
+    @Getter
+    private static CircuitBreakerService circuitBreakerService;
+    @Getter
+    private static TradeLanes tradeLanes;
+    @Getter
     private static WatchlistService watchlistService;
     @Getter
     private static CompanyService companyService;
-    @Getter
-    private static InvitationService invitationService;
+    private static ServiceContainer.Lazy<InvitationService> invitationService;
     @Getter
     private static CompanyMarketService companyMarketService;
     @Getter
     private static SalaryService salaryService;
-    @Getter
-    private static CompanyPlotService companyPlotService;
+    private static ServiceContainer.Lazy<CompanyPlotService> companyPlotService;
     @Getter
     private static BukkitRunnable marketUpdateTask;
     @Getter
     private static InstrumentPersistenceService instrumentPersistenceService;
     @Getter
+    private static InstrumentStatePersister instrumentStatePersister;
+    @Getter
+    private static PriceCandleService priceCandleService;
+    @Getter
+    private static TickStore tickStore;
+    @Getter
+    private static MarketSnapshotService marketSnapshotService;
+    @Getter
     private static HookManager hookManager;
     @Getter
     private static MetricsService metricsService;
@@ -102,10 +121,26 @@ public final class QuickStocksPlugin extends JavaPlugin {
     private static WorldGuardHook worldGuardHook;
     @Getter
     private static MarketScheduler marketScheduler;
+    @Getter
+    private static ServiceContainer serviceContainer;
     
     // Scheduler task tracking for reload functionality
     private static BukkitRunnable salaryPaymentTask;
     private static BukkitRunnable rentCollectionTask;
+    private static BukkitRunnable persistenceFlushTask;
+    private static BukkitRunnable historyPruneTask;
+
+    public static CryptoService getCryptoService() {
+        return cryptoService != null ? cryptoService.get() : null;
+    }
+
+    public static InvitationService getInvitationService() {
+        return invitationService != null ? invitationService.get() : null;
+    }
+
+    public static CompanyPlotService getCompanyPlotService() {
+        return companyPlotService != null ? companyPlotService.get() : null;
+    }
 
     @Override
     public void onLoad() {
@@ -138,71 +173,10 @@ public final class QuickStocksPlugin extends JavaPlugin {
             pluginLogger = new PluginLogger(this, debugLevel);
             pluginLogger.info("PluginLogger initialized with debug level: " + debugLevel);
             
-            // Initialize hook manager to detect external plugins
-            hookManager = new HookManager();
-            
-            // Initialize WorldGuard hook if available
-            if (hookManager.isHooked(HookType.WorldGuard) && WorldGuardFlags.QUICKSTOCKS_TRADING != null && WorldGuardFlags.QUICKSTOCKS_PLOTS != null) {
-                worldGuardHook = new WorldGuardHook();
-                getLogger().info("WorldGuard hook initialized successfully.");
-            } else {
-                getLogger().severe("WorldGuard flags unavailable; disabling QuickStocks to avoid NPEs.");
-                getServer().getPluginManager().disablePlugin(this);
-                return;
-            }
-
-            // Initialize translation service
-            translationService = new TranslationService();
-
-            // Initialize database
-            initializeDatabase();
-
-            guiConfig = new GuiConfig();
-            marketCfg = new MarketCfg();
-            tradingCfg = new TradingCfg();
-            companyCfg = new CompanyCfg();
-            cryptoCfg = new CryptoCfg();
-
-            DatabaseConfig config = ConfigLoader.loadDatabaseConfig();
-            PriceThresholdController thresholdController = new PriceThresholdController(config);
-
-            stockMarketService = new StockMarketService(thresholdController);
-            queryService = new QueryService();
-            cryptoService = new CryptoService();
-            walletService = new WalletService();
-            companyService = new CompanyService();
-            invitationService = new InvitationService();
-            companyMarketService = new CompanyMarketService();
-            salaryService = new SalaryService();
-            companyPlotService = new CompanyPlotService();
-            holdingsService = new HoldingsService();
-            tradingService = new TradingService();
-            watchlistService = new WatchlistService();
-            instrumentPersistenceService = new InstrumentPersistenceService();
-            tradingService.setStockMarketService(new StockMarketService());
-            
-            // Initialize market scheduler
-            marketScheduler = new MarketScheduler();
-
-            initializeDefaultStocks();
-            registerCommands();
-            registerListeners();
-            
-            // Start market hours scheduler
-            marketScheduler.start();
-            
-            // Start market price update task (every 5 minutes)
-            startMarketPriceUpdateTask();
-
-            startSalaryPaymentScheduler();
-            startRentCollectionScheduler();
-
-            if (getConfig().getBoolean("metrics.enabled", true)) {
-                metricsService = new MetricsService();
-                metricsService.initialize();
-            }
-
-            QuickStocksAPI.initialize(companyService, companyMarketService, tradingService, holdingsService, stockMarketService, instrumentPersistenceService, walletService, watchlistService, cryptoService);
+            serviceContainer = new ServiceContainer();
+            registerServices(serviceContainer);
+            serviceContainer.start();
+            logStartupReport();
             
             getLogger().info("QuickStocks enabled successfully! Market is now running.");
             
@@ -232,6 +206,43 @@ public final class QuickStocksPlugin extends JavaPlugin {
             stockMarketService.setMarketOpen(false);
         }
         
+        // Let queued trades finish while the database is still up
+        if (tradeLanes != null) {
+            tradeLanes.shutdown();
+        }
+        
+        // Write out queued instrument prices before the pool goes away
+        if (persistenceFlushTask != null && !persistenceFlushTask.isCancelled()) {
+            persistenceFlushTask.cancel();
+        }
+        if (instrumentStatePersister != null) {
+            instrumentStatePersister.flush();
+        }
+        
+        // Snapshot after the final flush so the saved prices match instrument_state
+        if (marketSnapshotService != null && stockMarketService != null) {
+            try {
+                marketSnapshotService.save(stockMarketService);
+            } catch (IOException e) {
+                getLogger().warning("Failed to write market snapshot: " + e.getMessage());
+            }
+        }
+        if (historyPruneTask != null && !historyPruneTask.isCancelled()) {
+            historyPruneTask.cancel();
+        }
+        if (tickStore != null) {
+            tickStore.close();
+        }
+        
+        // Keep trade cooldowns and notional windows across the restart
+        if (rateLimitService != null && tradingCfg != null && tradingCfg.getLimitsConfig().isPersistOnShutdown()) {
+            try {
+                rateLimitService.save(databaseManager.getDb());
+            } catch (SQLException e) {
+                getLogger().warning("Failed to save trade limits: " + e.getMessage());
+            }
+        }
+        
         // Shutdown metrics
         if (metricsService != null) {
             metricsService.shutdown();
@@ -245,6 +256,121 @@ public final class QuickStocksPlugin extends JavaPlugin {
         getLogger().info("QuickStocks disabled");
     }
     
+    /**
+     * Declares the startup graph. Database, translations and configuration files load in parallel with
+     * the hook detection; the market engine loads instruments while the remaining services are built.
+     */
+    private void registerServices(ServiceContainer container) {
+        container
+            .mainThread("hooks", () -> {
+                // Initialize hook manager to detect external plugins
+                hookManager = new HookManager();
+                
+                // Initialize WorldGuard hook if available
+                if (!hookManager.isHooked(HookType.WorldGuard) || WorldGuardFlags.QUICKSTOCKS_TRADING == null || WorldGuardFlags.QUICKSTOCKS_PLOTS == null) {
+                    throw new IllegalStateException("WorldGuard flags unavailable; disabling QuickStocks to avoid NPEs.");
+                }
+                worldGuardHook = new WorldGuardHook();
+                getLogger().info("WorldGuard hook initialized successfully.");
+            })
+            .background("translations", () -> translationService = new TranslationService())
+            .background("database", this::initializeDatabase)
+            .background("configs", () -> {
+                guiConfig = new GuiConfig();
+                marketCfg = new MarketCfg();
+                tradingCfg = new TradingCfg();
+                companyCfg = new CompanyCfg();
+                cryptoCfg = new CryptoCfg();
+            })
+            .background("persistence", () -> {
+                tickStore = createTickStore();
+                priceCandleService = new PriceCandleService();
+                instrumentStatePersister = new InstrumentStatePersister(databaseManager.getDb(), priceCandleService, tickStore,
+                    marketCfg.getPersistenceMaxPendingHistory(), marketCfg.getPersistenceBatchSize());
+            }, "database", "configs")
+            .background("market", () -> {
+                DatabaseConfig config = ConfigLoader.loadDatabaseConfig();
+                PriceThresholdController thresholdController = new PriceThresholdController(config);
+                
+                // The one market engine; trading records activity against the same prices and thresholds
+                stockMarketService = new StockMarketService(thresholdController);
+                if (marketCfg.isSnapshotEnabled()) {
+                    marketSnapshotService = new MarketSnapshotService(getDataFolder().toPath().resolve("market.snapshot"));
+                    marketSnapshotService.restore(stockMarketService);
+                }
+            }, "persistence")
+            .mainThread("services", () -> {
+                queryService = new QueryService();
+                walletService = new WalletService();
+                tradeLanes = new TradeLanes(() -> tradingCfg.getLimitsConfig().getMaxQueuedTradesPerPlayer());
+                companyService = new CompanyService();
+                companyMarketService = new CompanyMarketService();
+                salaryService = new SalaryService();
+                holdingsService = new HoldingsService();
+                tradingService = new TradingService();
+                watchlistService = new WatchlistService();
+                instrumentPersistenceService = new InstrumentPersistenceService();
+            }, "hooks", "translations", "database", "configs")
+            .mainThread("trading", () -> tradingService.setStockMarketService(stockMarketService), "services", "market")
+            .background("limits", () -> {
+                rateLimitService = new RateLimitService();
+                rateLimitService.load(databaseManager.getDb());
+            }, "database", "configs")
+            .mainThread("scheduler", () -> marketScheduler = new MarketScheduler(), "market")
+            .background("breakers", () -> {
+                // Halts are evaluated against every market update, not only after trades
+                circuitBreakerService = new CircuitBreakerService(stockMarketService::getInstrumentId);
+                circuitBreakerService.load(marketScheduler.sessionStart(), marketScheduler.sessionRollover());
+                stockMarketService.addTickListener(circuitBreakerService::onPrices);
+            }, "scheduler")
+            .background("orders", () -> {
+                // Resting limit and stop orders are evaluated against every market update
+                pendingOrderService = new PendingOrderService(databaseManager.getDb(), tradingCfg, stockMarketService::getInstrumentId);
+                pendingOrderService.load();
+                stockMarketService.addTickListener(pendingOrderService::onPrices);
+            }, "market", "limits", "breakers")
+            .mainThread("seed", this::initializeDefaultStocks, "market")
+            .mainThread("commands", this::registerCommands, "services", "market")
+            .mainThread("listeners", this::registerListeners, "services", "market")
+            .mainThread("tasks", () -> {
+                // Start market hours scheduler
+                marketScheduler.start();
+                
+                // Start market price update task (every 5 minutes)
+                startMarketPriceUpdateTask();
+                startPersistenceFlushTask();
+                startHistoryPruneTask();
+                
+                startSalaryPaymentScheduler();
+                startRentCollectionScheduler();
+            }, "scheduler", "trading", "seed")
+            .mainThread("metrics", () -> {
+                if (getConfig().getBoolean("metrics.enabled", true)) {
+                    metricsService = new MetricsService();
+                    metricsService.initialize();
+                }
+            })
+            .mainThread("api", () -> QuickStocksAPI.initialize(companyService, companyMarketService, tradingService, holdingsService,
+                stockMarketService, instrumentPersistenceService, walletService, watchlistService, cryptoService,
+                pendingOrderService), "trading", "orders");
+        
+        // Rarely used, built on first access
+        cryptoService = container.lazy("crypto", CryptoService::new);
+        invitationService = container.lazy("invitations", InvitationService::new);
+        companyPlotService = container.lazy("plots", CompanyPlotService::new);
+    }
+    
+    /**
+     * Logs how long each startup phase took.
+     */
+    private void logStartupReport() {
+        getLogger().info("Services started in " + serviceContainer.getWallMillis() + " ms ("
+            + serviceContainer.getWorkMillis() + " ms of work across phases)");
+        for (ServiceContainer.Timing timing : serviceContainer.getTimings()) {
+            getLogger().info("  " + timing.describe());
+        }
+    }
+    
     /**
      * Initializes the database system.
      */
@@ -281,7 +407,7 @@ public final class QuickStocksPlugin extends JavaPlugin {
         
         // Only register market-related commands if market system is enabled
         if (marketCfg.isEnabled()) {
-            registerCommand("market", new MarketCommand(databaseManager.getDb()));
+            registerCommand("market", new MarketCommand(databaseManager.getAsyncDb()));
             if (marketCfg.isMarketDeviceEnabled()) {
                 registerCommand("marketdevice", new MarketDeviceCommand());
             }
@@ -312,6 +438,10 @@ public final class QuickStocksPlugin extends JavaPlugin {
                 getServer().getPluginManager().registerEvents(new MarketGUIListener(), this);
                 getServer().getPluginManager().registerEvents(new PortfolioGUIListener(), this);
             }
+            // Shop trades move item instruments whether or not companies own the shops
+            if (marketCfg.isItemsEnabled() && stockMarketService != null && hookManager.isHooked(HookType.ChestShop)) {
+                getServer().getPluginManager().registerEvents(new ChestShopOrderFlowListener(stockMarketService.getOrderFlow()), this);
+            }
             getLogger().info("Registered market-related event listeners");
         }
         
@@ -462,12 +592,24 @@ public final class QuickStocksPlugin extends JavaPlugin {
                     if (schedulerAllowsTrading && serviceAllowsTrading) {
                         stockMarketService.updateAllStockPrices();
                         pluginLogger.debug("Updated all stock prices");
+                        if (marketSnapshotService != null) {
+                            marketSnapshotService.saveIfDue(stockMarketService, marketCfg.getSnapshotInterval() * 1000L);
+                        }
                     } else {
                         pluginLogger.debug("Skipping market update - market is closed");
                     }
                 } catch (Exception e) {
                     pluginLogger.warning("Error in market price update task: " + e.getMessage());
                 }
+                
+                // Company share prices follow their balances even while the market is closed
+                if (companyMarketService != null) {
+                    try {
+                        companyMarketService.flushSharePrices();
+                    } catch (Exception e) {
+                        pluginLogger.warning("Error updating company share prices: " + e.getMessage());
+                    }
+                }
             }
         };
         
@@ -476,6 +618,79 @@ public final class QuickStocksPlugin extends JavaPlugin {
         pluginLogger.info("Market price update task started (interval: " + updateInterval + " seconds)");
     }
     
+    /**
+     * Starts the task that flushes queued instrument states and price history.
+     * Package-private for reload functionality.
+     */
+    public void startPersistenceFlushTask() {
+        // Cancel existing task if running
+        if (persistenceFlushTask != null && !persistenceFlushTask.isCancelled()) {
+            persistenceFlushTask.cancel();
+        }
+        
+        long flushTicks = 20L * marketCfg.getPersistenceFlushInterval();
+        
+        persistenceFlushTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                try {
+                    instrumentStatePersister.flush();
+                } catch (Exception e) {
+                    pluginLogger.warning("Error in persistence flush task: " + e.getMessage());
+                }
+            }
+        };
+        persistenceFlushTask.runTaskTimerAsynchronously(this, flushTicks, flushTicks);
+        pluginLogger.info("Persistence flush task started (interval: " + marketCfg.getPersistenceFlushInterval() + " seconds)");
+    }
+    
+    /**
+     * Creates the raw tick store selected by market.history.tickStore.
+     * The file store imports the existing SQL history once on first use.
+     */
+    private TickStore createTickStore() throws IOException, SQLException {
+        SqlTickStore sqlStore = new SqlTickStore(databaseManager.getDb(), marketCfg.getPersistenceBatchSize());
+        if (!"file".equalsIgnoreCase(marketCfg.getHistoryTickStore())) {
+            return sqlStore;
+        }
+        
+        FileTickStore fileStore = new FileTickStore(getDataFolder().toPath().resolve("ticks"), marketCfg.getHistoryTickSegmentSize());
+        if (!fileStore.isImported()) {
+            long start = System.currentTimeMillis();
+            long imported = fileStore.importFrom(sqlStore);
+            pluginLogger.info("Imported " + imported + " price ticks into the file tick store in "
+                + (System.currentTimeMillis() - start) + " ms");
+        }
+        pluginLogger.info("Using file tick store");
+        return fileStore;
+    }
+    
+    /**
+     * Starts the task that prunes raw price ticks and candles past their retention horizon.
+     * Package-private for reload functionality.
+     */
+    public void startHistoryPruneTask() {
+        // Cancel existing task if running
+        if (historyPruneTask != null && !historyPruneTask.isCancelled()) {
+            historyPruneTask.cancel();
+        }
+        
+        long pruneTicks = 20L * marketCfg.getHistoryPruneInterval();
+        
+        historyPruneTask = new BukkitRunnable() {
+            @Override
+            public void run() {
+                try {
+                    priceCandleService.prune();
+                } catch (Exception e) {
+                    pluginLogger.warning("Error in price history prune task: " + e.getMessage());
+                }
+            }
+        };
+        historyPruneTask.runTaskTimerAsynchronously(this, pruneTicks, pruneTicks);
+        pluginLogger.info("Price history prune task started (interval: " + marketCfg.getHistoryPruneInterval() + " seconds)");
+    }
+    
     /**
      * Reinitializes the plugin logger with a new debug level.
      * Package-private for reload functionality.
@@ -9,6 +9,8 @@ import net.cyberneticforge.quickstocks.core.services.features.portfolio.WalletSe
 import net.cyberneticforge.quickstocks.core.services.features.portfolio.WatchlistService;
 import org.bukkit.plugin.Plugin;
 
+import java.util.function.Supplier;
+
 /**
  * Main API class for QuickStocks.
  * Provides centralized access to all manager classes for external plugins.
@@ -69,10 +71,11 @@ public class QuickStocksAPI {
                            InstrumentPersistenceService instrumentService,
                            WalletService walletService,
                            WatchlistService watchlistService,
-                           CryptoService cryptoService) {
+                           Supplier<CryptoService> cryptoService,
+                           PendingOrderService pendingOrderService) {
         
         this.companyManager = new CompanyManager(companyService, companyMarketService);
-        this.tradingManager = new TradingManager(tradingService, holdingsService);
+        this.tradingManager = new TradingManager(tradingService, holdingsService, pendingOrderService);
         this.marketManager = new MarketManager(stockMarketService, instrumentService);
         this.cryptoManager = new CryptoManager(cryptoService);
         this.portfolioManager = new PortfolioManager(walletService, holdingsService, watchlistService);
@@ -90,7 +93,8 @@ public class QuickStocksAPI {
      * @param instrumentService Instrument service instance
      * @param walletService Wallet service instance
      * @param watchlistService Watchlist service instance
-     * @param cryptoService Crypto service instance
+     * @param cryptoService Crypto service, resolved on first use
+     * @param pendingOrderService Resting limit and stop order service instance
      */
     public static void initialize(CompanyService companyService,
                                  CompanyMarketService companyMarketService,
@@ -100,7 +104,8 @@ public class QuickStocksAPI {
                                  InstrumentPersistenceService instrumentService,
                                  WalletService walletService,
                                  WatchlistService watchlistService,
-                                 CryptoService cryptoService) {
+                                 Supplier<CryptoService> cryptoService,
+                                 PendingOrderService pendingOrderService) {
         
         if (instance != null) {
             throw new IllegalStateException("QuickStocksAPI has already been initialized");
@@ -115,7 +120,8 @@ public class QuickStocksAPI {
             instrumentService,
             walletService,
             watchlistService,
-            cryptoService
+            cryptoService,
+            pendingOrderService
         );
     }
     
@@ -0,0 +1,87 @@
+package net.cyberneticforge.quickstocks.api.events;
+
+import lombok.Getter;
+import org.bukkit.event.Event;
+import org.bukkit.event.HandlerList;
+import org.jetbrains.annotations.NotNull;
+
+/**
+ * Event fired once per market update on the main thread with every instrument whose price changed.
+ * Entries are addressed by index, {@code 0} to {@code size() - 1}. The event is immutable and not
+ * cancellable - the prices have already been updated.
+ */
+@SuppressWarnings("unused")
+public class MarketTickEvent extends Event {
+
+    private static final HandlerList HANDLERS = new HandlerList();
+
+    private final String[] instrumentIds;
+    private final String[] symbols;
+    private final double[] oldPrices;
+    private final double[] newPrices;
+    @Getter
+    private final long timestamp;
+
+    /**
+     * Takes ownership of the arrays, which must all have the same length.
+     */
+    public MarketTickEvent(String[] instrumentIds, String[] symbols, double[] oldPrices, double[] newPrices, long timestamp) {
+        if (symbols.length != instrumentIds.length || oldPrices.length != instrumentIds.length
+            || newPrices.length != instrumentIds.length) {
+            throw new IllegalArgumentException("Tick arrays differ in length");
+        }
+        this.instrumentIds = instrumentIds;
+        this.symbols = symbols;
+        this.oldPrices = oldPrices;
+        this.newPrices = newPrices;
+        this.timestamp = timestamp;
+    }
+
+    /**
+     * Number of instruments whose price changed in this update.
+     */
+    public int size() {
+        return instrumentIds.length;
+    }
+
+    public String getInstrumentId(int index) {
+        return instrumentIds[index];
+    }
+
+    public String getSymbol(int index) {
+        return symbols[index];
+    }
+
+    public double getOldPrice(int index) {
+        return oldPrices[index];
+    }
+
+    public double getNewPrice(int index) {
+        return newPrices[index];
+    }
+
+    public double getChangePercent(int index) {
+        return oldPrices[index] > 0 ? ((newPrices[index] - oldPrices[index]) / oldPrices[index]) * 100.0 : 0.0;
+    }
+
+    /**
+     * Index of the instrument with the given symbol, or -1 if its price did not change.
+     */
+    public int indexOfSymbol(String symbol) {
+        for (int i = 0; i < symbols.length; i++) {
+            if (symbols[i].equalsIgnoreCase(symbol)) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    @Override
+    public @NotNull HandlerList getHandlers() {
+        return HANDLERS;
+    }
+
+    public static HandlerList getHandlerList() {
+        return HANDLERS;
+    }
+}
@@ -6,6 +6,7 @@ import net.cyberneticforge.quickstocks.core.services.features.market.CryptoServi
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Supplier;
 
 /**
  * API Manager for cryptocurrency operations.
@@ -14,9 +15,9 @@ import java.util.Optional;
 @SuppressWarnings("unused")
 public class CryptoManager {
     
-    private final CryptoService cryptoService;
+    private final Supplier<CryptoService> cryptoService;
     
-    public CryptoManager(CryptoService cryptoService) {
+    public CryptoManager(Supplier<CryptoService> cryptoService) {
         this.cryptoService = cryptoService;
     }
     
@@ -30,7 +31,7 @@ public class CryptoManager {
      * @throws SQLException if database error occurs
      */
     public String createCrypto(String playerUuid, String symbol, String displayName) throws SQLException {
-        return cryptoService.createCustomCrypto(playerUuid, symbol, displayName);
+        return cryptoService.get().createCustomCrypto(playerUuid, symbol, displayName);
     }
     
     /**
@@ -41,7 +42,7 @@ public class CryptoManager {
      * @throws SQLException if database error occurs
      */
     public Optional<Crypto> getCrypto(String cryptoId) throws SQLException {
-        return cryptoService.getCryptoById(cryptoId);
+        return cryptoService.get().getCryptoById(cryptoId);
     }
     
     /**
@@ -52,7 +53,7 @@ public class CryptoManager {
      * @throws SQLException if database error occurs
      */
     public Optional<Crypto> getCryptoBySymbol(String symbol) throws SQLException {
-        return cryptoService.getCryptoBySymbol(symbol);
+        return cryptoService.get().getCryptoBySymbol(symbol);
     }
     
     /**
@@ -62,7 +63,7 @@ public class CryptoManager {
      * @throws SQLException if database error occurs
      */
     public List<Crypto> getAllCryptos() throws SQLException {
-        return cryptoService.getAllCryptos();
+        return cryptoService.get().getAllCryptos();
     }
     
     /**
@@ -73,6 +74,6 @@ public class CryptoManager {
      * @throws SQLException if database error occurs
      */
     public List<Crypto> getCryptosByCreator(String playerUuid) throws SQLException {
-        return cryptoService.getCryptosByCreator(playerUuid);
+        return cryptoService.get().getCryptosByCreator(playerUuid);
     }
 }
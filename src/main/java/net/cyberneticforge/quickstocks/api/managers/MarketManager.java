@@ -2,6 +2,7 @@ package net.cyberneticforge.quickstocks.api.managers;
 
 import net.cyberneticforge.quickstocks.core.model.Instrument;
 import net.cyberneticforge.quickstocks.core.model.InstrumentState;
+import net.cyberneticforge.quickstocks.core.model.PriceCandle;
 import net.cyberneticforge.quickstocks.core.model.PriceHistory;
 import net.cyberneticforge.quickstocks.core.model.Stock;
 import net.cyberneticforge.quickstocks.core.services.features.market.InstrumentPersistenceService;
@@ -92,7 +93,7 @@ public class MarketManager {
     }
     
     /**
-     * Gets price history for an instrument.
+     * Gets price history for an instrument (1-minute resolution).
      * 
      * @param instrumentId The instrument ID
      * @param limit Maximum number of history entries to return
@@ -103,6 +104,46 @@ public class MarketManager {
         return instrumentService.getPriceHistory(instrumentId, limit);
     }
     
+    /**
+     * Gets price history for an instrument at the requested resolution.
+     * 
+     * @param instrumentId The instrument ID
+     * @param limit Maximum number of history entries to return
+     * @param resolution Candle resolution (1m, 1h or 1d)
+     * @return List of price history entries priced at the candle close
+     * @throws SQLException if database error occurs
+     */
+    public List<PriceHistory> getPriceHistory(String instrumentId, int limit, PriceCandle.Resolution resolution) throws SQLException {
+        return instrumentService.getPriceHistory(instrumentId, limit, resolution);
+    }
+    
+    /**
+     * Gets OHLC candles for an instrument.
+     * 
+     * @param instrumentId The instrument ID
+     * @param limit Maximum number of candles to return
+     * @param resolution Candle resolution (1m, 1h or 1d)
+     * @return List of candles, newest first
+     * @throws SQLException if database error occurs
+     */
+    public List<PriceCandle> getCandles(String instrumentId, int limit, PriceCandle.Resolution resolution) throws SQLException {
+        return instrumentService.getCandles(instrumentId, limit, resolution);
+    }
+    
+    /**
+     * Gets raw price ticks for an instrument within a time range. Only ticks inside the
+     * configured raw retention horizon are available, use candles for older data.
+     * 
+     * @param instrumentId The instrument ID
+     * @param from Start timestamp (inclusive, epoch millis)
+     * @param to End timestamp (exclusive, epoch millis)
+     * @return List of price history entries, oldest first
+     * @throws SQLException if database error occurs
+     */
+    public List<PriceHistory> getTickHistory(String instrumentId, long from, long to) throws SQLException {
+        return instrumentService.getTicks(instrumentId, from, to);
+    }
+    
     /**
      * Checks if the market is currently open.
      * 
@@ -1,5 +1,7 @@
 package net.cyberneticforge.quickstocks.api.managers;
 
+import net.cyberneticforge.quickstocks.core.model.OrderRequest;
+import net.cyberneticforge.quickstocks.core.services.features.market.PendingOrderService;
 import net.cyberneticforge.quickstocks.core.services.features.market.TradingService;
 import net.cyberneticforge.quickstocks.core.services.features.portfolio.HoldingsService;
 
@@ -15,10 +17,13 @@ public class TradingManager {
     
     private final TradingService tradingService;
     private final HoldingsService holdingsService;
+    private final PendingOrderService pendingOrderService;
     
-    public TradingManager(TradingService tradingService, HoldingsService holdingsService) {
+    public TradingManager(TradingService tradingService, HoldingsService holdingsService,
+                          PendingOrderService pendingOrderService) {
         this.tradingService = tradingService;
         this.holdingsService = holdingsService;
+        this.pendingOrderService = pendingOrderService;
     }
     
     /**
@@ -47,6 +52,80 @@ public class TradingManager {
         return tradingService.executeSellOrder(playerUuid, instrumentId, quantity).success();
     }
     
+    /**
+     * Places a limit order that rests until the price reaches the limit: at or below it for BUY, at or above for SELL.
+     * 
+     * @param playerUuid UUID of the player
+     * @param instrumentId ID of the instrument
+     * @param side BUY or SELL
+     * @param quantity Quantity to trade
+     * @param limitPrice Worst acceptable price
+     * @param expiresAt Epoch millis the order lapses at, or null for good till cancelled
+     * @return Result; executed right away if the price already meets the limit
+     * @throws SQLException if database error occurs
+     */
+    public TradingService.TradeResult placeLimitOrder(String playerUuid, String instrumentId, String side, double quantity,
+                                                      double limitPrice, Long expiresAt) throws SQLException {
+        return pendingOrderService.place(OrderRequest.limitOrder(playerUuid, instrumentId, side, quantity, limitPrice), expiresAt);
+    }
+    
+    /**
+     * Places a stop order that executes at market once the price reaches the stop: at or above it for BUY,
+     * at or below for SELL.
+     * 
+     * @param playerUuid UUID of the player
+     * @param instrumentId ID of the instrument
+     * @param side BUY or SELL
+     * @param quantity Quantity to trade
+     * @param stopPrice Trigger price
+     * @param expiresAt Epoch millis the order lapses at, or null for good till cancelled
+     * @return Result; executed right away if the price is already past the stop
+     * @throws SQLException if database error occurs
+     */
+    public TradingService.TradeResult placeStopOrder(String playerUuid, String instrumentId, String side, double quantity,
+                                                     double stopPrice, Long expiresAt) throws SQLException {
+        return pendingOrderService.place(OrderRequest.stopOrder(playerUuid, instrumentId, side, quantity, stopPrice), expiresAt);
+    }
+    
+    /**
+     * Places a trailing stop that follows the best price at a fixed percentage distance.
+     * 
+     * @param playerUuid UUID of the player
+     * @param instrumentId ID of the instrument
+     * @param side BUY or SELL
+     * @param quantity Quantity to trade
+     * @param trailPercent Distance from the best price in percent
+     * @param expiresAt Epoch millis the order lapses at, or null for good till cancelled
+     * @return Result of placing the order
+     * @throws SQLException if database error occurs
+     */
+    public TradingService.TradeResult placeTrailingStop(String playerUuid, String instrumentId, String side, double quantity,
+                                                        double trailPercent, Long expiresAt) throws SQLException {
+        return pendingOrderService.placeTrailingStop(playerUuid, instrumentId, side, quantity, trailPercent, expiresAt);
+    }
+    
+    /**
+     * Cancels a pending order of the player.
+     * 
+     * @param playerUuid UUID of the player
+     * @param orderId ID of the pending order
+     * @return true if cancelled, false if the player has no such pending order
+     * @throws SQLException if database error occurs
+     */
+    public boolean cancelOrder(String playerUuid, String orderId) throws SQLException {
+        return pendingOrderService.cancel(playerUuid, orderId);
+    }
+    
+    /**
+     * Gets a player's pending limit and stop orders, oldest first.
+     * 
+     * @param playerUuid UUID of the player
+     * @return List of pending orders
+     */
+    public List<PendingOrderService.PendingOrder> getPendingOrders(String playerUuid) {
+        return pendingOrderService.getPendingOrders(playerUuid);
+    }
+    
     /**
      * Gets a player's holdings for a specific instrument.
      * 
@@ -6,6 +6,7 @@ import net.cyberneticforge.quickstocks.core.model.*;
 import net.cyberneticforge.quickstocks.gui.CompanySettingsGUI;
 import net.cyberneticforge.quickstocks.gui.PlotEditGUI;
 import net.cyberneticforge.quickstocks.core.enums.HookType;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.cyberneticforge.quickstocks.utils.ChatUT;
 import org.bukkit.Bukkit;
@@ -19,8 +20,10 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.sql.SQLException;
 import java.text.SimpleDateFormat;
 import java.util.*;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -229,66 +232,67 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
         Translation.Company_InfoType.sendMessage(player, new Replaceable("%type%", type));
     }
     
-    private void handleInfo(Player player, String playerUuid, String[] args) throws Exception {
-        String companyName;
-        
+    private void handleInfo(Player player, String playerUuid, String[] args) {
         if (args.length < 2) {
             // Show player's companies
-            List<Company> companies = QuickStocksPlugin.getCompanyService().getCompaniesByPlayer(playerUuid);
-            
-            if (companies.isEmpty()) {
-                Translation.Company_Error_NotEmployee.sendMessage(player, new Replaceable("%company%", "any"));
-                return;
-            }
-            
-            Translation.Company_ListHeader.sendMessage(player);
-            for (Company company : companies) {
-                Optional<CompanyJob> job = QuickStocksPlugin.getCompanyService().getPlayerJob(company.getId(), playerUuid);
-                String jobTitle = job.isPresent() ? job.get().getTitle() : "Unknown";
+            loadAsync(player, db -> {
+                List<CompanyRole> roles = new ArrayList<>();
+                for (Company company : QuickStocksPlugin.getCompanyService().getCompaniesByPlayer(playerUuid)) {
+                    Optional<CompanyJob> job = QuickStocksPlugin.getCompanyService().getPlayerJob(company.getId(), playerUuid);
+                    roles.add(new CompanyRole(company, job.map(CompanyJob::getTitle).orElse("Unknown")));
+                }
+                return roles;
+            }, roles -> {
+                if (roles.isEmpty()) {
+                    Translation.Company_Error_NotEmployee.sendMessage(player, new Replaceable("%company%", "any"));
+                    return;
+                }
                 
-                Translation.Company_ListItem.sendMessage(player, 
-                    new Replaceable("%company%", company.getName()),
-                    new Replaceable("%type%", company.getType() + " - " + jobTitle));
-                Translation.Company_InfoBalance.sendMessage(player,
-                    new Replaceable("%balance%", String.format("%.2f", company.getBalance())));
-            }
-            return;
-        }
-        
-        companyName = args[1];
-        Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByName(companyName);
-        
-        if (companyOpt.isEmpty()) {
-            Translation.Company_Error_CompanyNotFound.sendMessage(player, new Replaceable("%company%", companyName));
+                Translation.Company_ListHeader.sendMessage(player);
+                for (CompanyRole role : roles) {
+                    Translation.Company_ListItem.sendMessage(player, 
+                        new Replaceable("%company%", role.company().getName()),
+                        new Replaceable("%type%", role.company().getType() + " - " + role.jobTitle()));
+                    Translation.Company_InfoBalance.sendMessage(player,
+                        new Replaceable("%balance%", String.format("%.2f", role.company().getBalance())));
+                }
+            });
             return;
         }
         
-        Company company = companyOpt.get();
-        OfflinePlayer owner = Bukkit.getOfflinePlayer(UUID.fromString(company.getOwnerUuid()));
-        
-        Translation.Company_InfoHeader.sendMessage(player, new Replaceable("%company%", company.getName()));
-        Translation.Company_InfoType.sendMessage(player, new Replaceable("%type%", company.getType()));
-        Translation.Company_InfoOwner.sendMessage(player, new Replaceable("%owner%", owner.getName() != null ? owner.getName() : "Unknown"));
-        Translation.Company_InfoBalance.sendMessage(player, new Replaceable("%balance%", String.format("%.2f", company.getBalance())));
-        Translation.Company_InfoCreated.sendMessage(player, new Replaceable("%date%", dateFormat.format(new Date(company.getCreatedAt()))));
-        
-        // Show player's job if they're an employee
-        Optional<CompanyJob> playerJob = QuickStocksPlugin.getCompanyService().getPlayerJob(company.getId(), playerUuid);
-        if (playerJob.isPresent()) {
-            CompanyJob job = playerJob.get();
-            String permissions = (job.canManageCompany() ? "Manage " : "") +
-                             (job.canInvite() ? "Invite " : "") +
-                             (job.canCreateTitles() ? "CreateJobs " : "") +
-                             (job.canWithdraw() ? "Withdraw " : "") +
-                             (job.canManageSalaries() ? "Salaries " : "") +
-                             (job.canManagePlots() ? "Plots " : "") +
-                             (job.canManageChestShop() ? "ChestShop" : "");
-            Translation.Company_JobItem.sendMessage(player, new Replaceable("%job%", job.getTitle()));
-            Translation.Company_JobPermissions.sendMessage(player, new Replaceable("%permissions%", permissions));
-        }
+        String companyName = args[1];
+        loadAsync(player, db -> {
+            Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByName(companyName);
+            if (companyOpt.isEmpty()) {
+                return null;
+            }
+            Company company = companyOpt.get();
+            return new CompanyMembership(company, QuickStocksPlugin.getCompanyService().getPlayerJob(company.getId(), playerUuid));
+        }, membership -> {
+            if (membership == null) {
+                Translation.Company_Error_CompanyNotFound.sendMessage(player, new Replaceable("%company%", companyName));
+                return;
+            }
+            
+            Company company = membership.company();
+            OfflinePlayer owner = Bukkit.getOfflinePlayer(UUID.fromString(company.getOwnerUuid()));
+            
+            Translation.Company_InfoHeader.sendMessage(player, new Replaceable("%company%", company.getName()));
+            Translation.Company_InfoType.sendMessage(player, new Replaceable("%type%", company.getType()));
+            Translation.Company_InfoOwner.sendMessage(player, new Replaceable("%owner%", owner.getName() != null ? owner.getName() : "Unknown"));
+            Translation.Company_InfoBalance.sendMessage(player, new Replaceable("%balance%", String.format("%.2f", company.getBalance())));
+            Translation.Company_InfoCreated.sendMessage(player, new Replaceable("%date%", dateFormat.format(new Date(company.getCreatedAt()))));
+            
+            // Show player's job if they're an employee
+            if (membership.job().isPresent()) {
+                CompanyJob job = membership.job().get();
+                Translation.Company_JobItem.sendMessage(player, new Replaceable("%job%", job.getTitle()));
+                Translation.Company_JobPermissions.sendMessage(player, new Replaceable("%permissions%", describePermissions(job)));
+            }
+        });
     }
     
-    private void handleList(Player player, String[] args) throws Exception {
+    private void handleList(Player player, String[] args) {
         int page = 0;
         if (args.length > 1) {
             try {
@@ -300,21 +304,22 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
             }
         }
         
-        List<Company> companies = QuickStocksPlugin.getCompanyService().listCompanies(page, 10);
-        
-        if (companies.isEmpty()) {
-            Translation.Company_NoNotifications.sendMessage(player);
-            return;
-        }
-        
-        Translation.Company_ListHeader.sendMessage(player);
-        for (Company company : companies) {
-            Translation.Company_ListItem.sendMessage(player,
-                new Replaceable("%company%", company.getName()),
-                new Replaceable("%type%", company.getType()));
-            Translation.Company_InfoBalance.sendMessage(player,
-                new Replaceable("%balance%", String.format("%.2f", company.getBalance())));
-        }
+        int listPage = page;
+        loadAsync(player, db -> QuickStocksPlugin.getCompanyService().listCompanies(listPage, 10), companies -> {
+            if (companies.isEmpty()) {
+                Translation.Company_NoNotifications.sendMessage(player);
+                return;
+            }
+            
+            Translation.Company_ListHeader.sendMessage(player);
+            for (Company company : companies) {
+                Translation.Company_ListItem.sendMessage(player,
+                    new Replaceable("%company%", company.getName()),
+                    new Replaceable("%type%", company.getType()));
+                Translation.Company_InfoBalance.sendMessage(player,
+                    new Replaceable("%balance%", String.format("%.2f", company.getBalance())));
+            }
+        });
     }
     
     private void handleInvite(Player player, String playerUuid, String[] args) throws Exception {
@@ -443,27 +448,31 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
         Translation.Company_InviteDeclined.sendMessage(player, new Replaceable("%company%", companyName));
     }
     
-    private void handleInvitations(Player player, String playerUuid) throws Exception {
-        List<CompanyInvitation> invitations = QuickStocksPlugin.getInvitationService().getPendingInvitations(playerUuid);
-        
-        if (invitations.isEmpty()) {
-            Translation.Company_NoInvitations.sendMessage(player);
-            return;
-        }
-        
-        Translation.Company_InvitationsHeader.sendMessage(player);
-        for (CompanyInvitation invitation : invitations) {
-            Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyById(invitation.companyId());
-            Optional<CompanyJob> jobOpt = QuickStocksPlugin.getCompanyService().getJobById(invitation.jobId());
-            if (companyOpt.isPresent() && jobOpt.isPresent()) {
-                Company company = companyOpt.get();
-                CompanyJob job = jobOpt.get();
+    private void handleInvitations(Player player, String playerUuid) {
+        loadAsync(player, db -> {
+            List<InvitationLine> lines = new ArrayList<>();
+            for (CompanyInvitation invitation : QuickStocksPlugin.getInvitationService().getPendingInvitations(playerUuid)) {
+                Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyById(invitation.companyId());
+                Optional<CompanyJob> jobOpt = QuickStocksPlugin.getCompanyService().getJobById(invitation.jobId());
+                if (companyOpt.isPresent() && jobOpt.isPresent()) {
+                    lines.add(new InvitationLine(companyOpt.get().getName(), jobOpt.get().getTitle(), invitation.expiresAt()));
+                }
+            }
+            return lines;
+        }, lines -> {
+            if (lines.isEmpty()) {
+                Translation.Company_NoInvitations.sendMessage(player);
+                return;
+            }
+            
+            Translation.Company_InvitationsHeader.sendMessage(player);
+            for (InvitationLine line : lines) {
                 Translation.Company_InvitationDetails.sendMessage(player,
-                    new Replaceable("%company%", company.getName()),
-                    new Replaceable("%job%", job.getTitle()),
-                    new Replaceable("%date%", dateFormat.format(new Date(invitation.expiresAt()))));
+                    new Replaceable("%company%", line.companyName()),
+                    new Replaceable("%job%", line.jobTitle()),
+                    new Replaceable("%date%", dateFormat.format(new Date(line.expiresAt()))));
             }
-        }
+        });
     }
     
     private void handleDeposit(Player player, String playerUuid, String[] args) throws Exception {
@@ -518,76 +527,77 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
         Translation.Company_Withdrawn.sendMessage(player, new Replaceable("%company%", companyName), new Replaceable("%amount%", String.format("%.2f", amount)));
     }
     
-    private void handleEmployees(Player player, String[] args) throws Exception {
+    private void handleEmployees(Player player, String[] args) {
         if (args.length < 2) {
             Translation.CommandSyntax.sendMessage(player, new Replaceable("%command%", "/company employees <company>"));
             return;
         }
         
         String companyName = args[1];
-        Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByName(companyName);
-        
-        if (companyOpt.isEmpty()) {
-            Translation.Company_Error_CompanyNotFound.sendMessage(player);
-            return;
-        }
-        
-        List<Map<String, Object>> employees = QuickStocksPlugin.getCompanyService().getCompanyEmployees(companyOpt.get().getId());
-        
-        if (employees.isEmpty()) {
-            Translation.Company_NoEmployees.sendMessage(player);
-            return;
-        }
-        
-        Translation.Company_EmployeesHeader.sendMessage(player,
-            new Replaceable("%company%", companyOpt.get().getName()));
-        for (Map<String, Object> emp : employees) {
-            String playerUuid = (String) emp.get("player_uuid");
-            String title = (String) emp.get("title");
-            OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(playerUuid));
-            String playerName = offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown";
+        loadAsync(player, db -> loadCompanyRows(companyName,
+            company -> QuickStocksPlugin.getCompanyService().getCompanyEmployees(company.getId())), found -> {
+            if (found == null) {
+                Translation.Company_Error_CompanyNotFound.sendMessage(player);
+                return;
+            }
             
-            Translation.Company_EmployeeItem.sendMessage(player,
-                new Replaceable("%player%", playerName),
-                new Replaceable("%job%", title));
-        }
+            if (found.rows().isEmpty()) {
+                Translation.Company_NoEmployees.sendMessage(player);
+                return;
+            }
+            
+            Translation.Company_EmployeesHeader.sendMessage(player,
+                new Replaceable("%company%", found.company().getName()));
+            for (Map<String, Object> emp : found.rows()) {
+                String playerUuid = (String) emp.get("player_uuid");
+                String title = (String) emp.get("title");
+                OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(playerUuid));
+                String playerName = offlinePlayer.getName() != null ? offlinePlayer.getName() : "Unknown";
+                
+                Translation.Company_EmployeeItem.sendMessage(player,
+                    new Replaceable("%player%", playerName),
+                    new Replaceable("%job%", title));
+            }
+        });
     }
     
-    private void handleJobs(Player player, String[] args) throws Exception {
+    private void handleJobs(Player player, String[] args) {
         if (args.length < 2) {
             Translation.CommandSyntax.sendMessage(player, new Replaceable("%command%", "/company jobs <company>"));
             return;
         }
         
         String companyName = args[1];
-        Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByName(companyName);
-        
-        if (companyOpt.isEmpty()) {
-            Translation.Company_Error_CompanyNotFound.sendMessage(player);
-            return;
-        }
-        
-        List<CompanyJob> jobs = QuickStocksPlugin.getCompanyService().getCompanyJobs(companyOpt.get().getId());
-        
-        if (jobs.isEmpty()) {
-            Translation.Company_NoJobs.sendMessage(player);
-            return;
-        }
-        
-        Translation.Company_JobsHeader.sendMessage(player,
-            new Replaceable("%company%", companyOpt.get().getName()));
-        for (CompanyJob job : jobs) {
-            String permissions = (job.canManageCompany() ? "Manage " : "") +
-                             (job.canInvite() ? "Invite " : "") +
-                             (job.canCreateTitles() ? "CreateJobs " : "") +
-                             (job.canWithdraw() ? "Withdraw " : "") +
-                             (job.canManageSalaries() ? "Salaries " : "") +
-                             (job.canManagePlots() ? "Plots " : "") +
-                             (job.canManageChestShop() ? "ChestShop" : "");
-            Translation.Company_JobDetails.sendMessage(player,
-                new Replaceable("%job%", job.getTitle()),
-                new Replaceable("%permissions%", permissions));
-        }
+        loadAsync(player, db -> loadCompanyRows(companyName,
+            company -> QuickStocksPlugin.getCompanyService().getCompanyJobs(company.getId())), found -> {
+            if (found == null) {
+                Translation.Company_Error_CompanyNotFound.sendMessage(player);
+                return;
+            }
+            
+            if (found.rows().isEmpty()) {
+                Translation.Company_NoJobs.sendMessage(player);
+                return;
+            }
+            
+            Translation.Company_JobsHeader.sendMessage(player,
+                new Replaceable("%company%", found.company().getName()));
+            for (CompanyJob job : found.rows()) {
+                Translation.Company_JobDetails.sendMessage(player,
+                    new Replaceable("%job%", job.getTitle()),
+                    new Replaceable("%permissions%", describePermissions(job)));
+            }
+        });
+    }
+    
+    private static String describePermissions(CompanyJob job) {
+        return (job.canManageCompany() ? "Manage " : "") +
+               (job.canInvite() ? "Invite " : "") +
+               (job.canCreateTitles() ? "CreateJobs " : "") +
+               (job.canWithdraw() ? "Withdraw " : "") +
+               (job.canManageSalaries() ? "Salaries " : "") +
+               (job.canManagePlots() ? "Plots " : "") +
+               (job.canManageChestShop() ? "ChestShop" : "");
     }
     
     private void handleCreateJob(Player player, String playerUuid, String[] args) throws Exception {
@@ -1065,29 +1075,34 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
     /**
      * Handles viewing player notifications.
      */
-    private void handleNotifications(Player player, String playerUuid) throws Exception {
-        List<Map<String, Object>> notifications = QuickStocksPlugin.getCompanyMarketService().getUnreadNotifications(playerUuid);
-        
-        if (notifications.isEmpty()) {
-            Translation.Company_NoNotifications.sendMessage(player);
-            return;
-        }
-        
-        Translation.Company_NotificationsHeader.sendMessage(player);
-        
-        for (Map<String, Object> notif : notifications) {
-            String message = (String) notif.get("message");
-            long createdAt = ((Number) notif.get("created_at")).longValue();
-            String timeStr = dateFormat.format(new Date(createdAt));
+    private void handleNotifications(Player player, String playerUuid) {
+        loadAsync(player, db -> {
+            List<Map<String, Object>> notifications = QuickStocksPlugin.getCompanyMarketService().getUnreadNotifications(playerUuid);
+            if (!notifications.isEmpty()) {
+                // Mark all as read
+                QuickStocksPlugin.getCompanyMarketService().markAllNotificationsRead(playerUuid);
+            }
+            return notifications;
+        }, notifications -> {
+            if (notifications.isEmpty()) {
+                Translation.Company_NoNotifications.sendMessage(player);
+                return;
+            }
             
-            Translation.Company_NotificationItem.sendMessage(player,
-                new Replaceable("%time%", timeStr),
-                new Replaceable("%message%", message));
-        }
-        
-        // Mark all as read
-        QuickStocksPlugin.getCompanyMarketService().markAllNotificationsRead(playerUuid);
-        Translation.Company_NotificationsRead.sendMessage(player);
+            Translation.Company_NotificationsHeader.sendMessage(player);
+            
+            for (Map<String, Object> notif : notifications) {
+                String message = (String) notif.get("message");
+                long createdAt = ((Number) notif.get("created_at")).longValue();
+                String timeStr = dateFormat.format(new Date(createdAt));
+                
+                Translation.Company_NotificationItem.sendMessage(player,
+                    new Replaceable("%time%", timeStr),
+                    new Replaceable("%message%", message));
+            }
+            
+            Translation.Company_NotificationsRead.sendMessage(player);
+        });
     }
     
     /**
@@ -1672,7 +1687,7 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
     /**
      * Handles listing plots for a company.
      */
-    private void handlePlots(Player player, String[] args) throws Exception {
+    private void handlePlots(Player player, String[] args) {
         if (!QuickStocksPlugin.getCompanyCfg().isPlotsEnabled()) {
             Translation.Company_Plots_Disabled.sendMessage(player);
             return;
@@ -1684,33 +1699,31 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
         }
         
         String companyName = args[1];
-        Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByName(companyName);
-        
-        if (companyOpt.isEmpty()) {
-            Translation.Company_Error_CompanyNotFound.sendMessage(player, new Replaceable("%company%", companyName));
-            return;
-        }
-        
-        Company company = companyOpt.get();
-        List<CompanyPlot> plots = QuickStocksPlugin.getCompanyPlotService().getCompanyPlots(company.getId());
-        
-        if (plots.isEmpty()) {
-            Translation.Company_Plot_NoPlots.sendMessage(player, new Replaceable("%company%", companyName));
-            return;
-        }
-        
-        Translation.Company_Plot_ListHeader.sendMessage(player, new Replaceable("%company%", companyName));
-        for (CompanyPlot plot : plots) {
-            String rentInfo = plot.hasRent() ? 
-                " (Rent: $" + String.format("%.2f", plot.getRentAmount()) + "/" + plot.getRentInterval() + ")" : 
-                " (No rent)";
+        loadAsync(player, db -> loadCompanyRows(companyName,
+            company -> QuickStocksPlugin.getCompanyPlotService().getCompanyPlots(company.getId())), found -> {
+            if (found == null) {
+                Translation.Company_Error_CompanyNotFound.sendMessage(player, new Replaceable("%company%", companyName));
+                return;
+            }
             
-            Translation.Company_Plot_ListItem.sendMessage(player,
-                new Replaceable("%world%", plot.getWorldName()),
-                new Replaceable("%x%", String.valueOf(plot.getChunkX())),
-                new Replaceable("%z%", String.valueOf(plot.getChunkZ())),
-                new Replaceable("%rent%", rentInfo));
-        }
+            if (found.rows().isEmpty()) {
+                Translation.Company_Plot_NoPlots.sendMessage(player, new Replaceable("%company%", companyName));
+                return;
+            }
+            
+            Translation.Company_Plot_ListHeader.sendMessage(player, new Replaceable("%company%", companyName));
+            for (CompanyPlot plot : found.rows()) {
+                String rentInfo = plot.hasRent() ? 
+                    " (Rent: $" + String.format("%.2f", plot.getRentAmount()) + "/" + plot.getRentInterval() + ")" : 
+                    " (No rent)";
+                
+                Translation.Company_Plot_ListItem.sendMessage(player,
+                    new Replaceable("%world%", plot.getWorldName()),
+                    new Replaceable("%x%", String.valueOf(plot.getChunkX())),
+                    new Replaceable("%z%", String.valueOf(plot.getChunkZ())),
+                    new Replaceable("%rent%", rentInfo));
+            }
+        });
     }
     
     /**
@@ -1820,4 +1833,42 @@ public class CompanyCommand implements CommandExecutor, TabCompleter {
         PlotEditGUI gui = new PlotEditGUI(player, plot);
         player.openInventory(gui.getInventory());
     }
+    
+    /**
+     * Runs the lookups of a read-only subcommand off the main thread and renders the result on it.
+     */
+    private <T> void loadAsync(Player player, AsyncDb.SqlCall<T> load, Consumer<T> render) {
+        AsyncDb.thenSync(QuickStocksPlugin.getDatabaseManager().getAsyncDb().supplyRead(load), render, error -> {
+            logger.warning("Error in company command for " + player.getName() + ": " + error.getMessage());
+            Translation.Errors_Internal.sendMessage(player, new Replaceable("%error%", error.getMessage()));
+        });
+    }
+    
+    /**
+     * Finds a company by name and loads its rows; null when there is no such company.
+     */
+    private static <T> CompanyRows<T> loadCompanyRows(String companyName, CompanyLoader<T> loader) throws SQLException {
+        Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByName(companyName);
+        if (companyOpt.isEmpty()) {
+            return null;
+        }
+        return new CompanyRows<>(companyOpt.get(), loader.load(companyOpt.get()));
+    }
+    
+    @FunctionalInterface
+    private interface CompanyLoader<T> {
+        List<T> load(Company company) throws SQLException;
+    }
+    
+    private record CompanyRows<T>(Company company, List<T> rows) {
+    }
+    
+    private record CompanyRole(Company company, String jobTitle) {
+    }
+    
+    private record CompanyMembership(Company company, Optional<CompanyJob> job) {
+    }
+    
+    private record InvitationLine(String companyName, String jobTitle, long expiresAt) {
+    }
 }
@@ -6,7 +6,7 @@ import net.cyberneticforge.quickstocks.core.model.Company;
 import net.cyberneticforge.quickstocks.core.model.Replaceable;
 import net.cyberneticforge.quickstocks.core.services.features.portfolio.WatchlistService;
 import net.cyberneticforge.quickstocks.gui.MarketGUI;
-import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -15,9 +15,12 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -28,10 +31,10 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
     
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
-    private final Db database;
+    private final AsyncDb asyncDb;
     
-    public MarketCommand(Db database) {
-        this.database = database;
+    public MarketCommand(AsyncDb asyncDb) {
+        this.asyncDb = asyncDb;
     }
     
     @Override
@@ -190,39 +193,62 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
         Translation.Market_Overview_BuyHint.sendMessage(player);
     }
     
-    private void showPortfolio(Player player, String playerUuid) throws Exception {
-        // Get company shares from user_holdings (instruments infrastructure)
-        List<Map<String, Object>> companyShares = database.query(
-            """
-            SELECT\s
-                uh.instrument_id, uh.qty as shares, uh.avg_cost,\s
-                i.symbol, i.display_name as name,
-                c.id as company_id, c.balance
-            FROM user_holdings uh
-            JOIN instruments i ON uh.instrument_id = i.id
-            LEFT JOIN companies c ON i.id = 'COMPANY_' || c.id
-            WHERE uh.player_uuid = ? AND uh.qty > 0 AND i.type = 'EQUITY'
-            ORDER BY i.symbol
-           \s""",
-            playerUuid
-        );
-        
-        double walletBalance = QuickStocksPlugin.getWalletService().getBalance(playerUuid);
-        
-        // Calculate total portfolio value
-        double portfolioValue = 0.0;
-        for (Map<String, Object> share : companyShares) {
-            String companyId = (String) share.get("company_id");
-            double shares = ((Number) share.get("shares")).doubleValue();
+    private void showPortfolio(Player player, String playerUuid) {
+        boolean vault = QuickStocksPlugin.getWalletService().isUsingVault();
+        CompletableFuture<Portfolio> portfolio = asyncDb.supplyRead(db -> {
+            // Get company shares from user_holdings (instruments infrastructure)
+            List<Map<String, Object>> companyShares = db.query(
+                """
+                SELECT\s
+                    uh.instrument_id, uh.qty as shares, uh.avg_cost,\s
+                    i.symbol, i.display_name as name,
+                    c.id as company_id, c.balance
+                FROM user_holdings uh
+                JOIN instruments i ON uh.instrument_id = i.id
+                LEFT JOIN companies c ON i.id = 'COMPANY_' || c.id
+                WHERE uh.player_uuid = ? AND uh.qty > 0 AND i.type = 'EQUITY'
+                ORDER BY i.symbol
+               \s""",
+                playerUuid
+            );
             
-            if (companyId != null) {
+            List<PortfolioLine> lines = new ArrayList<>();
+            for (Map<String, Object> share : companyShares) {
+                String companyId = (String) share.get("company_id");
+                if (companyId == null) continue;
+                
                 // Get company to calculate current share price
                 Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyById(companyId);
-                if (companyOpt.isPresent()) {
-                    double currentPrice = QuickStocksPlugin.getCompanyMarketService().calculateSharePrice(companyOpt.get());
-                    portfolioValue += shares * currentPrice;
-                }
+                if (companyOpt.isEmpty()) continue;
+                
+                lines.add(new PortfolioLine((String) share.get("name"), (String) share.get("symbol"),
+                    ((Number) share.get("shares")).doubleValue(), ((Number) share.get("avg_cost")).doubleValue(),
+                    QuickStocksPlugin.getCompanyMarketService().calculateSharePrice(companyOpt.get())));
             }
+            // Vault balances are read on the main thread
+            double walletBalance = vault ? Double.NaN : QuickStocksPlugin.getWalletService().getBalance(playerUuid);
+            return new Portfolio(lines, walletBalance);
+        });
+        
+        AsyncDb.thenSync(portfolio, loaded -> {
+            try {
+                renderPortfolio(player, loaded, Double.isNaN(loaded.walletBalance())
+                    ? QuickStocksPlugin.getWalletService().getBalance(playerUuid) : loaded.walletBalance());
+            } catch (Exception e) {
+                logger.warning("Error in market command for " + player.getName() + ": " + e.getMessage());
+                Translation.Market_ErrorProcessing.sendMessage(player);
+            }
+        }, error -> {
+            logger.warning("Error in market command for " + player.getName() + ": " + error.getMessage());
+            Translation.Market_ErrorProcessing.sendMessage(player);
+        });
+    }
+    
+    private void renderPortfolio(Player player, Portfolio portfolio, double walletBalance) {
+        // Calculate total portfolio value
+        double portfolioValue = 0.0;
+        for (PortfolioLine line : portfolio.lines()) {
+            portfolioValue += line.shares() * line.currentPrice();
         }
         
         Translation.Market_Portfolio_Header.sendMessage(player);
@@ -233,24 +259,16 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
         Translation.Market_Portfolio_TotalAssets.sendMessage(player,
             new Replaceable("%total%", String.format("%.2f", walletBalance + portfolioValue)));
         
-        if (companyShares.isEmpty()) {
+        if (portfolio.lines().isEmpty()) {
             Translation.Market_Portfolio_NoHoldings.sendMessage(player);
             return;
         }
         
         Translation.Market_Portfolio_HoldingsHeader.sendMessage(player);
-        for (Map<String, Object> share : companyShares) {
-            String companyId = (String) share.get("company_id");
-            String name = (String) share.get("name");
-            String symbol = (String) share.get("symbol");
-            double shares = ((Number) share.get("shares")).doubleValue();
-            double avgCost = ((Number) share.get("avg_cost")).doubleValue();
-            
-            // Get company to calculate current share price
-            Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyById(companyId);
-            if (companyOpt.isEmpty()) continue;
-            
-            double currentPrice = QuickStocksPlugin.getCompanyMarketService().calculateSharePrice(companyOpt.get());
+        for (PortfolioLine line : portfolio.lines()) {
+            double shares = line.shares();
+            double avgCost = line.avgCost();
+            double currentPrice = line.currentPrice();
             double unrealizedPnL = (currentPrice - avgCost) * shares;
             double unrealizedPnLPercent = ((currentPrice - avgCost) / avgCost) * 100;
             
@@ -258,8 +276,8 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
             String pnlArrow = unrealizedPnL >= 0 ? "▲" : "▼";
             
             Translation.Market_Portfolio_HoldingItem.sendMessage(player,
-                new Replaceable("%company%", name),
-                new Replaceable("%symbol%", symbol),
+                new Replaceable("%company%", line.name()),
+                new Replaceable("%symbol%", line.symbol()),
                 new Replaceable("%qty%", String.format("%.2f", shares)),
                 new Replaceable("%shares%", String.format("%.2f", shares)),
                 new Replaceable("%avgcost%", String.format("%.2f", avgCost)),
@@ -271,9 +289,21 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
         }
     }
     
-    private void showOrderHistory(Player player, String playerUuid) throws Exception {
+    /**
+     * One company holding with its current share price.
+     */
+    private record PortfolioLine(String name, String symbol, double shares, double avgCost, double currentPrice) {
+    }
+    
+    /**
+     * Holdings and, unless Vault is in use, the cash balance.
+     */
+    private record Portfolio(List<PortfolioLine> lines, double walletBalance) {
+    }
+    
+    private void showOrderHistory(Player player, String playerUuid) {
         // Get company share transaction history from orders table (instruments infrastructure)
-        List<Map<String, Object>> transactions = database.query(
+        CompletableFuture<List<Map<String, Object>>> transactions = asyncDb.query(
             """
             SELECT\s
                 o.side as type, o.qty as shares, o.price, o.ts,
@@ -287,6 +317,13 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
             playerUuid
         );
         
+        AsyncDb.thenSync(transactions, rows -> renderOrderHistory(player, rows), error -> {
+            logger.warning("Error in market command for " + player.getName() + ": " + error.getMessage());
+            Translation.Market_ErrorProcessing.sendMessage(player);
+        });
+    }
+    
+    private void renderOrderHistory(Player player, List<Map<String, Object>> transactions) {
         Translation.Market_History_Header.sendMessage(player);
         
         if (transactions.isEmpty()) {
@@ -312,26 +349,32 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
         }
     }
     
-    private void showWatchlistSummary(Player player, String playerUuid) throws Exception {
-        List<WatchlistService.WatchlistItem> watchlist = QuickStocksPlugin.getWatchlistService().getWatchlist(playerUuid);
-        
-        Translation.Watch_ListHeader.sendMessage(player);
-        
-        if (watchlist.isEmpty()) {
-            Translation.Watch_Empty.sendMessage(player);
-            Translation.Watch_EmptyHint.sendMessage(player);
-            return;
-        }
-        
-        Translation.Watch_WatchingHeader.sendMessage(player,
-            new Replaceable("%count%", String.valueOf(watchlist.size())));
+    private void showWatchlistSummary(Player player, String playerUuid) {
+        CompletableFuture<List<WatchlistService.WatchlistItem>> items =
+            asyncDb.supplyRead(db -> QuickStocksPlugin.getWatchlistService().getWatchlist(playerUuid));
         
-        for (WatchlistService.WatchlistItem item : watchlist) {
-            Translation.Watch_CompanyItem.sendMessage(player,
-                new Replaceable("%company%", item.displayName()),
-                new Replaceable("%symbol%", item.symbol()),
-                new Replaceable("%price%", String.format("%.2f", item.lastPrice())));
-        }
+        AsyncDb.thenSync(items, watchlist -> {
+            Translation.Watch_ListHeader.sendMessage(player);
+            
+            if (watchlist.isEmpty()) {
+                Translation.Watch_Empty.sendMessage(player);
+                Translation.Watch_EmptyHint.sendMessage(player);
+                return;
+            }
+            
+            Translation.Watch_WatchingHeader.sendMessage(player,
+                new Replaceable("%count%", String.valueOf(watchlist.size())));
+            
+            for (WatchlistService.WatchlistItem item : watchlist) {
+                Translation.Watch_CompanyItem.sendMessage(player,
+                    new Replaceable("%company%", item.displayName()),
+                    new Replaceable("%symbol%", item.symbol()),
+                    new Replaceable("%price%", String.format("%.2f", item.lastPrice())));
+            }
+        }, error -> {
+            logger.warning("Error in market command for " + player.getName() + ": " + error.getMessage());
+            Translation.Market_ErrorProcessing.sendMessage(player);
+        });
     }
     
     /**
@@ -365,16 +408,20 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
             double sharePrice = QuickStocksPlugin.getCompanyMarketService().calculateSharePrice(company);
             double totalCost = quantity * sharePrice;
             
-            // Execute purchase
-            QuickStocksPlugin.getCompanyMarketService().buyShares(company.getId(), playerUuid, quantity);
-            
-            Translation.Market_Buy_Success.sendMessage(player,
-                new Replaceable("%qty%", String.format("%.2f", quantity)));
-            Translation.Market_Buy_Details.sendMessage(player,
-                new Replaceable("%company%", company.getName()),
-                new Replaceable("%symbol%", company.getSymbol()),
-                new Replaceable("%price%", String.format("%.2f", sharePrice)),
-                new Replaceable("%total%", String.format("%.2f", totalCost)));
+            // Execute purchase in the player's trade lane
+            CompletableFuture<Void> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> {
+                QuickStocksPlugin.getCompanyMarketService().buyShares(company.getId(), playerUuid, quantity);
+                return null;
+            });
+            AsyncDb.thenSync(trade, done -> {
+                Translation.Market_Buy_Success.sendMessage(player,
+                    new Replaceable("%qty%", String.format("%.2f", quantity)));
+                Translation.Market_Buy_Details.sendMessage(player,
+                    new Replaceable("%company%", company.getName()),
+                    new Replaceable("%symbol%", company.getSymbol()),
+                    new Replaceable("%price%", String.format("%.2f", sharePrice)),
+                    new Replaceable("%total%", String.format("%.2f", totalCost)));
+            }, error -> tradeFailed(player, error, Translation.Market_Buy_Error));
             
         } catch (NumberFormatException e) {
             Translation.Market_Buy_InvalidQuantity.sendMessage(player,
@@ -416,16 +463,20 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
             double sharePrice = QuickStocksPlugin.getCompanyMarketService().calculateSharePrice(company);
             double totalValue = quantity * sharePrice;
             
-            // Execute sale
-            QuickStocksPlugin.getCompanyMarketService().sellShares(company.getId(), playerUuid, quantity);
-            
-            Translation.Market_Sell_Success.sendMessage(player,
-                new Replaceable("%qty%", String.format("%.2f", quantity)));
-            Translation.Market_Sell_Details.sendMessage(player,
-                new Replaceable("%company%", company.getName()),
-                new Replaceable("%symbol%", company.getSymbol()),
-                new Replaceable("%price%", String.format("%.2f", sharePrice)),
-                new Replaceable("%total%", String.format("%.2f", totalValue)));
+            // Execute sale in the player's trade lane
+            CompletableFuture<Void> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> {
+                QuickStocksPlugin.getCompanyMarketService().sellShares(company.getId(), playerUuid, quantity);
+                return null;
+            });
+            AsyncDb.thenSync(trade, done -> {
+                Translation.Market_Sell_Success.sendMessage(player,
+                    new Replaceable("%qty%", String.format("%.2f", quantity)));
+                Translation.Market_Sell_Details.sendMessage(player,
+                    new Replaceable("%company%", company.getName()),
+                    new Replaceable("%symbol%", company.getSymbol()),
+                    new Replaceable("%price%", String.format("%.2f", sharePrice)),
+                    new Replaceable("%total%", String.format("%.2f", totalValue)));
+            }, error -> tradeFailed(player, error, Translation.Market_Sell_Error));
             
         } catch (NumberFormatException e) {
             Translation.Market_Buy_InvalidQuantity.sendMessage(player,
@@ -436,43 +487,67 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
         }
     }
     
+    /**
+     * Reports a trade that failed in the player's trade lane; rule violations and rejections go back to the player.
+     */
+    private void tradeFailed(Player player, Throwable error, Translation rejectedMessage) {
+        if (error instanceof IllegalArgumentException || error instanceof RejectedExecutionException) {
+            rejectedMessage.sendMessage(player, new Replaceable("%error%", error.getMessage()));
+        } else {
+            logger.warning("Error in market command for " + player.getName() + ": " + error.getMessage());
+            Translation.Market_ErrorProcessing.sendMessage(player);
+        }
+    }
+    
     /**
      * Handles viewing shareholders of a company.
      */
-    private void handleShareholders(Player player, String companyNameOrSymbol) throws Exception {
-        // Try to find company by name or symbol
-        Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByNameOrSymbol(companyNameOrSymbol);
-        if (companyOpt.isEmpty()) {
+    private void handleShareholders(Player player, String companyNameOrSymbol) {
+        CompletableFuture<Shareholders> loaded = asyncDb.supplyRead(db -> {
+            // Try to find company by name or symbol
+            Optional<Company> companyOpt = QuickStocksPlugin.getCompanyService().getCompanyByNameOrSymbol(companyNameOrSymbol);
+            if (companyOpt.isEmpty() || !companyOpt.get().isOnMarket()) {
+                return new Shareholders(companyOpt.orElse(null), List.of(), 0.0);
+            }
+            Company company = companyOpt.get();
+            List<Map<String, Object>> shareholders = QuickStocksPlugin.getCompanyMarketService().getShareholders(company.getId());
+            double totalShares = shareholders.isEmpty()
+                ? 0.0 : QuickStocksPlugin.getCompanyMarketService().getIssuedSharesFromHoldings(company.getId());
+            return new Shareholders(company, shareholders, totalShares);
+        });
+        
+        AsyncDb.thenSync(loaded, result -> renderShareholders(player, companyNameOrSymbol, result), error -> {
+            logger.warning("Error in market command for " + player.getName() + ": " + error.getMessage());
+            Translation.Market_ErrorProcessing.sendMessage(player);
+        });
+    }
+    
+    private void renderShareholders(Player player, String companyNameOrSymbol, Shareholders result) {
+        Company company = result.company();
+        if (company == null) {
             Translation.Market_Buy_CompanyNotFound.sendMessage(player,
                 new Replaceable("%company%", companyNameOrSymbol));
             return;
         }
         
-        Company company = companyOpt.get();
-        
         if (!company.isOnMarket()) {
             Translation.Market_Buy_NotOnMarket.sendMessage(player,
                 new Replaceable("%company%", company.getName()));
             return;
         }
         
-        // Get shareholders
-        List<Map<String, Object>> shareholders = QuickStocksPlugin.getCompanyMarketService().getShareholders(company.getId());
-        
         Translation.Market_Shareholders_Header.sendMessage(player,
             new Replaceable("%company%", company.getName()));
         
-        if (shareholders.isEmpty()) {
+        if (result.shareholders().isEmpty()) {
             Translation.Market_Shareholders_NoShareholders.sendMessage(player);
             return;
         }
         
-        double totalShares = QuickStocksPlugin.getCompanyMarketService().getIssuedSharesFromHoldings(company.getId());
-        
-        for (Map<String, Object> sh : shareholders) {
+        for (Map<String, Object> sh : result.shareholders()) {
             String playerUuid = (String) sh.get("player_uuid");
             double shares = ((Number) sh.get("shares")).doubleValue();
-            double percentage = (shares / totalShares) * 100;
+            double percentage = (shares / result.totalShares()) * 100;
             
             // Get player name
             org.bukkit.OfflinePlayer offlinePlayer = org.bukkit.Bukkit.getOfflinePlayer(java.util.UUID.fromString(playerUuid));
@@ -485,6 +560,12 @@ public class MarketCommand implements CommandExecutor, TabCompleter {
                 new Replaceable("%percentage%", String.format("%.1f", percentage)));
         }
     }
+    
+    /**
+     * A company's shareholders; {@code company} is null when no company matched.
+     */
+    private record Shareholders(Company company, List<Map<String, Object>> shareholders, double totalShares) {
+    }
 
     @Override
     public List<String> onTabComplete(@NotNull CommandSender sender, @NotNull Command command, @NotNull String alias, String[] args) {
@@ -1,6 +1,9 @@
 package net.cyberneticforge.quickstocks.commands;
 
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.services.features.market.TradeLanes;
+import net.cyberneticforge.quickstocks.infrastructure.bootstrap.ServiceContainer;
+import net.cyberneticforge.quickstocks.infrastructure.db.QueryMetrics;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.kyori.adventure.text.Component;
 import net.kyori.adventure.text.format.NamedTextColor;
@@ -16,10 +19,12 @@ import java.util.List;
 
 /**
  * Command handler for QuickStocks plugin management (/quickstocks).
- * Provides reload functionality for all configurations and services.
+ * Provides reload functionality for all configurations and services, plus performance diagnostics.
  */
 public class QuickStocksCommand implements CommandExecutor, TabCompleter {
     
+    private static final int PERF_TOP_LIMIT = 10;
+    
     /**
      * Gets the current logger instance dynamically to support logger reinitialization during reload.
      */
@@ -45,6 +50,14 @@ public class QuickStocksCommand implements CommandExecutor, TabCompleter {
                 reloadPlugin(sender);
                 break;
                 
+            case "perf":
+                if (!sender.hasPermission("quickstocks.admin.perf")) {
+                    sender.sendMessage(Component.text("You don't have permission to use this command.", NamedTextColor.RED));
+                    return true;
+                }
+                handlePerf(sender, args);
+                break;
+                
             default:
                 sendUsage(sender);
                 break;
@@ -117,6 +130,18 @@ public class QuickStocksCommand implements CommandExecutor, TabCompleter {
             plugin.startRentCollectionScheduler();
             getLogger().info("Rent collection scheduler restarted");
             
+            // Restart write-behind flush so queued prices keep draining
+            if (QuickStocksPlugin.getInstrumentStatePersister() != null) {
+                plugin.startPersistenceFlushTask();
+                getLogger().info("Persistence flush task restarted");
+            }
+            
+            // Restart price history pruning with the reloaded retention settings
+            if (QuickStocksPlugin.getPriceCandleService() != null) {
+                plugin.startHistoryPruneTask();
+                getLogger().info("Price history prune task restarted");
+            }
+            
             sender.sendMessage(Component.text("QuickStocks reloaded successfully!", NamedTextColor.GREEN));
             getLogger().info("QuickStocks reload completed successfully");
             
@@ -127,6 +152,114 @@ public class QuickStocksCommand implements CommandExecutor, TabCompleter {
         }
     }
     
+    /**
+     * Handles the perf subcommand.
+     */
+    private void handlePerf(CommandSender sender, String[] args) {
+        if (args.length < 2) {
+            sendUsage(sender);
+            return;
+        }
+        
+        switch (args[1].toLowerCase()) {
+            case "db":
+                showDbPerf(sender, args.length > 2 && args[2].equalsIgnoreCase("reset"));
+                break;
+            case "startup":
+                showStartupPerf(sender);
+                break;
+            case "trades":
+                showTradePerf(sender, args.length > 2 && args[2].equalsIgnoreCase("reset"));
+                break;
+            default:
+                sendUsage(sender);
+                break;
+        }
+    }
+    
+    /**
+     * Dumps the statements with the highest total time, or resets the counters.
+     */
+    private void showDbPerf(CommandSender sender, boolean reset) {
+        QueryMetrics metrics = QuickStocksPlugin.getDatabaseManager().getDb().getMetrics();
+        if (reset) {
+            metrics.reset();
+            sender.sendMessage(Component.text("Database statistics reset.", NamedTextColor.GREEN));
+            return;
+        }
+        
+        List<QueryMetrics.Snapshot> top = metrics.getTopByTotalTime(PERF_TOP_LIMIT);
+        QueryMetrics.Snapshot acquire = metrics.getAcquireSnapshot();
+        
+        sender.sendMessage(Component.text("Database statements by total time:", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text(String.format("Connection acquire: n=%d p50=%s p99=%s max=%s",
+            acquire.count(), formatNanos(acquire.p50Nanos()), formatNanos(acquire.p99Nanos()), formatNanos(acquire.maxNanos())),
+            NamedTextColor.GRAY));
+        
+        if (top.isEmpty()) {
+            sender.sendMessage(Component.text("No statements recorded yet.", NamedTextColor.GRAY));
+            return;
+        }
+        
+        for (QueryMetrics.Snapshot snapshot : top) {
+            sender.sendMessage(Component.text(String.format("%s total, n=%d avg=%.2fms p50=%s p95=%s p99=%s max=%s",
+                    formatNanos(snapshot.totalNanos()), snapshot.count(), snapshot.meanMillis(),
+                    formatNanos(snapshot.p50Nanos()), formatNanos(snapshot.p95Nanos()),
+                    formatNanos(snapshot.p99Nanos()), formatNanos(snapshot.maxNanos())), NamedTextColor.YELLOW)
+                .append(Component.newline())
+                .append(Component.text("  " + snapshot.fingerprint(), NamedTextColor.GRAY)));
+        }
+    }
+    
+    /**
+     * Shows how long each bootstrap phase took and which lazy services were built since.
+     */
+    private void showStartupPerf(CommandSender sender) {
+        ServiceContainer container = QuickStocksPlugin.getServiceContainer();
+        if (container == null) {
+            sender.sendMessage(Component.text("No startup report available.", NamedTextColor.GRAY));
+            return;
+        }
+        
+        sender.sendMessage(Component.text(String.format("Startup took %d ms (%d ms of work across phases):",
+            container.getWallMillis(), container.getWorkMillis()), NamedTextColor.GOLD));
+        for (ServiceContainer.Timing timing : container.getTimings()) {
+            sender.sendMessage(Component.text(timing.describe(), timing.lazy() ? NamedTextColor.GRAY : NamedTextColor.YELLOW));
+        }
+    }
+    
+    /**
+     * Shows trade lane queue depth and latency, or resets the counters.
+     */
+    private void showTradePerf(CommandSender sender, boolean reset) {
+        TradeLanes lanes = QuickStocksPlugin.getTradeLanes();
+        if (lanes == null) {
+            sender.sendMessage(Component.text("Trading is not running.", NamedTextColor.GRAY));
+            return;
+        }
+        if (reset) {
+            lanes.resetStats();
+            sender.sendMessage(Component.text("Trade statistics reset.", NamedTextColor.GREEN));
+            return;
+        }
+        
+        TradeLanes.Stats stats = lanes.getStats();
+        sender.sendMessage(Component.text("Trade lanes:", NamedTextColor.GOLD));
+        sender.sendMessage(Component.text(String.format("Active lanes=%d queued=%d max depth=%d",
+            stats.activeLanes(), stats.queued(), stats.maxDepth()), NamedTextColor.YELLOW));
+        sender.sendMessage(Component.text(String.format("Completed=%d failed=%d rejected=%d",
+            stats.completed(), stats.failed(), stats.rejected()), NamedTextColor.YELLOW));
+        sender.sendMessage(Component.text(String.format("Avg wait=%.2fms avg run=%.2fms max latency=%.2fms",
+            stats.meanWaitMillis(), stats.meanRunMillis(), stats.maxLatencyMillis()), NamedTextColor.YELLOW));
+    }
+    
+    private static String formatNanos(long nanos) {
+        if (nanos >= 1_000_000_000L) {
+            return String.format("%.2fs", nanos / 1_000_000_000.0);
+        }
+        return String.format("%.2fms", nanos / 1_000_000.0);
+    }
+    
     /**
      * Sends command usage information to the sender.
      */
@@ -134,6 +267,12 @@ public class QuickStocksCommand implements CommandExecutor, TabCompleter {
         sender.sendMessage(Component.text("QuickStocks Commands:", NamedTextColor.GOLD));
         sender.sendMessage(Component.text("/quickstocks reload", NamedTextColor.YELLOW)
             .append(Component.text(" - Reload all configurations and restart services", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/quickstocks perf db [reset]", NamedTextColor.YELLOW)
+            .append(Component.text(" - Show slowest database statements or reset counters", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/quickstocks perf startup", NamedTextColor.YELLOW)
+            .append(Component.text(" - Show how long each startup phase took", NamedTextColor.GRAY)));
+        sender.sendMessage(Component.text("/quickstocks perf trades [reset]", NamedTextColor.YELLOW)
+            .append(Component.text(" - Show trade queue depth and latency or reset counters", NamedTextColor.GRAY)));
     }
     
     @Nullable
@@ -145,6 +284,17 @@ public class QuickStocksCommand implements CommandExecutor, TabCompleter {
             if (sender.hasPermission("quickstocks.admin.reload")) {
                 completions.add("reload");
             }
+            if (sender.hasPermission("quickstocks.admin.perf")) {
+                completions.add("perf");
+            }
+        } else if (args[0].equalsIgnoreCase("perf") && sender.hasPermission("quickstocks.admin.perf")) {
+            if (args.length == 2) {
+                completions.add("db");
+                completions.add("startup");
+                completions.add("trades");
+            } else if (args.length == 3 && (args[1].equalsIgnoreCase("db") || args[1].equalsIgnoreCase("trades"))) {
+                completions.add("reset");
+            }
         }
         
         // Filter based on what the user has typed so far
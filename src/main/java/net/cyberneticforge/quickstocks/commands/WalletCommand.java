@@ -3,6 +3,8 @@ package net.cyberneticforge.quickstocks.commands;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
 import net.cyberneticforge.quickstocks.core.enums.Translation;
 import net.cyberneticforge.quickstocks.core.model.Replaceable;
+import net.cyberneticforge.quickstocks.core.services.features.portfolio.WalletService;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import org.bukkit.command.Command;
 import org.bukkit.command.CommandExecutor;
@@ -11,7 +13,9 @@ import org.bukkit.command.TabCompleter;
 import org.bukkit.entity.Player;
 import org.jetbrains.annotations.NotNull;
 
+import java.sql.SQLException;
 import java.util.List;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
@@ -64,12 +68,12 @@ public class WalletCommand implements CommandExecutor, TabCompleter {
                             return true;
                         }
 
-                        QuickStocksPlugin.getWalletService().addBalance(playerUuid, amount);
-                        double newBalance = QuickStocksPlugin.getWalletService().getBalance(playerUuid);
-                        
-                        Translation.Wallet_Deposit.sendMessage(player,
+                        updateWallet(player, walletService -> {
+                            walletService.addBalance(playerUuid, amount);
+                            return walletService.getBalance(playerUuid);
+                        }, newBalance -> Translation.Wallet_Deposit.sendMessage(player,
                             new Replaceable("%amount%", String.format("%.2f", amount)),
-                            new Replaceable("%balance%", String.format("%.2f", newBalance)));
+                            new Replaceable("%balance%", String.format("%.2f", newBalance))));
                         
                     } catch (NumberFormatException e) {
                         Translation.Wallet_Error_InvalidAmount.sendMessage(player);
@@ -94,10 +98,10 @@ public class WalletCommand implements CommandExecutor, TabCompleter {
                             return true;
                         }
 
-                        QuickStocksPlugin.getWalletService().setBalance(playerUuid, amount);
-                        
-                        Translation.Wallet_Balance.sendMessage(player,
-                            new Replaceable("%balance%", String.format("%.2f", amount)));
+                        updateWallet(player, walletService -> {
+                            walletService.setBalance(playerUuid, amount);
+                            return amount;
+                        }, newBalance -> sendBalance(player, newBalance));
                         
                     } catch (NumberFormatException e) {
                         Translation.Wallet_Error_InvalidAmount.sendMessage(player);
@@ -118,8 +122,35 @@ public class WalletCommand implements CommandExecutor, TabCompleter {
     }
     
     private void showBalance(Player player, String playerUuid) throws Exception {
-        double balance = QuickStocksPlugin.getWalletService().getBalance(playerUuid);
+        updateWallet(player, walletService -> walletService.getBalance(playerUuid), balance -> sendBalance(player, balance));
+    }
+    
+    /**
+     * Runs a wallet call and reports the resulting balance. The internal wallet is plain SQL and runs
+     * off the main thread; Vault providers stay on it.
+     */
+    private void updateWallet(Player player, WalletCall call, Consumer<Double> onBalance) throws Exception {
+        WalletService walletService = QuickStocksPlugin.getWalletService();
+        if (walletService.isUsingVault()) {
+            onBalance.accept(call.apply(walletService));
+            return;
+        }
         
+        AsyncDb.thenSync(
+            QuickStocksPlugin.getDatabaseManager().getAsyncDb().supply(db -> call.apply(walletService)),
+            onBalance,
+            error -> {
+                logger.warning("Error in wallet command for " + player.getName() + ": " + error.getMessage());
+                Translation.Wallet_ErrorProcessing.sendMessage(player);
+            });
+    }
+    
+    @FunctionalInterface
+    private interface WalletCall {
+        double apply(WalletService walletService) throws SQLException;
+    }
+    
+    private void sendBalance(Player player, double balance) {
         Translation.Wallet_Balance.sendMessage(player,
             new Replaceable("%balance%", String.format("%.2f", balance)));
     }
@@ -0,0 +1,486 @@
+package net.cyberneticforge.quickstocks.core.algorithms;
+
+import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
+import net.cyberneticforge.quickstocks.core.model.Stock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Supplier;
+import java.util.stream.IntStream;
+
+/**
+ * Columnar price engine. Instrument state lives in parallel primitive arrays indexed by a dense
+ * handle, and each tick prices fixed index ranges in parallel on the common fork-join pool.
+ * Sectors are resolved to {@link SectorModel} ids, so the influence impact is one array lookup.
+ * <p>
+ * Every range draws its noise from a {@link SplittableRandom} seeded by the engine seed, the tick
+ * number and the range index, so a run is reproducible no matter how ranges land on threads.
+ * The {@link Stock} objects are views: they keep each instrument's history ring for the indicators
+ * and receive the new price and volume in the same pass. Persistence and events are left to the
+ * caller as separate phases over the returned stocks.
+ * <p>
+ * With a {@link Schedule} enabled, instruments are priced at a cadence matching their activity:
+ * recently traded or viewed ones every tick, watched ones every few ticks, the rest rarely. A skipped
+ * instrument keeps its price until it is due or read through {@link #catchUp(Stock)}, which then applies
+ * all elapsed steps at once with {@link StockPriceCalculator#advancePrice}.
+ * <p>
+ * With an {@link OrderFlowBook} set, the units bought and sold since an instrument was last priced move
+ * its price as an extra impact term.
+ * <p>
+ * Passes and registration hold the engine lock; each instrument's columns are further guarded by a lock
+ * stripe, which is all {@link #catchUp} and {@link #markActive} take, so a read never waits for a running
+ * tick. Prices are published to an atomic array as they are stored and {@link #priceOf} reads them
+ * without locking.
+ */
+public class MarketEngine {
+
+    /** Instruments priced per task; small enough to balance, large enough to amortize the split */
+    static final int RANGE_SIZE = 256;
+    private static final long RANGE_SEED_STRIDE = 0x9E3779B97F4A7C15L;
+    private static final long GAP_SEED_SALT = 0x5DEECE66DL;
+    private static final double MIN_VOLUME = 100;
+    private static final int GUARD_STRIPES = 64; // power of two
+
+    /**
+     * Tick cadence by activity, all in ticks. An instrument active within {@code hotTicks} is priced every
+     * tick; one that is watched or was active within {@code warmTicks} every {@code warmCadence} ticks;
+     * any other every {@code coldCadence} ticks.
+     */
+    public record Schedule(boolean enabled, int hotTicks, int warmTicks, int warmCadence, int coldCadence) {
+        /** Prices every instrument on every tick. */
+        public static final Schedule EVERY_TICK = new Schedule(false, 0, 0, 1, 1);
+
+        public Schedule {
+            warmCadence = Math.max(1, warmCadence);
+            coldCadence = Math.max(warmCadence, coldCadence);
+        }
+
+        int cadence(long idleTicks, boolean watched) {
+            if (!enabled || idleTicks <= hotTicks) {
+                return 1;
+            }
+            return watched || idleTicks <= warmTicks ? warmCadence : coldCadence;
+        }
+    }
+
+    private final StockPriceCalculator calculator;
+    private final long seed;
+    private final ReentrantLock lock = new ReentrantLock(); // passes, registration, cadence inputs
+    private final ReentrantLock[] guards = new ReentrantLock[GUARD_STRIPES]; // per-instrument columns
+    private final Map<String, Integer> handles = new ConcurrentHashMap<>(); // put once the columns are set
+    private SectorModel resolvedModel; // model the sector ids were resolved against
+    private Supplier<Schedule> scheduleSource = () -> Schedule.EVERY_TICK;
+    private OrderFlowBook orderFlow;
+    private volatile OrderFlowBook.Settings flowSettings = OrderFlowBook.Settings.DISABLED; // read once per pass
+    private volatile double[] lastSectorImpact = new double[0]; // impacts of the last tick, for catch-ups
+    private volatile AtomicLongArray publishedPrice = new AtomicLongArray(64); // price bits, for lock-free reads
+
+    private Stock[] stocks = new Stock[64];
+    private double[] price = new double[64];
+    private double[] previousPrice = new double[64];
+    private double[] volume = new double[64];
+    private double[] volatility = new double[64];
+    private int[] sectorId = new int[64];
+    private long[] pricedTick = new long[64]; // last tick the price was advanced to
+    private long[] activeTick = new long[64]; // last tick with a trade or a read
+    private boolean[] watched = new boolean[64];
+    private boolean[] pricedNow = new boolean[64];
+    private OrderFlowBook.Flow[] flow = new OrderFlowBook.Flow[64];
+    private long[] flowBought = new long[64]; // order flow totals already priced in
+    private long[] flowSold = new long[64];
+    private int size;
+    private volatile long tick;
+
+    public MarketEngine(StockPriceCalculator calculator, long seed) {
+        this.calculator = calculator;
+        this.seed = seed;
+        for (int i = 0; i < GUARD_STRIPES; i++) {
+            guards[i] = new ReentrantLock();
+        }
+    }
+
+    private ReentrantLock guard(int handle) {
+        return guards[handle & (GUARD_STRIPES - 1)];
+    }
+
+    private void lockAllGuards() {
+        for (ReentrantLock guard : guards) {
+            guard.lock();
+        }
+    }
+
+    private void unlockAllGuards() {
+        for (int i = GUARD_STRIPES - 1; i >= 0; i--) {
+            guards[i].unlock();
+        }
+    }
+
+    /**
+     * Sets where the tick cadence comes from, read once per tick so a config reload applies to the next one.
+     */
+    public void setSchedule(Supplier<Schedule> source) {
+        lock.lock();
+        try {
+            this.scheduleSource = source;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Schedule schedule() {
+        Schedule schedule = scheduleSource.get();
+        return schedule != null ? schedule : Schedule.EVERY_TICK;
+    }
+
+    /**
+     * Adds a stock, or refreshes its columns when it is already registered.
+     *
+     * @return the stock's handle
+     */
+    public int register(Stock stock) {
+        lock.lock();
+        try {
+            Integer existing = handles.get(stock.getSymbol());
+            int handle = existing != null ? existing : size;
+            if (existing == null) {
+                ensureCapacity(size + 1);
+            }
+            ReentrantLock guard = guard(handle);
+            guard.lock();
+            try {
+                if (existing == null) {
+                    size++;
+                    activeTick[handle] = tick; // new instruments start hot
+                    attachFlow(handle, stock.getSymbol());
+                }
+                stocks[handle] = stock;
+                previousPrice[handle] = stock.getPreviousPrice();
+                volume[handle] = stock.getDailyVolume();
+                volatility[handle] = stock.getVolatilityRating();
+                pricedTick[handle] = tick - 1; // current as of the last tick
+                // A stale model is caught by the next tick, which re-resolves every handle
+                SectorModel model = resolvedModel != null ? resolvedModel : calculator.getSectorModel();
+                sectorId[handle] = model.sectorId(stock.getSector());
+                setPrice(handle, stock.getCurrentPrice());
+            } finally {
+                guard.unlock();
+            }
+            if (existing == null) {
+                handles.put(stock.getSymbol(), handle);
+            }
+            return handle;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Grows the columns; holds every guard while the arrays are swapped so no catch-up writes to old ones.
+     */
+    private void ensureCapacity(int required) {
+        if (required <= price.length) {
+            return;
+        }
+        lockAllGuards();
+        try {
+            growColumns(Math.max(required, price.length * 2));
+        } finally {
+            unlockAllGuards();
+        }
+    }
+
+    private void growColumns(int capacity) {
+        stocks = Arrays.copyOf(stocks, capacity);
+        price = Arrays.copyOf(price, capacity);
+        previousPrice = Arrays.copyOf(previousPrice, capacity);
+        volume = Arrays.copyOf(volume, capacity);
+        volatility = Arrays.copyOf(volatility, capacity);
+        sectorId = Arrays.copyOf(sectorId, capacity);
+        pricedTick = Arrays.copyOf(pricedTick, capacity);
+        activeTick = Arrays.copyOf(activeTick, capacity);
+        watched = Arrays.copyOf(watched, capacity);
+        pricedNow = Arrays.copyOf(pricedNow, capacity);
+        flow = Arrays.copyOf(flow, capacity);
+        flowBought = Arrays.copyOf(flowBought, capacity);
+        flowSold = Arrays.copyOf(flowSold, capacity);
+        AtomicLongArray grown = new AtomicLongArray(capacity);
+        for (int i = 0; i < size; i++) {
+            grown.set(i, publishedPrice.get(i));
+        }
+        publishedPrice = grown;
+    }
+
+    /**
+     * Sets the book whose order flow moves prices; flow recorded before this call is not priced in.
+     */
+    public void setOrderFlow(OrderFlowBook book) {
+        lock.lock();
+        lockAllGuards();
+        try {
+            this.orderFlow = book;
+            for (int i = 0; i < size; i++) {
+                attachFlow(i, stocks[i].getSymbol());
+            }
+        } finally {
+            unlockAllGuards();
+            lock.unlock();
+        }
+    }
+
+    private void attachFlow(int handle, String symbol) {
+        flow[handle] = orderFlow != null ? orderFlow.flow(symbol) : null;
+        flowBought[handle] = flow[handle] != null ? flow[handle].bought() : 0;
+        flowSold[handle] = flow[handle] != null ? flow[handle].sold() : 0;
+    }
+
+    /**
+     * Impact of the units bought and sold since the instrument was last priced, which are then marked used.
+     */
+    private double takeOrderFlow(int i) {
+        if (flow[i] == null) {
+            return 0.0;
+        }
+        long bought = flow[i].bought();
+        long sold = flow[i].sold();
+        double impact = OrderFlowBook.impact(flowSettings, bought - flowBought[i], sold - flowSold[i]);
+        flowBought[i] = bought;
+        flowSold[i] = sold;
+        return impact;
+    }
+
+    private void readFlowSettings() {
+        flowSettings = orderFlow != null ? orderFlow.getSettings() : OrderFlowBook.Settings.DISABLED;
+    }
+
+    public int size() {
+        return handles.size();
+    }
+
+    /**
+     * Keeps an instrument on the hot cadence, e.g. after a trade. Unknown symbols are ignored.
+     */
+    public void markActive(String symbol) {
+        Integer handle = handles.get(symbol);
+        if (handle != null) {
+            ReentrantLock guard = guard(handle);
+            guard.lock();
+            try {
+                activeTick[handle] = tick;
+            } finally {
+                guard.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replaces the set of instruments on any player's watchlist; they stay at least on the warm cadence.
+     */
+    public void setWatched(Collection<String> symbols) {
+        Set<String> watchedSymbols = new HashSet<>(symbols);
+        lock.lock();
+        try {
+            for (int i = 0; i < size; i++) {
+                watched[i] = watchedSymbols.contains(stocks[i].getSymbol());
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Prices every instrument that is due this tick.
+     *
+     * @return the updated stocks in handle order; old prices are their previous prices
+     */
+    public List<Stock> tick(List<MarketInfluence> influences) {
+        lock.lock();
+        try {
+            double[] sectorImpact = sectorImpacts(influences);
+            Schedule schedule = schedule();
+            readFlowSettings();
+
+            long current = tick++;
+            long tickSeed = seed + current * RANGE_SEED_STRIDE;
+            int ranges = (size + RANGE_SIZE - 1) / RANGE_SIZE;
+            IntStream.range(0, ranges).parallel().forEach(range -> priceRange(range, current, tickSeed, sectorImpact, schedule));
+
+            List<Stock> updated = new ArrayList<>(size);
+            for (int i = 0; i < size; i++) {
+                if (pricedNow[i]) {
+                    updated.add(stocks[i]);
+                }
+            }
+            return updated;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Applies the time the market was closed to every instrument in one parallel pass: each draws a single
+     * aggregated return over {@code steps} updates, together with any steps it was skipped before the close.
+     * The tick counter does not move, so the cadence picks up where it stopped.
+     *
+     * @param steps market updates that would have run during the gap
+     * @return every gapped stock in handle order; old prices are the prices at the close
+     */
+    public List<Stock> gapAdvance(long steps, List<MarketInfluence> influences) {
+        lock.lock();
+        try {
+            if (steps <= 0 || size == 0) {
+                return List.of();
+            }
+            double[] sectorImpact = sectorImpacts(influences);
+            readFlowSettings();
+            long last = tick - 1;
+            long gapSeed = (seed ^ GAP_SEED_SALT) + tick * RANGE_SEED_STRIDE;
+            int ranges = (size + RANGE_SIZE - 1) / RANGE_SIZE;
+            IntStream.range(0, ranges).parallel().forEach(range -> {
+                SplittableRandom random = new SplittableRandom(gapSeed ^ ((range + 1) * RANGE_SEED_STRIDE));
+                int end = Math.min(size, (range + 1) * RANGE_SIZE);
+                for (int i = range * RANGE_SIZE; i < end; i++) {
+                    ReentrantLock guard = guard(i);
+                    guard.lock();
+                    try {
+                        long skipped = Math.max(0, last - pricedTick[i]);
+                        double newPrice = calculator.advancePrice(stocks[i], price[i], volatility[i],
+                            sectorImpact[sectorId[i]], takeOrderFlow(i), steps + skipped, random);
+                        store(i, last, newPrice, random);
+                    } finally {
+                        guard.unlock();
+                    }
+                }
+            });
+            return Arrays.asList(Arrays.copyOf(stocks, size));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Sector influence impacts for this update; re-resolves the sector ids first when the model changed.
+     */
+    private double[] sectorImpacts(List<MarketInfluence> influences) {
+        SectorModel model = calculator.getSectorModel();
+        if (model != resolvedModel) {
+            // First tick or config reload: sector ids are only valid for the model they came from
+            for (int i = 0; i < size; i++) {
+                sectorId[i] = model.sectorId(stocks[i].getSector());
+            }
+            resolvedModel = model;
+        }
+        double[] sectorImpact = model.influenceImpacts(influences);
+        lastSectorImpact = sectorImpact;
+        return sectorImpact;
+    }
+
+    private void priceRange(int range, long current, long tickSeed, double[] sectorImpact, Schedule schedule) {
+        SplittableRandom random = new SplittableRandom(tickSeed ^ ((range + 1) * RANGE_SEED_STRIDE));
+        int end = Math.min(size, (range + 1) * RANGE_SIZE);
+        for (int i = range * RANGE_SIZE; i < end; i++) {
+            ReentrantLock guard = guard(i);
+            guard.lock();
+            try {
+                int cadence = schedule.cadence(current - activeTick[i], watched[i]);
+                // The handle offset spreads instruments of one cadence evenly over its ticks
+                pricedNow[i] = (current + i) % cadence == 0 && current > pricedTick[i];
+                if (pricedNow[i]) {
+                    advance(i, current, sectorImpact[sectorId[i]], random);
+                }
+            } finally {
+                guard.unlock();
+            }
+        }
+    }
+
+    /**
+     * Brings an instrument to the given tick: one regular step when it was priced on the previous tick,
+     * the closed-form advance over all skipped steps otherwise.
+     */
+    private void advance(int i, long toTick, double influenceImpact, SplittableRandom random) {
+        long steps = toTick - pricedTick[i];
+        double oldPrice = price[i];
+        double flowImpact = takeOrderFlow(i);
+        double newPrice = steps == 1
+            ? calculator.calculateNewPrice(stocks[i], oldPrice, previousPrice[i], volume[i], volatility[i],
+                influenceImpact, flowImpact, random)
+            : calculator.advancePrice(stocks[i], oldPrice, volatility[i], influenceImpact, flowImpact, steps, random);
+        store(i, toTick, newPrice, random);
+    }
+
+    private void store(int i, long toTick, double newPrice, SplittableRandom random) {
+        double oldPrice = price[i];
+        // Volume changes are typically ±10% per update around the current level
+        double newVolume = Math.max(MIN_VOLUME, volume[i] * (1 + (random.nextDouble() - 0.5) * 0.2));
+
+        previousPrice[i] = oldPrice;
+        volume[i] = newVolume;
+        pricedTick[i] = toTick;
+        stocks[i].updatePrice(newPrice);
+        stocks[i].updateVolume(newVolume);
+        setPrice(i, newPrice);
+    }
+
+    private void setPrice(int i, double newPrice) {
+        price[i] = newPrice;
+        publishedPrice.set(i, Double.doubleToRawLongBits(newPrice));
+    }
+
+    /**
+     * Current price of a registered instrument as of the last pass that priced it, or NaN if unknown.
+     * Never blocks, also not while a tick is running.
+     */
+    public double priceOf(String symbol) {
+        Integer handle = handles.get(symbol);
+        return handle != null ? Double.longBitsToDouble(publishedPrice.get(handle)) : Double.NaN;
+    }
+
+    /**
+     * Applies the steps a lazily priced instrument skipped since it was last priced and marks it active,
+     * so a read never sees a price older than the last tick.
+     *
+     * @return true when the price was advanced and needs to be persisted
+     */
+    public boolean catchUp(Stock stock) {
+        return catchUp(stock, true);
+    }
+
+    /**
+     * Like {@link #catchUp(Stock)}, but a bulk read passes {@code markActive = false} so listing every
+     * instrument doesn't move them all onto the fast cadence. Takes only the instrument's guard; a tick
+     * that is running meanwhile sees the instrument as already priced and skips it.
+     */
+    public boolean catchUp(Stock stock, boolean markActive) {
+        Integer handle = handles.get(stock.getSymbol());
+        if (handle == null) {
+            return false;
+        }
+        ReentrantLock guard = guard(handle);
+        guard.lock();
+        try {
+            long now = tick;
+            long last = now - 1;
+            if (markActive) {
+                activeTick[handle] = now;
+            }
+            double[] sectorImpact = lastSectorImpact;
+            if (pricedTick[handle] >= last || sectorId[handle] >= sectorImpact.length) {
+                return false;
+            }
+            SplittableRandom random = new SplittableRandom(seed ^ (last * RANGE_SEED_STRIDE) ^ ((handle + 1L) * 31));
+            advance(handle, last, sectorImpact[sectorId[handle]], random);
+            return true;
+        } finally {
+            guard.unlock();
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package net.cyberneticforge.quickstocks.core.algorithms;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Buy and sell quantities from the real player economy (e.g. ChestShop), accumulated per instrument symbol.
+ * <p>
+ * Recording is lock-free: each symbol has a pair of striped {@link LongAdder}s that only ever grow, so the
+ * event thread pays a map lookup and two adds. The {@link MarketEngine} reads the totals when it prices an
+ * instrument and keeps the totals it has already used, so no quantity is lost to a concurrent reset.
+ */
+public class OrderFlowBook {
+
+    /**
+     * How order flow moves prices. A net of {@code depth} units on one side moves the price by half of
+     * {@code maxImpact} per update; the impact approaches {@code maxImpact} as the imbalance grows.
+     */
+    public record Settings(boolean enabled, double maxImpact, double depth) {
+        public static final Settings DISABLED = new Settings(false, 0.0, 1.0);
+
+        public Settings {
+            maxImpact = Math.max(0.0, maxImpact);
+            depth = Math.max(1.0, depth);
+        }
+    }
+
+    /**
+     * Running totals for one instrument; never reset.
+     */
+    public static final class Flow {
+        private final LongAdder bought = new LongAdder();
+        private final LongAdder sold = new LongAdder();
+
+        public long bought() {
+            return bought.sum();
+        }
+
+        public long sold() {
+            return sold.sum();
+        }
+    }
+
+    private final Map<String, Flow> flows = new ConcurrentHashMap<>();
+    private volatile Supplier<Settings> settingsSource = () -> Settings.DISABLED;
+
+    /**
+     * Sets where the settings come from, read on every use so a config reload applies immediately.
+     */
+    public void setSettings(Supplier<Settings> source) {
+        this.settingsSource = source;
+    }
+
+    public Settings getSettings() {
+        Settings settings = settingsSource.get();
+        return settings != null ? settings : Settings.DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return getSettings().enabled();
+    }
+
+    /**
+     * Records units players bought (demand) and sold (supply) of an instrument. Safe from any thread.
+     */
+    public void record(String symbol, long bought, long sold) {
+        Flow flow = flow(symbol);
+        if (bought > 0) {
+            flow.bought.add(bought);
+        }
+        if (sold > 0) {
+            flow.sold.add(sold);
+        }
+    }
+
+    /**
+     * Running totals of an instrument, created on first use.
+     */
+    public Flow flow(String symbol) {
+        Flow flow = flows.get(symbol);
+        return flow != null ? flow : flows.computeIfAbsent(symbol, key -> new Flow());
+    }
+
+    /**
+     * Price impact of the units bought and sold since the last update, between {@code -maxImpact} and
+     * {@code maxImpact}. The net quantity sets the direction, its size relative to the depth the magnitude.
+     */
+    public static double impact(Settings settings, long bought, long sold) {
+        long net = bought - sold;
+        if (!settings.enabled() || net == 0) {
+            return 0.0;
+        }
+        double intensity = Math.abs(net) / (Math.abs(net) + settings.depth());
+        return settings.maxImpact() * Math.signum(net) * intensity;
+    }
+}
@@ -7,6 +7,7 @@ import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 /**
  * Controls price growth thresholds to prevent excessive stock price increases
@@ -26,6 +27,9 @@ public class PriceThresholdController {
     // Track recent trading activity for each stock
     private final Map<String, Integer> recentTradingActivity = new ConcurrentHashMap<>();
     
+    // Notified with the symbol of every trade, e.g. to keep the instrument on a fast tick cadence
+    private volatile Consumer<String> activityListener = symbol -> { };
+    
     public PriceThresholdController(DatabaseConfig config) {
         this.config = config;
     }
@@ -39,16 +43,41 @@ public class PriceThresholdController {
         if (!initialPrices.containsKey(symbol)) {
             initialPrices.put(symbol, stock.getCurrentPrice());
             recentTradingActivity.put(symbol, 0);
-            logger.debug("Recorded initial price for " + symbol + ": $" + stock.getCurrentPrice());
+            if (logger != null && logger.isDebugEnabled()) {
+                logger.debug("Recorded initial price for " + symbol + ": $" + stock.getCurrentPrice());
+            }
         }
     }
     
+    /**
+     * Restores an initial price saved in a market snapshot, replacing the one recorded on load.
+     */
+    public void restoreInitialPrice(String symbol, double initialPrice) {
+        initialPrices.put(symbol, initialPrice);
+        recentTradingActivity.putIfAbsent(symbol, 0);
+    }
+    
+    /**
+     * Gets a copy of all recorded initial prices (symbol -> price).
+     */
+    public Map<String, Double> getInitialPrices() {
+        return Map.copyOf(initialPrices);
+    }
+    
     /**
      * Records trading activity for a stock (buy/sell transactions).
      * This affects how threshold dampening is applied.
      */
     public void recordTradingActivity(String symbol, int volume) {
         recentTradingActivity.merge(symbol, volume, Integer::sum);
+        activityListener.accept(symbol);
+    }
+    
+    /**
+     * Sets the callback told about every recorded trade.
+     */
+    public void setActivityListener(Consumer<String> listener) {
+        this.activityListener = listener != null ? listener : symbol -> { };
     }
     
     /**
@@ -105,15 +134,19 @@ public class PriceThresholdController {
             double baseDampening = config.getDampeningFactor();
             double adjustedDampening = baseDampening + (1.0 - baseDampening) * volumeReduction;
             
-            logger.debug(String.format("Stock %s: Volume dampening applied. Volume: %d, Base: %.2f, Adjusted: %.2f", 
-                symbol, tradingVolume, baseDampening, adjustedDampening));
+            if (logger != null && logger.isDebugEnabled()) {
+                logger.debug(String.format("Stock %s: Volume dampening applied. Volume: %d, Base: %.2f, Adjusted: %.2f", 
+                    symbol, tradingVolume, baseDampening, adjustedDampening));
+            }
             
             return adjustedDampening;
         }
         
         // Apply full dampening due to low trading activity and high price growth
-        logger.debug(String.format("Stock %s: Full dampening applied. Price multiplier: %.2f, Trading volume: %d", 
-            symbol, priceMultiplier, tradingVolume));
+        if (logger != null && logger.isDebugEnabled()) {
+            logger.debug(String.format("Stock %s: Full dampening applied. Price multiplier: %.2f, Trading volume: %d", 
+                symbol, priceMultiplier, tradingVolume));
+        }
         
         return config.getDampeningFactor();
     }
@@ -0,0 +1,169 @@
+package net.cyberneticforge.quickstocks.core.algorithms;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
+import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import org.bukkit.configuration.ConfigurationSection;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * Pricing model compiled from the {@code market.sectors} section: a {@code [sector][factor]} table of
+ * factor weights (base weight times the sector's multiplier) plus each sector's default volatility.
+ * <p>
+ * Sectors are interned to dense ids once, so pricing only does array arithmetic. Instances are immutable;
+ * a reload compiles a new model and swaps the reference. Sector id 0 is {@value #DEFAULT_SECTOR}, used
+ * for sectors the configuration does not list.
+ */
+public final class SectorModel {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    public static final String DEFAULT_SECTOR = "default";
+    private static final double DEFAULT_VOLATILITY = 0.5;
+    private static final MarketFactor[] FACTORS = MarketFactor.values();
+
+    private final Map<String, Integer> sectorIds;
+    private final String[] sectorNames;
+    private final double[][] weights; // [sector][factor ordinal]
+    private final double[] volatility;
+
+    private SectorModel(Map<String, Integer> sectorIds, String[] sectorNames, double[][] weights, double[] volatility) {
+        this.sectorIds = sectorIds;
+        this.sectorNames = sectorNames;
+        this.weights = weights;
+        this.volatility = volatility;
+    }
+
+    /**
+     * Builds the model from a section of {@code <sector>: {volatility: x, factors: {FACTOR: multiplier}}} entries.
+     * Unknown factors are skipped with a warning, a missing section yields a uniform model.
+     */
+    public static SectorModel compile(ConfigurationSection section) {
+        Map<String, Integer> ids = new HashMap<>();
+        ids.put(DEFAULT_SECTOR, 0);
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                ids.putIfAbsent(key.toLowerCase(Locale.ROOT), ids.size());
+            }
+        }
+
+        String[] names = new String[ids.size()];
+        double[][] weights = new double[ids.size()][FACTORS.length];
+        double[] volatility = new double[ids.size()];
+        ids.forEach((name, id) -> names[id] = name);
+        for (int s = 0; s < names.length; s++) {
+            for (MarketFactor factor : FACTORS) {
+                weights[s][factor.ordinal()] = factor.getBaseWeight();
+            }
+            volatility[s] = DEFAULT_VOLATILITY;
+        }
+
+        if (section != null) {
+            for (String key : section.getKeys(false)) {
+                int id = ids.get(key.toLowerCase(Locale.ROOT));
+                volatility[id] = Math.max(0.0, Math.min(1.0, section.getDouble(key + ".volatility", DEFAULT_VOLATILITY)));
+                ConfigurationSection factors = section.getConfigurationSection(key + ".factors");
+                if (factors == null) {
+                    continue;
+                }
+                for (String factorName : factors.getKeys(false)) {
+                    MarketFactor factor = parseFactor(factorName);
+                    if (factor == null) {
+                        if (logger != null) {
+                            logger.warning("Unknown market factor '" + factorName + "' in market.sectors." + key);
+                        }
+                        continue;
+                    }
+                    weights[id][factor.ordinal()] = factor.getBaseWeight() * Math.max(0.0, factors.getDouble(factorName, 1.0));
+                }
+            }
+        }
+        return new SectorModel(Map.copyOf(ids), names, weights, volatility);
+    }
+
+    private static MarketFactor parseFactor(String name) {
+        try {
+            return MarketFactor.valueOf(name.toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Dense id of a sector, {@code 0} for sectors the model does not list.
+     */
+    public int sectorId(String sector) {
+        Integer id = sectorIds.get(sector);
+        if (id == null) {
+            id = sectorIds.get(sector.toLowerCase(Locale.ROOT));
+        }
+        return id != null ? id : 0;
+    }
+
+    public int sectorCount() {
+        return sectorNames.length;
+    }
+
+    public String sectorName(int sectorId) {
+        return sectorNames[sectorId];
+    }
+
+    public double weight(int sectorId, MarketFactor factor) {
+        return weights[sectorId][factor.ordinal()];
+    }
+
+    /**
+     * Default volatility rating for new stocks of the sector.
+     */
+    public double volatility(int sectorId) {
+        return volatility[sectorId];
+    }
+
+    /**
+     * Weighted mean of the influence impacts for one sector.
+     */
+    public double influenceImpact(int sectorId, List<MarketInfluence> influences) {
+        double[] row = weights[sectorId];
+        double total = 0.0;
+        double weightSum = 0.0;
+        for (MarketInfluence influence : influences) {
+            double weight = row[influence.getFactor().ordinal()];
+            total += influence.calculateImpact() * weight;
+            weightSum += weight;
+        }
+        return weightSum > 0 ? total / weightSum : 0.0;
+    }
+
+    /**
+     * Weighted mean impact for every sector, indexed by sector id. Each influence is evaluated once.
+     */
+    public double[] influenceImpacts(List<MarketInfluence> influences) {
+        int n = influences.size();
+        double[] impacts = new double[n];
+        int[] factors = new int[n];
+        for (int i = 0; i < n; i++) {
+            MarketInfluence influence = influences.get(i);
+            impacts[i] = influence.calculateImpact();
+            factors[i] = influence.getFactor().ordinal();
+        }
+
+        double[] result = new double[weights.length];
+        for (int s = 0; s < weights.length; s++) {
+            double[] row = weights[s];
+            double total = 0.0;
+            double weightSum = 0.0;
+            for (int i = 0; i < n; i++) {
+                double weight = row[factors[i]];
+                total += impacts[i] * weight;
+                weightSum += weight;
+            }
+            result[s] = weightSum > 0 ? total / weightSum : 0.0;
+        }
+        return result;
+    }
+}
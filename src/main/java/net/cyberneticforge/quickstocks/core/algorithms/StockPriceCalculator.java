@@ -2,13 +2,14 @@ package net.cyberneticforge.quickstocks.core.algorithms;
 
 import lombok.Getter;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
-import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
 import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
 import net.cyberneticforge.quickstocks.core.model.Stock;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 
 import java.util.List;
 import java.util.Random;
+import java.util.function.Supplier;
+import java.util.random.RandomGenerator;
 
 /**
  * Advanced stock price calculation algorithm that simulates realistic market behavior
@@ -22,9 +23,13 @@ public class StockPriceCalculator {
     
     private final Random random;
     private final PriceThresholdController thresholdController;
+    private Supplier<SectorModel> sectorModelSource = () -> UNIFORM_MODEL;
     private static final double BASE_VOLATILITY = 0.02; // 2% base daily volatility
     private static final double MAX_PRICE_CHANGE = 0.20; // 20% maximum change per update
     private static final double MOMENTUM_DECAY = 0.95; // How quickly momentum fades
+    private static final double STEP_NOISE = BASE_VOLATILITY * 0.3 * 0.2; // Std dev of the weighted noise term per update
+    private static final int DRIFT_HORIZON_STEPS = 50; // Updates an influence trend persists before mean reversion catches it
+    private static final SectorModel UNIFORM_MODEL = SectorModel.compile(null);
     
     public StockPriceCalculator() {
         this.random = new Random();
@@ -46,6 +51,21 @@ public class StockPriceCalculator {
         this.thresholdController = thresholdController;
     }
     
+    /**
+     * Sets where the sector weight table comes from, read once per use so a config reload swaps it atomically.
+     */
+    public void setSectorModel(Supplier<SectorModel> source) {
+        this.sectorModelSource = source;
+    }
+    
+    /**
+     * Current sector weight table; all factors weigh their base weight until one is set.
+     */
+    public SectorModel getSectorModel() {
+        SectorModel model = sectorModelSource.get();
+        return model != null ? model : UNIFORM_MODEL;
+    }
+    
     /**
      * Calculates the new stock price based on current market influences and stock characteristics.
      * 
@@ -54,19 +74,28 @@ public class StockPriceCalculator {
      * @return The new calculated price
      */
     public double calculateNewPrice(Stock stock, List<MarketInfluence> marketInfluences) {
-        double currentPrice = stock.getCurrentPrice();
-        
-        // Calculate base change from market influences
-        double influenceImpact = calculateInfluenceImpact(marketInfluences, stock);
-        
+        return calculateNewPrice(stock, stock.getCurrentPrice(), stock.getPreviousPrice(), stock.getDailyVolume(),
+            stock.getVolatilityRating(), calculateInfluenceImpact(marketInfluences, stock), 0.0, random);
+    }
+    
+    /**
+     * Columnar variant used by {@link MarketEngine}. Price, volume and volatility come from the engine's
+     * arrays, the influence impact is precomputed per sector and noise is drawn from the caller's
+     * generator, so ranges priced on different threads stay deterministic. The stock only supplies
+     * its history indicators. {@code orderFlowImpact} is the move from real buy and sell volume, see
+     * {@link OrderFlowBook#impact}.
+     */
+    public double calculateNewPrice(Stock stock, double currentPrice, double previousPrice, double volume,
+                                    double volatility, double influenceImpact, double orderFlowImpact,
+                                    RandomGenerator noise) {
         // Apply technical analysis factors
-        double technicalImpact = calculateTechnicalImpact(stock);
+        double technicalImpact = calculateTechnicalImpact(stock, currentPrice, previousPrice, volume);
         
         // Add random market noise
-        double randomNoise = calculateRandomNoise(stock);
+        double randomNoise = calculateRandomNoise(noise);
         
         // Apply momentum and trend following
-        double momentumImpact = calculateMomentumImpact(stock);
+        double momentumImpact = calculateMomentumImpact(currentPrice, previousPrice);
         
         // Combine all impacts with weights
         double totalImpact = (influenceImpact * 0.4) + 
@@ -75,15 +104,20 @@ public class StockPriceCalculator {
                            (momentumImpact * 0.2);
         
         // Apply stock-specific volatility multiplier
-        totalImpact *= (1.0 + stock.getVolatilityRating());
+        totalImpact *= (1.0 + volatility);
+        
+        // Real order flow is a direct move, not scaled by the simulated volatility
+        totalImpact += orderFlowImpact;
         
         // Apply price threshold dampening if controller is available
         if (thresholdController != null) {
             double dampeningFactor = thresholdController.calculateDampeningFactor(stock, totalImpact);
             if (dampeningFactor < 1.0) {
                 totalImpact *= dampeningFactor;
-                logger.debug(String.format("Applied threshold dampening to %s: factor=%.2f, original impact=%.4f, dampened impact=%.4f", 
-                    stock.getSymbol(), dampeningFactor, totalImpact / dampeningFactor, totalImpact));
+                if (logger != null && logger.isDebugEnabled()) {
+                    logger.debug(String.format("Applied threshold dampening to %s: factor=%.2f, original impact=%.4f, dampened impact=%.4f", 
+                        stock.getSymbol(), dampeningFactor, totalImpact / dampeningFactor, totalImpact));
+                }
             }
         }
         
@@ -103,99 +137,67 @@ public class StockPriceCalculator {
     }
     
     /**
-     * Calculates the impact of market influences on the stock price.
+     * Closed-form advance over {@code steps} updates at once, for instruments the engine prices lazily
+     * and for the gap while the market was closed. Draws one aggregated log return: the influence drift
+     * of the single-step model over at most {@value #DRIFT_HORIZON_STEPS} updates plus Gaussian noise
+     * whose variance grows linearly with the steps. Technical and momentum terms average out over many
+     * steps and are left out. The order flow traded in the meantime is added once. The threshold
+     * dampening and mean reversion apply to the aggregated move.
      */
-    private double calculateInfluenceImpact(List<MarketInfluence> influences, Stock stock) {
-        if (influences.isEmpty()) return 0.0;
-        
-        double totalImpact = 0.0;
-        double totalWeight = 0.0;
+    public double advancePrice(Stock stock, double currentPrice, double volatility, double influenceImpact,
+                               double orderFlowImpact, long steps, RandomGenerator noise) {
+        if (steps <= 0) {
+            return currentPrice;
+        }
+        double scale = 1.0 + volatility;
+        double drift = influenceImpact * 0.4 * scale * Math.min(steps, DRIFT_HORIZON_STEPS);
+        double stepDeviation = STEP_NOISE * scale;
+        double logReturn = drift + stepDeviation * Math.sqrt(steps) * noise.nextGaussian()
+            - 0.5 * stepDeviation * stepDeviation * steps + orderFlowImpact;
         
-        for (MarketInfluence influence : influences) {
-            double impact = influence.calculateImpact();
-            double weight = getFactorWeightForStock(influence.getFactor(), stock);
-            
-            totalImpact += impact * weight;
-            totalWeight += weight;
+        double totalImpact = Math.expm1(logReturn);
+        if (thresholdController != null) {
+            totalImpact *= thresholdController.calculateDampeningFactor(stock, totalImpact);
         }
         
-        return totalWeight > 0 ? totalImpact / totalWeight : 0.0;
+        double newPrice = Math.max(0.01, currentPrice * (1.0 + totalImpact));
+        return applyMeanReversion(stock, newPrice);
     }
     
     /**
-     * Gets the weight of a specific factor for a particular stock based on sector and characteristics.
+     * Calculates the impact of market influences on the stock price.
      */
-    private double getFactorWeightForStock(MarketFactor factor, Stock stock) {
-        double baseWeight = factor.getBaseWeight();
-        
-        // Adjust weights based on stock sector
-        switch (stock.getSector().toLowerCase()) {
-            case "technology":
-                if (factor == MarketFactor.SOCIAL_MEDIA_BUZZ || 
-                    factor == MarketFactor.PRODUCT_LAUNCHES) {
-                    baseWeight *= 1.5;
-                }
-                break;
-            case "energy":
-                if (factor == MarketFactor.COMMODITY_PRICES || 
-                    factor == MarketFactor.GEOPOLITICAL_EVENTS) {
-                    baseWeight *= 1.3;
-                }
-                break;
-            case "finance":
-                if (factor == MarketFactor.INTEREST_RATES || 
-                    factor == MarketFactor.REGULATORY_CHANGES) {
-                    baseWeight *= 1.4;
-                }
-                break;
-            case "healthcare":
-                if (factor == MarketFactor.PANDEMIC_IMPACT || 
-                    factor == MarketFactor.REGULATORY_CHANGES) {
-                    baseWeight *= 1.3;
-                }
-                break;
-        }
-        
-        // Adjust for stock volatility rating
-        baseWeight *= (1.0 + stock.getVolatilityRating() * 0.2);
-        
-        return baseWeight;
+    private double calculateInfluenceImpact(List<MarketInfluence> influences, Stock stock) {
+        SectorModel model = getSectorModel();
+        return model.influenceImpact(model.sectorId(stock.getSector()), influences);
     }
     
     /**
      * Calculates technical analysis impact based on price history and patterns.
+     * Indicators come from the stock's incrementally maintained windows, nothing is copied or scanned.
      */
-    private double calculateTechnicalImpact(Stock stock) {
-        var priceHistory = stock.getPriceHistory();
-        if (priceHistory.size() < 5) return 0.0;
+    private double calculateTechnicalImpact(Stock stock, double currentPrice, double previousPrice, double volume) {
+        int historySize = stock.getHistorySize();
+        if (historySize < 5) return 0.0;
         
         double impact = 0.0;
         
         // Support/Resistance levels
-        impact += calculateSupportResistanceImpact(stock, priceHistory);
+        impact += calculateSupportResistanceImpact(stock, currentPrice);
         
         // Moving average trends
-        impact += calculateMovingAverageTrend(priceHistory);
+        impact += calculateMovingAverageTrend(stock, historySize);
         
         // Volume analysis
-        impact += calculateVolumeImpact(stock);
+        impact += calculateVolumeImpact(currentPrice, previousPrice, volume);
         
         return impact / 3.0; // Average the impacts
     }
     
-    private double calculateSupportResistanceImpact(Stock stock, List<Stock.PriceHistory> history) {
-        double currentPrice = stock.getCurrentPrice();
-        
+    private double calculateSupportResistanceImpact(Stock stock, double currentPrice) {
         // Find recent high and low
-        double recentHigh = history.stream()
-            .skip(Math.max(0, history.size() - 20))
-            .mapToDouble(Stock.PriceHistory::price)
-            .max().orElse(currentPrice);
-            
-        double recentLow = history.stream()
-            .skip(Math.max(0, history.size() - 20))
-            .mapToDouble(Stock.PriceHistory::price)
-            .min().orElse(currentPrice);
+        double recentHigh = stock.getRecentHigh(20);
+        double recentLow = stock.getRecentLow(20);
         
         // If near resistance, slight downward pressure
         if (currentPrice > recentHigh * 0.95) {
@@ -209,30 +211,21 @@ public class StockPriceCalculator {
         return 0.0;
     }
     
-    private double calculateMovingAverageTrend(List<Stock.PriceHistory> history) {
-        if (history.size() < 10) return 0.0;
+    private double calculateMovingAverageTrend(Stock stock, int historySize) {
+        if (historySize < 10) return 0.0;
         
         // Calculate simple moving averages
-        double shortMA = history.stream()
-            .skip(history.size() - 5)
-            .mapToDouble(Stock.PriceHistory::price)
-            .average().orElse(0.0);
-            
-        double longMA = history.stream()
-            .skip(history.size() - 10)
-            .mapToDouble(Stock.PriceHistory::price)
-            .average().orElse(0.0);
+        double shortMA = stock.getMovingAverage(5);
+        double longMA = stock.getMovingAverage(10);
         
         // Trending up if short MA > long MA
         return longMA > 0 ? (shortMA - longMA) / longMA * 0.5 : 0.0;
     }
     
-    private double calculateVolumeImpact(Stock stock) {
-        double volume = stock.getDailyVolume();
-        
+    private double calculateVolumeImpact(double currentPrice, double previousPrice, double volume) {
         // High volume can amplify price movements
         if (volume > 1000000) { // High volume threshold
-            return stock.isGaining() ? 0.01 : -0.01;
+            return currentPrice > previousPrice ? 0.01 : -0.01;
         }
         
         return 0.0;
@@ -242,14 +235,14 @@ public class StockPriceCalculator {
      * Adds random market noise to simulate unpredictable events.
      * Uses smaller, more realistic variations.
      */
-    private double calculateRandomNoise(Stock stock) {
+    private double calculateRandomNoise(RandomGenerator noise) {
         // Reduced base noise for more realistic movements
-        double baseNoise = BASE_VOLATILITY * (random.nextGaussian() * 0.3);
+        double baseNoise = BASE_VOLATILITY * (noise.nextGaussian() * 0.3);
         
         // Rare larger events but with smaller multipliers (0.5% chance)
-        if (random.nextDouble() < 0.005) {
+        if (noise.nextDouble() < 0.005) {
             // More modest event impacts: 1.5x to 2.5x instead of 2x to 5x
-            baseNoise *= (1.5 + random.nextDouble());
+            baseNoise *= (1.5 + noise.nextDouble());
         }
         
         return baseNoise;
@@ -258,8 +251,8 @@ public class StockPriceCalculator {
     /**
      * Calculates momentum impact based on recent price movements.
      */
-    private double calculateMomentumImpact(Stock stock) {
-        double priceChange = stock.getPriceChangePercent();
+    private double calculateMomentumImpact(double currentPrice, double previousPrice) {
+        double priceChange = previousPrice == 0 ? 0.0 : (currentPrice - previousPrice) / previousPrice;
         
         // Momentum continues in the same direction but decays
         return priceChange * MOMENTUM_DECAY * 0.3;
@@ -269,14 +262,10 @@ public class StockPriceCalculator {
      * Applies mean reversion to prevent prices from becoming unrealistic.
      */
     private double applyMeanReversion(Stock stock, double newPrice) {
-        var history = stock.getPriceHistory();
-        if (history.size() < 50) return newPrice;
+        if (stock.getHistorySize() < 50) return newPrice;
         
         // Calculate long-term average price
-        double longTermAverage = history.stream()
-            .skip(Math.max(0, history.size() - 50))
-            .mapToDouble(Stock.PriceHistory::price)
-            .average().orElse(newPrice);
+        double longTermAverage = stock.getMovingAverage(50);
         
         // If price is very far from average, apply gentle pull back
         double deviation = (newPrice - longTermAverage) / longTermAverage;
@@ -294,7 +283,7 @@ public class StockPriceCalculator {
      */
     public void updateMarketInfluences(List<MarketInfluence> influences) {
         for (MarketInfluence influence : influences) {
-            influence.applyRandomFluctuation();
+            influence.applyRandomFluctuation(random);
             
             // Very rare major events (0.05% chance = ~1 per 2000 updates)
             if (random.nextDouble() < 0.0005) {
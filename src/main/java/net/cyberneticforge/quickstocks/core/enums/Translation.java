@@ -91,6 +91,7 @@ public enum Translation {
     Market_Error_TransactionFailed("Market.Error.TransactionFailed"),
     Market_Error_InstrumentNotFound("Market.Error.InstrumentNotFound"),
     Market_Error_PriceNotAvailable("Market.Error.PriceNotAvailable"),
+    Market_PendingOrder_Dropped("Market.PendingOrder.Dropped"),
 
     // Wallet Messages
     Wallet_Usage("Wallet.Usage"),
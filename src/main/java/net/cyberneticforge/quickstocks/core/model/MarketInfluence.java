@@ -5,6 +5,8 @@ import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
 
 import java.time.LocalDateTime;
 import java.util.Objects;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents the current influence of a market factor on stock prices.
@@ -49,6 +51,16 @@ public class MarketInfluence {
         this.trendDirection = clamp(newValue - oldValue, -1.0, 1.0);
     }
     
+    /**
+     * Restores the values saved in a market snapshot without touching the trend.
+     */
+    public void restore(double currentValue, double intensity, double trendDirection) {
+        this.currentValue = clamp(currentValue, -1.0, 1.0);
+        this.intensity = clamp(intensity, 0.0, 1.0);
+        this.trendDirection = clamp(trendDirection, -1.0, 1.0);
+        this.lastUpdated = LocalDateTime.now();
+    }
+    
     /**
      * Calculates the total impact this influence has on stock price.
      * Combines the factor's base weight with current values and volatility.
@@ -94,13 +106,20 @@ public class MarketInfluence {
      * Uses smaller, more realistic changes that accumulate over time.
      */
     public void applyRandomFluctuation() {
+        applyRandomFluctuation(ThreadLocalRandom.current());
+    }
+    
+    /**
+     * Random fluctuation drawing from the given generator, for seeded simulations.
+     */
+    public void applyRandomFluctuation(RandomGenerator random) {
         // Reduced fluctuation range: max 10% change per update (was 20%)
         double volatilityRange = factor.getVolatility() * 0.1;
-        double randomChange = (Math.random() - 0.5) * 2 * volatilityRange;
+        double randomChange = (random.nextDouble() - 0.5) * 2 * volatilityRange;
         
         double newValue = currentValue + randomChange;
         // Smaller intensity changes: max ±2.5% per update (was ±5%)
-        double newIntensity = intensity + (Math.random() - 0.5) * 0.05;
+        double newIntensity = intensity + (random.nextDouble() - 0.5) * 0.05;
         
         updateInfluence(newValue, newIntensity);
     }
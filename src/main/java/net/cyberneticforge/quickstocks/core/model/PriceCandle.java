@@ -0,0 +1,53 @@
+package net.cyberneticforge.quickstocks.core.model;
+
+import lombok.Getter;
+
+/**
+ * OHLC candle of an instrument's price over one bucket of a {@link Resolution}.
+ * Volume is the last reported volume inside the bucket.
+ */
+public record PriceCandle(String instrumentId, Resolution resolution, long bucketStart, double open, double high,
+                          double low, double close, double volume, int tickCount) {
+
+    /**
+     * Converts the candle into a history entry priced at its close.
+     */
+    public PriceHistory toPriceHistory() {
+        return new PriceHistory(instrumentId + ":" + resolution.getKey() + ":" + bucketStart, instrumentId,
+            bucketStart, close, volume, "CANDLE_" + resolution.getKey());
+    }
+
+    /**
+     * Candle resolutions stored in instrument_candles.
+     */
+    @Getter
+    public enum Resolution {
+        ONE_MINUTE("1m", 60_000L),
+        ONE_HOUR("1h", 3_600_000L),
+        ONE_DAY("1d", 86_400_000L);
+
+        private final String key;
+        private final long millis;
+
+        Resolution(String key, long millis) {
+            this.key = key;
+            this.millis = millis;
+        }
+
+        /**
+         * Start of the bucket containing {@code timestamp}.
+         */
+        public long bucketStart(long timestamp) {
+            return Math.floorDiv(timestamp, millis) * millis;
+        }
+
+        public static Resolution fromKey(String key) {
+            for (Resolution resolution : values()) {
+                if (resolution.key.equalsIgnoreCase(key)) {
+                    return resolution;
+                }
+            }
+            throw new IllegalArgumentException("Unknown candle resolution: " + key);
+        }
+    }
+}
@@ -0,0 +1,246 @@
+package net.cyberneticforge.quickstocks.core.model;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-capacity price history in primitive arrays with O(1) indicators over the trailing
+ * {@link #WINDOWS} points.
+ * <p>
+ * Every window keeps a running sum for its moving average and two monotonic deques of sequence
+ * numbers for its high and low, so adding a point costs a constant amount of work regardless of the
+ * history length and reading an indicator never scans or copies the history. Windows shorter than
+ * their nominal length (early in a stock's life) cover all stored points. Not thread-safe; a stock
+ * is only updated from the market task.
+ */
+public final class PriceRing {
+
+    /** Trailing window lengths with incremental indicators. */
+    public static final int[] WINDOWS = {5, 10, 20, 50};
+    /** Adds between exact recomputations of the running sums, bounding floating point drift. */
+    private static final int RESUM_INTERVAL = 4096;
+
+    private final double[] prices;
+    private final long[] timestamps;
+    private final Window[] windows;
+    private long count; // sequence number of the next point
+    private int sinceResum;
+
+    public PriceRing(int capacity) {
+        if (capacity <= WINDOWS[WINDOWS.length - 1]) {
+            throw new IllegalArgumentException("Capacity must exceed the largest window: " + capacity);
+        }
+        this.prices = new double[capacity];
+        this.timestamps = new long[capacity];
+        this.windows = new Window[WINDOWS.length];
+        for (int i = 0; i < WINDOWS.length; i++) {
+            windows[i] = new Window(WINDOWS[i]);
+        }
+    }
+
+    /**
+     * Appends a point, overwriting the oldest one once the ring is full.
+     */
+    public void add(double price, long timestamp) {
+        long seq = count++;
+        int slot = slot(seq);
+        prices[slot] = price;
+        timestamps[slot] = timestamp;
+        for (Window window : windows) {
+            window.add(seq, price);
+        }
+        if (++sinceResum >= RESUM_INTERVAL) {
+            resum();
+        }
+    }
+
+    /**
+     * Replaces the contents, oldest point first.
+     */
+    public void reset(double[] newPrices, long[] newTimestamps) {
+        if (newPrices.length != newTimestamps.length) {
+            throw new IllegalArgumentException("Prices and timestamps differ in length");
+        }
+        clear();
+        int from = Math.max(0, newPrices.length - prices.length);
+        for (int i = from; i < newPrices.length; i++) {
+            add(newPrices[i], newTimestamps[i]);
+        }
+    }
+
+    public void clear() {
+        count = 0;
+        sinceResum = 0;
+        for (Window window : windows) {
+            window.clear();
+        }
+    }
+
+    public int size() {
+        return (int) Math.min(count, prices.length);
+    }
+
+    public int capacity() {
+        return prices.length;
+    }
+
+    /**
+     * @param index 0 is the oldest stored point, {@code size() - 1} the newest
+     */
+    public double priceAt(int index) {
+        return prices[slot(seqAt(index))];
+    }
+
+    /**
+     * @param index 0 is the oldest stored point, {@code size() - 1} the newest
+     */
+    public long timestampAt(int index) {
+        return timestamps[slot(seqAt(index))];
+    }
+
+    /**
+     * Mean of the last {@code window} points, or of all points when fewer are stored.
+     */
+    public double average(int window) {
+        Window w = window(window);
+        int n = Math.min(size(), window);
+        return n == 0 ? 0.0 : w.sum / n;
+    }
+
+    /**
+     * Highest of the last {@code window} points, {@code NaN} when empty.
+     */
+    public double max(int window) {
+        Window w = window(window);
+        return w.maxDeque.isEmpty() ? Double.NaN : prices[slot(w.maxDeque.first())];
+    }
+
+    /**
+     * Lowest of the last {@code window} points, {@code NaN} when empty.
+     */
+    public double min(int window) {
+        Window w = window(window);
+        return w.minDeque.isEmpty() ? Double.NaN : prices[slot(w.minDeque.first())];
+    }
+
+    private Window window(int length) {
+        for (Window w : windows) {
+            if (w.length == length) {
+                return w;
+            }
+        }
+        throw new IllegalArgumentException("No incremental window of length " + length + ", supported: " + Arrays.toString(WINDOWS));
+    }
+
+    private long seqAt(int index) {
+        int size = size();
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " out of bounds for size " + size);
+        }
+        return count - size + index;
+    }
+
+    private int slot(long seq) {
+        return (int) (seq % prices.length);
+    }
+
+    private void resum() {
+        sinceResum = 0;
+        for (Window w : windows) {
+            double sum = 0.0;
+            for (long seq = Math.max(0, count - w.length); seq < count; seq++) {
+                sum += prices[slot(seq)];
+            }
+            w.sum = sum;
+        }
+    }
+
+    /**
+     * Running sum plus monotonic deques over the trailing {@code length} points.
+     */
+    private final class Window {
+        private final int length;
+        private final SeqDeque maxDeque;
+        private final SeqDeque minDeque;
+        private double sum;
+
+        private Window(int length) {
+            this.length = length;
+            this.maxDeque = new SeqDeque(length);
+            this.minDeque = new SeqDeque(length);
+        }
+
+        private void add(long seq, double price) {
+            sum += price;
+            long expired = seq - length;
+            if (expired >= 0) {
+                // Still in the ring: the capacity exceeds the largest window
+                sum -= prices[slot(expired)];
+            }
+            maxDeque.expire(expired);
+            minDeque.expire(expired);
+            while (!maxDeque.isEmpty() && prices[slot(maxDeque.last())] <= price) {
+                maxDeque.removeLast();
+            }
+            while (!minDeque.isEmpty() && prices[slot(minDeque.last())] >= price) {
+                minDeque.removeLast();
+            }
+            maxDeque.addLast(seq);
+            minDeque.addLast(seq);
+        }
+
+        private void clear() {
+            sum = 0.0;
+            maxDeque.clear();
+            minDeque.clear();
+        }
+    }
+
+    /**
+     * Bounded array deque of sequence numbers in increasing order.
+     */
+    private static final class SeqDeque {
+        private final long[] items;
+        private int head;
+        private int size;
+
+        private SeqDeque(int capacity) {
+            this.items = new long[capacity];
+        }
+
+        private boolean isEmpty() {
+            return size == 0;
+        }
+
+        private long first() {
+            return items[head];
+        }
+
+        private long last() {
+            return items[(head + size - 1) % items.length];
+        }
+
+        private void addLast(long seq) {
+            items[(head + size) % items.length] = seq;
+            size++;
+        }
+
+        private void removeLast() {
+            size--;
+        }
+
+        /**
+         * Drops sequence numbers at or before {@code expired}.
+         */
+        private void expire(long expired) {
+            while (size > 0 && items[head] <= expired) {
+                head = (head + 1) % items.length;
+                size--;
+            }
+        }
+
+        private void clear() {
+            head = 0;
+            size = 0;
+        }
+    }
+}
@@ -2,7 +2,9 @@ package net.cyberneticforge.quickstocks.core.model;
 
 import lombok.Getter;
 
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.Objects;
@@ -13,12 +15,15 @@ import java.util.Objects;
 @SuppressWarnings("unused")
 @Getter
 public class Stock {
+    /** Points kept in the in-memory history */
+    public static final int HISTORY_CAPACITY = 1000;
+
     private final String symbol;
     private final String name;
     private final String sector;
     private double currentPrice;
     private double previousPrice;
-    private final List<PriceHistory> priceHistory;
+    private final PriceRing history;
     private final LocalDateTime createdAt;
     private LocalDateTime lastUpdated;
     private double dailyVolume;
@@ -31,7 +36,7 @@ public class Stock {
         this.sector = Objects.requireNonNull(sector, "Sector cannot be null");
         this.currentPrice = initialPrice;
         this.previousPrice = initialPrice;
-        this.priceHistory = new ArrayList<>();
+        this.history = new PriceRing(HISTORY_CAPACITY);
         this.createdAt = LocalDateTime.now();
         this.lastUpdated = LocalDateTime.now();
         this.dailyVolume = 0.0;
@@ -59,15 +64,27 @@ public class Stock {
         this.marketCap = newPrice * getSharesOutstanding();
     }
 
-    private void addPriceToHistory(double price) {
-        priceHistory.add(new PriceHistory(price, LocalDateTime.now()));
-
-        // Keep only last 1000 entries to prevent memory issues
-        if (priceHistory.size() > 1000) {
-            priceHistory.removeFirst();
+    /**
+     * Restores the simulation state saved in a market snapshot. History arrays are oldest first,
+     * timestamps in epoch millis.
+     */
+    public void restore(double currentPrice, double previousPrice, double dailyVolume, double marketCap,
+                        double volatilityRating, double[] historyPrices, long[] historyTimestamps) {
+        this.currentPrice = currentPrice;
+        this.previousPrice = previousPrice;
+        this.dailyVolume = dailyVolume;
+        this.marketCap = marketCap;
+        setVolatilityRating(volatilityRating);
+        this.history.reset(historyPrices, historyTimestamps);
+        if (history.size() > 0) {
+            this.lastUpdated = toLocalDateTime(history.timestampAt(history.size() - 1));
         }
     }
 
+    private void addPriceToHistory(double price) {
+        history.add(price, System.currentTimeMillis());
+    }
+
     /**
      * @return Price change as a percentage (-1.0 to 1.0+)
      */
@@ -104,8 +121,48 @@ public class Stock {
         this.dailyVolume = Math.max(0, volume);
     }
 
+    /**
+     * Copy of the in-memory history, oldest first. The price calculator reads indicators from
+     * {@link #getHistory()} instead.
+     */
     public List<PriceHistory> getPriceHistory() {
-        return new ArrayList<>(priceHistory);
+        List<PriceHistory> copy = new ArrayList<>(history.size());
+        for (int i = 0; i < history.size(); i++) {
+            copy.add(new PriceHistory(history.priceAt(i), toLocalDateTime(history.timestampAt(i))));
+        }
+        return copy;
+    }
+
+    /**
+     * @return Number of points in the in-memory history
+     */
+    public int getHistorySize() {
+        return history.size();
+    }
+
+    /**
+     * @return Mean of the last {@code window} prices, window being one of {@link PriceRing#WINDOWS}
+     */
+    public double getMovingAverage(int window) {
+        return history.average(window);
+    }
+
+    /**
+     * @return Highest of the last {@code window} prices, window being one of {@link PriceRing#WINDOWS}
+     */
+    public double getRecentHigh(int window) {
+        return history.max(window);
+    }
+
+    /**
+     * @return Lowest of the last {@code window} prices, window being one of {@link PriceRing#WINDOWS}
+     */
+    public double getRecentLow(int window) {
+        return history.min(window);
+    }
+
+    private static LocalDateTime toLocalDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
     }
 
     public void setVolatilityRating(double rating) {
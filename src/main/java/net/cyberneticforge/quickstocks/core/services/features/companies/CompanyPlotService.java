@@ -25,6 +25,8 @@ public class CompanyPlotService {
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private final String setAutoBuyModeSql = database.getDialect().upsert("player_auto_buy_mode",
+        List.of("player_uuid", "company_id", "enabled"), List.of("player_uuid"));
     @Getter
     private final CompanyCfg config = QuickStocksPlugin.getCompanyCfg();
     
@@ -140,6 +142,7 @@ public class CompanyPlotService {
             "UPDATE companies SET balance = balance + ? WHERE id = ?",
             refundAmount, companyId
         );
+        QuickStocksPlugin.getCompanyService().balanceChanged(companyId);
         
         // Delete plot record
         database.execute(
@@ -324,7 +327,7 @@ public class CompanyPlotService {
         if (enabled) {
             // Insert or update
             database.execute(
-                "INSERT OR REPLACE INTO player_auto_buy_mode (player_uuid, company_id, enabled) VALUES (?, ?, ?)",
+                setAutoBuyModeSql,
                 playerUuid, companyId, 1
             );
         } else {
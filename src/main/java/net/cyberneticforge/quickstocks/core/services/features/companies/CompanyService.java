@@ -29,16 +29,36 @@ public class CompanyService {
     private final CompanyCfg config = QuickStocksPlugin.getCompanyCfg();
     
     /**
-     * Helper method to get integer value from result map with default.
-     * Used for backward compatibility with columns that might not exist in older schemas.
+     * Maps a full companies row.
      */
-    private int getIntOrDefault(Map<String, Object> row, String key) {
-        Object value = row.get(key);
-        if (value == null) {
-            return 0;
-        }
-        return ((Number) value).intValue();
-    }
+    private static final Db.RowMapper<Company> COMPANY_MAPPER = rs -> new Company(
+        rs.getString("id"),
+        rs.getString("name"),
+        rs.getString("type"),
+        rs.getString("owner_uuid"),
+        rs.getDouble("balance"),
+        rs.getLong("created_at"),
+        rs.getString("symbol"),
+        rs.getInt("on_market") != 0,
+        rs.getDouble("market_percentage"),
+        rs.getInt("allow_buyout") != 0
+    );
+    
+    /**
+     * Maps a company_jobs row. Permission columns added by later migrations read as 0 when NULL.
+     */
+    private static final Db.RowMapper<CompanyJob> JOB_MAPPER = rs -> new CompanyJob(
+        rs.getString("id"),
+        rs.getString("company_id"),
+        rs.getString("title"),
+        rs.getInt("can_invite") != 0,
+        rs.getInt("can_create_titles") != 0,
+        rs.getInt("can_withdraw") != 0,
+        rs.getInt("can_manage_company") != 0,
+        rs.getInt("can_manage_chestshop") != 0,
+        rs.getInt("can_manage_salaries") != 0,
+        rs.getInt("can_manage_plots") != 0
+    );
     
     /**
      * Creates a new company.
@@ -49,9 +69,7 @@ public class CompanyService {
         }
         
         // Check name uniqueness
-        List<Map<String, Object>> existing = database.query(
-            "SELECT id FROM companies WHERE name = ?", name);
-        if (!existing.isEmpty()) {
+        if (database.queryFirst("SELECT id FROM companies WHERE name = ?", rs -> rs.getString(1), name) != null) {
             throw new IllegalArgumentException("Company name already exists");
         }
         
@@ -141,25 +159,10 @@ public class CompanyService {
      * Gets a company by name.
      */
     public Optional<Company> getCompanyByName(String name) throws SQLException {
-        List<Map<String, Object>> results = database.query(
-            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies WHERE name = ?", name);
-        
-        if (results.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        Map<String, Object> row = results.getFirst();
-        return Optional.of(new Company(
-            (String) row.get("id"),
-            (String) row.get("name"),
-            (String) row.get("type"),
-            (String) row.get("owner_uuid"),
-            ((Number) row.get("balance")).doubleValue(),
-            ((Number) row.get("created_at")).longValue(),
-            (String) row.get("symbol"),
-            ((Number) row.get("on_market")).intValue() != 0,
-            ((Number) row.get("market_percentage")).doubleValue(),
-            ((Number) row.get("allow_buyout")).intValue() != 0
+        return Optional.ofNullable(database.queryFirst(
+            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies WHERE name = ?",
+            COMPANY_MAPPER,
+            name
         ));
     }
     
@@ -167,25 +170,10 @@ public class CompanyService {
      * Gets a company by ID.
      */
     public Optional<Company> getCompanyById(String companyId) throws SQLException {
-        List<Map<String, Object>> results = database.query(
-            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies WHERE id = ?", companyId);
-        
-        if (results.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        Map<String, Object> row = results.getFirst();
-        return Optional.of(new Company(
-            (String) row.get("id"),
-            (String) row.get("name"),
-            (String) row.get("type"),
-            (String) row.get("owner_uuid"),
-            ((Number) row.get("balance")).doubleValue(),
-            ((Number) row.get("created_at")).longValue(),
-            (String) row.get("symbol"),
-            ((Number) row.get("on_market")).intValue() != 0,
-            ((Number) row.get("market_percentage")).doubleValue(),
-            ((Number) row.get("allow_buyout")).intValue() != 0
+        return Optional.ofNullable(database.queryFirst(
+            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies WHERE id = ?",
+            COMPANY_MAPPER,
+            companyId
         ));
     }
     
@@ -197,26 +185,10 @@ public class CompanyService {
             return Optional.empty();
         }
         
-        List<Map<String, Object>> results = database.query(
-            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies WHERE UPPER(symbol) = UPPER(?)", 
-            symbol.trim());
-        
-        if (results.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        Map<String, Object> row = results.getFirst();
-        return Optional.of(new Company(
-            (String) row.get("id"),
-            (String) row.get("name"),
-            (String) row.get("type"),
-            (String) row.get("owner_uuid"),
-            ((Number) row.get("balance")).doubleValue(),
-            ((Number) row.get("created_at")).longValue(),
-            (String) row.get("symbol"),
-            ((Number) row.get("on_market")).intValue() != 0,
-            ((Number) row.get("market_percentage")).doubleValue(),
-            ((Number) row.get("allow_buyout")).intValue() != 0
+        return Optional.ofNullable(database.queryFirst(
+            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies WHERE UPPER(symbol) = UPPER(?)",
+            COMPANY_MAPPER,
+            symbol.trim()
         ));
     }
     
@@ -238,58 +210,24 @@ public class CompanyService {
      * Gets all companies.
      */
     public List<Company> getAllCompanies() throws SQLException {
-        List<Map<String, Object>> results = database.query(
-            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies ORDER BY created_at DESC"
+        return database.query(
+            "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies ORDER BY created_at DESC",
+            COMPANY_MAPPER
         );
-
-        List<Company> companies = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            companies.add(new Company(
-                (String) row.get("id"),
-                (String) row.get("name"),
-                (String) row.get("type"),
-                (String) row.get("owner_uuid"),
-                ((Number) row.get("balance")).doubleValue(),
-                ((Number) row.get("created_at")).longValue(),
-                (String) row.get("symbol"),
-                ((Number) row.get("on_market")).intValue() != 0,
-                ((Number) row.get("market_percentage")).doubleValue(),
-                ((Number) row.get("allow_buyout")).intValue() != 0
-            ));
-        }
-
-        return companies;
     }
 
     /**
      * Gets companies where the player is an employee.
      */
     public List<Company> getCompaniesByPlayer(String playerUuid) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return database.query(
             "SELECT c.id, c.name, c.type, c.owner_uuid, c.balance, c.created_at, c.symbol, c.on_market, c.market_percentage, c.allow_buyout " +
             "FROM companies c " +
             "INNER JOIN company_employees ce ON c.id = ce.company_id " +
             "WHERE ce.player_uuid = ?",
+            COMPANY_MAPPER,
             playerUuid
         );
-        
-        List<Company> companies = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            companies.add(new Company(
-                (String) row.get("id"),
-                (String) row.get("name"),
-                (String) row.get("type"),
-                (String) row.get("owner_uuid"),
-                ((Number) row.get("balance")).doubleValue(),
-                ((Number) row.get("created_at")).longValue(),
-                (String) row.get("symbol"),
-                ((Number) row.get("on_market")).intValue() != 0,
-                ((Number) row.get("market_percentage")).doubleValue(),
-                ((Number) row.get("allow_buyout")).intValue() != 0
-            ));
-        }
-        
-        return companies;
     }
     
     /**
@@ -298,29 +236,12 @@ public class CompanyService {
     public List<Company> listCompanies(int page, int pageSize) throws SQLException {
         int offset = page * pageSize;
         
-        List<Map<String, Object>> results = database.query(
+        return database.query(
             "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout FROM companies " +
             "ORDER BY created_at DESC LIMIT ? OFFSET ?",
+            COMPANY_MAPPER,
             pageSize, offset
         );
-        
-        List<Company> companies = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            companies.add(new Company(
-                (String) row.get("id"),
-                (String) row.get("name"),
-                (String) row.get("type"),
-                (String) row.get("owner_uuid"),
-                ((Number) row.get("balance")).doubleValue(),
-                ((Number) row.get("created_at")).longValue(),
-                (String) row.get("symbol"),
-                ((Number) row.get("on_market")).intValue() != 0,
-                ((Number) row.get("market_percentage")).doubleValue(),
-                ((Number) row.get("allow_buyout")).intValue() != 0
-            ));
-        }
-        
-        return companies;
     }
     
     /**
@@ -339,6 +260,7 @@ public class CompanyService {
             "UPDATE companies SET balance = balance + ? WHERE id = ?",
             amount, companyId
         );
+        balanceChanged(companyId);
         
         // Record transaction
         String txId = UUID.randomUUID().toString();
@@ -379,6 +301,7 @@ public class CompanyService {
             "UPDATE companies SET balance = balance - ? WHERE id = ?",
             amount, companyId
         );
+        balanceChanged(companyId);
         
         // Add to player wallet
         QuickStocksPlugin.getWalletService().addBalance(playerUuid, amount);
@@ -407,6 +330,7 @@ public class CompanyService {
             "UPDATE companies SET balance = balance + ? WHERE id = ?",
             amount, companyId
         );
+        balanceChanged(companyId);
         
         // Record transaction with system UUID
         String txId = UUID.randomUUID().toString();
@@ -443,6 +367,7 @@ public class CompanyService {
             "UPDATE companies SET balance = balance - ? WHERE id = ?",
             amount, companyId
         );
+        balanceChanged(companyId);
         
         // Record transaction with system UUID
         String txId = UUID.randomUUID().toString();
@@ -495,6 +420,7 @@ public class CompanyService {
             "UPDATE companies SET balance = balance - ? WHERE id = ?",
             amount, companyId
         );
+        balanceChanged(companyId);
         
         // Record transaction with system UUID
         String txId = UUID.randomUUID().toString();
@@ -508,53 +434,40 @@ public class CompanyService {
         return true;
     }
     
+    /**
+     * Queues the company's share price to be recomputed from its balance on the next market tick.
+     * Call after every change to a company balance.
+     */
+    void balanceChanged(String companyId) {
+        if (QuickStocksPlugin.getCompanyMarketService() != null) {
+            QuickStocksPlugin.getCompanyMarketService().markBalanceChanged(companyId);
+        }
+    }
+    
     /**
      * Checks if a player can withdraw from a company.
      */
     public boolean canPlayerWithdraw(String companyId, String playerUuid) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return database.queryLong(
             "SELECT cj.can_withdraw FROM company_employees ce " +
             "INNER JOIN company_jobs cj ON ce.job_id = cj.id " +
             "WHERE ce.company_id = ? AND ce.player_uuid = ?",
+            0L,
             companyId, playerUuid
-        );
-        
-        if (results.isEmpty()) {
-            return false;
-        }
-        
-        int canWithdraw = ((Number) results.getFirst().get("can_withdraw")).intValue();
-        return canWithdraw != 0;
+        ) != 0;
     }
     
     /**
      * Gets the job of a player in a company.
      */
     public Optional<CompanyJob> getPlayerJob(String companyId, String playerUuid) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return Optional.ofNullable(database.queryFirst(
             "SELECT cj.id, cj.company_id, cj.title, cj.can_invite, cj.can_create_titles, cj.can_withdraw, cj.can_manage_company, cj.can_manage_chestshop, cj.can_manage_salaries, cj.can_manage_plots " +
             "FROM company_employees ce " +
             "INNER JOIN company_jobs cj ON ce.job_id = cj.id " +
             "WHERE ce.company_id = ? AND ce.player_uuid = ?",
+            JOB_MAPPER,
             companyId, playerUuid
-        );
-        
-        if (results.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        Map<String, Object> row = results.getFirst();
-        return Optional.of(new CompanyJob(
-            (String) row.get("id"),
-            (String) row.get("company_id"),
-            (String) row.get("title"),
-            ((Number) row.get("can_invite")).intValue() != 0,
-            ((Number) row.get("can_create_titles")).intValue() != 0,
-            ((Number) row.get("can_withdraw")).intValue() != 0,
-            ((Number) row.get("can_manage_company")).intValue() != 0,
-            ((Number) row.get("can_manage_chestshop")).intValue() != 0,
-            getIntOrDefault(row, "can_manage_salaries") != 0,
-            getIntOrDefault(row, "can_manage_plots") != 0
         ));
     }
     
@@ -573,11 +486,11 @@ public class CompanyService {
         }
         
         // Check if title already exists
-        List<Map<String, Object>> existing = database.query(
+        if (database.queryFirst(
             "SELECT id FROM company_jobs WHERE company_id = ? AND title = ?",
+            rs -> rs.getString(1),
             companyId, title
-        );
-        if (!existing.isEmpty()) {
+        ) != null) {
             throw new IllegalArgumentException("Job title already exists");
         }
         
@@ -605,57 +518,23 @@ public class CompanyService {
      * Gets all job titles for a company.
      */
     public List<CompanyJob> getCompanyJobs(String companyId) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return database.query(
             "SELECT id, company_id, title, can_invite, can_create_titles, can_withdraw, can_manage_company, can_manage_chestshop, can_manage_salaries, can_manage_plots " +
             "FROM company_jobs WHERE company_id = ? ORDER BY title",
+            JOB_MAPPER,
             companyId
         );
-        
-        List<CompanyJob> jobs = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            jobs.add(new CompanyJob(
-                (String) row.get("id"),
-                (String) row.get("company_id"),
-                (String) row.get("title"),
-                ((Number) row.get("can_invite")).intValue() != 0,
-                ((Number) row.get("can_create_titles")).intValue() != 0,
-                ((Number) row.get("can_withdraw")).intValue() != 0,
-                ((Number) row.get("can_manage_company")).intValue() != 0,
-                ((Number) row.get("can_manage_chestshop")).intValue() != 0,
-                getIntOrDefault(row, "can_manage_salaries") != 0,
-                getIntOrDefault(row, "can_manage_plots") != 0
-            ));
-        }
-        
-        return jobs;
     }
     
     /**
      * Gets a job by title.
      */
     public Optional<CompanyJob> getJobByTitle(String companyId, String title) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return Optional.ofNullable(database.queryFirst(
             "SELECT id, company_id, title, can_invite, can_create_titles, can_withdraw, can_manage_company, can_manage_chestshop, can_manage_salaries, can_manage_plots " +
             "FROM company_jobs WHERE company_id = ? AND title = ?",
+            JOB_MAPPER,
             companyId, title
-        );
-        
-        if (results.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        Map<String, Object> row = results.getFirst();
-        return Optional.of(new CompanyJob(
-            (String) row.get("id"),
-            (String) row.get("company_id"),
-            (String) row.get("title"),
-            ((Number) row.get("can_invite")).intValue() != 0,
-            ((Number) row.get("can_create_titles")).intValue() != 0,
-            ((Number) row.get("can_withdraw")).intValue() != 0,
-            ((Number) row.get("can_manage_company")).intValue() != 0,
-            ((Number) row.get("can_manage_chestshop")).intValue() != 0,
-            getIntOrDefault(row, "can_manage_salaries") != 0,
-            getIntOrDefault(row, "can_manage_plots") != 0
         ));
     }
     
@@ -663,28 +542,11 @@ public class CompanyService {
      * Gets a job by ID.
      */
     public Optional<CompanyJob> getJobById(String jobId) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return Optional.ofNullable(database.queryFirst(
             "SELECT id, company_id, title, can_invite, can_create_titles, can_withdraw, can_manage_company, can_manage_chestshop, can_manage_salaries, can_manage_plots " +
             "FROM company_jobs WHERE id = ?",
+            JOB_MAPPER,
             jobId
-        );
-        
-        if (results.isEmpty()) {
-            return Optional.empty();
-        }
-        
-        Map<String, Object> row = results.getFirst();
-        return Optional.of(new CompanyJob(
-            (String) row.get("id"),
-            (String) row.get("company_id"),
-            (String) row.get("title"),
-            ((Number) row.get("can_invite")).intValue() != 0,
-            ((Number) row.get("can_create_titles")).intValue() != 0,
-            ((Number) row.get("can_withdraw")).intValue() != 0,
-            ((Number) row.get("can_manage_company")).intValue() != 0,
-            ((Number) row.get("can_manage_chestshop")).intValue() != 0,
-            getIntOrDefault(row, "can_manage_salaries") != 0,
-            getIntOrDefault(row, "can_manage_plots") != 0
         ));
     }
     
@@ -781,30 +643,13 @@ public class CompanyService {
      * Gets all companies that are on the market (have shares enabled).
      */
     public List<Company> getCompaniesOnMarket() throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return database.query(
             "SELECT id, name, type, owner_uuid, balance, created_at, symbol, on_market, market_percentage, allow_buyout " +
             "FROM companies " +
             "WHERE on_market = 1 AND symbol IS NOT NULL " +
-            "ORDER BY name"
+            "ORDER BY name",
+            COMPANY_MAPPER
         );
-        
-        List<Company> companies = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            companies.add(new Company(
-                (String) row.get("id"),
-                (String) row.get("name"),
-                (String) row.get("type"),
-                (String) row.get("owner_uuid"),
-                ((Number) row.get("balance")).doubleValue(),
-                ((Number) row.get("created_at")).longValue(),
-                (String) row.get("symbol"),
-                ((Number) row.get("on_market")).intValue() != 0,
-                ((Number) row.get("market_percentage")).doubleValue(),
-                ((Number) row.get("allow_buyout")).intValue() != 0
-            ));
-        }
-        
-        return companies;
     }
     
     /**
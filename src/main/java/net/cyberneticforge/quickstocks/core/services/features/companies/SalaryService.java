@@ -23,6 +23,12 @@ public class SalaryService {
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private final String setJobSalarySql = database.getDialect().upsert("company_job_salaries",
+        List.of("job_id", "salary_amount"), List.of("job_id"));
+    private final String setPlayerSalarySql = database.getDialect().upsert("company_employee_salaries",
+        List.of("company_id", "player_uuid", "salary_amount", "set_at", "set_by_uuid"), List.of("company_id", "player_uuid"));
+    private final String setPaymentCycleSql = database.getDialect().upsert("company_salary_config",
+        List.of("company_id", "payment_cycle", "last_payment"), List.of("company_id"));
     private final CompanyService companyService = QuickStocksPlugin.getCompanyService();
     private final CompanyCfg config = QuickStocksPlugin.getCompanyCfg();
     
@@ -35,7 +41,7 @@ public class SalaryService {
         }
         
         database.execute(
-            "INSERT OR REPLACE INTO company_job_salaries (job_id, salary_amount) VALUES (?, ?)",
+            setJobSalarySql,
             jobId, amount
         );
         
@@ -68,8 +74,7 @@ public class SalaryService {
         long now = System.currentTimeMillis();
         
         database.execute(
-            "INSERT OR REPLACE INTO company_employee_salaries (company_id, player_uuid, salary_amount, set_at, set_by_uuid) " +
-            "VALUES (?, ?, ?, ?, ?)",
+            setPlayerSalarySql,
             companyId, playerUuid, amount, now, setByUuid
         );
         
@@ -138,7 +143,7 @@ public class SalaryService {
         }
         
         database.execute(
-            "INSERT OR REPLACE INTO company_salary_config (company_id, payment_cycle, last_payment) VALUES (?, ?, ?)",
+            setPaymentCycleSql,
             companyId, cycle, System.currentTimeMillis()
         );
         
@@ -1,168 +1,328 @@
 package net.cyberneticforge.quickstocks.core.services.features.market;
 
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.api.events.CircuitBreakerTriggeredEvent;
+import net.cyberneticforge.quickstocks.core.model.Stock;
 import net.cyberneticforge.quickstocks.infrastructure.config.TradingCfg;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
 
 import java.sql.SQLException;
+import java.time.Instant;
 import java.time.LocalDate;
+import java.time.ZoneId;
 import java.time.format.DateTimeFormatter;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Function;
 
 /**
  * Service for implementing circuit breaker functionality to halt trading
  * when price movements exceed configured thresholds.
+ * <p>
+ * Halt state and session open prices live in memory, one {@link Breaker} per instrument. The pre-trade halt check
+ * is a single volatile read; breakers are evaluated after player trades and on every market update, so simulated
+ * moves trip them too. Sessions start at each market open (see {@link MarketScheduler}), or daily when market
+ * hours are disabled. {@code trading_sessions} and {@code trading_halts} only receive async audit records and are
+ * read once at startup to restore the current session.
  */
 public class CircuitBreakerService {
-    
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private static final long DAY_MS = 24 * 60 * 60 * 1000L;
+
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private final AsyncDb audit = QuickStocksPlugin.getDatabaseManager().getAsyncDb();
+    private final String openSessionSql = database.getDialect().insertIgnore("trading_sessions",
+        List.of("instrument_id", "session_date", "open_price"), List.of("instrument_id", "session_date"));
     private final TradingCfg.CircuitBreakerConfig circuitBreakerConfig = QuickStocksPlugin.getTradingCfg().getCircuitBreakersConfig();
-    
+    private final Function<String, String> instrumentIds;
+    private final Map<String, Breaker> breakers = new ConcurrentHashMap<>();
+
+    private volatile String sessionDate;
+    /** When the next session starts without being told; Long.MAX_VALUE while the scheduler starts sessions */
+    private volatile long sessionRollover = Long.MAX_VALUE;
+
+    /**
+     * Circuit breaker state of one instrument. {@code halt} is replaced as a whole and read without locking;
+     * the session fields change under the breaker's lock.
+     */
+    private static final class Breaker {
+        private volatile HaltInfo halt;
+        private double sessionOpen = Double.NaN;
+        private int haltedLevels; // bit per level already halted at this session
+        private String symbol;
+    }
+
+    /**
+     * Breakers that only see trades, for use outside the plugin.
+     */
+    public CircuitBreakerService() {
+        this(symbol -> null);
+    }
+
+    /**
+     * @param instrumentIds resolves a market symbol to its database instrument id, null when unknown
+     */
+    public CircuitBreakerService(Function<String, String> instrumentIds) {
+        this.instrumentIds = instrumentIds;
+        this.sessionDate = sessionDate(System.currentTimeMillis());
+    }
+
+    /**
+     * Restores the session that started at {@code startMillis}: its open prices, the levels already halted
+     * and the halts still running. Indefinite halts from earlier sessions are closed.
+     *
+     * @param rolloverMillis when to start the next session without being told, Long.MAX_VALUE for never
+     */
+    public void load(long startMillis, long rolloverMillis) throws SQLException {
+        long currentTime = System.currentTimeMillis();
+        sessionDate = sessionDate(startMillis);
+        sessionRollover = rolloverMillis;
+
+        database.queryEach(
+            "SELECT instrument_id, open_price FROM trading_sessions WHERE session_date = ?",
+            rs -> breaker(rs.getString("instrument_id")).sessionOpen = rs.getDouble("open_price"),
+            sessionDate
+        );
+        database.queryEach(
+            """
+            SELECT instrument_id, level, start_ts, end_ts, session_open, trigger_price
+            FROM trading_halts
+            WHERE start_ts >= ? OR end_ts > ?
+            ORDER BY start_ts
+            """,
+            rs -> {
+                Breaker breaker = breaker(rs.getString("instrument_id"));
+                HaltInfo halt = new HaltInfo(rs.getInt("level"), rs.getLong("start_ts"),
+                    Db.getNullableLong(rs, "end_ts"), rs.getDouble("session_open"), rs.getDouble("trigger_price"));
+                if (halt.startTs() >= startMillis) {
+                    breaker.haltedLevels |= 1 << halt.level();
+                }
+                if (halt.endTs() != null || halt.startTs() >= startMillis) {
+                    breaker.halt = halt;
+                }
+            },
+            startMillis, currentTime
+        );
+        closeIndefiniteHalts(startMillis);
+
+        long halted = breakers.values().stream().filter(breaker -> isActive(breaker.halt, currentTime)).count();
+        if (halted > 0) {
+            logger.info("Restored " + halted + " active trading halts");
+        }
+    }
+
+    /**
+     * Starts a new trading session: open prices are taken afresh, every level can halt again and halts
+     * for the rest of the session end. Timed halts run out as scheduled.
+     *
+     * @param rolloverMillis when to start the next session without being told, Long.MAX_VALUE for never
+     */
+    public synchronized void startSession(long startMillis, long rolloverMillis) {
+        sessionDate = sessionDate(startMillis);
+        sessionRollover = rolloverMillis;
+        for (Breaker breaker : breakers.values()) {
+            synchronized (breaker) {
+                breaker.sessionOpen = Double.NaN;
+                breaker.haltedLevels = 0;
+                HaltInfo halt = breaker.halt;
+                if (halt != null && halt.isIndefinite()) {
+                    breaker.halt = null;
+                }
+            }
+        }
+        closeIndefiniteHalts(startMillis);
+    }
+
     /**
      * Checks if trading is currently halted for an instrument.
-     * 
+     *
      * @param instrumentId The instrument to check
      * @return true if trading is halted, false otherwise
-     * @throws SQLException If database operations fail
      */
-    public boolean isTradingHalted(String instrumentId) throws SQLException {
+    public boolean isTradingHalted(String instrumentId) {
         if (!circuitBreakerConfig.isEnable()) {
             return false;
         }
-        
-        long currentTime = System.currentTimeMillis();
-        
-        // Check for active halts
-        Integer activeHalts = database.queryValue(
-            "SELECT COUNT(*) FROM trading_halts WHERE instrument_id = ? AND (end_ts IS NULL OR end_ts > ?)",
-            instrumentId, currentTime
-        );
-        
-        return activeHalts != null && activeHalts > 0;
+        Breaker breaker = breakers.get(instrumentId);
+        return breaker != null && isActive(breaker.halt, System.currentTimeMillis());
     }
-    
+
     /**
      * Checks price movement and triggers circuit breaker if thresholds are exceeded.
-     * 
+     *
      * @param instrumentId The instrument to check
      * @param currentPrice The current price
-     * @throws SQLException If database operations fail
      */
-    public void checkAndTriggerCircuitBreaker(String instrumentId, double currentPrice) throws SQLException {
-        if (!circuitBreakerConfig.isEnable() || isTradingHalted(instrumentId)) {
+    public void checkAndTriggerCircuitBreaker(String instrumentId, double currentPrice) {
+        if (circuitBreakerConfig.isEnable()) {
+            long currentTime = System.currentTimeMillis();
+            rollSessionIfDue(currentTime);
+            check(instrumentId, null, currentPrice, currentTime);
+        }
+    }
+
+    /**
+     * Evaluates the breakers of a market update. Safe to call from any thread.
+     */
+    public void onPrices(List<Stock> updated) {
+        if (!circuitBreakerConfig.isEnable()) {
             return;
         }
-        
-        double sessionOpenPrice = getSessionOpenPrice(instrumentId, currentPrice);
-        double priceChangePercent = Math.abs((currentPrice - sessionOpenPrice) / sessionOpenPrice * 100.0);
-        
-        List<Double> levels = circuitBreakerConfig.getLevels();
-        List<Integer> haltMinutes = circuitBreakerConfig.getHaltMinutes();
-        
-        // Check each level threshold
-        for (int i = 0; i < levels.size(); i++) {
-            double threshold = levels.get(i);
-            if (priceChangePercent >= threshold) {
-                // Check if we've already halted at this level today
-                if (!hasHaltedAtLevel(instrumentId, i + 1)) {
-                    triggerHalt(instrumentId, i + 1, sessionOpenPrice, currentPrice, haltMinutes.get(i));
+        long currentTime = System.currentTimeMillis();
+        rollSessionIfDue(currentTime);
+        for (Stock stock : updated) {
+            String instrumentId = instrumentIds.apply(stock.getSymbol());
+            if (instrumentId != null) {
+                check(instrumentId, stock.getSymbol(), stock.getCurrentPrice(), currentTime);
+            }
+        }
+    }
+
+    private void rollSessionIfDue(long currentTime) {
+        long rollover = sessionRollover;
+        if (currentTime < rollover) {
+            return;
+        }
+        synchronized (this) {
+            if (sessionRollover == rollover) {
+                long next = rollover + DAY_MS;
+                while (next <= currentTime) {
+                    next += DAY_MS;
                 }
-                break; // Only trigger the first threshold exceeded
+                startSession(next - DAY_MS, next);
             }
         }
     }
-    
+
     /**
-     * Gets the session open price for an instrument, creating a new session if needed.
+     * The first price of a session becomes its open; later prices halt trading when they move far enough from it.
      */
-    private double getSessionOpenPrice(String instrumentId, double currentPrice) throws SQLException {
-        String today = LocalDate.now().format(DateTimeFormatter.ISO_LOCAL_DATE);
-        
-        Double openPrice = database.queryValue(
-            "SELECT open_price FROM trading_sessions WHERE instrument_id = ? AND session_date = ?",
-            instrumentId, today
-        );
-        
-        if (openPrice == null) {
-            // Create new session with current price as open
-            database.execute(
-                "INSERT INTO trading_sessions (instrument_id, session_date, open_price) VALUES (?, ?, ?)",
-                instrumentId, today, currentPrice
-            );
-            return currentPrice;
-        }
-        
-        return openPrice;
-    }
-    
+    private void check(String instrumentId, String symbol, double currentPrice, long currentTime) {
+        if (currentPrice <= 0) {
+            return;
+        }
+        Breaker breaker = breaker(instrumentId);
+        HaltInfo halt;
+        String haltedSymbol;
+        synchronized (breaker) {
+            if (symbol != null) {
+                breaker.symbol = symbol;
+            }
+            if (isActive(breaker.halt, currentTime)) {
+                return;
+            }
+            if (Double.isNaN(breaker.sessionOpen)) {
+                breaker.sessionOpen = currentPrice;
+                recordSessionOpen(instrumentId, currentPrice);
+                return;
+            }
+            int level = breachedLevel(circuitBreakerConfig.getLevels(), breaker.sessionOpen, currentPrice);
+            // Only halt once per level and session
+            if (level == 0 || (breaker.haltedLevels & (1 << level)) != 0) {
+                return;
+            }
+            int haltMinutes = circuitBreakerConfig.getHaltMinutes().get(level - 1);
+            // If haltMinutes is -1, the halt lasts for the rest of the session
+            Long endTime = haltMinutes > 0 ? currentTime + haltMinutes * 60 * 1000L : null;
+            halt = new HaltInfo(level, currentTime, endTime, breaker.sessionOpen, currentPrice);
+            breaker.haltedLevels |= 1 << level;
+            breaker.halt = halt;
+            haltedSymbol = breaker.symbol;
+        }
+        recordHalt(instrumentId, halt);
+        publish(instrumentId, haltedSymbol, halt);
+    }
+
+    private Breaker breaker(String instrumentId) {
+        Breaker breaker = breakers.get(instrumentId);
+        return breaker != null ? breaker : breakers.computeIfAbsent(instrumentId, key -> new Breaker());
+    }
+
+    private static boolean isActive(HaltInfo halt, long currentTime) {
+        return halt != null && (halt.endTs() == null || halt.endTs() > currentTime);
+    }
+
     /**
-     * Checks if trading has already been halted at a specific level today.
+     * First circuit breaker level (1-based) whose threshold the move from the session open reaches, 0 if none.
+     * Shared with the headless backtest.
      */
-    private boolean hasHaltedAtLevel(String instrumentId, int level) throws SQLException {
-        long todayStart = java.time.LocalDate.now().atStartOfDay(java.time.ZoneId.systemDefault()).toInstant().toEpochMilli();
-        long todayEnd = todayStart + (24 * 60 * 60 * 1000) - 1;
-        
-        Integer haltCount = database.queryValue(
-            "SELECT COUNT(*) FROM trading_halts WHERE instrument_id = ? AND level = ? AND start_ts BETWEEN ? AND ?",
-            instrumentId, level, todayStart, todayEnd
-        );
-        
-        return haltCount != null && haltCount > 0;
+    public static int breachedLevel(List<Double> levels, double sessionOpenPrice, double currentPrice) {
+        double priceChangePercent = Math.abs((currentPrice - sessionOpenPrice) / sessionOpenPrice * 100.0);
+        for (int i = 0; i < levels.size(); i++) {
+            if (priceChangePercent >= levels.get(i)) {
+                return i + 1; // Only trigger the first threshold exceeded
+            }
+        }
+        return 0;
     }
-    
+
+    private static String sessionDate(long startMillis) {
+        return LocalDate.ofInstant(Instant.ofEpochMilli(startMillis), ZoneId.systemDefault())
+            .format(DateTimeFormatter.ISO_LOCAL_DATE);
+    }
+
+    private void recordSessionOpen(String instrumentId, double openPrice) {
+        audit.execute(openSessionSql, instrumentId, sessionDate, openPrice)
+            .exceptionally(e -> auditFailed("session open", e));
+    }
+
+    private void recordHalt(String instrumentId, HaltInfo halt) {
+        audit.execute(
+            "INSERT INTO trading_halts (id, instrument_id, level, start_ts, end_ts, session_open, trigger_price) VALUES (?, ?, ?, ?, ?, ?, ?)",
+            UUID.randomUUID().toString(), instrumentId, halt.level(), halt.startTs(), halt.endTs(),
+            halt.sessionOpen(), halt.triggerPrice()
+        ).exceptionally(e -> auditFailed("halt", e));
+    }
+
+    private void closeIndefiniteHalts(long endMillis) {
+        audit.execute("UPDATE trading_halts SET end_ts = ? WHERE end_ts IS NULL AND start_ts < ?", endMillis, endMillis)
+            .exceptionally(e -> auditFailed("halt end", e));
+    }
+
+    private Integer auditFailed(String record, Throwable e) {
+        logger.warning("Failed to record circuit breaker " + record + ": " + e.getMessage());
+        return 0;
+    }
+
     /**
-     * Triggers a trading halt for an instrument.
+     * Fires {@link CircuitBreakerTriggeredEvent} on the main thread, if anyone listens.
      */
-    private void triggerHalt(String instrumentId, int level, double sessionOpen, double triggerPrice, int haltMinutes) throws SQLException {
-        long currentTime = System.currentTimeMillis();
-        Long endTime = null;
-        
-        if (haltMinutes > 0) {
-            endTime = currentTime + (haltMinutes * 60 * 1000L);
-        }
-        // If haltMinutes is -1, endTime remains null (indefinite halt)
-        
-        String haltId = UUID.randomUUID().toString();
-        database.execute(
-            "INSERT INTO trading_halts (id, instrument_id, level, start_ts, end_ts, session_open, trigger_price) VALUES (?, ?, ?, ?, ?, ?, ?)",
-            haltId, instrumentId, level, currentTime, endTime, sessionOpen, triggerPrice
-        );
+    private void publish(String instrumentId, String symbol, HaltInfo halt) {
+        logger.info("Circuit breaker level " + halt.level() + " halted trading in " + (symbol != null ? symbol : instrumentId));
+        if (CircuitBreakerTriggeredEvent.getHandlerList().getRegisteredListeners().length == 0) {
+            return;
+        }
+        double changePercent = (halt.triggerPrice() - halt.sessionOpen()) / halt.sessionOpen() * 100.0;
+        CircuitBreakerTriggeredEvent event = new CircuitBreakerTriggeredEvent(instrumentId,
+            symbol != null ? symbol : instrumentId, changePercent, true, halt.startTs());
+        if (Bukkit.isPrimaryThread()) {
+            Bukkit.getPluginManager().callEvent(event);
+            return;
+        }
+        Plugin plugin = QuickStocksPlugin.getInstance();
+        if (plugin != null && plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, () -> Bukkit.getPluginManager().callEvent(event));
+        }
     }
-    
+
     /**
      * Gets information about the current halt status for an instrument.
-     * 
+     *
      * @param instrumentId The instrument to check
      * @return Halt information or null if not halted
-     * @throws SQLException If database operations fail
      */
-    public HaltInfo getHaltInfo(String instrumentId) throws SQLException {
-        long currentTime = System.currentTimeMillis();
-        
-        Map<String, Object> halt = database.queryRow(
-            """
-            SELECT level, start_ts, end_ts, session_open, trigger_price\s
-            FROM trading_halts\s
-            WHERE instrument_id = ? AND (end_ts IS NULL OR end_ts > ?)\s
-            ORDER BY start_ts DESC\s
-            LIMIT 1
-           \s""",
-            instrumentId, currentTime
-        );
-        
-        if (halt == null) {
-            return null;
-        }
-        
-        int level = ((Number) halt.get("level")).intValue();
-        long startTs = ((Number) halt.get("start_ts")).longValue();
-        Long endTs = halt.get("end_ts") != null ? ((Number) halt.get("end_ts")).longValue() : null;
-        double sessionOpen = ((Number) halt.get("session_open")).doubleValue();
-        double triggerPrice = ((Number) halt.get("trigger_price")).doubleValue();
-        
-        return new HaltInfo(level, startTs, endTs, sessionOpen, triggerPrice);
+    public HaltInfo getHaltInfo(String instrumentId) {
+        Breaker breaker = breakers.get(instrumentId);
+        HaltInfo halt = breaker != null ? breaker.halt : null;
+        return isActive(halt, System.currentTimeMillis()) ? halt : null;
     }
 
     /**
@@ -180,4 +340,4 @@ public class CircuitBreakerService {
                 return Math.max(0, endTs - System.currentTimeMillis());
             }
         }
-}
\ No newline at end of file
+}
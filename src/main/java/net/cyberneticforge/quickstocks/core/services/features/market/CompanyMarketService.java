@@ -12,10 +12,14 @@ import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Set;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service for managing company market operations (shares, IPO, trading).
@@ -28,6 +32,9 @@ public class CompanyMarketService {
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
     private final CompanyCfg config = QuickStocksPlugin.getCompanyService().getConfig();
     
+    // Companies whose balance changed since the last market tick
+    private final Set<String> balanceChanged = ConcurrentHashMap.newKeySet();
+    
     /**
      * Sets the trading symbol for a company.
      */
@@ -305,9 +312,7 @@ public class CompanyMarketService {
         // Add funds to company balance (company receives the money from share sale)
         double totalCost = quantity * sharePrice;
         database.execute("UPDATE companies SET balance = balance + ? WHERE id = ?", totalCost, companyId);
-        
-        // Update instrument price based on company balance
-        updateInstrumentPrice(instrumentId, company);
+        markBalanceChanged(companyId);
         
         // Check if player now owns majority and buyout is allowed
         totalShares = calculateTotalShares(company);
@@ -405,9 +410,7 @@ public class CompanyMarketService {
         
         // Deduct from company balance (company pays for the buyback)
         database.execute("UPDATE companies SET balance = balance - ? WHERE id = ?", totalValue, companyId);
-        
-        // Update instrument price based on company balance
-        updateInstrumentPrice(instrumentId, company);
+        markBalanceChanged(companyId);
         
         logger.info("Player " + playerUuid + " sold " + quantity + " shares of company " + companyId);
     }
@@ -455,24 +458,80 @@ public class CompanyMarketService {
     }
     
     /**
-     * Updates the instrument price based on company balance.
+     * Marks a company's share price as stale; the next market tick recomputes it from the balance.
      */
-    private void updateInstrumentPrice(String instrumentId, Company company) throws SQLException {
-        double sharePrice = calculateSharePrice(company);
-        long now = System.currentTimeMillis();
-        
-        // Update instrument state with new price
-        database.execute(
-            "UPDATE instrument_state SET last_price = ?, market_cap = ?, updated_at = ? WHERE instrument_id = ?",
-            sharePrice, company.getBalance(), now, instrumentId
-        );
+    public void markBalanceChanged(String companyId) {
+        balanceChanged.add(companyId);
+    }
+    
+    /**
+     * Recomputes the share price of every listed company whose balance changed since the last call and
+     * queues the prices on the {@link InstrumentStatePersister}, so each history point reaches the tick store
+     * and the candles like any other price. Writes directly when no persister is running. Run once per market tick.
+     *
+     * @return the number of companies repriced
+     */
+    public int flushSharePrices() throws SQLException {
+        if (balanceChanged.isEmpty()) {
+            return 0;
+        }
+        // Take the marks before reading balances, so a change racing this flush is repriced next tick
+        Set<String> changed = new HashSet<>(balanceChanged);
+        changed.forEach(balanceChanged::remove);
         
-        // Add to price history
-        String historyId = UUID.randomUUID().toString();
-        database.execute(
-            "INSERT INTO instrument_price_history (id, instrument_id, ts, price, volume, reason) VALUES (?, ?, ?, ?, ?, ?)",
-            historyId, instrumentId, now, sharePrice, 0.0, "COMPANY_BALANCE_CHANGE"
-        );
+        InstrumentStatePersister persister = QuickStocksPlugin.getInstrumentStatePersister();
+        long now = System.currentTimeMillis();
+        List<InstrumentStatePersister.StateUpdate> updates = new ArrayList<>();
+        try {
+            for (Company company : QuickStocksPlugin.getCompanyService().getCompaniesOnMarket()) {
+                if (!changed.contains(company.getId())) {
+                    continue;
+                }
+                String instrumentId = "COMPANY_" + company.getId();
+                double sharePrice = calculateSharePrice(company);
+                if (persister == null) {
+                    updates.add(new InstrumentStatePersister.StateUpdate(instrumentId, sharePrice, 0.0, 0.0, 0.0, 0.0,
+                        company.getBalance(), now));
+                    continue;
+                }
+                // The persister upserts whole rows; carry over the columns a balance change doesn't touch
+                InstrumentStatePersister.StateUpdate update = database.primary().queryFirst("""
+                    SELECT last_volume, change_1h, change_24h, volatility_24h FROM instrument_state WHERE instrument_id = ?
+                    """, rs -> new InstrumentStatePersister.StateUpdate(instrumentId, sharePrice, rs.getDouble("last_volume"),
+                        rs.getDouble("change_1h"), rs.getDouble("change_24h"), rs.getDouble("volatility_24h"),
+                        company.getBalance(), now), instrumentId);
+                if (update != null) {
+                    updates.add(update);
+                }
+            }
+            if (updates.isEmpty()) {
+                return 0;
+            }
+            if (persister == null) {
+                writeSharePrices(updates);
+            }
+        } catch (SQLException e) {
+            balanceChanged.addAll(changed);
+            throw e;
+        }
+        if (persister != null) {
+            updates.forEach(update -> persister.enqueue(update, "COMPANY_BALANCE_CHANGE"));
+        }
+        return updates.size();
+    }
+    
+    private void writeSharePrices(List<InstrumentStatePersister.StateUpdate> updates) throws SQLException {
+        List<Object[]> states = new ArrayList<>(updates.size());
+        List<Object[]> history = new ArrayList<>(updates.size());
+        for (InstrumentStatePersister.StateUpdate update : updates) {
+            states.add(new Object[]{update.lastPrice(), update.marketCap(), update.updatedAt(), update.instrumentId()});
+            history.add(new Object[]{UUID.randomUUID().toString(), update.instrumentId(), update.updatedAt(),
+                update.lastPrice(), 0.0, "COMPANY_BALANCE_CHANGE"});
+        }
+        database.executeTransaction(tx -> {
+            tx.executeBatch("UPDATE instrument_state SET last_price = ?, market_cap = ?, updated_at = ? WHERE instrument_id = ?", states);
+            tx.executeBatch("INSERT INTO instrument_price_history (id, instrument_id, ts, price, volume, reason) VALUES (?, ?, ?, ?, ?, ?)", history);
+        });
     }
     
     /**
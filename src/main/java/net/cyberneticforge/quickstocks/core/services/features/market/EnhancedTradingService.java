@@ -10,10 +10,7 @@ import net.cyberneticforge.quickstocks.infrastructure.db.Db;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
-import java.util.UUID;
 
 /**
  * Enhanced trading service with economy features: fees, limits, circuit breakers,
@@ -23,11 +20,35 @@ public class EnhancedTradingService {
 
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
 
+    /**
+     * Maps an orders row joined with instruments.
+     */
+    private static final Db.RowMapper<Order> ORDER_MAPPER = rs -> {
+        double price = rs.getDouble("price");
+        Double executionPrice = Db.getNullableDouble(rs, "execution_price");
+        return new Order(
+                rs.getString("id"),
+                rs.getString("instrument_id"),
+                rs.getString("symbol"),
+                rs.getString("display_name"),
+                rs.getString("side"),
+                rs.getDouble("qty"),
+                price,
+                rs.getLong("ts"),
+                rs.getString("order_type"),
+                Db.getNullableDouble(rs, "limit_price"),
+                Db.getNullableDouble(rs, "stop_price"),
+                rs.getDouble("fee_paid"),
+                executionPrice != null ? executionPrice : price
+        );
+    };
+
     private final Db database;
     private final FeeService feeService;
     private final SlippageService slippageService;
     private final RateLimitService rateLimitService;
     private final CircuitBreakerService circuitBreakerService;
+    private final TradeSettlement settlement;
     private final TradingCfg tradingConfig;
 
     public EnhancedTradingService(Db database, TradingCfg tradingConfig) {
@@ -37,12 +58,30 @@ public class EnhancedTradingService {
         // Initialize component services
         this.feeService = new FeeService();
         this.slippageService = new SlippageService();
-        this.rateLimitService = new RateLimitService();
-        this.circuitBreakerService = new CircuitBreakerService();
+        // Share the plugin-wide limits and breakers so every trade path sees the same state
+        RateLimitService sharedLimits = QuickStocksPlugin.getRateLimitService();
+        this.rateLimitService = sharedLimits != null ? sharedLimits : new RateLimitService();
+        CircuitBreakerService sharedBreakers = QuickStocksPlugin.getCircuitBreakerService();
+        this.circuitBreakerService = sharedBreakers != null ? sharedBreakers : new CircuitBreakerService();
+        this.settlement = new TradeSettlement(database);
+    }
+
+    /**
+     * Current price of an instrument for trading. Reads the market engine's in-memory price, which
+     * instrument_state only catches up with on the next persister flush.
+     */
+    static Double currentPrice(String instrumentId) throws SQLException {
+        StockMarketService market = QuickStocksPlugin.getStockMarketService();
+        if (market != null) {
+            return market.getCurrentPrice(instrumentId);
+        }
+        return QuickStocksPlugin.getDatabaseManager().getDb().queryValue(
+                "SELECT last_price FROM instrument_state WHERE instrument_id = ?", instrumentId);
     }
 
     /**
-     * Executes a trading order with all economy features applied.
+     * Executes a trading order with all economy features applied. A LIMIT or STOP order whose condition the
+     * current price doesn't meet yet is handed to {@link PendingOrderService} and rests until it triggers.
      */
     public TradeResult executeOrder(OrderRequest orderRequest) {
         try {
@@ -54,27 +93,52 @@ public class EnhancedTradingService {
                 return new TradeResult(false, "Order type " + orderRequest.type() + " is not allowed");
             }
 
-            // Check if trading is halted
-            if (circuitBreakerService.isTradingHalted(orderRequest.instrumentId())) {
-                CircuitBreakerService.HaltInfo haltInfo = circuitBreakerService.getHaltInfo(orderRequest.instrumentId());
-                return new TradeResult(false, "Trading is halted due to circuit breaker (Level " +
-                        haltInfo.level() + ")");
-            }
-
             // Get current market price
-            Double marketPrice = database.queryValue(
-                    "SELECT last_price FROM instrument_state WHERE instrument_id = ?",
-                    orderRequest.instrumentId()
-            );
+            Double marketPrice = currentPrice(orderRequest.instrumentId());
 
             if (marketPrice == null) {
                 return new TradeResult(false, "Instrument not found or price unavailable");
             }
 
+            PendingOrderService pendingOrders = QuickStocksPlugin.getPendingOrderService();
+            if (orderRequest.type() != OrderType.MARKET && pendingOrders != null
+                    && determineExecutionPrice(orderRequest, marketPrice) <= 0) {
+                return pendingOrders.place(orderRequest, null);
+            }
+
+            return executeAt(orderRequest, marketPrice);
+
+        } catch (Exception e) {
+            logger.severe("Failed to execute order: " + e.getMessage());
+            return new TradeResult(false, "Order execution failed: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Executes an order against a known market price, e.g. the tick price that triggered a resting order.
+     * Applies the order conditions, slippage, fees, rate limits and circuit breakers like {@link #executeOrder}.
+     */
+    TradeResult executeAt(OrderRequest orderRequest, double marketPrice) {
+        return executeAt(orderRequest, marketPrice, null).result();
+    }
+
+    /**
+     * Executes a resting order at the price that triggered it; the settlement claims its {@code pending_orders} row.
+     * The order was placed before, so the per-player cooldown, which only spaces out manual trades, doesn't apply.
+     */
+    OrderFill executeAt(OrderRequest orderRequest, double marketPrice, String pendingOrderId) {
+        try {
+            // Check if trading is halted
+            CircuitBreakerService.HaltInfo haltInfo = circuitBreakerService.getHaltInfo(orderRequest.instrumentId());
+            if (haltInfo != null && circuitBreakerService.isTradingHalted(orderRequest.instrumentId())) {
+                return OrderFill.retry(new TradeResult(false, "Trading is halted due to circuit breaker (Level " +
+                        haltInfo.level() + ")"));
+            }
+
             // Determine execution price based on order type
             double executionPrice = determineExecutionPrice(orderRequest, marketPrice);
             if (executionPrice <= 0) {
-                return new TradeResult(false, "Order conditions not met for execution");
+                return OrderFill.retry(new TradeResult(false, "Order conditions not met for execution"));
             }
 
             // Apply slippage to execution price
@@ -88,22 +152,22 @@ public class EnhancedTradingService {
 
             // Check rate limits
             RateLimitService.ValidationResult rateLimitResult = rateLimitService.validateTrade(
-                    orderRequest.playerUuid(), orderRequest.qty(), notionalValue
+                    orderRequest.playerUuid(), orderRequest.qty(), notionalValue, pendingOrderId == null
             );
             if (!rateLimitResult.allowed()) {
-                return new TradeResult(false, rateLimitResult.message());
+                return OrderFill.retry(new TradeResult(false, rateLimitResult.message()));
             }
 
             // Execute based on order side
-            TradeResult result;
+            OrderFill result;
             if ("BUY".equals(orderRequest.side())) {
-                result = executeBuyOrder(orderRequest, finalExecutionPrice, fee);
+                result = executeBuyOrder(orderRequest, finalExecutionPrice, fee, pendingOrderId);
             } else {
-                result = executeSellOrder(orderRequest, finalExecutionPrice, fee);
+                result = executeSellOrder(orderRequest, finalExecutionPrice, fee, pendingOrderId);
             }
 
             // If successful, record for rate limiting and check circuit breakers
-            if (result.success()) {
+            if (result.result().success()) {
                 rateLimitService.recordTrade(orderRequest.playerUuid(), notionalValue);
                 circuitBreakerService.checkAndTriggerCircuitBreaker(orderRequest.instrumentId(), finalExecutionPrice);
             }
@@ -112,100 +176,81 @@ public class EnhancedTradingService {
 
         } catch (Exception e) {
             logger.severe("Failed to execute order: " + e.getMessage());
-            return new TradeResult(false, "Order execution failed: " + e.getMessage());
+            return OrderFill.retry(new TradeResult(false, "Order execution failed: " + e.getMessage()));
         }
     }
 
     /**
-     * Executes a buy order with fees and validation.
+     * Outcome of an execution against a known price.
+     *
+     * @param finalRejection the wallet or holding can't cover the trade; any other rejection (halt, rate limit,
+     *                       a failed write) may pass later, so a resting order stays resting
      */
-    private TradeResult executeBuyOrder(OrderRequest orderRequest, double executionPrice, double fee) throws SQLException {
-        double notionalValue = orderRequest.qty() * executionPrice;
-        double totalCost = notionalValue + fee;
+    record OrderFill(TradeResult result, boolean finalRejection) {
 
-        // Check wallet balance
-        if (!QuickStocksPlugin.getWalletService().hasBalance(orderRequest.playerUuid(), totalCost)) {
-            return new TradeResult(false, String.format(
-                    "Insufficient funds. Required: $%.2f (including $%.2f fee)", totalCost, fee
-            ));
+        static OrderFill retry(TradeResult result) {
+            return new OrderFill(result, false);
         }
+    }
 
-        try {
-            // Remove total cost from wallet
-            if (!QuickStocksPlugin.getWalletService().removeBalance(orderRequest.playerUuid(), totalCost)) {
-                return new TradeResult(false, "Failed to debit wallet");
-            }
-
-            // Add shares to holdings
-            QuickStocksPlugin.getHoldingsService().addHolding(orderRequest.playerUuid(), orderRequest.instrumentId(),
-                    orderRequest.qty(), executionPrice);
+    /**
+     * Whether a circuit breaker currently halts trading in the instrument.
+     */
+    boolean isTradingHalted(String instrumentId) {
+        return circuitBreakerService.isTradingHalted(instrumentId);
+    }
 
-            // Record the order
-            recordOrder(orderRequest, executionPrice, fee);
+    /**
+     * Executes a buy order with fees; the funds check, debit, holding and order record are one settlement.
+     */
+    private OrderFill executeBuyOrder(OrderRequest orderRequest, double executionPrice, double fee,
+                                      String pendingOrderId) throws SQLException {
+        double notionalValue = orderRequest.qty() * executionPrice;
+        double totalCost = notionalValue + fee;
 
-            String message = String.format(
-                    "%s BUY %.2f shares at $%.2f per share (Total: $%.2f, Fee: $%.2f)",
-                    orderRequest.type(), orderRequest.qty(), executionPrice, notionalValue, fee
-            );
+        if (!settlement.settle(fill(orderRequest, executionPrice, fee, pendingOrderId))) {
+            return new OrderFill(new TradeResult(false, String.format(
+                    "Insufficient funds. Required: $%.2f (including $%.2f fee)", totalCost, fee
+            )), true);
+        }
 
-            logger.info("Executed buy order for " + orderRequest.playerUuid() + ": " + message);
-            return new TradeResult(true, message);
+        String message = String.format(
+                "%s BUY %.2f shares at $%.2f per share (Total: $%.2f, Fee: $%.2f)",
+                orderRequest.type(), orderRequest.qty(), executionPrice, notionalValue, fee
+        );
 
-        } catch (SQLException e) {
-            // Rollback wallet debit
-            try {
-                QuickStocksPlugin.getWalletService().addBalance(orderRequest.playerUuid(), totalCost);
-            } catch (SQLException rollbackError) {
-                logger.severe("Failed to rollback wallet debit: " + rollbackError.getMessage());
-            }
-            throw e;
-        }
+        logger.info("Executed buy order for " + orderRequest.playerUuid() + ": " + message);
+        return new OrderFill(new TradeResult(true, message), false);
     }
 
     /**
-     * Executes a sell order with fees and validation.
+     * Executes a sell order with fees; the share check, removal, credit and order record are one settlement.
      */
-    private TradeResult executeSellOrder(OrderRequest orderRequest, double executionPrice, double fee) throws SQLException {
-        // Check if player has sufficient shares
-        HoldingsService.Holding holding = QuickStocksPlugin.getHoldingsService().getHolding(orderRequest.playerUuid(), orderRequest.instrumentId());
-        if (holding == null || holding.qty() < orderRequest.qty()) {
-            return new TradeResult(false, "Insufficient shares. Available: " +
-                    (holding != null ? String.format("%.2f", holding.qty()) : "0"));
-        }
-
+    private OrderFill executeSellOrder(OrderRequest orderRequest, double executionPrice, double fee,
+                                       String pendingOrderId) throws SQLException {
         double notionalValue = orderRequest.qty() * executionPrice;
         double netProceeds = notionalValue - fee;
 
-        try {
-            // Remove shares from holdings
-            if (!QuickStocksPlugin.getHoldingsService().removeHolding(orderRequest.playerUuid(), orderRequest.instrumentId(), orderRequest.qty())) {
-                return new TradeResult(false, "Failed to remove shares from portfolio");
-            }
-
-            // Add net proceeds to wallet
-            QuickStocksPlugin.getWalletService().addBalance(orderRequest.playerUuid(), netProceeds);
-
-            // Record the order
-            recordOrder(orderRequest, executionPrice, fee);
+        if (!settlement.settle(fill(orderRequest, executionPrice, fee, pendingOrderId))) {
+            HoldingsService.Holding holding = QuickStocksPlugin.getHoldingsService().getHolding(orderRequest.playerUuid(), orderRequest.instrumentId());
+            return new OrderFill(new TradeResult(false, "Insufficient shares. Available: " +
+                    (holding != null ? String.format("%.2f", holding.qty()) : "0")), true);
+        }
 
-            String message = String.format(
-                    "%s SELL %.2f shares at $%.2f per share (Gross: $%.2f, Net: $%.2f, Fee: $%.2f)",
-                    orderRequest.type(), orderRequest.qty(), executionPrice, notionalValue, netProceeds, fee
-            );
+        String message = String.format(
+                "%s SELL %.2f shares at $%.2f per share (Gross: $%.2f, Net: $%.2f, Fee: $%.2f)",
+                orderRequest.type(), orderRequest.qty(), executionPrice, notionalValue, netProceeds, fee
+        );
 
-            logger.info("Executed sell order for " + orderRequest.playerUuid() + ": " + message);
-            return new TradeResult(true, message);
+        logger.info("Executed sell order for " + orderRequest.playerUuid() + ": " + message);
+        return new OrderFill(new TradeResult(true, message), false);
+    }
 
-        } catch (SQLException e) {
-            // Rollback share removal
-            try {
-                QuickStocksPlugin.getHoldingsService().addHolding(orderRequest.playerUuid(), orderRequest.instrumentId(),
-                        orderRequest.qty(), executionPrice);
-            } catch (SQLException rollbackError) {
-                logger.severe("Failed to rollback share removal: " + rollbackError.getMessage());
-            }
-            throw e;
-        }
+    private static TradeSettlement.Fill fill(OrderRequest orderRequest, double executionPrice, double fee,
+                                             String pendingOrderId) {
+        return new TradeSettlement.Fill(orderRequest.playerUuid(), orderRequest.instrumentId(), orderRequest.side(),
+                orderRequest.qty(), executionPrice, fee, orderRequest.type().name(),
+                orderRequest.limitPrice(), orderRequest.stopPrice(), pendingOrderId);
     }
 
     /**
@@ -234,28 +279,10 @@ public class EnhancedTradingService {
         }
     }
 
-    /**
-     * Records an order in the database.
-     */
-    private void recordOrder(OrderRequest orderRequest, double executionPrice, double fee) throws SQLException {
-        String orderId = UUID.randomUUID().toString();
-        database.execute(
-                """
-                         INSERT INTO orders (id, player_uuid, instrument_id, side, qty, price, ts, order_type,\s
-                                            limit_price, stop_price, fee_paid, execution_price)\s
-                         VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
-                        \s""",
-                orderId, orderRequest.playerUuid(), orderRequest.instrumentId(),
-                orderRequest.side(), orderRequest.qty(), executionPrice, System.currentTimeMillis(),
-                orderRequest.type().name(), orderRequest.limitPrice(), orderRequest.stopPrice(),
-                fee, executionPrice
-        );
-    }
-
     /**
      * Checks if an order type is allowed based on configuration.
      */
-    private boolean isOrderTypeAllowed(OrderType orderType) {
+    boolean isOrderTypeAllowed(OrderType orderType) {
         return switch (orderType) {
             case MARKET -> tradingConfig.getOrdersConfig().isAllowMarket();
             case LIMIT -> tradingConfig.getOrdersConfig().isAllowLimit();
@@ -278,7 +305,7 @@ public class EnhancedTradingService {
      * Gets trading history for a player.
      */
     public List<Order> getOrderHistory(String playerUuid, int limit) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return database.query(
                 """
                         SELECT o.id, o.instrument_id, o.side, o.qty, o.price, o.ts, i.symbol, i.display_name,
                                o.order_type, o.limit_price, o.stop_price, o.fee_paid, o.execution_price
@@ -288,29 +315,9 @@ public class EnhancedTradingService {
                         ORDER BY o.ts DESC
                         LIMIT ?
                         """,
+                ORDER_MAPPER,
                 playerUuid, limit
         );
-
-        List<Order> orders = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            orders.add(new Order(
-                    (String) row.get("id"),
-                    (String) row.get("instrument_id"),
-                    (String) row.get("symbol"),
-                    (String) row.get("display_name"),
-                    (String) row.get("side"),
-                    ((Number) row.get("qty")).doubleValue(),
-                    ((Number) row.get("price")).doubleValue(),
-                    ((Number) row.get("ts")).longValue(),
-                    (String) row.get("order_type"),
-                    row.get("limit_price") != null ? ((Number) row.get("limit_price")).doubleValue() : null,
-                    row.get("stop_price") != null ? ((Number) row.get("stop_price")).doubleValue() : null,
-                    row.get("fee_paid") != null ? ((Number) row.get("fee_paid")).doubleValue() : 0.0,
-                    row.get("execution_price") != null ? ((Number) row.get("execution_price")).doubleValue() : ((Number) row.get("price")).doubleValue()
-            ));
-        }
-
-        return orders;
     }
 
     /**
@@ -3,10 +3,12 @@ package net.cyberneticforge.quickstocks.core.services.features.market;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
 import net.cyberneticforge.quickstocks.core.model.Instrument;
 import net.cyberneticforge.quickstocks.core.model.InstrumentState;
+import net.cyberneticforge.quickstocks.core.model.PriceCandle;
 import net.cyberneticforge.quickstocks.core.model.PriceHistory;
 import net.cyberneticforge.quickstocks.core.model.Stock;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore;
 
 import java.sql.SQLException;
 import java.util.*;
@@ -256,24 +258,57 @@ public class InstrumentPersistenceService {
     }
     
     /**
-     * Gets price history for an instrument.
+     * Gets price history for an instrument from its 1-minute candles.
      * 
      * @param instrumentId The instrument ID
      * @param limit Maximum number of history entries to return
-     * @return List of price history entries
+     * @return List of price history entries, newest first
      * @throws SQLException if database error occurs
      */
     public List<PriceHistory> getPriceHistory(String instrumentId, int limit) throws SQLException {
-        var results = database.query("""
-            SELECT id, instrument_id, ts, price, volume, reason
-            FROM instrument_price_history
-            WHERE instrument_id = ?
-            ORDER BY ts DESC
-            LIMIT ?
-            """, instrumentId, limit);
-        
-        return results.stream()
-                .map(this::mapToPriceHistory)
+        return getPriceHistory(instrumentId, limit, PriceCandle.Resolution.ONE_MINUTE);
+    }
+    
+    /**
+     * Gets price history for an instrument at the given candle resolution.
+     * 
+     * @param instrumentId The instrument ID
+     * @param limit Maximum number of history entries to return
+     * @param resolution Candle resolution (1m, 1h or 1d)
+     * @return List of price history entries priced at the candle close, newest first
+     * @throws SQLException if database error occurs
+     */
+    public List<PriceHistory> getPriceHistory(String instrumentId, int limit, PriceCandle.Resolution resolution) throws SQLException {
+        return getCandles(instrumentId, limit, resolution).stream()
+                .map(PriceCandle::toPriceHistory)
+                .collect(Collectors.toList());
+    }
+    
+    /**
+     * Gets OHLC candles for an instrument.
+     * 
+     * @param instrumentId The instrument ID
+     * @param limit Maximum number of candles to return
+     * @param resolution Candle resolution (1m, 1h or 1d)
+     * @return List of candles, newest first
+     * @throws SQLException if database error occurs
+     */
+    public List<PriceCandle> getCandles(String instrumentId, int limit, PriceCandle.Resolution resolution) throws SQLException {
+        return QuickStocksPlugin.getPriceCandleService().getCandles(instrumentId, resolution, limit);
+    }
+    
+    /**
+     * Gets raw price ticks for an instrument from the tick store.
+     * 
+     * @param instrumentId The instrument ID
+     * @param from Start timestamp (inclusive, epoch millis)
+     * @param to End timestamp (exclusive, epoch millis)
+     * @return List of ticks as price history entries, oldest first
+     * @throws SQLException if database error occurs
+     */
+    public List<PriceHistory> getTicks(String instrumentId, long from, long to) throws SQLException {
+        return QuickStocksPlugin.getTickStore().range(instrumentId, from, to).stream()
+                .map(TickStore.Tick::toPriceHistory)
                 .collect(Collectors.toList());
     }
     
@@ -307,17 +342,4 @@ public class InstrumentPersistenceService {
         return new InstrumentState(instrumentId, lastPrice, lastVolume, change1h, change24h, 
                                    volatility24h, marketCap, updatedAt);
     }
-    
-    /**
-     * Maps a database row to a PriceHistory object.
-     */
-    private PriceHistory mapToPriceHistory(Map<String, Object> row) {
-        String id = (String) row.get("id");
-        String instrumentId = (String) row.get("instrument_id");
-        long timestamp = ((Number) row.get("ts")).longValue();
-        double price = ((Number) row.get("price")).doubleValue();
-        double volume = ((Number) row.get("volume")).doubleValue();
-        String reason = (String) row.get("reason");
-        return new PriceHistory(id, instrumentId, timestamp, price, volume, reason);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,221 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.db.SqlDialect;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore.Tick;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Write-behind persister for instrument_state and raw price ticks (see {@link TickStore}).
+ * Market ticks only enqueue; a periodic flush writes everything collected since the
+ * last flush as one batched transaction of native upserts. States are coalesced per
+ * instrument (last write wins), history points are kept in a bounded queue that forces an
+ * inline flush when full. History points are rolled up into OHLC candles in the same transaction.
+ * A non-transactional {@link TickStore} is appended to only after the commit; ticks it failed to take
+ * are retried on the next flush without touching the database again.
+ */
+public class InstrumentStatePersister {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private final Db database;
+    private final PriceCandleService candleService;
+    private final TickStore tickStore;
+    private final String upsertStateSql;
+    private final int batchSize;
+    private final Map<String, StateUpdate> dirtyStates = new ConcurrentHashMap<>();
+    private final BlockingQueue<Tick> pendingHistory;
+    private final int maxUnstoredTicks;
+    private List<Tick> unstoredTicks = new ArrayList<>(); // guarded by flushLock
+    private final ReentrantLock flushLock = new ReentrantLock();
+
+    public InstrumentStatePersister(Db database, PriceCandleService candleService, TickStore tickStore,
+                                    int maxPendingHistory, int batchSize) {
+        this.database = database;
+        this.candleService = candleService;
+        this.tickStore = tickStore;
+        this.upsertStateSql = upsertStateSql(database.getDialect());
+        this.pendingHistory = new ArrayBlockingQueue<>(Math.max(1, maxPendingHistory));
+        this.maxUnstoredTicks = Math.max(1, maxPendingHistory);
+        this.batchSize = Math.max(1, batchSize);
+    }
+
+    /**
+     * Queues the latest state of an instrument together with a history point.
+     */
+    public void enqueue(StateUpdate state, String reason) {
+        dirtyStates.put(state.instrumentId(), state);
+
+        Tick point = new Tick(state.instrumentId(), state.updatedAt(), state.lastPrice(), state.lastVolume(), reason);
+        if (pendingHistory.offer(point)) {
+            return;
+        }
+        logger.debug("Price history queue full (" + pendingHistory.size() + "), flushing inline");
+        flush();
+        while (!pendingHistory.offer(point)) {
+            // Database is unavailable and the queue is still full: shed the oldest point
+            pendingHistory.poll();
+        }
+    }
+
+    /**
+     * Single-statement upsert of an instrument_state row, parameters in column order.
+     */
+    static String upsertStateSql(SqlDialect dialect) {
+        return dialect.upsert("instrument_state",
+            List.of("instrument_id", "last_price", "last_volume", "change_1h", "change_24h", "volatility_24h", "market_cap", "updated_at"),
+            List.of("instrument_id"));
+    }
+
+    /**
+     * Number of instrument states waiting to be written.
+     */
+    public int getPendingStateCount() {
+        return dirtyStates.size();
+    }
+
+    /**
+     * Number of history points waiting to be written.
+     */
+    public int getPendingHistoryCount() {
+        return pendingHistory.size();
+    }
+
+    /**
+     * Writes all pending states and history points. Safe to call from any thread; concurrent
+     * callers wait for the running flush instead of writing the same rows twice.
+     */
+    public void flush() {
+        flushLock.lock();
+        try {
+            List<StateUpdate> states = drainStates();
+            List<Tick> history = new ArrayList<>(pendingHistory.size());
+            pendingHistory.drainTo(history);
+            if (states.isEmpty() && history.isEmpty() && unstoredTicks.isEmpty()) {
+                return;
+            }
+
+            long start = System.nanoTime();
+            try {
+                write(states, history);
+                logger.debug("Flushed " + states.size() + " instrument states and " + history.size()
+                    + " history points in " + (System.nanoTime() - start) / 1_000_000 + " ms");
+            } catch (SQLException | RuntimeException e) {
+                logger.warning("Failed to flush instrument states: " + e.getMessage());
+                requeue(states, history);
+                return;
+            }
+            if (!tickStore.isTransactional()) {
+                storeTicks(history);
+            }
+        } finally {
+            flushLock.unlock();
+        }
+    }
+
+    private List<StateUpdate> drainStates() {
+        List<StateUpdate> states = new ArrayList<>(dirtyStates.size());
+        Iterator<Map.Entry<String, StateUpdate>> it = dirtyStates.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<String, StateUpdate> entry = it.next();
+            // Only remove the exact value we drained so a concurrent newer update survives
+            if (dirtyStates.remove(entry.getKey(), entry.getValue())) {
+                states.add(entry.getValue());
+            }
+        }
+        return states;
+    }
+
+    private void write(List<StateUpdate> states, List<Tick> history) throws SQLException {
+        PriceCandleService.Rollup rollup = candleService.newRollup();
+        for (Tick point : history) {
+            rollup.add(point.instrumentId(), point.ts(), point.price(), point.volume());
+        }
+
+        database.executeTransaction(tx -> {
+            for (int from = 0; from < states.size(); from += batchSize) {
+                List<StateUpdate> chunk = states.subList(from, Math.min(states.size(), from + batchSize));
+                List<Object[]> params = new ArrayList<>(chunk.size());
+                for (StateUpdate state : chunk) {
+                    params.add(state.toParams());
+                }
+
+                tx.executeBatch(upsertStateSql, params);
+            }
+
+            rollup.write(tx, batchSize);
+
+            if (tickStore.isTransactional()) {
+                tickStore.append(tx, history);
+            }
+        });
+    }
+
+    /**
+     * Appends committed ticks, oldest first, to a non-transactional store. Ticks of a failed append are kept
+     * for the next flush; the store skips the ones it already took.
+     */
+    private void storeTicks(List<Tick> history) {
+        List<Tick> ticks = unstoredTicks;
+        ticks.addAll(history);
+        if (ticks.isEmpty()) {
+            return;
+        }
+        // A requeued batch sits behind newer points in the queue; the store only accepts ticks in time order
+        ticks.sort(Comparator.comparingLong(Tick::ts));
+        try {
+            tickStore.append(null, ticks);
+            unstoredTicks = new ArrayList<>();
+        } catch (SQLException | RuntimeException e) {
+            logger.warning("Failed to append " + ticks.size() + " ticks to the tick store: " + e.getMessage());
+            if (ticks.size() > maxUnstoredTicks) {
+                int dropped = ticks.size() - maxUnstoredTicks;
+                unstoredTicks = new ArrayList<>(ticks.subList(dropped, ticks.size()));
+                logger.warning("Dropped " + dropped + " ticks that could not be stored");
+            }
+        }
+    }
+
+    /**
+     * Puts a failed batch back so the next flush retries it. Newer states win over the failed ones
+     * and history points that no longer fit are dropped.
+     */
+    private void requeue(List<StateUpdate> states, List<Tick> history) {
+        for (StateUpdate state : states) {
+            dirtyStates.putIfAbsent(state.instrumentId(), state);
+        }
+        int dropped = 0;
+        for (Tick point : history) {
+            if (!pendingHistory.offer(point)) {
+                dropped++;
+            }
+        }
+        if (dropped > 0) {
+            logger.warning("Dropped " + dropped + " price history points after failed flush");
+        }
+    }
+
+    /**
+     * Snapshot of an instrument_state row.
+     */
+    public record StateUpdate(String instrumentId, double lastPrice, double lastVolume, double change1h,
+                              double change24h, double volatility24h, double marketCap, long updatedAt) {
+
+        private Object[] toParams() {
+            return new Object[]{instrumentId, lastPrice, lastVolume, change1h, change24h, volatility24h, marketCap, updatedAt};
+        }
+    }
+}
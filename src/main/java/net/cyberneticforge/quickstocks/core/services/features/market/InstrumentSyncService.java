@@ -6,11 +6,15 @@ import net.cyberneticforge.quickstocks.core.model.InstrumentState;
 import net.cyberneticforge.quickstocks.core.model.Stock;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.SqlTickStore;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore;
 
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
 
 /**
  * Service that synchronizes Stock objects (in-memory) with Instrument database records.
@@ -26,7 +30,9 @@ public class InstrumentSyncService {
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
-    private final Map<String, String> symbolToInstrumentId = new HashMap<>(); // symbol -> instrument_id
+    private final String upsertStateSql = InstrumentStatePersister.upsertStateSql(database.getDialect());
+    private final Map<String, String> symbolToInstrumentId = new ConcurrentHashMap<>(); // symbol -> instrument_id
+    private final Map<String, String> instrumentIdToSymbol = new ConcurrentHashMap<>();
     
     /**
      * Ensures a Stock object has a corresponding Instrument in the database.
@@ -48,12 +54,12 @@ public class InstrumentSyncService {
             
             if (existing != null) {
                 instrumentId = (String) existing.get("id");
-                symbolToInstrumentId.put(symbol, instrumentId);
+                remember(symbol, instrumentId);
                 logger.debug("Found existing instrument for symbol " + symbol + ": " + instrumentId);
             } else {
                 // Create new instrument
                 instrumentId = createInstrument(stock);
-                symbolToInstrumentId.put(symbol, instrumentId);
+                remember(symbol, instrumentId);
                 logger.info("Created new instrument for symbol " + symbol + ": " + instrumentId);
             }
         }
@@ -99,72 +105,73 @@ public class InstrumentSyncService {
         // Calculate 1h and 24h changes (simplified - use previous price for now)
         double change = stock.getPriceChangePercent();
         
-        // Check if instrument_state exists
-        Map<String, Object> existing = database.queryOne(
-            "SELECT instrument_id FROM instrument_state WHERE instrument_id = ?", 
-            instrumentId
+        database.execute(
+            upsertStateSql,
+            instrumentId,
+            stock.getCurrentPrice(),
+            stock.getDailyVolume(),
+            change,  // Use current change as approximation
+            change,  // Use current change as approximation
+            stock.getVolatilityRating(),
+            stock.getMarketCap(),
+            now
         );
-        
-        if (existing == null) {
-            // Create new instrument_state
-            database.execute(
-                """
-                INSERT INTO instrument_state (instrument_id, last_price, last_volume, change_1h, change_24h, volatility_24h, market_cap, updated_at)
-                VALUES (?, ?, ?, ?, ?, ?, ?, ?)
-                """,
-                instrumentId,
-                stock.getCurrentPrice(),
-                stock.getDailyVolume(),
-                change,  // Use current change as approximation
-                change,  // Use current change as approximation
-                stock.getVolatilityRating(),
-                stock.getMarketCap(),
-                now
-            );
-            logger.debug("Created instrument_state for " + stock.getSymbol());
-        } else {
-            // Update existing instrument_state
-            database.execute(
-                """
-                UPDATE instrument_state 
-                SET last_price = ?, last_volume = ?, change_1h = ?, change_24h = ?, volatility_24h = ?, market_cap = ?, updated_at = ?
-                WHERE instrument_id = ?
-                """,
-                stock.getCurrentPrice(),
-                stock.getDailyVolume(),
-                change,  // Simplified
-                change,  // Simplified
-                stock.getVolatilityRating(),
-                stock.getMarketCap(),
-                now,
-                instrumentId
-            );
-            logger.debug("Updated instrument_state for " + stock.getSymbol());
-        }
+        logger.debug("Synced instrument_state for " + stock.getSymbol());
         
         // Add to price history
         addPriceHistory(instrumentId, stock.getCurrentPrice(), stock.getDailyVolume());
     }
     
     /**
-     * Adds an entry to the instrument_price_history table.
+     * Queues the current Stock prices for the write-behind persister.
+     * Falls back to a direct write when no persister is running (e.g. outside the plugin).
+     * 
+     * @param stock The Stock object with updated prices
      */
-    private void addPriceHistory(String instrumentId, double price, double volume) throws SQLException {
-        String historyId = UUID.randomUUID().toString();
-        long now = System.currentTimeMillis();
+    public void queuePriceUpdate(Stock stock) throws SQLException {
+        InstrumentStatePersister persister = QuickStocksPlugin.getInstrumentStatePersister();
+        if (persister == null) {
+            syncPriceToDatabase(stock);
+            return;
+        }
         
-        database.execute(
-            """
-            INSERT INTO instrument_price_history (id, instrument_id, ts, price, volume, reason)
-            VALUES (?, ?, ?, ?, ?, ?)
-            """,
-            historyId,
+        String instrumentId = ensureInstrumentExists(stock);
+        double change = stock.getPriceChangePercent();
+        persister.enqueue(new InstrumentStatePersister.StateUpdate(
             instrumentId,
-            now,
-            price,
-            volume,
-            "MARKET_UPDATE"
-        );
+            stock.getCurrentPrice(),
+            stock.getDailyVolume(),
+            change,  // Simplified, same as syncPriceToDatabase
+            change,
+            stock.getVolatilityRating(),
+            stock.getMarketCap(),
+            System.currentTimeMillis()
+        ), "MARKET_UPDATE");
+    }
+    
+    /**
+     * Appends a tick to the tick store and folds it into the instrument's candles.
+     */
+    private void addPriceHistory(String instrumentId, double price, double volume) throws SQLException {
+        TickStore.Tick tick = new TickStore.Tick(instrumentId, System.currentTimeMillis(), price, volume, "MARKET_UPDATE");
+        PriceCandleService candleService = QuickStocksPlugin.getPriceCandleService();
+        TickStore tickStore = QuickStocksPlugin.getTickStore();
+        
+        TickStore store = tickStore != null ? tickStore : new SqlTickStore(database, 1);
+        
+        database.executeTransaction(tx -> {
+            if (candleService != null) {
+                PriceCandleService.Rollup rollup = candleService.newRollup();
+                rollup.add(tick.instrumentId(), tick.ts(), tick.price(), tick.volume());
+                rollup.write(tx, 1);
+            }
+            if (store.isTransactional()) {
+                store.append(tx, List.of(tick));
+            }
+        });
+        if (!store.isTransactional()) {
+            store.append(null, List.of(tick));
+        }
     }
     
     /**
@@ -203,7 +210,7 @@ public class InstrumentSyncService {
             }
             
             stocks.put(symbol, stock);
-            symbolToInstrumentId.put(symbol, (String) row.get("id"));
+            remember(symbol, (String) row.get("id"));
         }
         
         logger.info("Loaded " + stocks.size() + " stocks from database");
@@ -229,4 +236,23 @@ public class InstrumentSyncService {
     public String getInstrumentId(String symbol) {
         return symbolToInstrumentId.get(symbol);
     }
+    
+    /**
+     * Gets the symbol of a known instrument, or null if not found.
+     */
+    public String getSymbol(String instrumentId) {
+        return instrumentIdToSymbol.get(instrumentId);
+    }
+    
+    /**
+     * Last price written to instrument_state, or null if the instrument has none.
+     */
+    public Double getPersistedPrice(String instrumentId) throws SQLException {
+        return database.queryValue("SELECT last_price FROM instrument_state WHERE instrument_id = ?", instrumentId);
+    }
+    
+    private void remember(String symbol, String instrumentId) {
+        symbolToInstrumentId.put(symbol, instrumentId);
+        instrumentIdToSymbol.put(instrumentId, symbol);
+    }
 }
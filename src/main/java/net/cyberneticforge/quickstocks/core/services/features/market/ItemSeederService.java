@@ -7,7 +7,9 @@ import org.bukkit.Material;
 
 import java.sql.SQLException;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
+import java.util.Set;
 import java.util.UUID;
 
 /**
@@ -32,6 +34,8 @@ public class ItemSeederService {
         logger.info("Seeding common tradeable items...");
         
         Map<Material, Double> commonItems = getCommonTradeableItemsFromConfig();
+        Set<String> existingMaterials = new HashSet<>(database.query(
+            "SELECT mc_material FROM instruments WHERE mc_material IS NOT NULL", rs -> rs.getString(1)));
         int created = 0;
         int skipped = 0;
         
@@ -39,7 +43,7 @@ public class ItemSeederService {
             Material material = entry.getKey();
             double initialPrice = entry.getValue();
             
-            boolean exists = checkInstrumentExists(material);
+            boolean exists = existingMaterials.contains(material.name());
             
             if (exists && !overwrite) {
                 skipped++;
@@ -152,17 +156,6 @@ public class ItemSeederService {
         return items;
     }
     
-    /**
-     * Checks if an instrument already exists for this material.
-     */
-    private boolean checkInstrumentExists(Material material) throws SQLException {
-        Map<String, Object> result = database.queryOne(
-            "SELECT id FROM instruments WHERE mc_material = ?",
-            material.name()
-        );
-        return result != null;
-    }
-    
     /**
      * Deletes an instrument for this material.
      */
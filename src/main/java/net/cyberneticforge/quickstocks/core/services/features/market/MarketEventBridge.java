@@ -0,0 +1,113 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.api.events.InstrumentPriceUpdateEvent;
+import net.cyberneticforge.quickstocks.api.events.MarketTickEvent;
+import net.cyberneticforge.quickstocks.core.model.Stock;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.function.BooleanSupplier;
+import java.util.function.Function;
+
+/**
+ * Hands the price changes of a market update to other plugins.
+ * <p>
+ * The update runs on an async task, so the changes are captured into one immutable {@link MarketTickEvent}
+ * there and dispatched with a single task on the main thread, where synchronous listeners expect to run.
+ * {@link InstrumentPriceUpdateEvent} is still fired per changed instrument in the same task when enabled
+ * in the config and someone listens to it. Nothing is captured or scheduled while neither event has listeners.
+ */
+public class MarketEventBridge {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    /** Smallest price move reported as a change */
+    private static final double MIN_CHANGE = 0.0001;
+
+    private final Function<String, String> instrumentIds;
+    private final BooleanSupplier legacyEventsEnabled;
+
+    /**
+     * @param instrumentIds       resolves a symbol to its database instrument id, null when unknown
+     * @param legacyEventsEnabled whether to also fire per-instrument events, read on every update
+     */
+    public MarketEventBridge(Function<String, String> instrumentIds, BooleanSupplier legacyEventsEnabled) {
+        this.instrumentIds = instrumentIds;
+        this.legacyEventsEnabled = legacyEventsEnabled;
+    }
+
+    /**
+     * Captures the changed prices of one market update and schedules their dispatch on the main thread.
+     * Safe to call from any thread; the stocks' previous prices are the pre-update prices.
+     */
+    public void publish(List<Stock> updated) {
+        if (MarketTickEvent.getHandlerList().getRegisteredListeners().length == 0 && !legacyEventsWanted()) {
+            return;
+        }
+
+        int n = updated.size();
+        String[] ids = new String[n];
+        String[] symbols = new String[n];
+        double[] oldPrices = new double[n];
+        double[] newPrices = new double[n];
+        int changed = 0;
+        for (Stock stock : updated) {
+            double oldPrice = stock.getPreviousPrice();
+            double newPrice = stock.getCurrentPrice();
+            if (Math.abs(newPrice - oldPrice) <= MIN_CHANGE) {
+                continue;
+            }
+            String instrumentId = instrumentIds.apply(stock.getSymbol());
+            ids[changed] = instrumentId != null ? instrumentId : stock.getSymbol();
+            symbols[changed] = stock.getSymbol();
+            oldPrices[changed] = oldPrice;
+            newPrices[changed] = newPrice;
+            changed++;
+        }
+        if (changed == 0) {
+            return;
+        }
+
+        MarketTickEvent event = new MarketTickEvent(Arrays.copyOf(ids, changed), Arrays.copyOf(symbols, changed),
+            Arrays.copyOf(oldPrices, changed), Arrays.copyOf(newPrices, changed), System.currentTimeMillis());
+        if (Bukkit.isPrimaryThread()) {
+            dispatch(event);
+            return;
+        }
+        Plugin plugin = QuickStocksPlugin.getInstance();
+        if (plugin != null && plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, () -> dispatch(event));
+        }
+    }
+
+    private boolean legacyEventsWanted() {
+        return legacyEventsEnabled.getAsBoolean()
+            && InstrumentPriceUpdateEvent.getHandlerList().getRegisteredListeners().length > 0;
+    }
+
+    /**
+     * Fires the tick event, then the per-instrument events if still wanted. Main thread only.
+     */
+    private void dispatch(MarketTickEvent event) {
+        try {
+            Bukkit.getPluginManager().callEvent(event);
+        } catch (Exception e) {
+            logger.warning("MarketTickEvent listener failed: " + e.getMessage());
+        }
+        if (!legacyEventsWanted()) {
+            return;
+        }
+        for (int i = 0; i < event.size(); i++) {
+            try {
+                Bukkit.getPluginManager().callEvent(new InstrumentPriceUpdateEvent(event.getInstrumentId(i),
+                    event.getSymbol(i), event.getOldPrice(i), event.getNewPrice(i), event.getTimestamp()));
+            } catch (Exception e) {
+                // Don't let one listener stop the remaining instruments
+            }
+        }
+    }
+}
@@ -31,6 +31,7 @@ public class MarketScheduler {
     private LocalTime closeTime = marketConfig.getCloseTime();
     private ZoneId timezone = marketConfig.getTimezone();
     private boolean marketOpen;
+    private long closedAt; // epoch millis of the last close, 0 while unknown
     
     private BukkitTask checkTask;
     
@@ -49,6 +50,9 @@ public class MarketScheduler {
             
             logger.info("Market hours configured: " + openTime + " - " + closeTime + " " + timezone);
             logger.info("Market is currently " + (marketOpen ? "OPEN" : "CLOSED"));
+            if (!marketOpen) {
+                closedAt = lastCloseTime().toInstant().toEpochMilli();
+            }
             
         } catch (Exception e) {
             logger.warning("Failed to parse market hours configuration, using defaults: " + e.getMessage());
@@ -122,12 +126,55 @@ public class MarketScheduler {
         }
     }
     
+    /**
+     * Most recent time the market closed according to the configured hours.
+     */
+    private ZonedDateTime lastCloseTime() {
+        ZonedDateTime now = ZonedDateTime.now(timezone);
+        ZonedDateTime lastClose = now.with(closeTime);
+        return lastClose.isAfter(now) ? lastClose.minusDays(1) : lastClose;
+    }
+    
+    /**
+     * Start of the current trading session in epoch millis: the last open, or today's midnight when market
+     * hours are disabled.
+     */
+    public long sessionStart() {
+        ZonedDateTime now = ZonedDateTime.now(timezone);
+        if (!marketHoursEnabled) {
+            return now.truncatedTo(ChronoUnit.DAYS).toInstant().toEpochMilli();
+        }
+        ZonedDateTime lastOpen = now.with(openTime);
+        return (lastOpen.isAfter(now) ? lastOpen.minusDays(1) : lastOpen).toInstant().toEpochMilli();
+    }
+    
+    /**
+     * When circuit breakers start their next session on their own: the next midnight when market hours are
+     * disabled, never otherwise since {@link #openMarket()} starts it.
+     */
+    public long sessionRollover() {
+        if (!marketHoursEnabled) {
+            return ZonedDateTime.now(timezone).truncatedTo(ChronoUnit.DAYS).plusDays(1).toInstant().toEpochMilli();
+        }
+        return Long.MAX_VALUE;
+    }
+    
     /**
      * Opens the market and fires MarketOpenEvent.
+     * A new circuit breaker session starts, then prices take the gap for the closed hours, so the event and
+     * the first trades see the opening prices and those prices become the session opens.
      */
     private void openMarket() {
         marketOpen = true;
         
+        if (QuickStocksPlugin.getCircuitBreakerService() != null) {
+            QuickStocksPlugin.getCircuitBreakerService().startSession(System.currentTimeMillis(), Long.MAX_VALUE);
+        }
+        if (closedAt > 0 && marketConfig.isOpeningGapEnabled() && QuickStocksPlugin.getStockMarketService() != null) {
+            QuickStocksPlugin.getStockMarketService().applyClosedGap(System.currentTimeMillis() - closedAt);
+        }
+        closedAt = 0;
+        
         // Fire MarketOpenEvent
         MarketOpenEvent event = new MarketOpenEvent(System.currentTimeMillis());
         Bukkit.getPluginManager().callEvent(event);
@@ -142,6 +189,7 @@ public class MarketScheduler {
      */
     private void closeMarket() {
         marketOpen = false;
+        closedAt = System.currentTimeMillis();
         
         // Fire MarketCloseEvent
         MarketCloseEvent event = new MarketCloseEvent(System.currentTimeMillis());
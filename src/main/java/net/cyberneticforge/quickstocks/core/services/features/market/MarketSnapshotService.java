@@ -0,0 +1,305 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.algorithms.PriceThresholdController;
+import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
+import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
+import net.cyberneticforge.quickstocks.core.model.PriceRing;
+import net.cyberneticforge.quickstocks.core.model.Stock;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+
+/**
+ * Versioned binary snapshot of the in-memory market simulation.
+ * <p>
+ * Holds what the database does not: previous prices, volumes, the recent price history each stock's
+ * indicators are computed from, market influence values and the threshold controller's initial prices.
+ * Written on disable and periodically from the market task, read on enable. A stock is only restored
+ * when its snapshot price still matches instrument_state, so a stale snapshot (e.g. after a crash
+ * with newer prices already flushed) never overrides the database.
+ */
+public class MarketSnapshotService {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private static final int MAGIC = 0x51534D53; // "QSMS"
+    private static final short VERSION = 1;
+    private static final double PRICE_TOLERANCE = 1e-6;
+
+    private final Path file;
+    private long lastSavedAt;
+
+    public MarketSnapshotService(Path file) {
+        this.file = file;
+    }
+
+    /**
+     * Writes a snapshot if at least {@code intervalMillis} passed since the last one.
+     * Must run on the thread that updates prices.
+     */
+    public void saveIfDue(StockMarketService market, long intervalMillis) {
+        if (System.currentTimeMillis() - lastSavedAt < intervalMillis) {
+            return;
+        }
+        try {
+            save(market);
+        } catch (IOException e) {
+            logger.warning("Failed to write market snapshot: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Writes the current market state atomically.
+     */
+    public void save(StockMarketService market) throws IOException {
+        long start = System.nanoTime();
+        Collection<Stock> stocks = market.getStocksAsPriced();
+        List<MarketInfluence> influences = market.getMarketInfluences();
+        PriceThresholdController controller = market.getThresholdController();
+        Map<String, Double> initialPrices = controller != null ? controller.getInitialPrices() : Map.of();
+
+        Writer out = new Writer(64 * 1024);
+        out.putInt(stocks.size());
+        for (Stock stock : stocks) {
+            PriceRing history = stock.getHistory();
+            out.putString(stock.getSymbol());
+            out.putDouble(stock.getCurrentPrice());
+            out.putDouble(stock.getPreviousPrice());
+            out.putDouble(stock.getDailyVolume());
+            out.putDouble(stock.getMarketCap());
+            out.putDouble(stock.getVolatilityRating());
+            out.putInt(history.size());
+            for (int h = 0; h < history.size(); h++) {
+                out.putDouble(history.priceAt(h));
+                out.putLong(history.timestampAt(h));
+            }
+        }
+
+        out.putInt(influences.size());
+        for (MarketInfluence influence : influences) {
+            out.putString(influence.getFactor().name());
+            out.putDouble(influence.getCurrentValue());
+            out.putDouble(influence.getIntensity());
+            out.putDouble(influence.getTrendDirection());
+        }
+
+        out.putInt(initialPrices.size());
+        for (Map.Entry<String, Double> entry : initialPrices.entrySet()) {
+            out.putString(entry.getKey());
+            out.putDouble(entry.getValue());
+        }
+
+        ByteBuffer body = out.toBuffer();
+        CRC32 crc = new CRC32();
+        crc.update(body.duplicate());
+
+        ByteBuffer header = ByteBuffer.allocate(4 + 2 + 8 + 4 + 8);
+        header.putInt(MAGIC).putShort(VERSION).putLong(System.currentTimeMillis())
+            .putInt(body.remaining()).putLong(crc.getValue()).flip();
+
+        Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+            StandardOpenOption.TRUNCATE_EXISTING)) {
+            while (header.hasRemaining() || body.hasRemaining()) {
+                channel.write(new ByteBuffer[]{header, body});
+            }
+            channel.force(false);
+        }
+        Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        lastSavedAt = System.currentTimeMillis();
+        logger.debug("Wrote market snapshot with " + stocks.size() + " stocks in "
+            + (System.nanoTime() - start) / 1_000_000 + " ms");
+    }
+
+    /**
+     * Applies the snapshot to freshly loaded market state. Stocks missing from the market or whose
+     * price no longer matches the database keep their database values.
+     *
+     * @return number of restored stocks, or -1 when there is no usable snapshot
+     */
+    public int restore(StockMarketService market) {
+        if (!Files.exists(file)) {
+            return -1;
+        }
+        ByteBuffer buffer;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            buffer = ByteBuffer.allocate((int) channel.size());
+            while (buffer.hasRemaining() && channel.read(buffer) >= 0) {
+                // Read the whole file
+            }
+            buffer.flip();
+        } catch (IOException e) {
+            logger.warning("Failed to read market snapshot: " + e.getMessage());
+            return -1;
+        }
+
+        try {
+            return apply(buffer, market);
+        } catch (BufferUnderflowException | IllegalArgumentException e) {
+            logger.warning("Ignoring corrupt market snapshot: " + e.getMessage());
+            return -1;
+        }
+    }
+
+    private int apply(ByteBuffer buffer, StockMarketService market) {
+        if (buffer.getInt() != MAGIC) {
+            throw new IllegalArgumentException("bad magic");
+        }
+        short version = buffer.getShort();
+        if (version != VERSION) {
+            logger.info("Ignoring market snapshot of version " + version);
+            return -1;
+        }
+        long savedAt = buffer.getLong();
+        int length = buffer.getInt();
+        long checksum = buffer.getLong();
+        if (length != buffer.remaining()) {
+            throw new IllegalArgumentException("truncated body");
+        }
+        CRC32 crc = new CRC32();
+        crc.update(buffer.duplicate());
+        if (crc.getValue() != checksum) {
+            throw new IllegalArgumentException("checksum mismatch");
+        }
+
+        int restored = 0;
+        int stale = 0;
+        int stockCount = buffer.getInt();
+        for (int i = 0; i < stockCount; i++) {
+            String symbol = getString(buffer);
+            double currentPrice = buffer.getDouble();
+            double previousPrice = buffer.getDouble();
+            double dailyVolume = buffer.getDouble();
+            double marketCap = buffer.getDouble();
+            double volatility = buffer.getDouble();
+            int historySize = buffer.getInt();
+            double[] historyPrices = new double[historySize];
+            long[] historyTimestamps = new long[historySize];
+            for (int h = 0; h < historySize; h++) {
+                historyPrices[h] = buffer.getDouble();
+                historyTimestamps[h] = buffer.getLong();
+            }
+
+            Stock stock = market.getStockAsPriced(symbol);
+            if (stock == null) {
+                continue;
+            }
+            if (Math.abs(stock.getCurrentPrice() - currentPrice) > PRICE_TOLERANCE * Math.max(1.0, currentPrice)) {
+                stale++;
+                continue;
+            }
+            stock.restore(currentPrice, previousPrice, dailyVolume, marketCap, volatility, historyPrices, historyTimestamps);
+            market.refresh(stock);
+            restored++;
+        }
+
+        Map<MarketFactor, MarketInfluence> influences = new HashMap<>();
+        for (MarketInfluence influence : market.getMarketInfluences()) {
+            influences.put(influence.getFactor(), influence);
+        }
+        int influenceCount = buffer.getInt();
+        for (int i = 0; i < influenceCount; i++) {
+            String factorName = getString(buffer);
+            double value = buffer.getDouble();
+            double intensity = buffer.getDouble();
+            double trend = buffer.getDouble();
+            MarketInfluence influence = influences.get(parseFactor(factorName));
+            if (influence != null) {
+                influence.restore(value, intensity, trend);
+            }
+        }
+
+        PriceThresholdController controller = market.getThresholdController();
+        int initialCount = buffer.getInt();
+        for (int i = 0; i < initialCount; i++) {
+            String symbol = getString(buffer);
+            double initialPrice = buffer.getDouble();
+            if (controller != null && market.getStockAsPriced(symbol) != null) {
+                controller.restoreInitialPrice(symbol, initialPrice);
+            }
+        }
+
+        logger.info("Restored market snapshot from " + Instant.ofEpochMilli(savedAt) + ": " + restored
+            + " stocks resumed" + (stale > 0 ? ", " + stale + " stale stocks loaded from database" : ""));
+        return restored;
+    }
+
+    private static MarketFactor parseFactor(String name) {
+        try {
+            return MarketFactor.valueOf(name);
+        } catch (IllegalArgumentException e) {
+            return null; // Factor removed since the snapshot was written
+        }
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = Short.toUnsignedInt(buffer.getShort());
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Growable big-endian buffer.
+     */
+    private static final class Writer {
+        private ByteBuffer buffer;
+
+        private Writer(int initialCapacity) {
+            this.buffer = ByteBuffer.allocate(initialCapacity);
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                ByteBuffer grown = ByteBuffer.allocate(Math.max(buffer.capacity() * 2, buffer.position() + bytes));
+                buffer.flip();
+                grown.put(buffer);
+                buffer = grown;
+            }
+        }
+
+        private void putInt(int value) {
+            ensure(4);
+            buffer.putInt(value);
+        }
+
+        private void putLong(long value) {
+            ensure(8);
+            buffer.putLong(value);
+        }
+
+        private void putDouble(double value) {
+            ensure(8);
+            buffer.putDouble(value);
+        }
+
+        private void putString(String value) {
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            if (bytes.length > 0xFFFF) {
+                throw new IllegalArgumentException("String too long for snapshot: " + value.length());
+            }
+            ensure(2 + bytes.length);
+            buffer.putShort((short) bytes.length);
+            buffer.put(bytes);
+        }
+
+        private ByteBuffer toBuffer() {
+            return buffer.flip();
+        }
+    }
+}
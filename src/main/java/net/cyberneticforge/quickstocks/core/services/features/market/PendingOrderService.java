@@ -0,0 +1,535 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.enums.OrderType;
+import net.cyberneticforge.quickstocks.core.enums.Translation;
+import net.cyberneticforge.quickstocks.core.model.OrderRequest;
+import net.cyberneticforge.quickstocks.core.model.Replaceable;
+import net.cyberneticforge.quickstocks.core.model.Stock;
+import net.cyberneticforge.quickstocks.core.services.features.market.EnhancedTradingService.OrderFill;
+import net.cyberneticforge.quickstocks.core.services.features.market.TradingService.TradeResult;
+import net.cyberneticforge.quickstocks.infrastructure.config.TradingCfg;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.function.Function;
+
+/**
+ * Resting LIMIT and STOP orders, including trailing stops, kept until a price update triggers them,
+ * they expire or the player cancels them.
+ * <p>
+ * Each instrument has two price-sorted trigger indexes: orders that fire once the price is at or below
+ * their trigger (buy limits, sell stops) and orders that fire at or above it (sell limits, buy stops).
+ * The triggered orders of an updated instrument are one head or tail view of an index, so a market
+ * update costs O(log n + k) however many orders rest. Triggered orders execute through the fee and
+ * slippage path of {@link EnhancedTradingService} at the tick price, in the player's {@link TradeLanes} lane
+ * like any other trade. The {@code pending_orders} table is the durable copy, loaded on start; a fill deletes
+ * its row inside the settlement transaction, so an order is never filled twice. A fill the wallet or holding
+ * can't cover drops the order and tells the owner; any other rejection puts it back to rest.
+ */
+public class PendingOrderService {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private static final Db.RowMapper<PendingOrder> ORDER_MAPPER = rs -> new PendingOrder(
+            rs.getString("id"),
+            rs.getString("player_uuid"),
+            rs.getString("instrument_id"),
+            rs.getString("side"),
+            OrderType.valueOf(rs.getString("order_type")),
+            rs.getDouble("qty"),
+            Db.getNullableDouble(rs, "limit_price"),
+            Db.getNullableDouble(rs, "stop_price"),
+            Db.getNullableDouble(rs, "trail_percent"),
+            rs.getLong("created_at"),
+            Db.getNullableLong(rs, "expires_at")
+    );
+
+    private static final Comparator<PendingOrder> BY_EXPIRY =
+            Comparator.comparingLong((PendingOrder order) -> order.expiresAt()).thenComparing(PendingOrder::id);
+
+    private final Db database;
+    private final EnhancedTradingService trading;
+    private final TradingCfg tradingConfig;
+    private final Function<String, String> instrumentIds;
+
+    // Guarded by this
+    private final Map<String, Book> books = new HashMap<>(); // by instrument id
+    private final Map<String, PendingOrder> orders = new HashMap<>(); // by order id
+    private final TreeSet<PendingOrder> expiries = new TreeSet<>(BY_EXPIRY);
+
+    /**
+     * @param instrumentIds resolves a stock symbol to its instrument id, null when unknown
+     */
+    public PendingOrderService(Db database, TradingCfg tradingConfig, Function<String, String> instrumentIds) {
+        this.database = database;
+        this.tradingConfig = tradingConfig;
+        this.trading = new EnhancedTradingService(database, tradingConfig);
+        this.instrumentIds = instrumentIds;
+    }
+
+    /**
+     * Rebuilds the trigger indexes from the database. Orders that expired while the server was down are dropped.
+     */
+    public void load() throws SQLException {
+        long now = System.currentTimeMillis();
+        List<PendingOrder> stored = database.query(
+                """
+                        SELECT id, player_uuid, instrument_id, side, order_type, qty, limit_price, stop_price,
+                               trail_percent, created_at, expires_at
+                        FROM pending_orders
+                        """,
+                ORDER_MAPPER
+        );
+        List<Object[]> expired = new ArrayList<>();
+        synchronized (this) {
+            for (PendingOrder order : stored) {
+                if (order.isExpired(now)) {
+                    expired.add(new Object[]{order.id()});
+                } else {
+                    index(order);
+                }
+            }
+        }
+        database.executeBatch("DELETE FROM pending_orders WHERE id = ?", expired);
+        logger.info("Loaded " + (stored.size() - expired.size()) + " pending orders");
+    }
+
+    /**
+     * Places a LIMIT or STOP order. It executes right away when the current price already meets its condition,
+     * otherwise it rests until a market update triggers it.
+     *
+     * @param expiresAt epoch millis the order lapses at, null for good till cancelled
+     */
+    public TradeResult place(OrderRequest request, Long expiresAt) throws SQLException {
+        return place(request, null, expiresAt);
+    }
+
+    /**
+     * Places a trailing stop that sits {@code trailPercent} percent behind the best price since placement:
+     * below the high for a SELL, above the low for a BUY.
+     */
+    public TradeResult placeTrailingStop(String playerUuid, String instrumentId, String side, double qty,
+                                         double trailPercent, Long expiresAt) throws SQLException {
+        if (trailPercent <= 0 || trailPercent >= 100) {
+            return new TradeResult(false, "Trailing distance must be between 0 and 100 percent");
+        }
+        Double marketPrice = EnhancedTradingService.currentPrice(instrumentId);
+        if (marketPrice == null) {
+            return new TradeResult(false, "Instrument not found or price unavailable");
+        }
+        OrderRequest request = OrderRequest.stopOrder(playerUuid, instrumentId, side, qty,
+                trailingStop(side, marketPrice, trailPercent));
+        return place(request, trailPercent, expiresAt);
+    }
+
+    private TradeResult place(OrderRequest request, Double trailPercent, Long expiresAt) throws SQLException {
+        try {
+            request.validate();
+        } catch (IllegalArgumentException e) {
+            return new TradeResult(false, e.getMessage());
+        }
+        if (request.type() == OrderType.MARKET) {
+            return new TradeResult(false, "Market orders execute immediately and cannot rest");
+        }
+        if (!trading.isOrderTypeAllowed(request.type())) {
+            return new TradeResult(false, "Order type " + request.type() + " is not allowed");
+        }
+        long now = System.currentTimeMillis();
+        if (expiresAt != null && expiresAt <= now) {
+            return new TradeResult(false, "Expiry must be in the future");
+        }
+        int maxPending = tradingConfig.getOrdersConfig().getMaxPendingPerPlayer();
+        if (countPending(request.playerUuid()) >= maxPending) {
+            return new TradeResult(false, "You already have " + maxPending + " pending orders");
+        }
+
+        Double marketPrice = EnhancedTradingService.currentPrice(request.instrumentId());
+        if (marketPrice == null) {
+            return new TradeResult(false, "Instrument not found or price unavailable");
+        }
+
+        PendingOrder order = new PendingOrder(UUID.randomUUID().toString(), request.playerUuid(), request.instrumentId(),
+                request.side(), request.type(), request.qty(), request.limitPrice(), request.stopPrice(), trailPercent,
+                now, expiresAt);
+        if (order.isTriggeredAt(marketPrice)) {
+            return trading.executeAt(request, marketPrice);
+        }
+
+        insert(order);
+        synchronized (this) {
+            index(order);
+        }
+
+        String message = String.format("%s %s %.2f shares resting at $%.2f (order %s)",
+                order.type(), order.side(), order.qty(), order.triggerPrice(), order.id());
+        logger.info("Placed pending order for " + order.playerUuid() + ": " + message);
+        return new TradeResult(true, message);
+    }
+
+    private void insert(PendingOrder order) throws SQLException {
+        database.execute(
+                """
+                        INSERT INTO pending_orders (id, player_uuid, instrument_id, side, order_type, qty, limit_price,
+                                                    stop_price, trail_percent, created_at, expires_at)
+                        VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                        """,
+                order.id(), order.playerUuid(), order.instrumentId(), order.side(), order.type().name(), order.qty(),
+                order.limitPrice(), order.stopPrice(), order.trailPercent(), order.createdAt(), order.expiresAt()
+        );
+    }
+
+    /**
+     * Cancels one of the player's pending orders.
+     *
+     * @return false if the player has no pending order with that id
+     */
+    public boolean cancel(String playerUuid, String orderId) throws SQLException {
+        synchronized (this) {
+            PendingOrder order = orders.get(orderId);
+            if (order == null || !order.playerUuid().equals(playerUuid)) {
+                return false;
+            }
+            unindex(order);
+        }
+        database.execute("DELETE FROM pending_orders WHERE id = ?", orderId);
+        logger.info("Cancelled pending order " + orderId + " for " + playerUuid);
+        return true;
+    }
+
+    /**
+     * Pending orders of a player, oldest first.
+     */
+    public synchronized List<PendingOrder> getPendingOrders(String playerUuid) {
+        List<PendingOrder> result = new ArrayList<>();
+        for (PendingOrder order : orders.values()) {
+            if (order.playerUuid().equals(playerUuid)) {
+                result.add(order);
+            }
+        }
+        result.sort(Comparator.comparingLong(PendingOrder::createdAt));
+        return result;
+    }
+
+    private synchronized int countPending(String playerUuid) {
+        int count = 0;
+        for (PendingOrder order : orders.values()) {
+            if (order.playerUuid().equals(playerUuid)) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Evaluates the resting orders of the instruments a market update moved: expires lapsed orders, moves
+     * trailing stops and takes the triggered orders out of the indexes. Their execution is handed to the
+     * main thread as one batch. Called on the market update thread.
+     */
+    public void onPrices(List<Stock> updated) {
+        long now = System.currentTimeMillis();
+        List<Fill> triggered = new ArrayList<>();
+        List<PendingOrder> lapsed = new ArrayList<>();
+        List<Object[]> trailed = new ArrayList<>();
+        synchronized (this) {
+            if (orders.isEmpty()) {
+                return;
+            }
+            while (!expiries.isEmpty() && expiries.first().isExpired(now)) {
+                PendingOrder order = expiries.first();
+                unindex(order);
+                lapsed.add(order);
+            }
+            for (Stock stock : updated) {
+                String instrumentId = instrumentIds.apply(stock.getSymbol());
+                Book book = instrumentId != null ? books.get(instrumentId) : null;
+                if (book == null || trading.isTradingHalted(instrumentId)) {
+                    continue; // halted orders keep resting until trading resumes
+                }
+                double price = stock.getCurrentPrice();
+                trail(book, price, trailed);
+                take(book.fireAtOrBelow.tailMap(price, true), price, triggered);
+                take(book.fireAtOrAbove.headMap(price, true), price, triggered);
+                if (book.isEmpty()) {
+                    books.remove(instrumentId);
+                }
+            }
+        }
+
+        if (!lapsed.isEmpty() || !trailed.isEmpty()) {
+            try {
+                List<Object[]> removed = new ArrayList<>();
+                lapsed.forEach(order -> removed.add(new Object[]{order.id()}));
+                database.executeTransaction(tx -> {
+                    tx.executeBatch("DELETE FROM pending_orders WHERE id = ?", removed);
+                    tx.executeBatch("UPDATE pending_orders SET stop_price = ? WHERE id = ?", trailed);
+                });
+            } catch (SQLException e) {
+                logger.warning("Failed to update pending orders: " + e.getMessage());
+            }
+        }
+        if (!lapsed.isEmpty()) {
+            logger.info("Expired " + lapsed.size() + " pending orders");
+        }
+        if (triggered.isEmpty()) {
+            return;
+        }
+
+        // Fill in each player's trade lane, behind the trades they already submitted
+        TradeLanes lanes = QuickStocksPlugin.getTradeLanes();
+        if (lanes != null) {
+            for (Fill fill : triggered) {
+                lanes.submitUnbounded(fill.order().playerUuid(), () -> {
+                    fill(fill);
+                    return null;
+                });
+            }
+            return;
+        }
+        if (Bukkit.isPrimaryThread()) {
+            execute(triggered);
+            return;
+        }
+        Plugin plugin = QuickStocksPlugin.getInstance();
+        if (plugin != null && plugin.isEnabled()) {
+            Bukkit.getScheduler().runTask(plugin, () -> execute(triggered));
+        }
+        // Otherwise the rows stay in the table and are loaded again on the next start
+    }
+
+    /**
+     * Executes triggered orders at the price that triggered them.
+     */
+    private void execute(List<Fill> fills) {
+        fills.forEach(this::fill);
+    }
+
+    /**
+     * Fills an order; the settlement deletes its row. When the wallet or holding doesn't cover it the order is
+     * dropped (deleting the row here is a no-op if the settlement already did) and the owner is told. Any other
+     * rejection, such as a halt, the notional limit or a failed write, leaves the order resting.
+     */
+    private void fill(Fill fill) {
+        PendingOrder order = fill.order();
+        OrderFill outcome = trading.executeAt(order.toRequest(), fill.price(), order.id());
+        TradeResult result = outcome.result();
+        if (result.success()) {
+            logger.info("Filled pending order " + order.id() + " for " + order.playerUuid() + ": " + result.message());
+            return;
+        }
+        if (!outcome.finalRejection()) {
+            logger.info("Pending order " + order.id() + " for " + order.playerUuid() + " rests again: " + result.message());
+            rest(order);
+            return;
+        }
+        logger.info("Dropped pending order " + order.id() + " for " + order.playerUuid() + ": " + result.message());
+        try {
+            database.execute("DELETE FROM pending_orders WHERE id = ?", order.id());
+        } catch (SQLException e) {
+            logger.warning("Failed to remove rejected pending order " + order.id() + ": " + e.getMessage());
+        }
+        notifyDropped(order, result.message());
+    }
+
+    /**
+     * Puts an order whose fill failed back into the indexes. A reverted Vault sell had already claimed the row,
+     * so it is stored again first. If that fails the order stays out of the indexes until the next start.
+     */
+    private void rest(PendingOrder order) {
+        try {
+            if (database.primary().queryLong("SELECT COUNT(*) FROM pending_orders WHERE id = ?", 0, order.id()) == 0) {
+                insert(order);
+            }
+        } catch (SQLException e) {
+            logger.warning("Failed to keep pending order " + order.id() + " resting: " + e.getMessage());
+            return;
+        }
+        synchronized (this) {
+            index(order);
+        }
+    }
+
+    /**
+     * Tells the owner, if online, that a triggered order was dropped.
+     */
+    private void notifyDropped(PendingOrder order, String reason) {
+        Plugin plugin = QuickStocksPlugin.getInstance();
+        if (plugin == null || !plugin.isEnabled()) {
+            return;
+        }
+        String symbol;
+        try {
+            symbol = database.queryValue("SELECT symbol FROM instruments WHERE id = ?", order.instrumentId());
+        } catch (SQLException e) {
+            symbol = null;
+        }
+        String shownSymbol = symbol != null ? symbol : order.instrumentId();
+        Bukkit.getScheduler().runTask(plugin, () -> {
+            Player player = Bukkit.getPlayer(UUID.fromString(order.playerUuid()));
+            if (player != null) {
+                Translation.Market_PendingOrder_Dropped.sendMessage(player,
+                        new Replaceable("%type%", order.type().name()),
+                        new Replaceable("%side%", order.side()),
+                        new Replaceable("%qty%", String.format("%.2f", order.qty())),
+                        new Replaceable("%symbol%", shownSymbol),
+                        new Replaceable("%reason%", reason));
+            }
+        });
+    }
+
+    /**
+     * Moves the book's trailing stops behind a new best price and re-keys them.
+     */
+    private void trail(Book book, double price, List<Object[]> trailed) {
+        for (PendingOrder order : List.copyOf(book.trailing.values())) {
+            double stop = trailingStop(order.side(), price, order.trailPercent());
+            boolean better = "SELL".equals(order.side()) ? stop > order.stopPrice() : stop < order.stopPrice();
+            if (!better) {
+                continue;
+            }
+            PendingOrder moved = order.withStopPrice(stop);
+            book.remove(order);
+            book.add(moved);
+            orders.put(moved.id(), moved);
+            if (moved.expiresAt() != null) {
+                expiries.remove(order);
+                expiries.add(moved);
+            }
+            trailed.add(new Object[]{stop, moved.id()});
+        }
+    }
+
+    /**
+     * Takes every order of a triggered index range out of all indexes.
+     */
+    private void take(NavigableMap<Double, List<PendingOrder>> range, double price, List<Fill> triggered) {
+        for (List<PendingOrder> level : range.values()) {
+            for (PendingOrder order : level) {
+                triggered.add(new Fill(order, price));
+                orders.remove(order.id());
+                if (order.expiresAt() != null) {
+                    expiries.remove(order);
+                }
+                if (order.trailPercent() != null) {
+                    books.get(order.instrumentId()).trailing.remove(order.id());
+                }
+            }
+        }
+        range.clear();
+    }
+
+    private void index(PendingOrder order) {
+        orders.put(order.id(), order);
+        books.computeIfAbsent(order.instrumentId(), id -> new Book()).add(order);
+        if (order.expiresAt() != null) {
+            expiries.add(order);
+        }
+    }
+
+    private void unindex(PendingOrder order) {
+        orders.remove(order.id());
+        if (order.expiresAt() != null) {
+            expiries.remove(order);
+        }
+        Book book = books.get(order.instrumentId());
+        if (book != null) {
+            book.remove(order);
+            if (book.isEmpty()) {
+                books.remove(order.instrumentId());
+            }
+        }
+    }
+
+    private static double trailingStop(String side, double price, double trailPercent) {
+        return "SELL".equals(side) ? price * (1 - trailPercent / 100.0) : price * (1 + trailPercent / 100.0);
+    }
+
+    /**
+     * Trigger indexes of one instrument, keyed by trigger price.
+     */
+    private static final class Book {
+        final TreeMap<Double, List<PendingOrder>> fireAtOrBelow = new TreeMap<>(); // buy limits, sell stops
+        final TreeMap<Double, List<PendingOrder>> fireAtOrAbove = new TreeMap<>(); // sell limits, buy stops
+        final Map<String, PendingOrder> trailing = new HashMap<>();
+
+        void add(PendingOrder order) {
+            side(order).computeIfAbsent(order.triggerPrice(), price -> new ArrayList<>(1)).add(order);
+            if (order.trailPercent() != null) {
+                trailing.put(order.id(), order);
+            }
+        }
+
+        void remove(PendingOrder order) {
+            TreeMap<Double, List<PendingOrder>> side = side(order);
+            List<PendingOrder> level = side.get(order.triggerPrice());
+            if (level != null && level.removeIf(o -> o.id().equals(order.id())) && level.isEmpty()) {
+                side.remove(order.triggerPrice());
+            }
+            trailing.remove(order.id());
+        }
+
+        boolean isEmpty() {
+            return fireAtOrBelow.isEmpty() && fireAtOrAbove.isEmpty();
+        }
+
+        private TreeMap<Double, List<PendingOrder>> side(PendingOrder order) {
+            return order.firesAtOrBelow() ? fireAtOrBelow : fireAtOrAbove;
+        }
+    }
+
+    private record Fill(PendingOrder order, double price) {
+    }
+
+    /**
+     * A resting order.
+     *
+     * @param stopPrice    trigger of a STOP order; the current stop of a trailing stop
+     * @param trailPercent trailing distance in percent, null for fixed stops and limits
+     * @param expiresAt    epoch millis, null for good till cancelled
+     */
+    public record PendingOrder(String id, String playerUuid, String instrumentId, String side, OrderType type,
+                               double qty, Double limitPrice, Double stopPrice, Double trailPercent,
+                               long createdAt, Long expiresAt) {
+
+        public double triggerPrice() {
+            return type == OrderType.LIMIT ? limitPrice : stopPrice;
+        }
+
+        /**
+         * Buy limits and sell stops fire when the price falls to the trigger, the others when it rises to it.
+         */
+        boolean firesAtOrBelow() {
+            return (type == OrderType.LIMIT) == "BUY".equals(side);
+        }
+
+        boolean isTriggeredAt(double price) {
+            return firesAtOrBelow() ? price <= triggerPrice() : price >= triggerPrice();
+        }
+
+        boolean isExpired(long now) {
+            return expiresAt != null && expiresAt <= now;
+        }
+
+        PendingOrder withStopPrice(double stop) {
+            return new PendingOrder(id, playerUuid, instrumentId, side, type, qty, limitPrice, stop, trailPercent,
+                    createdAt, expiresAt);
+        }
+
+        OrderRequest toRequest() {
+            return new OrderRequest(playerUuid, instrumentId, side, type, qty, limitPrice, stopPrice);
+        }
+    }
+}
@@ -0,0 +1,240 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.model.PriceCandle;
+import net.cyberneticforge.quickstocks.core.model.PriceCandle.Resolution;
+import net.cyberneticforge.quickstocks.infrastructure.config.MarketCfg;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.db.SqlDialect;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * OHLC candle rollups of instrument price history.
+ * Ticks are folded into 1m/1h/1d candles by the write-behind persister in the same transaction
+ * that stores them, so candles are always as fresh as the raw history. Raw ticks and fine-grained
+ * candles past their retention horizon are pruned in small batches by {@link #prune()}.
+ */
+public class PriceCandleService {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private static final String TABLE = "instrument_candles";
+    private static final List<String> COLUMNS = List.of(
+        "instrument_id", "resolution", "bucket_start", "open", "high", "low", "close", "volume", "tick_count");
+    private static final List<String> KEY = List.of("instrument_id", "resolution", "bucket_start");
+
+    private static final Db.RowMapper<PriceCandle> CANDLE_MAPPER = rs -> new PriceCandle(
+        rs.getString("instrument_id"),
+        Resolution.fromKey(rs.getString("resolution")),
+        rs.getLong("bucket_start"),
+        rs.getDouble("open"),
+        rs.getDouble("high"),
+        rs.getDouble("low"),
+        rs.getDouble("close"),
+        rs.getDouble("volume"),
+        rs.getInt("tick_count")
+    );
+
+    private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private final String upsertCandleSql;
+    private final String pruneCandlesSql;
+
+    public PriceCandleService() {
+        SqlDialect dialect = database.getDialect();
+        this.upsertCandleSql = upsertCandleSql(dialect);
+        this.pruneCandlesSql = dialect.deleteLimited(TABLE, "resolution = ? AND bucket_start < ?");
+    }
+
+    /**
+     * Upsert that merges a partial candle into the stored one: the stored open is kept,
+     * high/low widen, close and volume take the newer values and tick counts add up.
+     */
+    static String upsertCandleSql(SqlDialect dialect) {
+        Map<String, String> updates = new LinkedHashMap<>();
+        updates.put("high", dialect.greatest(dialect.current(TABLE, "high"), dialect.excluded("high")));
+        updates.put("low", dialect.least(dialect.current(TABLE, "low"), dialect.excluded("low")));
+        updates.put("close", dialect.excluded("close"));
+        updates.put("volume", dialect.excluded("volume"));
+        updates.put("tick_count", dialect.current(TABLE, "tick_count") + " + " + dialect.excluded("tick_count"));
+        return dialect.upsert(TABLE, COLUMNS, KEY, updates);
+    }
+
+    /**
+     * Starts an empty rollup for one flush.
+     */
+    public Rollup newRollup() {
+        return new Rollup();
+    }
+
+    /**
+     * Gets the most recent candles of an instrument, newest first.
+     */
+    public List<PriceCandle> getCandles(String instrumentId, Resolution resolution, int limit) throws SQLException {
+        return database.query("""
+            SELECT instrument_id, resolution, bucket_start, open, high, low, close, volume, tick_count
+            FROM instrument_candles
+            WHERE instrument_id = ? AND resolution = ?
+            ORDER BY bucket_start DESC
+            LIMIT ?
+            """, CANDLE_MAPPER, instrumentId, resolution.getKey(), limit);
+    }
+
+    /**
+     * Gets candles of an instrument with bucket_start in [from, to), oldest first.
+     */
+    public List<PriceCandle> getCandles(String instrumentId, Resolution resolution, long from, long to) throws SQLException {
+        return database.query("""
+            SELECT instrument_id, resolution, bucket_start, open, high, low, close, volume, tick_count
+            FROM instrument_candles
+            WHERE instrument_id = ? AND resolution = ? AND bucket_start >= ? AND bucket_start < ?
+            ORDER BY bucket_start
+            """, CANDLE_MAPPER, instrumentId, resolution.getKey(), from, to);
+    }
+
+    /**
+     * Deletes raw ticks and candles older than the configured retention horizons.
+     * Each table is cleaned with at most {@code pruneMaxBatches} short delete statements per run,
+     * so a large backlog is worked off over several runs without holding long locks.
+     *
+     * @return number of deleted rows
+     */
+    public int prune() throws SQLException {
+        MarketCfg cfg = QuickStocksPlugin.getMarketCfg();
+        long now = System.currentTimeMillis();
+        int batchSize = cfg.getHistoryPruneBatchSize();
+        int maxBatches = cfg.getHistoryPruneMaxBatches();
+
+        int deleted = 0;
+        if (cfg.getHistoryRawRetentionHours() > 0) {
+            // Ticks are rolled up in the transaction that stores them, so any stored tick is already in a candle
+            long cutoff = now - cfg.getHistoryRawRetentionHours() * 3_600_000L;
+            deleted += QuickStocksPlugin.getTickStore().prune(cutoff, batchSize, maxBatches);
+        }
+        if (cfg.getHistoryMinuteCandleRetentionDays() > 0) {
+            long cutoff = now - cfg.getHistoryMinuteCandleRetentionDays() * 86_400_000L;
+            deleted += deleteInBatches(pruneCandlesSql, batchSize, maxBatches, Resolution.ONE_MINUTE.getKey(), cutoff);
+        }
+        if (cfg.getHistoryHourCandleRetentionDays() > 0) {
+            long cutoff = now - cfg.getHistoryHourCandleRetentionDays() * 86_400_000L;
+            deleted += deleteInBatches(pruneCandlesSql, batchSize, maxBatches, Resolution.ONE_HOUR.getKey(), cutoff);
+        }
+
+        if (deleted > 0) {
+            logger.debug("Pruned " + deleted + " expired price history rows");
+        }
+        return deleted;
+    }
+
+    private int deleteInBatches(String sql, int batchSize, int maxBatches, Object... conditionParams) throws SQLException {
+        Object[] params = new Object[conditionParams.length + 1];
+        System.arraycopy(conditionParams, 0, params, 0, conditionParams.length);
+        params[conditionParams.length] = batchSize;
+
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int deleted = database.execute(sql, params);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Partial candles built from the ticks of one flush, keyed by instrument, resolution and bucket.
+     * Ticks may arrive out of order (e.g. after a failed flush is requeued), open and close follow timestamps.
+     */
+    public final class Rollup {
+
+        private final Map<String, Candle> candles = new LinkedHashMap<>();
+
+        private Rollup() {
+        }
+
+        public void add(String instrumentId, long ts, double price, double volume) {
+            for (Resolution resolution : Resolution.values()) {
+                long bucket = resolution.bucketStart(ts);
+                String key = instrumentId + '|' + resolution.getKey() + '|' + bucket;
+                Candle candle = candles.get(key);
+                if (candle == null) {
+                    candles.put(key, new Candle(instrumentId, resolution, bucket, ts, price, volume));
+                } else {
+                    candle.add(ts, price, volume);
+                }
+            }
+        }
+
+        public boolean isEmpty() {
+            return candles.isEmpty();
+        }
+
+        /**
+         * Merges the collected candles into instrument_candles inside the caller's transaction.
+         */
+        public void write(Db.TransactionDb tx, int batchSize) throws SQLException {
+            List<Object[]> params = new ArrayList<>(Math.min(candles.size(), batchSize));
+            for (Candle candle : candles.values()) {
+                params.add(candle.toParams());
+                if (params.size() >= batchSize) {
+                    tx.executeBatch(upsertCandleSql, params);
+                    params.clear();
+                }
+            }
+            tx.executeBatch(upsertCandleSql, params);
+        }
+    }
+
+    private static final class Candle {
+        private final String instrumentId;
+        private final Resolution resolution;
+        private final long bucketStart;
+        private long openTs;
+        private long closeTs;
+        private double open;
+        private double high;
+        private double low;
+        private double close;
+        private double volume;
+        private int tickCount;
+
+        private Candle(String instrumentId, Resolution resolution, long bucketStart, long ts, double price, double volume) {
+            this.instrumentId = instrumentId;
+            this.resolution = resolution;
+            this.bucketStart = bucketStart;
+            this.openTs = ts;
+            this.closeTs = ts;
+            this.open = price;
+            this.high = price;
+            this.low = price;
+            this.close = price;
+            this.volume = volume;
+            this.tickCount = 1;
+        }
+
+        private void add(long ts, double price, double volume) {
+            high = Math.max(high, price);
+            low = Math.min(low, price);
+            if (ts < openTs) {
+                openTs = ts;
+                open = price;
+            }
+            if (ts >= closeTs) {
+                closeTs = ts;
+                close = price;
+                this.volume = volume;
+            }
+            tickCount++;
+        }
+
+        private Object[] toParams() {
+            return new Object[]{instrumentId, resolution.getKey(), bucketStart, open, high, low, close, volume, tickCount};
+        }
+    }
+}
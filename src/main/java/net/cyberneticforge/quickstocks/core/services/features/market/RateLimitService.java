@@ -3,16 +3,34 @@ package net.cyberneticforge.quickstocks.core.services.features.market;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
 import net.cyberneticforge.quickstocks.infrastructure.config.TradingCfg;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 
 import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Service for enforcing trading rate limits and cooldowns per player.
+ * <p>
+ * Limits are kept in memory: each player has an immutable {@link Window} that is swapped with compare-and-set,
+ * so checks cost no database access and concurrent trades never block each other. The notional limit is a
+ * sliding window over the last minute, estimated from this minute's total and the overlapping share of the
+ * previous one. Idle players are dropped periodically. The windows can be written to
+ * {@code player_trade_limits} on shutdown and read back on start, so a restart doesn't reset the limits.
  */
 public class RateLimitService {
 
-    private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private static final long MINUTE_MS = 60_000L;
+    /** A window that saw no trade for this long no longer affects either limit */
+    private static final long IDLE_MS = 2 * MINUTE_MS;
+
+    private final Map<String, Window> windows = new ConcurrentHashMap<>();
+    private final AtomicLong nextSweep = new AtomicLong();
     private final TradingCfg.LimitsConfig limitsConfig = QuickStocksPlugin.getTradingCfg().getLimitsConfig();
 
     /**
@@ -22,9 +40,16 @@ public class RateLimitService {
      * @param qty           The order quantity
      * @param notionalValue The notional value of the trade
      * @return A validation result indicating if the trade is allowed
-     * @throws SQLException If database operations fail
      */
-    public ValidationResult validateTrade(String playerUuid, double qty, double notionalValue) throws SQLException {
+    public ValidationResult validateTrade(String playerUuid, double qty, double notionalValue) {
+        return validateTrade(playerUuid, qty, notionalValue, true);
+    }
+
+    /**
+     * Like {@link #validateTrade(String, double, double)}; {@code checkCooldown = false} skips the cooldown for
+     * trades the player didn't just submit, such as a triggered resting order.
+     */
+    public ValidationResult validateTrade(String playerUuid, double qty, double notionalValue, boolean checkCooldown) {
         // Check quantity limit
         if (qty > limitsConfig.getMaxOrderQty()) {
             return new ValidationResult(false, String.format(
@@ -33,87 +58,181 @@ public class RateLimitService {
             ));
         }
 
-        // Check cooldown
-        Long lastTradeTs = database.queryValue(
-                "SELECT last_trade_ts FROM player_trade_limits WHERE player_uuid = ? ORDER BY minute_start DESC LIMIT 1",
-                playerUuid
-        );
+        Window window = windows.get(playerUuid);
+        if (window == null) {
+            return notionalValue > limitsConfig.getMaxNotionalPerMinute()
+                    ? notionalExceeded(notionalValue, 0.0)
+                    : new ValidationResult(true, "Trade allowed");
+        }
 
+        // Check cooldown
         long currentTime = System.currentTimeMillis();
-        if (lastTradeTs != null && (currentTime - lastTradeTs) < limitsConfig.getPerPlayerCooldownMs()) {
-            long remainingMs = limitsConfig.getPerPlayerCooldownMs() - (currentTime - lastTradeTs);
+        long sinceLastTrade = currentTime - window.lastTradeTs();
+        if (checkCooldown && sinceLastTrade < limitsConfig.getPerPlayerCooldownMs()) {
+            long remainingMs = limitsConfig.getPerPlayerCooldownMs() - sinceLastTrade;
             return new ValidationResult(false, String.format(
                     "Trading cooldown active. Please wait %.1f seconds",
                     remainingMs / 1000.0
             ));
         }
 
-        // Check notional limit per minute
-        long currentMinute = getCurrentMinuteStart(currentTime);
-        Double currentNotionalUsed = database.queryValue(
-                "SELECT notional_used FROM player_trade_limits WHERE player_uuid = ? AND minute_start = ?",
-                playerUuid, currentMinute
-        );
-
-        if (currentNotionalUsed == null) {
-            currentNotionalUsed = 0.0;
-        }
-
-        if (currentNotionalUsed + notionalValue > limitsConfig.getMaxNotionalPerMinute()) {
-            return new ValidationResult(false, String.format(
-                    "Adding this trade (%.2f) would exceed the per-minute notional limit of %.2f. Current usage: %.2f",
-                    notionalValue, limitsConfig.getMaxNotionalPerMinute(), currentNotionalUsed
-            ));
+        // Check notional limit over the last minute
+        double notionalUsed = window.used(currentTime);
+        if (notionalUsed + notionalValue > limitsConfig.getMaxNotionalPerMinute()) {
+            return notionalExceeded(notionalValue, notionalUsed);
         }
 
         return new ValidationResult(true, "Trade allowed");
     }
 
+    private ValidationResult notionalExceeded(double notionalValue, double notionalUsed) {
+        return new ValidationResult(false, String.format(
+                "Adding this trade (%.2f) would exceed the per-minute notional limit of %.2f. Current usage: %.2f",
+                notionalValue, limitsConfig.getMaxNotionalPerMinute(), notionalUsed
+        ));
+    }
+
     /**
-     * Records a successful trade for rate limiting purposes.
+     * Records a successful trade for rate limiting purposes. Safe from any thread.
      *
      * @param playerUuid    The player who made the trade
      * @param notionalValue The notional value of the trade
-     * @throws SQLException If database operations fail
      */
-    public void recordTrade(String playerUuid, double notionalValue) throws SQLException {
+    public void recordTrade(String playerUuid, double notionalValue) {
         long currentTime = System.currentTimeMillis();
-        long currentMinute = getCurrentMinuteStart(currentTime);
+        while (true) {
+            Window window = windows.get(playerUuid);
+            if (window == null) {
+                if (windows.putIfAbsent(playerUuid, Window.EMPTY.plus(currentTime, notionalValue)) == null) {
+                    break;
+                }
+            } else if (windows.replace(playerUuid, window, window.plus(currentTime, notionalValue))) {
+                break;
+            }
+        }
+        sweepIfDue(currentTime);
+    }
+
+    /**
+     * Drops idle windows about once a minute, from whichever trade gets there first.
+     */
+    private void sweepIfDue(long currentTime) {
+        long due = nextSweep.get();
+        if (currentTime < due || !nextSweep.compareAndSet(due, currentTime + MINUTE_MS)) {
+            return;
+        }
+        long idleMs = Math.max(IDLE_MS, limitsConfig.getPerPlayerCooldownMs());
+        // remove(key, value) only drops a window no trade has replaced meanwhile
+        windows.forEach((playerUuid, window) -> {
+            if (currentTime - window.lastTradeTs() >= idleMs) {
+                windows.remove(playerUuid, window);
+            }
+        });
+    }
+
+    /**
+     * Number of players currently tracked.
+     */
+    public int size() {
+        return windows.size();
+    }
 
-        // Update or insert rate limit record
-        Map<String, Object> existing = database.queryRow(
-                "SELECT notional_used FROM player_trade_limits WHERE player_uuid = ? AND minute_start = ?",
-                playerUuid, currentMinute
+    /**
+     * Restores the windows saved by {@link #save}, then clears the table.
+     */
+    public void load(Db database) throws SQLException {
+        long currentTime = System.currentTimeMillis();
+        long currentMinute = getCurrentMinuteStart(currentTime);
+        database.queryEach(
+                "SELECT player_uuid, minute_start, notional_used, last_trade_ts FROM player_trade_limits WHERE minute_start >= ?",
+                rs -> {
+                    long minuteStart = rs.getLong("minute_start");
+                    double notional = rs.getDouble("notional_used");
+                    long lastTradeTs = rs.getLong("last_trade_ts");
+                    Window row = minuteStart == currentMinute
+                            ? new Window(currentMinute, notional, 0.0, lastTradeTs)
+                            : new Window(currentMinute, 0.0, notional, lastTradeTs);
+                    windows.merge(rs.getString("player_uuid"), row, Window::merge);
+                },
+                currentMinute - MINUTE_MS
         );
+        database.execute("DELETE FROM player_trade_limits");
+        if (!windows.isEmpty()) {
+            logger.info("Restored trade limits for " + windows.size() + " players");
+        }
+    }
 
-        if (existing != null) {
-            // Update existing record
-            double newNotional = ((Number) existing.get("notional_used")).doubleValue() + notionalValue;
-            database.execute(
-                    "UPDATE player_trade_limits SET notional_used = ?, last_trade_ts = ? WHERE player_uuid = ? AND minute_start = ?",
-                    newNotional, currentTime, playerUuid, currentMinute
-            );
-        } else {
-            // Insert new record
-            database.execute(
+    /**
+     * Writes the windows still in effect to {@code player_trade_limits}, one row per minute bucket.
+     */
+    public void save(Db database) throws SQLException {
+        long currentTime = System.currentTimeMillis();
+        long currentMinute = getCurrentMinuteStart(currentTime);
+        List<Object[]> rows = new ArrayList<>();
+        windows.forEach((playerUuid, stored) -> {
+            Window window = stored.rollTo(currentMinute);
+            if (window.current() > 0 || currentTime - window.lastTradeTs() < limitsConfig.getPerPlayerCooldownMs()) {
+                rows.add(new Object[]{playerUuid, currentMinute, window.current(), window.lastTradeTs()});
+            }
+            if (window.previous() > 0) {
+                rows.add(new Object[]{playerUuid, currentMinute - MINUTE_MS, window.previous(), window.lastTradeTs()});
+            }
+        });
+        database.executeTransaction(tx -> {
+            tx.execute("DELETE FROM player_trade_limits");
+            tx.executeBatch(
                     "INSERT INTO player_trade_limits (player_uuid, minute_start, notional_used, last_trade_ts) VALUES (?, ?, ?, ?)",
-                    playerUuid, currentMinute, notionalValue, currentTime
+                    rows
             );
-        }
-
-        // Clean up old records (older than 1 hour)
-        long oneHourAgo = currentTime - (60 * 60 * 1000);
-        database.execute(
-                "DELETE FROM player_trade_limits WHERE minute_start < ?",
-                oneHourAgo
-        );
+        });
     }
 
     /**
      * Gets the start of the current minute in epoch milliseconds.
      */
-    private long getCurrentMinuteStart(long currentTime) {
-        return (currentTime / 60000) * 60000; // Round down to minute boundary
+    private static long getCurrentMinuteStart(long currentTime) {
+        return (currentTime / MINUTE_MS) * MINUTE_MS; // Round down to minute boundary
+    }
+
+    /**
+     * Notional traded by one player in the current and the previous minute, and the time of the last trade.
+     */
+    record Window(long minuteStart, double current, double previous, long lastTradeTs) {
+
+        static final Window EMPTY = new Window(0L, 0.0, 0.0, 0L);
+
+        /**
+         * The window moved to the given minute; buckets older than the previous minute fall out.
+         */
+        Window rollTo(long minute) {
+            if (minute <= minuteStart) {
+                return this;
+            }
+            double carried = minute - minuteStart == MINUTE_MS ? current : 0.0;
+            return new Window(minute, 0.0, carried, lastTradeTs);
+        }
+
+        /**
+         * Notional counted against the limit at the given time: this minute's plus the part of the
+         * previous minute that still lies within the last 60 seconds.
+         */
+        double used(long currentTime) {
+            long minute = getCurrentMinuteStart(currentTime);
+            Window window = rollTo(minute);
+            double overlap = 1.0 - (double) (currentTime - minute) / MINUTE_MS;
+            return window.current + window.previous * overlap;
+        }
+
+        Window plus(long currentTime, double notional) {
+            Window window = rollTo(getCurrentMinuteStart(currentTime));
+            return new Window(window.minuteStart, window.current + notional, window.previous,
+                    Math.max(window.lastTradeTs, currentTime));
+        }
+
+        Window merge(Window other) {
+            return new Window(Math.max(minuteStart, other.minuteStart), current + other.current,
+                    previous + other.previous, Math.max(lastTradeTs, other.lastTradeTs));
+        }
     }
 
     /**
@@ -121,4 +240,4 @@ public class RateLimitService {
      */
     public record ValidationResult(boolean allowed, String message) {
     }
-}
\ No newline at end of file
+}
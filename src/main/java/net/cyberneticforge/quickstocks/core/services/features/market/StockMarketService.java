@@ -2,25 +2,30 @@ package net.cyberneticforge.quickstocks.core.services.features.market;
 
 import lombok.Getter;
 import lombok.Setter;
-import net.cyberneticforge.quickstocks.api.events.InstrumentPriceUpdateEvent;
+import net.cyberneticforge.quickstocks.core.algorithms.MarketEngine;
+import net.cyberneticforge.quickstocks.core.algorithms.OrderFlowBook;
 import net.cyberneticforge.quickstocks.core.algorithms.PriceThresholdController;
+import net.cyberneticforge.quickstocks.core.algorithms.SectorModel;
 import net.cyberneticforge.quickstocks.core.algorithms.StockPriceCalculator;
 import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
 import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
 import net.cyberneticforge.quickstocks.core.model.Stock;
+import net.cyberneticforge.quickstocks.infrastructure.config.MarketCfg;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
-import org.bukkit.Bukkit;
 
 import java.sql.SQLException;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 import java.util.stream.Collectors;
 
 /**
  * Core service that manages the stock market simulation.
  * Handles stock registration, price updates, and market factor management.
  * Now syncs with database via InstrumentSyncService.
+ * Prices are computed by a columnar {@link MarketEngine}; the stocks held here are its views.
  */
 public class StockMarketService {
     
@@ -29,7 +34,17 @@ public class StockMarketService {
     private final Map<String, Stock> stocks;
     private final List<MarketInfluence> marketInfluences;
     private final StockPriceCalculator priceCalculator;
+    private final MarketEngine engine;
     private final InstrumentSyncService syncService;
+    private final MarketEventBridge eventBridge;
+    /**
+     * -- GETTER --
+     *  Gets the book collecting real buy and sell volume of item instruments.
+     */
+    @Getter
+    private final OrderFlowBook orderFlow = new OrderFlowBook();
+    // Told about the stocks each market update priced, on the update thread
+    private final List<Consumer<List<Stock>>> tickListeners = new CopyOnWriteArrayList<>();
     /**
      * -- GETTER --
      *  Gets the price threshold controller.
@@ -50,9 +65,14 @@ public class StockMarketService {
         this.marketInfluences = initializeMarketInfluences();
         this.thresholdController = null;
         this.priceCalculator = new StockPriceCalculator();
+        useConfiguredSectors();
+        this.engine = new MarketEngine(priceCalculator, new SplittableRandom().nextLong());
         this.marketOpen = true;
         this.syncService = new InstrumentSyncService();
+        this.eventBridge = createEventBridge();
+        useConfiguredSchedule();
         loadExistingStocksFromDatabase();
+        refreshWatchedInstruments();
     }
     
     public StockMarketService(PriceThresholdController thresholdController) {
@@ -60,9 +80,63 @@ public class StockMarketService {
         this.marketInfluences = initializeMarketInfluences();
         this.thresholdController = thresholdController;
         this.priceCalculator = new StockPriceCalculator(thresholdController);
+        useConfiguredSectors();
+        this.engine = new MarketEngine(priceCalculator, new SplittableRandom().nextLong());
         this.marketOpen = true;
         this.syncService = new InstrumentSyncService();
+        this.eventBridge = createEventBridge();
+        useConfiguredSchedule();
         loadExistingStocksFromDatabase();
+        refreshWatchedInstruments();
+    }
+    
+    /**
+     * Reads sector weights and volatility defaults from market.yml; a reload swaps the compiled table.
+     */
+    private void useConfiguredSectors() {
+        MarketCfg marketCfg = QuickStocksPlugin.getMarketCfg();
+        if (marketCfg != null) {
+            priceCalculator.setSectorModel(marketCfg::getSectorModel);
+        }
+    }
+    
+    /**
+     * Prices instruments at a cadence matching their activity as configured in market.scheduling;
+     * trades keep an instrument on the fast cadence. Shop order flow is priced in as set in market.orderFlow.
+     */
+    private void useConfiguredSchedule() {
+        MarketCfg marketCfg = QuickStocksPlugin.getMarketCfg();
+        if (marketCfg != null) {
+            engine.setSchedule(marketCfg::getTickSchedule);
+        }
+        if (thresholdController != null) {
+            thresholdController.setActivityListener(engine::markActive);
+        }
+        if (marketCfg != null) {
+            orderFlow.setSettings(marketCfg::getOrderFlow);
+        }
+        engine.setOrderFlow(orderFlow);
+    }
+    
+    /**
+     * Reloads which instruments are on any player's watchlist; those stay on the warm tick cadence.
+     */
+    public void refreshWatchedInstruments() {
+        try {
+            List<String> symbols = QuickStocksPlugin.getDatabaseManager().getDb().query(
+                "SELECT DISTINCT i.symbol FROM user_watchlists w JOIN instruments i ON i.id = w.instrument_id",
+                rs -> rs.getString("symbol"));
+            engine.setWatched(symbols);
+        } catch (SQLException e) {
+            logger.warning("Failed to load watched instruments: " + e.getMessage());
+        }
+    }
+    
+    private MarketEventBridge createEventBridge() {
+        return new MarketEventBridge(syncService::getInstrumentId, () -> {
+            MarketCfg marketCfg = QuickStocksPlugin.getMarketCfg();
+            return marketCfg == null || marketCfg.isLegacyPriceUpdateEvents();
+        });
     }
     
     /**
@@ -73,6 +147,7 @@ public class StockMarketService {
         try {
             Map<String, Stock> loadedStocks = syncService.loadStocksFromDatabase();
             stocks.putAll(loadedStocks);
+            loadedStocks.values().forEach(engine::register);
             logger.info("Loaded " + loadedStocks.size() + " stocks from database");
         } catch (SQLException e) {
             logger.warning("Failed to load stocks from database: " + e.getMessage());
@@ -118,6 +193,7 @@ public class StockMarketService {
         }
         
         stocks.put(symbol.toUpperCase(), stock);
+        engine.register(stock);
         
         // Sync to database
         try {
@@ -130,25 +206,17 @@ public class StockMarketService {
     }
     
     /**
-     * Gets the default volatility rating for a sector.
+     * Gets the default volatility rating for a sector from market.sectors.
      */
     private double getSectorVolatility(String sector) {
-        return switch (sector.toLowerCase()) {
-            case "technology" -> 0.8;
-            case "biotech" -> 0.9;
-            case "crypto" -> 1.0;
-            case "energy" -> 0.7;
-            case "finance" -> 0.6;
-            case "utilities" -> 0.3;
-            case "consumer" -> 0.4;
-            default -> 0.5;
-        };
+        SectorModel model = priceCalculator.getSectorModel();
+        return model.volatility(model.sectorId(sector));
     }
     
     /**
      * Updates all stock prices based on current market conditions.
-     * Fires InstrumentPriceUpdateEvent for each stock that has a price change.
-     * Now syncs all price changes to the database.
+     * Runs as three phases: the engine prices every instrument due this tick in parallel, then the changes are
+     * queued for the write-behind persister, then the moved prices are published as one MarketTickEvent.
      */
     public void updateAllStockPrices() {
         if (!marketOpen) return;
@@ -156,58 +224,156 @@ public class StockMarketService {
         // First update market influences
         priceCalculator.updateMarketInfluences(marketInfluences);
         
-        // Then update all stock prices
-        for (Stock stock : stocks.values()) {
-            double oldPrice = stock.getCurrentPrice();
-            double newPrice = priceCalculator.calculateNewPrice(stock, marketInfluences);
-            stock.updatePrice(newPrice);
-            
-            // Sync price to database
+        // Then price every instrument
+        List<Stock> updated = engine.tick(marketInfluences);
+        
+        // Queue prices for the write-behind persister
+        for (Stock stock : updated) {
             try {
-                syncService.syncPriceToDatabase(stock);
+                syncService.queuePriceUpdate(stock);
             } catch (SQLException e) {
                 logger.debug("Failed to sync price for " + stock.getSymbol() + ": " + e.getMessage());
             }
-            
-            // Fire InstrumentPriceUpdateEvent if price changed
-            if (Math.abs(newPrice - oldPrice) > 0.0001) { // Only fire if meaningful change
-                try {
-                    // Use actual instrument ID from database
-                    String instrumentId = syncService.getInstrumentId(stock.getSymbol());
-                    InstrumentPriceUpdateEvent event = new InstrumentPriceUpdateEvent(
-                        instrumentId != null ? instrumentId : stock.getSymbol(),
-                        stock.getSymbol(),
-                        oldPrice,
-                        newPrice,
-                        System.currentTimeMillis()
-                    );
-                    Bukkit.getPluginManager().callEvent(event);
-                } catch (Exception e) {
-                    // Don't let event firing break price updates
-                }
+        }
+        
+        // One batched event for the whole update, dispatched on the main thread
+        eventBridge.publish(updated);
+        notifyTickListeners(updated);
+    }
+    
+    /**
+     * Registers a callback for the stocks each market update priced, including the opening gap.
+     * It runs on the update thread after the prices were queued for persistence.
+     */
+    public void addTickListener(Consumer<List<Stock>> listener) {
+        tickListeners.add(listener);
+    }
+    
+    private void notifyTickListeners(List<Stock> updated) {
+        for (Consumer<List<Stock>> listener : tickListeners) {
+            try {
+                listener.accept(updated);
+            } catch (Exception e) {
+                logger.warning("Market tick listener failed: " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Database instrument id of a stock symbol, or null if the symbol has no instrument.
+     */
+    public String getInstrumentId(String symbol) {
+        return syncService.getInstrumentId(symbol);
+    }
+    
+    /**
+     * Current price of an instrument for trades and listings. A lazily priced instrument first catches up
+     * like in {@link #getStock}; the price is the engine's, which is ahead of instrument_state by up to the
+     * persister's flush interval. Instruments the engine doesn't price fall back to instrument_state.
+     *
+     * @return the price, or null if the instrument has none
+     */
+    public Double getCurrentPrice(String instrumentId) throws SQLException {
+        String symbol = syncService.getSymbol(instrumentId);
+        Stock stock = symbol != null ? stocks.get(symbol) : null;
+        if (stock == null) {
+            return syncService.getPersistedPrice(instrumentId);
+        }
+        catchUp(stock, true);
+        double price = engine.priceOf(stock.getSymbol());
+        return Double.isNaN(price) ? syncService.getPersistedPrice(instrumentId) : price;
+    }
+    
+    /**
+     * Moves every price by the time the market was closed, as if the updates in that time had run,
+     * in one aggregated step per instrument. Called when the market reopens, before it trades.
+     *
+     * @param closedMillis how long the market was closed
+     */
+    public void applyClosedGap(long closedMillis) {
+        MarketCfg marketCfg = QuickStocksPlugin.getMarketCfg();
+        long updateMillis = 1000L * (marketCfg != null ? Math.max(1, marketCfg.getUpdateInterval()) : 5);
+        long steps = closedMillis / updateMillis;
+        if (steps <= 0) {
+            return;
+        }
+        
+        List<Stock> updated = engine.gapAdvance(steps, marketInfluences);
+        for (Stock stock : updated) {
+            try {
+                syncService.queuePriceUpdate(stock);
+            } catch (SQLException e) {
+                logger.debug("Failed to sync price for " + stock.getSymbol() + ": " + e.getMessage());
             }
-            
-            // Update volume with more realistic changes based on current volume
-            // Volume changes are typically ±5-15% per update, not arbitrary large numbers
-            double volumeChangePercent = (Math.random() - 0.5) * 0.2; // ±10% change
-            double currentVolume = stock.getDailyVolume();
-            double minVolume = 100; // Minimum volume floor
-            double newVolume = Math.max(minVolume, currentVolume * (1 + volumeChangePercent));
-            stock.updateVolume(newVolume);
         }
+        eventBridge.publish(updated);
+        notifyTickListeners(updated);
+        logger.info("Applied opening gap of " + steps + " market updates to " + updated.size() + " instruments");
     }
     
     /**
-     * Gets a stock by its symbol.
+     * Re-reads a stock's state into the engine after it was changed outside a tick (snapshot restore).
+     */
+    void refresh(Stock stock) {
+        engine.register(stock);
+    }
+    
+    /**
+     * Gets a stock by its symbol. A lazily priced stock first catches up to the last market update
+     * (and the new price is queued for the database), and is kept on the fast cadence for a while.
      */
     public Optional<Stock> getStock(String symbol) {
-        return Optional.ofNullable(stocks.get(symbol.toUpperCase()));
+        Stock stock = stocks.get(symbol.toUpperCase());
+        if (stock != null) {
+            catchUp(stock, true);
+        }
+        return Optional.ofNullable(stock);
     }
     
     /**
-     * Gets all registered stocks.
+     * Brings a lazily priced stock up to the last market update and queues the new price for the database.
+     */
+    private void catchUp(Stock stock, boolean markActive) {
+        if (engine.catchUp(stock, markActive)) {
+            try {
+                syncService.queuePriceUpdate(stock);
+            } catch (SQLException e) {
+                logger.debug("Failed to sync price for " + stock.getSymbol() + ": " + e.getMessage());
+            }
+        }
+    }
+    
+    /**
+     * Keeps the given instruments on the fast tick cadence, e.g. while a GUI shows them.
+     */
+    public void markViewed(Collection<String> symbols) {
+        for (String symbol : symbols) {
+            engine.markActive(symbol.toUpperCase());
+        }
+    }
+    
+    /**
+     * Gets all registered stocks, each caught up to the last market update. Unlike a single lookup this
+     * leaves their pricing cadence alone.
      */
     public Collection<Stock> getAllStocks() {
+        List<Stock> all = new ArrayList<>(stocks.values());
+        all.forEach(stock -> catchUp(stock, false));
+        return all;
+    }
+    
+    /**
+     * A registered stock as last priced, without catching up or marking it active; for the snapshot restore.
+     */
+    Stock getStockAsPriced(String symbol) {
+        return stocks.get(symbol.toUpperCase());
+    }
+    
+    /**
+     * All registered stocks as last priced, without catching up; for the snapshot, which must match
+     * what was last persisted.
+     */
+    Collection<Stock> getStocksAsPriced() {
         return new ArrayList<>(stocks.values());
     }
     
@@ -216,7 +382,7 @@ public class StockMarketService {
      */
     @SuppressWarnings("unused")
     public List<Stock> getStocksBySector(String sector) {
-        return stocks.values().stream()
+        return getAllStocks().stream()
             .filter(stock -> stock.getSector().equalsIgnoreCase(sector))
             .collect(Collectors.toList());
     }
@@ -225,7 +391,7 @@ public class StockMarketService {
      * Gets the top performing stocks.
      */
     public List<Stock> getTopPerformers(int count) {
-        return stocks.values().stream()
+        return getAllStocks().stream()
             .sorted((a, b) -> Double.compare(b.getPriceChangePercent(), a.getPriceChangePercent()))
             .limit(count)
             .collect(Collectors.toList());
@@ -235,7 +401,7 @@ public class StockMarketService {
      * Gets the worst performing stocks.
      */
     public List<Stock> getWorstPerformers(int count) {
-        return stocks.values().stream()
+        return getAllStocks().stream()
             .sorted(Comparator.comparingDouble(Stock::getPriceChangePercent))
             .limit(count)
             .collect(Collectors.toList());
@@ -289,31 +455,32 @@ public class StockMarketService {
      */
     @SuppressWarnings("unused")
     public MarketStats getMarketStats() {
-        if (stocks.isEmpty()) {
+        Collection<Stock> all = getAllStocks();
+        if (all.isEmpty()) {
             return new MarketStats(0, 0.0, 0.0, 0.0, 0.0, 0, 0.0);
         }
         
-        double avgPrice = stocks.values().stream()
+        double avgPrice = all.stream()
             .mapToDouble(Stock::getCurrentPrice)
             .average().orElse(0.0);
             
-        double avgChange = stocks.values().stream()
+        double avgChange = all.stream()
             .mapToDouble(Stock::getPriceChangePercent)
             .average().orElse(0.0);
             
-        double totalVolume = stocks.values().stream()
+        double totalVolume = all.stream()
             .mapToDouble(Stock::getDailyVolume)
             .sum();
             
-        double totalMarketCap = stocks.values().stream()
+        double totalMarketCap = all.stream()
             .mapToDouble(Stock::getMarketCap)
             .sum();
             
-        long gainers = stocks.values().stream()
+        long gainers = all.stream()
             .mapToLong(stock -> stock.isGaining() ? 1 : 0)
             .sum();
         
-        return new MarketStats(stocks.size(), avgPrice, avgChange, totalVolume, 
+        return new MarketStats(all.size(), avgPrice, avgChange, totalVolume, 
                               totalMarketCap, gainers, getMarketSentiment());
     }
 
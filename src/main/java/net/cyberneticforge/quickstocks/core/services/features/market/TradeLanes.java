@@ -0,0 +1,255 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.IntSupplier;
+
+/**
+ * Runs trades off the main thread in one serial lane per player.
+ * <p>
+ * A lane is a queue drained by one virtual thread at a time, so a player's trades execute strictly in
+ * submission order and never interleave, while different players trade in parallel. A lane exists only
+ * while it has work. Submitting to a full lane is rejected instead of piling up. Results come back as futures;
+ * use {@link net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb#thenSync} to message players on the
+ * main thread. Vault economies must be called from the main thread, so with Vault a trade still runs its
+ * database work in the lane and only hands the Vault calls themselves to the main thread through
+ * {@link #callOnMainThread}; the lane's virtual thread parks meanwhile without holding a carrier thread.
+ */
+public class TradeLanes {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private final Map<String, Lane> lanes = new ConcurrentHashMap<>();
+    private final ExecutorService executor = Executors.newThreadPerTaskExecutor(
+        Thread.ofVirtual().name("QuickStocks-trade-", 0).factory());
+    private final IntSupplier maxQueuedPerPlayer;
+    private final Queue<FutureTask<?>> mainThreadWork = new ConcurrentLinkedQueue<>();
+
+    private final AtomicInteger queued = new AtomicInteger();
+    private final LongAccumulator maxDepth = new LongAccumulator(Math::max, 0);
+    private final LongAccumulator maxLatencyNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder completed = new LongAdder();
+    private final LongAdder failed = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder waitNanos = new LongAdder();
+    private final LongAdder runNanos = new LongAdder();
+    private volatile boolean closed;
+
+    /**
+     * Trades queued for one player; all fields guarded by the lane itself.
+     */
+    private static final class Lane {
+        private final String playerUuid;
+        private final ArrayDeque<Runnable> queue = new ArrayDeque<>();
+        private boolean running;
+        private boolean retired; // removed from the map, a new lane takes further trades
+
+        private Lane(String playerUuid) {
+            this.playerUuid = playerUuid;
+        }
+    }
+
+    /**
+     * Queue depth and latency since start or the last {@link #resetStats()}.
+     */
+    public record Stats(int activeLanes, int queued, long maxDepth, long completed, long failed, long rejected,
+                        double meanWaitMillis, double meanRunMillis, double maxLatencyMillis) {
+    }
+
+    /**
+     * @param maxQueuedPerPlayer trades a player may have waiting, read on every submit
+     */
+    public TradeLanes(IntSupplier maxQueuedPerPlayer) {
+        this.maxQueuedPerPlayer = maxQueuedPerPlayer;
+    }
+
+    /**
+     * Queues a player's trade behind their earlier ones. The future fails with
+     * {@link RejectedExecutionException} when the player already has the maximum number of trades waiting.
+     */
+    public <T> CompletableFuture<T> submit(String playerUuid, Callable<T> trade) {
+        return enqueue(playerUuid, trade, maxQueuedPerPlayer.getAsInt());
+    }
+
+    /**
+     * Queues a trade the player didn't just request, such as a triggered resting order; never rejected for depth.
+     */
+    <T> CompletableFuture<T> submitUnbounded(String playerUuid, Callable<T> trade) {
+        return enqueue(playerUuid, trade, Integer.MAX_VALUE);
+    }
+
+    private <T> CompletableFuture<T> enqueue(String playerUuid, Callable<T> trade, int maxQueued) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Trading is shutting down"));
+        }
+        CompletableFuture<T> future = new CompletableFuture<>();
+        long enqueued = System.nanoTime();
+        Runnable job = () -> run(trade, future, enqueued);
+        while (true) {
+            Lane lane = lanes.computeIfAbsent(playerUuid, Lane::new);
+            synchronized (lane) {
+                if (lane.retired) {
+                    continue;
+                }
+                if (lane.queue.size() >= maxQueued) {
+                    rejected.increment();
+                    return CompletableFuture.failedFuture(
+                        new RejectedExecutionException("Too many trades in progress, please wait"));
+                }
+                lane.queue.add(job);
+                queued.incrementAndGet();
+                maxDepth.accumulate(lane.queue.size());
+                if (!lane.running) {
+                    try {
+                        executor.execute(() -> drain(lane));
+                    } catch (RejectedExecutionException e) {
+                        lane.queue.remove(job);
+                        queued.decrementAndGet();
+                        return CompletableFuture.failedFuture(e);
+                    }
+                    lane.running = true;
+                }
+            }
+            return future;
+        }
+    }
+
+    /**
+     * Runs a lane's trades one after another until it is empty, then retires it.
+     */
+    private void drain(Lane lane) {
+        while (true) {
+            Runnable job;
+            synchronized (lane) {
+                job = lane.queue.poll();
+                if (job == null) {
+                    lane.running = false;
+                    lane.retired = true;
+                    lanes.remove(lane.playerUuid, lane);
+                    return;
+                }
+            }
+            queued.decrementAndGet();
+            job.run();
+        }
+    }
+
+    private <T> void run(Callable<T> trade, CompletableFuture<T> future, long enqueued) {
+        long started = System.nanoTime();
+        waitNanos.add(started - enqueued);
+        try {
+            future.complete(trade.call());
+        } catch (Throwable t) {
+            failed.increment();
+            future.completeExceptionally(t instanceof ExecutionException && t.getCause() != null ? t.getCause() : t);
+        } finally {
+            long finished = System.nanoTime();
+            runNanos.add(finished - started);
+            maxLatencyNanos.accumulate(finished - enqueued);
+            completed.increment();
+        }
+    }
+
+    /**
+     * Runs a call that must happen on the main thread, such as a Vault transfer, on behalf of a trade and
+     * returns its result. Runs inline on the main thread; other threads queue it for the next tick and wait.
+     * While {@link #shutdown()} drains the lanes it runs the queued calls itself.
+     */
+    public <T> T callOnMainThread(Callable<T> call) throws Exception {
+        if (Bukkit.isPrimaryThread()) {
+            return call.call();
+        }
+        Plugin plugin = QuickStocksPlugin.getInstance();
+        boolean scheduled = plugin != null && plugin.isEnabled();
+        if (!scheduled && (!closed || executor.isTerminated())) {
+            throw new RejectedExecutionException("Trading is shutting down");
+        }
+        FutureTask<T> task = new FutureTask<>(call);
+        mainThreadWork.add(task);
+        if (scheduled) {
+            Bukkit.getScheduler().runTask(plugin, this::runMainThreadWork);
+        }
+        try {
+            return task.get();
+        } catch (ExecutionException e) {
+            throw e.getCause() instanceof Exception cause ? cause : e;
+        }
+    }
+
+    private void runMainThreadWork() {
+        FutureTask<?> task;
+        while ((task = mainThreadWork.poll()) != null) {
+            task.run();
+        }
+    }
+
+    /**
+     * Current queue depth and the latency of finished trades.
+     */
+    public Stats getStats() {
+        long done = completed.sum();
+        return new Stats(lanes.size(), queued.get(), maxDepth.get(), done, failed.sum(), rejected.sum(),
+            done > 0 ? waitNanos.sum() / 1_000_000.0 / done : 0.0,
+            done > 0 ? runNanos.sum() / 1_000_000.0 / done : 0.0,
+            maxLatencyNanos.get() / 1_000_000.0);
+    }
+
+    public void resetStats() {
+        maxDepth.reset();
+        maxLatencyNanos.reset();
+        completed.reset();
+        failed.reset();
+        rejected.reset();
+        waitNanos.reset();
+        runNanos.reset();
+    }
+
+    /**
+     * Stops taking trades and gives the queued ones a moment to finish. Must run before the database closes.
+     * Called on the main thread, which no longer ticks, so it runs the trades' main-thread calls itself
+     * while it waits instead of blocking on them.
+     */
+    public void shutdown() {
+        closed = true;
+        executor.shutdown();
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(2);
+        try {
+            while (!executor.awaitTermination(10, TimeUnit.MILLISECONDS)) {
+                if (Bukkit.isPrimaryThread()) {
+                    runMainThreadWork();
+                }
+                if (System.nanoTime() > deadline) {
+                    logger.warning("Queued trades did not finish in time");
+                    executor.shutdownNow();
+                    break;
+                }
+            }
+        } catch (InterruptedException e) {
+            executor.shutdownNow();
+            Thread.currentThread().interrupt();
+        }
+        FutureTask<?> task;
+        while ((task = mainThreadWork.poll()) != null) {
+            task.cancel(false);
+        }
+    }
+}
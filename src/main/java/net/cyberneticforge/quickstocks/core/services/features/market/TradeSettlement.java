@@ -0,0 +1,185 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.services.features.portfolio.HoldingsService;
+import net.cyberneticforge.quickstocks.core.services.features.portfolio.WalletService;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+
+import java.sql.SQLException;
+import java.util.UUID;
+
+/**
+ * Settles a priced trade against the wallet, the holdings and the order log as one unit.
+ * <p>
+ * With the internal wallet everything runs in one transaction on one connection: the balance or share check
+ * is a conditional UPDATE, so nothing is read first and a failure or crash rolls the whole trade back.
+ * Vault wallets live outside the database, so a buy reserves the money with Vault first, stores holdings and
+ * order in one transaction, then commits the reservation or releases it if the transaction failed. A Vault
+ * sell stores holdings and order first and pays out after the commit; if Vault doesn't take the payout the
+ * shares are given back and the order is removed.
+ * <p>
+ * A fill of a resting order claims its {@code pending_orders} row in the same transaction and only settles if
+ * the claim deleted exactly that row, so a crash or a second trigger can never fill it twice.
+ */
+class TradeSettlement {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private final Db database;
+
+    TradeSettlement(Db database) {
+        this.database = database;
+    }
+
+    /**
+     * A priced trade. {@code fee} is paid on top of a buy and taken from the proceeds of a sell.
+     *
+     * @param pendingOrderId the resting order this trade fills, null for a direct trade
+     */
+    record Fill(String playerUuid, String instrumentId, String side, double qty, double price, double fee,
+                String orderType, Double limitPrice, Double stopPrice, String pendingOrderId) {
+
+        boolean isBuy() {
+            return "BUY".equals(side);
+        }
+
+        /** Money moved into the wallet: negative for a buy. */
+        double cashDelta() {
+            double notional = qty * price;
+            return isBuy() ? -(notional + fee) : notional - fee;
+        }
+    }
+
+    /**
+     * Settles the fill.
+     * @return true if settled, false if the wallet (buy) or holding (sell) doesn't cover it; nothing is changed then
+     * @throws SQLException if storing the trade or a Vault payout failed; nothing is changed then either
+     */
+    boolean settle(Fill fill) throws SQLException {
+        WalletService wallets = QuickStocksPlugin.getWalletService();
+        HoldingsService holdings = QuickStocksPlugin.getHoldingsService();
+        if (wallets.isUsingVault()) {
+            return fill.isBuy() ? settleVaultBuy(fill, wallets, holdings) : settleVaultSell(fill, wallets, holdings);
+        }
+
+        boolean[] settled = {false};
+        double[] balance = {Double.NaN};
+        database.executeTransaction(tx -> {
+            claim(tx, fill);
+            if (fill.isBuy()) {
+                if (!wallets.debit(tx, fill.playerUuid(), -fill.cashDelta())) {
+                    return;
+                }
+                holdings.addHolding(tx, fill.playerUuid(), fill.instrumentId(), fill.qty(), fill.price());
+            } else {
+                if (!holdings.removeHolding(tx, fill.playerUuid(), fill.instrumentId(), fill.qty())) {
+                    return;
+                }
+                wallets.credit(tx, fill.playerUuid(), fill.cashDelta());
+            }
+            insertOrder(tx, fill);
+            balance[0] = wallets.observedBalance(tx, fill.playerUuid());
+            settled[0] = true;
+        });
+        if (settled[0]) {
+            wallets.balanceChanged(fill.playerUuid(), balance[0], fill.cashDelta());
+        }
+        return settled[0];
+    }
+
+    private boolean settleVaultBuy(Fill fill, WalletService wallets, HoldingsService holdings) throws SQLException {
+        WalletService.Reservation reservation = wallets.reserve(fill.playerUuid(), -fill.cashDelta());
+        if (reservation == null) {
+            return false;
+        }
+        try {
+            database.executeTransaction(tx -> {
+                claim(tx, fill);
+                holdings.addHolding(tx, fill.playerUuid(), fill.instrumentId(), fill.qty(), fill.price());
+                insertOrder(tx, fill);
+            });
+        } catch (SQLException e) {
+            reservation.release();
+            throw e;
+        }
+        reservation.commit();
+        return true;
+    }
+
+    private boolean settleVaultSell(Fill fill, WalletService wallets, HoldingsService holdings) throws SQLException {
+        double[] avgCost = {Double.NaN};
+        String[] orderId = {null};
+        database.executeTransaction(tx -> {
+            claim(tx, fill);
+            double cost = tx.queryDouble("SELECT avg_cost FROM user_holdings WHERE player_uuid = ? AND instrument_id = ?",
+                0.0, fill.playerUuid(), fill.instrumentId());
+            if (holdings.removeHolding(tx, fill.playerUuid(), fill.instrumentId(), fill.qty())) {
+                orderId[0] = insertOrder(tx, fill);
+                avgCost[0] = cost;
+            }
+        });
+        if (orderId[0] == null) {
+            return false;
+        }
+
+        boolean paid;
+        try {
+            paid = wallets.payOut(fill.playerUuid(), fill.cashDelta());
+        } catch (RuntimeException e) {
+            logger.warning("Vault payout for " + fill.playerUuid() + " failed: " + e.getMessage());
+            paid = false;
+        }
+        if (!paid) {
+            revertVaultSell(fill, holdings, orderId[0], avgCost[0]);
+            throw new SQLException("Vault did not accept the payout, the sell was reverted");
+        }
+        return true;
+    }
+
+    /**
+     * Gives the shares of an unpaid Vault sell back at their old average cost and removes its order.
+     */
+    private void revertVaultSell(Fill fill, HoldingsService holdings, String orderId, double avgCost) throws SQLException {
+        try {
+            database.executeTransaction(tx -> {
+                holdings.addHolding(tx, fill.playerUuid(), fill.instrumentId(), fill.qty(), avgCost);
+                tx.execute("DELETE FROM orders WHERE id = ?", orderId);
+            });
+            logger.warning("Reverted sell order " + orderId + " of " + fill.playerUuid() + " after a failed Vault payout");
+        } catch (SQLException e) {
+            logger.severe("Sell order " + orderId + " sold " + fill.qty() + " " + fill.instrumentId() + " for "
+                + fill.playerUuid() + " but neither paid $" + String.format("%.2f", fill.cashDelta())
+                + " nor gave the shares back", e);
+            throw e;
+        }
+    }
+
+    /**
+     * Deletes the pending order a fill executes. A rejected fill (no funds or shares) still commits the delete,
+     * dropping the order; a missing row aborts the transaction.
+     */
+    private static void claim(Db.TransactionDb tx, Fill fill) throws SQLException {
+        if (fill.pendingOrderId() == null) {
+            return;
+        }
+        if (tx.execute("DELETE FROM pending_orders WHERE id = ?", fill.pendingOrderId()) != 1) {
+            throw new SQLException("Pending order " + fill.pendingOrderId() + " was already filled or cancelled");
+        }
+    }
+
+    private static String insertOrder(Db.TransactionDb tx, Fill fill) throws SQLException {
+        String id = UUID.randomUUID().toString();
+        tx.execute(
+                """
+                INSERT INTO orders (id, player_uuid, instrument_id, side, qty, price, ts, order_type,
+                                    limit_price, stop_price, fee_paid, execution_price)
+                VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)
+                """,
+                id, fill.playerUuid(), fill.instrumentId(), fill.side(), fill.qty(),
+                fill.price(), System.currentTimeMillis(), fill.orderType(), fill.limitPrice(), fill.stopPrice(),
+                fill.fee(), fill.price()
+        );
+        return id;
+    }
+}
@@ -12,6 +12,7 @@ import net.cyberneticforge.quickstocks.infrastructure.db.Db;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import org.bukkit.Bukkit;
 import org.bukkit.entity.Player;
+import org.bukkit.event.Event;
 import org.jetbrains.annotations.NotNull;
 
 import java.sql.SQLException;
@@ -34,6 +35,7 @@ public class TradingService {
 
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
     private final EnhancedTradingService enhancedTradingService;
+    private final TradeSettlement settlement = new TradeSettlement(database);
     /**
      * -- SETTER --
      *  Sets the stock market service for recording trading activity.
@@ -72,10 +74,7 @@ public class TradingService {
      */
     private TradeResult executeBuyOrderLegacy(String playerUuid, String instrumentId, double qty) throws SQLException {
         // Get current price
-        Double currentPrice = database.queryValue(
-                "SELECT last_price FROM instrument_state WHERE instrument_id = ?",
-                instrumentId
-        );
+        Double currentPrice = EnhancedTradingService.currentPrice(instrumentId);
 
         if (currentPrice == null) {
             return new TradeResult(false, "Instrument not found or price unavailable");
@@ -105,7 +104,7 @@ public class TradingService {
                         currentPrice,
                         totalCost
                     );
-                Bukkit.getPluginManager().callEvent(event);
+                callEvent(event);
                 
                 if (event.isCancelled()) {
                     return new TradeResult(false, "Trade cancelled by event handler");
@@ -115,42 +114,43 @@ public class TradingService {
             logger.debug("Could not fire ShareBuyEvent: " + e.getMessage());
         }
 
-        // Execute the trade in a transaction-like manner
+        // Debit, holding and order record settle together or not at all
         try {
-            // Remove money from wallet
-            if (!QuickStocksPlugin.getWalletService().removeBalance(playerUuid, totalCost)) {
+            if (!settlement.settle(new TradeSettlement.Fill(playerUuid, instrumentId, "BUY", qty, currentPrice, 0.0,
+                    "MARKET", null, null, null))) {
                 return new TradeResult(false, "Failed to debit wallet");
             }
+        } catch (SQLException e) {
+            logger.warning("Failed to execute buy order: " + e.getMessage());
+            return new TradeResult(false, "Trade execution failed: " + e.getMessage());
+        }
 
-            // Add shares to holdings
-            QuickStocksPlugin.getHoldingsService().addHolding(playerUuid, instrumentId, qty, currentPrice);
-
-            // Record the order with enhanced fields for compatibility
-            String orderId = UUID.randomUUID().toString();
-            database.execute(
-                    "INSERT INTO orders (id, player_uuid, instrument_id, side, qty, price, ts, order_type, execution_price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                    orderId, playerUuid, instrumentId, "BUY", qty, currentPrice, System.currentTimeMillis(), "MARKET", currentPrice
-            );
-
-            String message = String.format("BUY %.2f shares at $%.2f per share (Total: $%.2f)",
-                    qty, currentPrice, totalCost);
+        String message = String.format("BUY %.2f shares at $%.2f per share (Total: $%.2f)",
+                qty, currentPrice, totalCost);
 
-            // Record trading activity for threshold calculations
-            recordTradingActivity(instrumentId, (int) qty);
+        // Record trading activity for threshold calculations
+        recordTradingActivity(instrumentId, (int) qty);
 
-            logger.info("Executed buy order for " + playerUuid + ": " + message);
-            return new TradeResult(true, message);
+        logger.info("Executed buy order for " + playerUuid + ": " + message);
+        return new TradeResult(true, message);
+    }
 
-        } catch (SQLException e) {
-            logger.warning("Failed to execute buy order: " + e.getMessage());
-            // Try to rollback wallet debit (basic attempt)
-            try {
-                QuickStocksPlugin.getWalletService().addBalance(playerUuid, totalCost);
-            } catch (SQLException rollbackError) {
-                logger.severe("Failed to rollback wallet debit: " + rollbackError.getMessage());
-            }
-            return new TradeResult(false, "Trade execution failed: " + e.getMessage());
+    /**
+     * Fires a cancellable trade event on the main thread. From a trade lane the trade waits for it,
+     * so listeners can still cancel; nothing is scheduled while the event has no listeners.
+     */
+    private static void callEvent(Event event) throws Exception {
+        if (event.getHandlers().getRegisteredListeners().length == 0) {
+            return;
+        }
+        if (Bukkit.isPrimaryThread()) {
+            Bukkit.getPluginManager().callEvent(event);
+            return;
         }
+        Bukkit.getScheduler().callSyncMethod(QuickStocksPlugin.getInstance(), () -> {
+            Bukkit.getPluginManager().callEvent(event);
+            return null;
+        }).get();
     }
 
     /**
@@ -172,10 +172,7 @@ public class TradingService {
      */
     private TradeResult executeSellOrderLegacy(String playerUuid, String instrumentId, double qty) throws SQLException {
         // Get current price
-        Double currentPrice = database.queryValue(
-                "SELECT last_price FROM instrument_state WHERE instrument_id = ?",
-                instrumentId
-        );
+        Double currentPrice = EnhancedTradingService.currentPrice(instrumentId);
 
         if (currentPrice == null) {
             return new TradeResult(false, "Instrument not found or price unavailable");
@@ -207,7 +204,7 @@ public class TradingService {
                         currentPrice,
                         totalValue
                     );
-                Bukkit.getPluginManager().callEvent(event);
+                callEvent(event);
                 
                 if (event.isCancelled()) {
                     return new TradeResult(false, "Trade cancelled by event handler");
@@ -217,42 +214,25 @@ public class TradingService {
             logger.debug("Could not fire ShareSellEvent: " + e.getMessage());
         }
 
-        // Execute the trade
+        // Share removal, credit and order record settle together or not at all
         try {
-            // Remove shares from holdings
-            if (!QuickStocksPlugin.getHoldingsService().removeHolding(playerUuid, instrumentId, qty)) {
+            if (!settlement.settle(new TradeSettlement.Fill(playerUuid, instrumentId, "SELL", qty, currentPrice, 0.0,
+                    "MARKET", null, null, null))) {
                 return new TradeResult(false, "Failed to remove shares from portfolio");
             }
-
-            // Add money to wallet
-            QuickStocksPlugin.getWalletService().addBalance(playerUuid, totalValue);
-
-            // Record the order with enhanced fields for compatibility
-            String orderId = UUID.randomUUID().toString();
-            database.execute(
-                    "INSERT INTO orders (id, player_uuid, instrument_id, side, qty, price, ts, order_type, execution_price) VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?)",
-                    orderId, playerUuid, instrumentId, "SELL", qty, currentPrice, System.currentTimeMillis(), "MARKET", currentPrice
-            );
-
-            String message = String.format("SELL %.2f shares at $%.2f per share (Total: $%.2f)",
-                    qty, currentPrice, totalValue);
-
-            // Record trading activity for threshold calculations
-            recordTradingActivity(instrumentId, (int) qty);
-
-            logger.info("Executed sell order for " + playerUuid + ": " + message);
-            return new TradeResult(true, message);
-
         } catch (SQLException e) {
             logger.warning("Failed to execute sell order: " + e.getMessage());
-            // Try to rollback share removal (basic attempt)
-            try {
-                QuickStocksPlugin.getHoldingsService().addHolding(playerUuid, instrumentId, qty, currentPrice);
-            } catch (SQLException rollbackError) {
-                logger.severe("Failed to rollback share removal: " + rollbackError.getMessage());
-            }
             return new TradeResult(false, "Trade execution failed: " + e.getMessage());
         }
+
+        String message = String.format("SELL %.2f shares at $%.2f per share (Total: $%.2f)",
+                qty, currentPrice, totalValue);
+
+        // Record trading activity for threshold calculations
+        recordTradingActivity(instrumentId, (int) qty);
+
+        logger.info("Executed sell order for " + playerUuid + ": " + message);
+        return new TradeResult(true, message);
     }
 
     /**
@@ -340,7 +320,7 @@ public class TradingService {
             // Convert instrument ID to symbol if needed
             try {
                 String symbol = database.queryValue(
-                        "SELECT symbol FROM instrument_state WHERE instrument_id = ?",
+                        "SELECT symbol FROM instruments WHERE id = ?",
                         instrumentId
                 );
                 if (symbol != null) {
@@ -2,10 +2,11 @@ package net.cyberneticforge.quickstocks.core.services.features.portfolio;
 
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.db.SqlDialect;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 
 import java.sql.SQLException;
-import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -17,12 +18,25 @@ public class HoldingsService {
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private final String addHoldingSql = buildAddHoldingSql(database.getDialect());
+    
+    /**
+     * Maps a holdings row joined with instruments and instrument_state.
+     */
+    private static final Db.RowMapper<Holding> HOLDING_MAPPER = rs -> new Holding(
+        rs.getString("instrument_id"),
+        rs.getString("symbol"),
+        rs.getString("display_name"),
+        rs.getDouble("qty"),
+        rs.getDouble("avg_cost"),
+        rs.getDouble("last_price")
+    );
     
     /**
      * Gets all holdings for a player.
      */
     public List<Holding> getHoldings(String playerUuid) throws SQLException {
-        List<Map<String, Object>> results = database.query(
+        return database.query(
             """
             SELECT h.instrument_id, h.qty, h.avg_cost, i.symbol, i.display_name, s.last_price
             FROM user_holdings h
@@ -31,22 +45,9 @@ public class HoldingsService {
             WHERE h.player_uuid = ? AND h.qty > 0
             ORDER BY i.symbol
             """,
+            HOLDING_MAPPER,
             playerUuid
         );
-        
-        List<Holding> holdings = new ArrayList<>();
-        for (Map<String, Object> row : results) {
-            holdings.add(new Holding(
-                (String) row.get("instrument_id"),
-                (String) row.get("symbol"),
-                (String) row.get("display_name"),
-                ((Number) row.get("qty")).doubleValue(),
-                ((Number) row.get("avg_cost")).doubleValue(),
-                row.get("last_price") != null ? ((Number) row.get("last_price")).doubleValue() : 0.0
-            ));
-        }
-        
-        return holdings;
     }
     
     /**
@@ -54,7 +55,7 @@ public class HoldingsService {
      */
     public Holding getHolding(String playerUuid, String instrumentId) {
         try {
-            Map<String, Object> result = database.queryRow(
+            return database.queryFirst(
                 """
                 SELECT h.instrument_id, h.qty, h.avg_cost, i.symbol, i.display_name, s.last_price
                 FROM user_holdings h
@@ -62,21 +63,9 @@ public class HoldingsService {
                 LEFT JOIN instrument_state s ON h.instrument_id = s.instrument_id
                 WHERE h.player_uuid = ? AND h.instrument_id = ?
                 """,
+                HOLDING_MAPPER,
                 playerUuid, instrumentId
             );
-            
-            if (result == null) {
-                return null;
-            }
-            
-            return new Holding(
-                (String) result.get("instrument_id"),
-                (String) result.get("symbol"),
-                (String) result.get("display_name"),
-                ((Number) result.get("qty")).doubleValue(),
-                ((Number) result.get("avg_cost")).doubleValue(),
-                result.get("last_price") != null ? ((Number) result.get("last_price")).doubleValue() : 0.0
-            );
         } catch (SQLException e) {
             logger.warning("Error getting holding for player " + playerUuid + " and instrument " + instrumentId + ": " + e.getMessage());
             return null;
@@ -87,58 +76,68 @@ public class HoldingsService {
      * Adds shares to a holding (for BUY orders).
      */
     public void addHolding(String playerUuid, String instrumentId, double qty, double price) throws SQLException {
-        Holding existing = getHolding(playerUuid, instrumentId);
-        
-        if (existing == null || existing.qty() == 0) {
-            // New holding
-            database.execute(
-                "INSERT OR REPLACE INTO user_holdings (player_uuid, instrument_id, qty, avg_cost) VALUES (?, ?, ?, ?)",
-                playerUuid, instrumentId, qty, price
-            );
-        } else {
-            // Update existing holding with new average cost
-            double totalValue = (existing.qty() * existing.avgCost()) + (qty * price);
-            double newQty = existing.qty() + qty;
-            double newAvgCost = totalValue / newQty;
-            
-            database.execute(
-                "UPDATE user_holdings SET qty = ?, avg_cost = ? WHERE player_uuid = ? AND instrument_id = ?",
-                newQty, newAvgCost, playerUuid, instrumentId
-            );
-        }
+        // Single upsert: new rows take the price as cost, existing rows get a qty-weighted average
+        database.execute(addHoldingSql, playerUuid, instrumentId, qty, price);
         
         logger.debug("Added " + qty + " shares of " + instrumentId + " for " + playerUuid + " at $" + price);
     }
     
     /**
-     * Removes shares from a holding (for SELL orders).
+     * Adds shares to a holding inside a trade transaction.
+     */
+    public void addHolding(Db.TransactionDb tx, String playerUuid, String instrumentId, double qty, double price) throws SQLException {
+        tx.execute(addHoldingSql, playerUuid, instrumentId, qty, price);
+    }
+    
+    private static String buildAddHoldingSql(SqlDialect dialect) {
+        String oldQty = dialect.current("user_holdings", "qty");
+        String oldCost = dialect.current("user_holdings", "avg_cost");
+        String addQty = dialect.excluded("qty");
+        String addCost = dialect.excluded("avg_cost");
+        
+        Map<String, String> updates = new LinkedHashMap<>();
+        // avg_cost first: MySQL evaluates SET left to right and must still see the old qty
+        updates.put("avg_cost", "CASE WHEN " + oldQty + " + " + addQty + " > 0 THEN (" + oldQty + " * " + oldCost + " + "
+            + addQty + " * " + addCost + ") / (" + oldQty + " + " + addQty + ") ELSE " + addCost + " END");
+        updates.put("qty", oldQty + " + " + addQty);
+        
+        return dialect.upsert("user_holdings", List.of("player_uuid", "instrument_id", "qty", "avg_cost"),
+            List.of("player_uuid", "instrument_id"), updates);
+    }
+    
+    /**
+     * Removes shares from a holding (for SELL orders). Runs the conditional update on the primary
+     * so the quantity check never reads a lagging replica.
      * @return true if successful, false if insufficient shares
      */
     @SuppressWarnings("BooleanMethodIsAlwaysInverted")
     public boolean removeHolding(String playerUuid, String instrumentId, double qty) throws SQLException {
-        Holding existing = getHolding(playerUuid, instrumentId);
+        boolean[] removed = {false};
+        database.executeTransaction(tx -> removed[0] = removeHolding(tx, playerUuid, instrumentId, qty));
         
-        if (existing == null || existing.qty() < qty) {
-            return false; // Insufficient shares
+        if (removed[0]) {
+            logger.debug("Removed " + qty + " shares of " + instrumentId + " for " + playerUuid);
         }
-        
-        double newQty = existing.qty() - qty;
-        
-        if (newQty <= 0) {
-            // Remove holding entirely
-            database.execute(
-                "DELETE FROM user_holdings WHERE player_uuid = ? AND instrument_id = ?",
-                playerUuid, instrumentId
-            );
-        } else {
-            // Update quantity (keep same average cost)
-            database.execute(
-                "UPDATE user_holdings SET qty = ? WHERE player_uuid = ? AND instrument_id = ?",
-                newQty, playerUuid, instrumentId
-            );
+        return removed[0];
+    }
+    
+    /**
+     * Removes shares from a holding inside a trade transaction; the quantity check and the write are one
+     * conditional UPDATE, and an emptied holding is deleted.
+     * @return true if successful, false if insufficient shares
+     */
+    public boolean removeHolding(Db.TransactionDb tx, String playerUuid, String instrumentId, double qty) throws SQLException {
+        int updated = tx.execute(
+            "UPDATE user_holdings SET qty = qty - ? WHERE player_uuid = ? AND instrument_id = ? AND qty >= ?",
+            qty, playerUuid, instrumentId, qty
+        );
+        if (updated == 0) {
+            return false;
         }
-        
-        logger.debug("Removed " + qty + " shares of " + instrumentId + " for " + playerUuid);
+        tx.execute(
+            "DELETE FROM user_holdings WHERE player_uuid = ? AND instrument_id = ? AND qty <= 0",
+            playerUuid, instrumentId
+        );
         return true;
     }
     
@@ -146,10 +145,16 @@ public class HoldingsService {
      * Gets the total portfolio value for a player.
      */
     public double getPortfolioValue(String playerUuid) throws SQLException {
-        List<Holding> holdings = getHoldings(playerUuid);
-        return holdings.stream()
-            .mapToDouble(h -> h.qty() * h.currentPrice())
-            .sum();
+        return database.queryDouble(
+            """
+            SELECT SUM(h.qty * COALESCE(s.last_price, 0))
+            FROM user_holdings h
+            LEFT JOIN instrument_state s ON h.instrument_id = s.instrument_id
+            WHERE h.player_uuid = ? AND h.qty > 0
+            """,
+            0.0,
+            playerUuid
+        );
     }
 
     /**
@@ -180,9 +185,9 @@ public class HoldingsService {
      * @return Number of players with at least one holding
      */
     public int getPlayerCountWithHoldings() throws SQLException {
-        Number result = database.queryValue(
-            "SELECT COUNT(DISTINCT player_uuid) FROM user_holdings WHERE qty > 0"
+        return (int) database.queryLong(
+            "SELECT COUNT(DISTINCT player_uuid) FROM user_holdings WHERE qty > 0",
+            0L
         );
-        return result != null ? result.intValue() : 0;
     }
 }
\ No newline at end of file
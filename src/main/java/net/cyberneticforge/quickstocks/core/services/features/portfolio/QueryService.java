@@ -1,7 +1,10 @@
 package net.cyberneticforge.quickstocks.core.services.features.portfolio;
 
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.model.PriceCandle;
+import net.cyberneticforge.quickstocks.core.model.PriceHistory;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore;
 
 import java.sql.SQLException;
 import java.util.List;
@@ -16,6 +19,11 @@ import java.util.Optional;
 @SuppressWarnings("unused")
 public class QueryService {
     
+    /**
+     * Maps single-column string results (symbols, ids, materials).
+     */
+    private static final Db.RowMapper<String> FIRST_STRING = rs -> rs.getString(1);
+    
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
     
     /**
@@ -66,10 +74,7 @@ public class QueryService {
      * Gets all company symbols that are on the market (for tab completion).
      */
     public List<String> getMarketCompanySymbols() throws SQLException {
-        return database.query("SELECT symbol FROM companies WHERE on_market = 1 AND symbol IS NOT NULL ORDER BY symbol")
-                .stream()
-                .map(row -> (String) row.get("symbol"))
-                .toList();
+        return database.query("SELECT symbol FROM companies WHERE on_market = 1 AND symbol IS NOT NULL ORDER BY symbol", FIRST_STRING);
     }
     
     /**
@@ -82,36 +87,30 @@ public class QueryService {
             SELECT symbol FROM companies\s
             WHERE on_market = 1 AND symbol IS NOT NULL AND UPPER(symbol) LIKE ?
             ORDER BY symbol
-           \s""", upperPrefix)
-                .stream()
-                .map(row -> (String) row.get("symbol"))
-                .toList();
+           \s""", FIRST_STRING, upperPrefix);
     }
     
     /**
      * Gets company ID by symbol lookup (market stocks).
      */
     public String getCompanyIdBySymbol(String symbol) throws SQLException {
-        Map<String, Object> result = database.queryOne(
+        return database.queryFirst(
             "SELECT id FROM companies WHERE UPPER(symbol) = UPPER(?) AND on_market = 1", 
+            FIRST_STRING,
             symbol
         );
-        return result != null ? (String) result.get("id") : null;
     }
     
     /**
      * Gets current share price for a company (market stock).
      */
     public Double getCompanySharePrice(String companyId) throws SQLException {
-        Map<String, Object> result = database.queryOne(
+        // Share price = balance / 10000 shares (as per CompanyMarketService)
+        return database.queryFirst(
             "SELECT balance FROM companies WHERE id = ?", 
+            rs -> rs.getDouble("balance") / 10000.0,
             companyId
         );
-        if (result == null) return null;
-        
-        double balance = ((Number) result.get("balance")).doubleValue();
-        // Share price = balance / 10000 shares (as per CompanyMarketService)
-        return balance / 10000.0;
     }
     
     /**
@@ -216,40 +215,43 @@ public class QueryService {
     }
     
     /**
-     * Gets recent price history for an instrument (last N entries).
+     * Gets recent price history for an instrument from its 1-minute candles, newest first.
      */
-    public List<Map<String, Object>> getRecentPriceHistory(String instrumentId, int limit) throws SQLException {
-        return database.query("""
-            SELECT\s
-                ts,
-                price,
-                volume,
-                reason
-            FROM instrument_price_history
-            WHERE instrument_id = ?
-            ORDER BY ts DESC
-            LIMIT ?
-           \s""", instrumentId, limit);
+    public List<PriceHistory> getRecentPriceHistory(String instrumentId, int limit) throws SQLException {
+        return getRecentPriceHistory(instrumentId, limit, PriceCandle.Resolution.ONE_MINUTE);
+    }
+    
+    /**
+     * Gets recent price history for an instrument at the given candle resolution, newest first.
+     * Each entry is priced at the candle close and timestamped at the bucket start.
+     */
+    public List<PriceHistory> getRecentPriceHistory(String instrumentId, int limit, PriceCandle.Resolution resolution) throws SQLException {
+        return QuickStocksPlugin.getPriceCandleService().getCandles(instrumentId, resolution, limit).stream()
+            .map(PriceCandle::toPriceHistory)
+            .toList();
+    }
+    
+    /**
+     * Gets the most recent raw ticks of an instrument from the tick store, newest first.
+     */
+    public List<PriceHistory> getRecentTicks(String instrumentId, int limit) throws SQLException {
+        return QuickStocksPlugin.getTickStore().recent(instrumentId, limit).stream()
+            .map(TickStore.Tick::toPriceHistory)
+            .toList();
     }
     
     /**
      * Gets all symbols for tab completion.
      */
     public List<String> getAllSymbols() throws SQLException {
-        return database.query("SELECT symbol FROM instruments ORDER BY symbol")
-                .stream()
-                .map(row -> (String) row.get("symbol"))
-                .toList();
+        return database.query("SELECT symbol FROM instruments ORDER BY symbol", FIRST_STRING);
     }
     
     /**
      * Gets all materials for tab completion.
      */
     public List<String> getAllMaterials() throws SQLException {
-        return database.query("SELECT DISTINCT mc_material FROM instruments WHERE mc_material IS NOT NULL ORDER BY mc_material")
-                .stream()
-                .map(row -> (String) row.get("mc_material"))
-                .toList();
+        return database.query("SELECT DISTINCT mc_material FROM instruments WHERE mc_material IS NOT NULL ORDER BY mc_material", FIRST_STRING);
     }
     
     /**
@@ -262,19 +264,13 @@ public class QueryService {
             SELECT symbol FROM instruments\s
             WHERE UPPER(symbol) LIKE ?
             ORDER BY symbol
-           \s""", upperPrefix)
-                .stream()
-                .map(row -> (String) row.get("symbol"))
-                .toList();
+           \s""", FIRST_STRING, upperPrefix);
         
         List<String> materials = database.query("""
             SELECT DISTINCT mc_material FROM instruments\s
             WHERE mc_material IS NOT NULL AND UPPER(mc_material) LIKE ?
             ORDER BY mc_material
-           \s""", upperPrefix)
-                .stream()
-                .map(row -> (String) row.get("mc_material"))
-                .toList();
+           \s""", FIRST_STRING, upperPrefix);
         
         // Combine and remove duplicates while preserving order
         return java.util.stream.Stream.concat(symbols.stream(), materials.stream())
@@ -286,19 +282,20 @@ public class QueryService {
      * Gets instrument ID by symbol lookup.
      */
     public String getInstrumentIdBySymbol(String symbol) throws SQLException {
-        Map<String, Object> result = database.queryOne(
+        return database.queryFirst(
             "SELECT id FROM instruments WHERE UPPER(symbol) = UPPER(?)", 
+            FIRST_STRING,
             symbol
         );
-        return result != null ? (String) result.get("id") : null;
     }
     
     /**
      * Gets current price for an instrument.
      */
     public Double getCurrentPrice(String instrumentId) throws SQLException {
-        return database.queryValue(
+        return database.queryFirst(
             "SELECT last_price FROM instrument_state WHERE instrument_id = ?", 
+            rs -> rs.getDouble(1),
             instrumentId
         );
     }
@@ -307,8 +304,9 @@ public class QueryService {
      * Gets display name for an instrument by ID.
      */
     public String getInstrumentDisplayName(String instrumentId) throws SQLException {
-        return database.queryValue(
+        return database.queryFirst(
             "SELECT display_name FROM instruments WHERE id = ?", 
+            FIRST_STRING,
             instrumentId
         );
     }
@@ -317,9 +315,6 @@ public class QueryService {
      * Gets all instrument symbols for tab completion.
      */
     public List<String> getInstrumentSymbols() throws SQLException {
-        return database.query("SELECT symbol FROM instruments ORDER BY symbol")
-                .stream()
-                .map(row -> (String) row.get("symbol"))
-                .toList();
+        return database.query("SELECT symbol FROM instruments ORDER BY symbol", FIRST_STRING);
     }
 }
\ No newline at end of file
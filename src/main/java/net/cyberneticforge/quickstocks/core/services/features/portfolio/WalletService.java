@@ -2,15 +2,20 @@ package net.cyberneticforge.quickstocks.core.services.features.portfolio;
 
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
 import net.cyberneticforge.quickstocks.api.events.WalletBalanceChangeEvent;
+import net.cyberneticforge.quickstocks.core.services.features.market.TradeLanes;
 import net.cyberneticforge.quickstocks.infrastructure.db.Db;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.milkbowl.vault.economy.Economy;
+import net.milkbowl.vault.economy.EconomyResponse;
 import org.bukkit.Bukkit;
 import org.bukkit.OfflinePlayer;
 import org.bukkit.entity.Player;
+import org.bukkit.plugin.Plugin;
 import org.bukkit.plugin.RegisteredServiceProvider;
 
 import java.sql.SQLException;
+import java.util.concurrent.Callable;
+import java.util.List;
 import java.util.UUID;
 
 /**
@@ -22,6 +27,10 @@ public class WalletService {
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
     private final Db database = QuickStocksPlugin.getDatabaseManager().getDb();
+    private final String setBalanceSql = database.getDialect().upsert("wallets",
+        List.of("player_uuid", "balance"), List.of("player_uuid"));
+    private final String creditSql = database.getDialect().upsertIncrement("wallets",
+        List.of("player_uuid", "balance"), List.of("player_uuid"), List.of("balance"));
     private final boolean useVault;
     private Economy vaultEconomy; // Using Object to avoid compile-time dependency on Vault
     
@@ -51,6 +60,14 @@ public class WalletService {
         return true;
     }
     
+    /**
+     * Whether balances are backed by Vault. Vault providers are not guaranteed to be thread-safe, so every
+     * Vault call is made on the main thread; callers elsewhere wait for it.
+     */
+    public boolean isUsingVault() {
+        return useVault;
+    }
+    
     /**
      * Gets the balance for a player.
      */
@@ -74,55 +91,65 @@ public class WalletService {
     }
     
     /**
-     * Adds money to a player's balance.
+     * Adds money to a player's balance. Internal wallets are credited with a single upsert on the primary.
      */
     public void addBalance(String playerUuid, double amount) throws SQLException {
-        double oldBalance = getBalance(playerUuid);
-        
         if (useVault) {
+            double oldBalance = getVaultBalance(playerUuid);
             addVaultBalance(playerUuid, amount);
-        } else {
-            double currentBalance = getBalance(playerUuid);
-            setBalance(playerUuid, currentBalance + amount);
+            fireBalanceChangeEvent(playerUuid, oldBalance, oldBalance + amount, WalletBalanceChangeEvent.ChangeReason.OTHER);
+            return;
         }
         
-        // Fire WalletBalanceChangeEvent after successful balance change
-        fireBalanceChangeEvent(playerUuid, oldBalance, oldBalance + amount, 
-            WalletBalanceChangeEvent.ChangeReason.OTHER);
+        double[] newBalance = {Double.NaN};
+        database.executeTransaction(tx -> {
+            credit(tx, playerUuid, amount);
+            newBalance[0] = observedBalance(tx, playerUuid);
+        });
+        balanceChanged(playerUuid, newBalance[0], amount);
     }
     
     /**
-     * Removes money from a player's balance.
+     * Removes money from a player's balance. Internal wallets are debited with a conditional UPDATE,
+     * so concurrent removals can't overdraw.
      * @return true if successful, false if insufficient funds
      */
     public boolean removeBalance(String playerUuid, double amount) throws SQLException {
-        double oldBalance = getBalance(playerUuid);
-        boolean success;
-        
         if (useVault) {
-            success = removeVaultBalance(playerUuid, amount);
-        } else {
-            double currentBalance = getBalance(playerUuid);
-            if (currentBalance >= amount) {
-                setBalance(playerUuid, currentBalance - amount);
-                success = true;
-            } else {
-                success = false;
+            double oldBalance = getVaultBalance(playerUuid);
+            if (!removeVaultBalance(playerUuid, amount)) {
+                return false;
             }
-        }
-        
-        // Fire WalletBalanceChangeEvent after successful balance change
-        if (success) {
             fireBalanceChangeEvent(playerUuid, oldBalance, oldBalance - amount, WalletBalanceChangeEvent.ChangeReason.OTHER);
+            return true;
         }
         
-        return success;
+        boolean[] debited = {false};
+        double[] newBalance = {Double.NaN};
+        database.executeTransaction(tx -> {
+            debited[0] = debit(tx, playerUuid, amount);
+            if (debited[0]) {
+                newBalance[0] = observedBalance(tx, playerUuid);
+            }
+        });
+        if (debited[0]) {
+            balanceChanged(playerUuid, newBalance[0], -amount);
+        }
+        return debited[0];
     }
     
     /**
-     * Fires a WalletBalanceChangeEvent.
+     * Fires a WalletBalanceChangeEvent, on the main thread when the change happened in a trade lane.
      */
     private void fireBalanceChangeEvent(String playerUuid, double oldBalance, double newBalance, WalletBalanceChangeEvent.ChangeReason reason) {
+        if (!Bukkit.isPrimaryThread()) {
+            Plugin plugin = QuickStocksPlugin.getInstance();
+            if (plugin != null && plugin.isEnabled()
+                    && WalletBalanceChangeEvent.getHandlerList().getRegisteredListeners().length > 0) {
+                Bukkit.getScheduler().runTask(plugin, () -> fireBalanceChangeEvent(playerUuid, oldBalance, newBalance, reason));
+            }
+            return;
+        }
         try {
             Player player = Bukkit.getPlayer(UUID.fromString(playerUuid));
             if (player != null) {
@@ -141,6 +168,114 @@ public class WalletService {
         return getBalance(playerUuid) >= amount;
     }
     
+    /**
+     * Debits an internal wallet inside a transaction, checking and writing the balance in one conditional UPDATE.
+     * @return true if debited, false if the balance doesn't cover the amount
+     */
+    public boolean debit(Db.TransactionDb tx, String playerUuid, double amount) throws SQLException {
+        return tx.execute(
+            "UPDATE wallets SET balance = balance - ? WHERE player_uuid = ? AND balance >= ?",
+            amount, playerUuid, amount
+        ) > 0;
+    }
+    
+    /**
+     * Credits an internal wallet inside a transaction, creating it if needed.
+     */
+    public void credit(Db.TransactionDb tx, String playerUuid, double amount) throws SQLException {
+        tx.execute(creditSql, playerUuid, amount);
+    }
+    
+    /**
+     * Reads an internal balance inside a transaction, but only when something listens for
+     * {@link WalletBalanceChangeEvent}; NaN otherwise so trades skip the extra round trip.
+     */
+    public double observedBalance(Db.TransactionDb tx, String playerUuid) throws SQLException {
+        if (WalletBalanceChangeEvent.getHandlerList().getRegisteredListeners().length == 0) {
+            return Double.NaN;
+        }
+        return tx.queryDouble("SELECT balance FROM wallets WHERE player_uuid = ?", 0.0, playerUuid);
+    }
+    
+    /**
+     * Fires the balance change of a committed {@link #debit}/{@link #credit}, given the balance from
+     * {@link #observedBalance}. Does nothing when that balance wasn't read.
+     */
+    public void balanceChanged(String playerUuid, double newBalance, double delta) {
+        if (!Double.isNaN(newBalance)) {
+            fireBalanceChangeEvent(playerUuid, newBalance - delta, newBalance, WalletBalanceChangeEvent.ChangeReason.OTHER);
+        }
+    }
+    
+    /**
+     * Withdraws an amount from a Vault wallet as the first phase of a trade. The caller must
+     * {@link Reservation#commit() commit} it once the trade is stored, or {@link Reservation#release() release}
+     * it to pay the money back.
+     * @return the reservation, or null if the balance doesn't cover the amount
+     */
+    public Reservation reserve(String playerUuid, double amount) {
+        if (!useVault) {
+            throw new IllegalStateException("Reservations are only used for Vault wallets");
+        }
+        double oldBalance = getVaultBalance(playerUuid);
+        if (!removeVaultBalance(playerUuid, amount)) {
+            return null;
+        }
+        return new Reservation(playerUuid, amount, oldBalance);
+    }
+    
+    /**
+     * Deposits the proceeds of a stored trade into a Vault wallet and reports the balance change.
+     * @return false if Vault didn't take the deposit; the caller must undo or record the trade then
+     */
+    public boolean payOut(String playerUuid, double amount) {
+        if (!useVault) {
+            throw new IllegalStateException("Payouts are only used for Vault wallets");
+        }
+        double oldBalance = getVaultBalance(playerUuid);
+        if (!addVaultBalance(playerUuid, amount)) {
+            return false;
+        }
+        fireBalanceChangeEvent(playerUuid, oldBalance, oldBalance + amount, WalletBalanceChangeEvent.ChangeReason.OTHER);
+        return true;
+    }
+    
+    /**
+     * Money withdrawn from a Vault wallet for a trade that isn't stored yet.
+     */
+    public final class Reservation {
+        private final String playerUuid;
+        private final double amount;
+        private final double oldBalance;
+        private boolean settled;
+        
+        private Reservation(String playerUuid, double amount, double oldBalance) {
+            this.playerUuid = playerUuid;
+            this.amount = amount;
+            this.oldBalance = oldBalance;
+        }
+        
+        /**
+         * Keeps the withdrawn money and reports the balance change.
+         */
+        public void commit() {
+            if (settled) return;
+            settled = true;
+            fireBalanceChangeEvent(playerUuid, oldBalance, oldBalance - amount, WalletBalanceChangeEvent.ChangeReason.OTHER);
+        }
+        
+        /**
+         * Pays the withdrawn money back; no balance change is reported.
+         */
+        public void release() {
+            if (settled) return;
+            settled = true;
+            if (!addVaultBalance(playerUuid, amount)) {
+                logger.severe("Could not pay back a reserved $" + String.format("%.2f", amount) + " to " + playerUuid);
+            }
+        }
+    }
+    
     private double getInternalBalance(String playerUuid) throws SQLException {
         Double balance = database.queryValue(
             "SELECT balance FROM wallets WHERE player_uuid = ?", 
@@ -151,7 +286,7 @@ public class WalletService {
     
     private void setInternalBalance(String playerUuid, double amount) throws SQLException {
         database.execute(
-            "INSERT OR REPLACE INTO wallets (player_uuid, balance) VALUES (?, ?)",
+            setBalanceSql,
             playerUuid, amount
         );
         logger.debug("Set balance for " + playerUuid + " to $" + String.format("%.2f", amount));
@@ -159,6 +294,43 @@ public class WalletService {
     
     // Vault integration methods using reflection to avoid compile-time dependencies
     private double getVaultBalance(String playerUuid) {
+        return onMainThread(() -> readVaultBalance(playerUuid), 0.0);
+    }
+    
+    private void setVaultBalance(String playerUuid, double amount) {
+        onMainThread(() -> {
+            writeVaultBalance(playerUuid, amount);
+            return null;
+        }, null);
+    }
+    
+    private boolean addVaultBalance(String playerUuid, double amount) {
+        return onMainThread(() -> depositVaultBalance(playerUuid, amount), false);
+    }
+    
+    private boolean removeVaultBalance(String playerUuid, double amount) {
+        return onMainThread(() -> withdrawVaultBalance(playerUuid, amount), false);
+    }
+    
+    /**
+     * Runs a Vault call on the main thread. Trades running in a {@link TradeLanes} lane hand it over and wait,
+     * so only the Vault call, not the whole trade, occupies the main thread.
+     */
+    private <T> T onMainThread(Callable<T> vaultCall, T fallback) {
+        TradeLanes lanes = QuickStocksPlugin.getTradeLanes();
+        try {
+            return lanes != null ? lanes.callOnMainThread(vaultCall) : vaultCall.call();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            logger.warning("Interrupted while waiting for a Vault call");
+            return fallback;
+        } catch (Exception e) {
+            logger.warning("Vault call failed: " + e.getMessage());
+            return fallback;
+        }
+    }
+    
+    private double readVaultBalance(String playerUuid) {
         try {
             OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(playerUuid));
             if(offlinePlayer.getName() == null) {
@@ -174,7 +346,7 @@ public class WalletService {
         }
     }
     
-    private void setVaultBalance(String playerUuid, double amount) {
+    private void writeVaultBalance(String playerUuid, double amount) {
         try {
             OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(playerUuid));
             if(offlinePlayer.getName() == null) {
@@ -195,21 +367,27 @@ public class WalletService {
         }
     }
     
-    private void addVaultBalance(String playerUuid, double amount) {
+    private boolean depositVaultBalance(String playerUuid, double amount) {
         try {
             OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(playerUuid));
             if(offlinePlayer.getName() == null) {
                 logger.warning("OfflinePlayer not found for UUID: " + playerUuid);
-                return;
+                return false;
+            }
+            EconomyResponse response = vaultEconomy.depositPlayer(offlinePlayer, amount);
+            if (!response.transactionSuccess()) {
+                logger.warning("Vault refused to add $" + String.format("%.2f", amount) + " for " + playerUuid + ": " + response.errorMessage);
+                return false;
             }
-            vaultEconomy.depositPlayer(offlinePlayer, amount);
             logger.debug("Added $" + String.format("%.2f", amount) + " to Vault balance for " + playerUuid);
+            return true;
         } catch (Exception e) {
             logger.warning("Failed to add Vault balance for " + playerUuid + ": " + e.getMessage());
+            return false;
         }
     }
     
-    private boolean removeVaultBalance(String playerUuid, double amount) {
+    private boolean withdrawVaultBalance(String playerUuid, double amount) {
         try {
             OfflinePlayer offlinePlayer = Bukkit.getOfflinePlayer(UUID.fromString(playerUuid));
             if(offlinePlayer.getName() == null) {
@@ -231,11 +409,4 @@ public class WalletService {
             return false;
         }
     }
-
-    /**
-     * Returns true if this service is using Vault for economy operations.
-     */
-    public boolean isUsingVault() {
-        return useVault;
-    }
 }
\ No newline at end of file
@@ -72,6 +72,7 @@ public class WatchlistService {
             
             int rows = stmt.executeUpdate();
             logger.info("Added instrument " + instrumentId + " to watchlist for player " + playerUuid);
+            refreshWatchedInstruments();
             return rows > 0;
         }
     }
@@ -117,10 +118,20 @@ public class WatchlistService {
             
             int rows = stmt.executeUpdate();
             logger.info("Removed instrument " + instrumentId + " from watchlist for player " + playerUuid);
+            refreshWatchedInstruments();
             return rows > 0;
         }
     }
     
+    /**
+     * Lets the market engine know which instruments are watched, so they are priced more often.
+     */
+    private void refreshWatchedInstruments() {
+        if (QuickStocksPlugin.getStockMarketService() != null) {
+            QuickStocksPlugin.getStockMarketService().refreshWatchedInstruments();
+        }
+    }
+    
     /**
      * Helper method to get instrument symbol.
      */
@@ -251,6 +262,7 @@ public class WatchlistService {
             stmt.setString(1, playerUuid);
             int rows = stmt.executeUpdate();
             logger.info("Cleared watchlist for player " + playerUuid + " (" + rows + " items removed)");
+            refreshWatchedInstruments();
             return rows;
         }
     }
@@ -0,0 +1,289 @@
+package net.cyberneticforge.quickstocks.core.simulation;
+
+import net.cyberneticforge.quickstocks.core.algorithms.MarketEngine;
+import net.cyberneticforge.quickstocks.core.algorithms.PriceThresholdController;
+import net.cyberneticforge.quickstocks.core.algorithms.SectorModel;
+import net.cyberneticforge.quickstocks.core.algorithms.StockPriceCalculator;
+import net.cyberneticforge.quickstocks.core.enums.MarketFactor;
+import net.cyberneticforge.quickstocks.core.model.MarketInfluence;
+import net.cyberneticforge.quickstocks.core.model.Stock;
+import net.cyberneticforge.quickstocks.core.services.features.market.CircuitBreakerService;
+import net.cyberneticforge.quickstocks.infrastructure.db.DatabaseConfig;
+import org.bukkit.configuration.file.YamlConfiguration;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Headless, seeded backtest of the price model. Runs the production {@link StockPriceCalculator},
+ * {@link PriceThresholdController} and {@link MarketEngine} over synthetic instruments without a server
+ * or database, as fast as the CPU allows, and summarizes the resulting price paths.
+ * <p>
+ * Sector weights, threshold dampening and circuit breaker levels are read from a market.yml (the bundled
+ * one by default), so a config change can be evaluated over months of simulated ticks before it ships.
+ * The same seed and options always produce the same {@link Report}.
+ * <pre>
+ * mvn -Pbacktest compile exec:java -Dexec.args="--instruments 200 --ticks 100000 --seed 42"
+ * </pre>
+ */
+public class Backtest {
+
+    private static final String SYMBOL_PREFIX = "SIM";
+    private static final double MIN_INITIAL_PRICE = 10.0;
+    private static final double MAX_INITIAL_PRICE = 250.0;
+
+    private final Options options;
+    private final YamlConfiguration config;
+
+    /**
+     * Run parameters; {@code ticksPerSession} sets how often circuit breakers reset to a new session open.
+     */
+    public record Options(int instruments, int ticks, long seed, int ticksPerSession) {
+        public Options {
+            if (instruments <= 0 || ticks <= 0 || ticksPerSession <= 0) {
+                throw new IllegalArgumentException("Instruments, ticks and ticks per session must be positive");
+            }
+        }
+
+        /**
+         * Sessions of one day at the default 5 second update interval.
+         */
+        public static Options of(int instruments, int ticks, long seed) {
+            return new Options(instruments, ticks, seed, 24 * 60 * 60 / 5);
+        }
+    }
+
+    /**
+     * Summary of a run. Drift and volatility are per session, from per-tick log returns pooled over all
+     * instruments; drawdowns are peak-to-trough fractions of each instrument's path.
+     */
+    public record Report(int instruments, int ticks, long seed, double drift, double realizedVolatility,
+                         double meanReturn, double meanMaxDrawdown, double worstMaxDrawdown,
+                         long dampeningChecks, long dampeningHits, List<Long> circuitBreakerTriggers) {
+
+        public double dampeningHitRate() {
+            return dampeningChecks == 0 ? 0.0 : (double) dampeningHits / dampeningChecks;
+        }
+
+        public String describe() {
+            StringBuilder sb = new StringBuilder();
+            sb.append(String.format("Backtest: %d instruments x %d ticks, seed %d%n", instruments, ticks, seed));
+            sb.append(String.format("  drift per session:         %+.4f%%%n", drift * 100));
+            sb.append(String.format("  realized vol per session:  %.4f%%%n", realizedVolatility * 100));
+            sb.append(String.format("  mean total return:         %+.2f%%%n", meanReturn * 100));
+            sb.append(String.format("  max drawdown mean / worst: %.2f%% / %.2f%%%n", meanMaxDrawdown * 100, worstMaxDrawdown * 100));
+            sb.append(String.format("  dampening hit rate:        %.4f%% (%d of %d checks)%n",
+                dampeningHitRate() * 100, dampeningHits, dampeningChecks));
+            for (int i = 0; i < circuitBreakerTriggers.size(); i++) {
+                sb.append(String.format("  circuit breaker level %d:   %d triggers%n", i + 1, circuitBreakerTriggers.get(i)));
+            }
+            return sb.toString();
+        }
+    }
+
+    /**
+     * @param config market.yml contents; missing sections fall back to the plugin defaults
+     */
+    public Backtest(Options options, YamlConfiguration config) {
+        this.options = options;
+        this.config = config;
+    }
+
+    /**
+     * Loads a market.yml from disk, or the one bundled with the plugin when {@code path} is null.
+     */
+    public static YamlConfiguration loadConfig(Path path) throws IOException {
+        if (path != null) {
+            try (Reader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+                return YamlConfiguration.loadConfiguration(reader);
+            }
+        }
+        try (InputStream in = Backtest.class.getResourceAsStream("/market.yml")) {
+            if (in == null) {
+                throw new IOException("Bundled market.yml not found on the classpath");
+            }
+            return YamlConfiguration.loadConfiguration(new InputStreamReader(in, StandardCharsets.UTF_8));
+        }
+    }
+
+    public Report run() {
+        SectorModel sectors = SectorModel.compile(config.getConfigurationSection("market.sectors"));
+        CountingThresholdController controller = new CountingThresholdController(thresholdConfig());
+        StockPriceCalculator calculator = new StockPriceCalculator(options.seed(), controller);
+        calculator.setSectorModel(() -> sectors);
+        MarketEngine engine = new MarketEngine(calculator, options.seed());
+
+        SplittableRandom setup = new SplittableRandom(options.seed());
+        List<MarketInfluence> influences = initialInfluences(setup);
+        int n = options.instruments();
+        Stock[] stocks = new Stock[n];
+        for (int i = 0; i < n; i++) {
+            int sectorId = i % sectors.sectorCount();
+            double price = MIN_INITIAL_PRICE + setup.nextDouble() * (MAX_INITIAL_PRICE - MIN_INITIAL_PRICE);
+            Stock stock = new Stock(SYMBOL_PREFIX + i, "Simulated " + i, sectors.sectorName(sectorId), price);
+            stock.setVolatilityRating(sectors.volatility(sectorId));
+            controller.recordInitialPrice(stock);
+            engine.register(stock);
+            stocks[i] = stock;
+        }
+
+        boolean breakersEnabled = config.getBoolean("trading.circuitBreakers.enable", true);
+        List<Double> levels = config.getDoubleList("trading.circuitBreakers.levels");
+        if (levels.isEmpty()) {
+            levels = List.of(7.0, 13.0, 20.0);
+        }
+        long[] triggers = new long[levels.size()];
+
+        double[] initial = new double[n];
+        double[] peak = new double[n];
+        double[] maxDrawdown = new double[n];
+        double[] sessionOpen = new double[n];
+        int[] haltedLevels = new int[n]; // bit per level already triggered this session
+        for (int i = 0; i < n; i++) {
+            initial[i] = peak[i] = sessionOpen[i] = stocks[i].getCurrentPrice();
+        }
+        double sum = 0.0;
+        double sumSq = 0.0;
+
+        for (int tick = 0; tick < options.ticks(); tick++) {
+            if (tick > 0 && tick % options.ticksPerSession() == 0) {
+                for (int i = 0; i < n; i++) {
+                    sessionOpen[i] = stocks[i].getCurrentPrice();
+                    haltedLevels[i] = 0;
+                }
+            }
+            calculator.updateMarketInfluences(influences);
+            engine.tick(influences);
+
+            for (int i = 0; i < n; i++) {
+                double price = stocks[i].getCurrentPrice();
+                double r = Math.log(price / stocks[i].getPreviousPrice());
+                sum += r;
+                sumSq += r * r;
+                if (price > peak[i]) {
+                    peak[i] = price;
+                } else {
+                    maxDrawdown[i] = Math.max(maxDrawdown[i], 1.0 - price / peak[i]);
+                }
+                if (breakersEnabled) {
+                    int level = CircuitBreakerService.breachedLevel(levels, sessionOpen[i], price);
+                    if (level > 0 && (haltedLevels[i] & (1 << level)) == 0) {
+                        haltedLevels[i] |= 1 << level;
+                        triggers[level - 1]++;
+                    }
+                }
+            }
+        }
+
+        long samples = (long) n * options.ticks();
+        double mean = sum / samples;
+        double variance = Math.max(0.0, sumSq / samples - mean * mean);
+        double meanReturn = 0.0;
+        for (int i = 0; i < n; i++) {
+            meanReturn += stocks[i].getCurrentPrice() / initial[i] - 1.0;
+        }
+        return new Report(n, options.ticks(), options.seed(),
+            mean * options.ticksPerSession(),
+            Math.sqrt(variance * options.ticksPerSession()),
+            meanReturn / n,
+            Arrays.stream(maxDrawdown).average().orElse(0.0),
+            Arrays.stream(maxDrawdown).max().orElse(0.0),
+            controller.checks.sum(), controller.hits.sum(),
+            Arrays.stream(triggers).boxed().toList());
+    }
+
+    /**
+     * Same starting bias as the live market, drawn from the run's seed.
+     */
+    private static List<MarketInfluence> initialInfluences(SplittableRandom random) {
+        List<MarketInfluence> influences = new ArrayList<>();
+        for (MarketFactor factor : MarketFactor.values()) {
+            double initialValue = (random.nextDouble() - 0.5) * 0.4; // -0.2 to +0.2
+            double initialIntensity = 0.3 + random.nextDouble() * 0.4; // 0.3 to 0.7
+            influences.add(new MarketInfluence(factor, initialValue, initialIntensity));
+        }
+        return influences;
+    }
+
+    private DatabaseConfig thresholdConfig() {
+        DatabaseConfig thresholds = new DatabaseConfig();
+        thresholds.setPriceThresholdEnabled(config.getBoolean("market.priceThreshold.enabled", true));
+        thresholds.setMaxChangePercent(config.getDouble("market.priceThreshold.maxChangePercent", 0.15));
+        thresholds.setPriceMultiplierThreshold(config.getDouble("market.priceThreshold.priceMultiplierThreshold", 5.0));
+        thresholds.setDampeningFactor(config.getDouble("market.priceThreshold.dampeningFactor", 0.3));
+        thresholds.setMinVolumeThreshold(config.getInt("market.priceThreshold.minVolumeThreshold", 100));
+        thresholds.setVolumeSensitivity(config.getDouble("market.priceThreshold.volumeSensitivity", 0.5));
+        return thresholds;
+    }
+
+    /**
+     * Counts dampening checks and how many of them actually reduced the impact. Called from the
+     * engine's parallel ranges.
+     */
+    private static final class CountingThresholdController extends PriceThresholdController {
+        private final LongAdder checks = new LongAdder();
+        private final LongAdder hits = new LongAdder();
+
+        private CountingThresholdController(DatabaseConfig config) {
+            super(config);
+        }
+
+        @Override
+        public double calculateDampeningFactor(Stock stock, double proposedImpact) {
+            double factor = super.calculateDampeningFactor(stock, proposedImpact);
+            checks.increment();
+            if (factor < 1.0) {
+                hits.increment();
+            }
+            return factor;
+        }
+    }
+
+    /**
+     * {@code --instruments N --ticks M --seed S --session-ticks T --config path/to/market.yml}
+     */
+    public static void main(String[] args) throws IOException {
+        int instruments = 100;
+        int ticks = 17_280 * 30; // a month of 5 second ticks
+        long seed = 42L;
+        int sessionTicks = 17_280;
+        Path configPath = null;
+        for (int i = 0; i < args.length; i++) {
+            String value = i + 1 < args.length ? args[i + 1] : null;
+            switch (args[i]) {
+                case "--instruments" -> instruments = Integer.parseInt(require(args[i], value));
+                case "--ticks" -> ticks = Integer.parseInt(require(args[i], value));
+                case "--seed" -> seed = Long.parseLong(require(args[i], value));
+                case "--session-ticks" -> sessionTicks = Integer.parseInt(require(args[i], value));
+                case "--config" -> configPath = Path.of(require(args[i], value));
+                default -> throw new IllegalArgumentException("Unknown option " + args[i]
+                    + "; use --instruments, --ticks, --seed, --session-ticks, --config");
+            }
+            i++;
+        }
+
+        long start = System.nanoTime();
+        Report report = new Backtest(new Options(instruments, ticks, seed, sessionTicks), loadConfig(configPath)).run();
+        long millis = (System.nanoTime() - start) / 1_000_000;
+        System.out.print(report.describe());
+        System.out.printf("  elapsed:                   %d ms (%.0f instrument-ticks/s)%n", millis,
+            (double) instruments * ticks / Math.max(1, millis) * 1000);
+    }
+
+    private static String require(String option, String value) {
+        if (value == null) {
+            throw new IllegalArgumentException("Missing value for " + option);
+        }
+        return value;
+    }
+}
@@ -7,6 +7,7 @@ import net.cyberneticforge.quickstocks.core.model.Crypto;
 import net.cyberneticforge.quickstocks.core.model.Instrument;
 import net.cyberneticforge.quickstocks.core.model.InstrumentState;
 import net.cyberneticforge.quickstocks.core.model.Replaceable;
+import net.cyberneticforge.quickstocks.core.services.features.market.StockMarketService;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.cyberneticforge.quickstocks.utils.ChatUT;
 import net.kyori.adventure.text.Component;
@@ -279,6 +280,13 @@ public class MarketGUI implements InventoryHolder {
                 inventory.setItem(i, emptySlot);
             }
 
+            // Instruments on screen are kept on the hot pricing cadence
+            if (QuickStocksPlugin.getStockMarketService() != null) {
+                List<String> shown = new ArrayList<>(slotInstrumentMap.size());
+                slotInstrumentMap.values().forEach(instrument -> shown.add(instrument.symbol));
+                QuickStocksPlugin.getStockMarketService().markViewed(shown);
+            }
+
         } catch (Exception e) {
             logger.warning("Error adding items to GUI: " + e.getMessage() + "\n" + Arrays.toString(e.getStackTrace()));
         }
@@ -350,13 +358,31 @@ public class MarketGUI implements InventoryHolder {
         }
     }
 
+    /**
+     * Current market price of an instrument, caught up if it is lazily priced; the fallback when the market
+     * has no price for it.
+     */
+    private static double currentPrice(String instrumentId, double fallback) {
+        StockMarketService market = QuickStocksPlugin.getStockMarketService();
+        if (market == null) {
+            return fallback;
+        }
+        try {
+            Double price = market.getCurrentPrice(instrumentId);
+            return price != null ? price : fallback;
+        } catch (SQLException e) {
+            logger.debug("Failed to read price of " + instrumentId + ": " + e.getMessage());
+            return fallback;
+        }
+    }
+
     /**
      * Creates an ItemStack representing a cryptocurrency
      */
     private ItemStack createCryptoItem(Crypto crypto) {
         String symbol = crypto.instrument().symbol();
         String displayName = crypto.instrument().displayName();
-        double price = crypto.state().lastPrice();
+        double price = currentPrice(crypto.instrument().id(), crypto.state().lastPrice());
         double change24h = crypto.state().change24h();
         double volume = crypto.state().lastVolume();
 
@@ -415,7 +441,7 @@ public class MarketGUI implements InventoryHolder {
             Optional<InstrumentState> stateOpt = QuickStocksPlugin.getInstrumentPersistenceService()
                     .getInstrumentState(instrument.id());
             
-            double price = stateOpt.map(InstrumentState::lastPrice).orElse(0.0);
+            double price = currentPrice(instrument.id(), stateOpt.map(InstrumentState::lastPrice).orElse(0.0));
             double change24h = stateOpt.map(InstrumentState::change24h).orElse(0.0);
             double volume = stateOpt.map(InstrumentState::lastVolume).orElse(0.0);
             
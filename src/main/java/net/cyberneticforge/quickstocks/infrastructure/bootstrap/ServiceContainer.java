@@ -0,0 +1,237 @@
+package net.cyberneticforge.quickstocks.infrastructure.bootstrap;
+
+import lombok.Getter;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+/**
+ * Plugin bootstrap as a dependency graph of named phases.
+ * <p>
+ * A phase starts as soon as the phases it depends on finished. Background phases run on a small worker pool,
+ * main-thread phases on the thread calling {@link #start()} (anything touching the Bukkit API), so independent
+ * work overlaps. Dependencies must be registered first, which also rules out cycles. Rarely used services are
+ * registered as {@link Lazy} and built on first access. Every phase is timed for the startup report.
+ */
+public class ServiceContainer {
+
+    private static final int MAX_WORKERS = 4;
+
+    private final Map<String, Phase> phases = new LinkedHashMap<>();
+    private final List<Timing> timings = new CopyOnWriteArrayList<>();
+    private long startedAt;
+    @Getter
+    private long wallMillis;
+
+    /**
+     * Unit of startup work.
+     */
+    @FunctionalInterface
+    public interface Step {
+        void run() throws Exception;
+    }
+
+    /**
+     * Time spent in one phase, relative to the start of the bootstrap.
+     */
+    public record Timing(String name, String thread, long offsetMillis, long durationMillis, boolean lazy) {
+        public String describe() {
+            return String.format("%s: %d ms (%s, %s+%d ms)", name, durationMillis, thread,
+                lazy ? "first use " : "", offsetMillis);
+        }
+    }
+
+    /**
+     * Registers a phase that runs on a worker thread.
+     */
+    public ServiceContainer background(String name, Step step, String... dependsOn) {
+        return register(name, step, false, dependsOn);
+    }
+
+    /**
+     * Registers a phase that runs on the thread calling {@link #start()}.
+     */
+    public ServiceContainer mainThread(String name, Step step, String... dependsOn) {
+        return register(name, step, true, dependsOn);
+    }
+
+    private ServiceContainer register(String name, Step step, boolean mainThread, String... dependsOn) {
+        if (phases.containsKey(name)) {
+            throw new IllegalArgumentException("Duplicate startup phase: " + name);
+        }
+        List<Phase> dependencies = new ArrayList<>(dependsOn.length);
+        for (String dependency : dependsOn) {
+            Phase phase = phases.get(dependency);
+            if (phase == null) {
+                throw new IllegalArgumentException("Startup phase " + name + " depends on unknown phase " + dependency);
+            }
+            dependencies.add(phase);
+        }
+        phases.put(name, new Phase(name, step, mainThread, dependencies));
+        return this;
+    }
+
+    /**
+     * Wraps a factory that runs, timed, on the first {@link Lazy#get()}.
+     */
+    public <T> Lazy<T> lazy(String name, Supplier<T> factory) {
+        return new Lazy<>(name, factory);
+    }
+
+    /**
+     * Runs every registered phase and blocks until all finished.
+     *
+     * @throws Exception the failure of the first failed phase; phases depending on it are skipped
+     */
+    public void start() throws Exception {
+        startedAt = System.nanoTime();
+        long backgroundPhases = phases.values().stream().filter(p -> !p.mainThread).count();
+        AtomicInteger threadId = new AtomicInteger();
+        ExecutorService workers = Executors.newFixedThreadPool((int) Math.max(1, Math.min(MAX_WORKERS, backgroundPhases)), r -> {
+            Thread thread = new Thread(r, "QuickStocks-Init-" + threadId.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            for (Phase phase : phases.values()) {
+                if (phase.mainThread) {
+                    phase.future = new CompletableFuture<>();
+                } else {
+                    phase.future = phase.dependencies().thenRunAsync(() -> run(phase), workers);
+                }
+            }
+            for (Phase phase : phases.values()) {
+                if (!phase.mainThread) {
+                    continue;
+                }
+                try {
+                    phase.dependencies().join();
+                    run(phase);
+                    phase.future.complete(null);
+                } catch (CompletionException e) {
+                    // Fail this and every later main-thread phase so background dependents stop too
+                    phases.values().stream().filter(p -> p.mainThread)
+                        .forEach(p -> p.future.completeExceptionally(e.getCause()));
+                    throw e;
+                }
+            }
+            CompletableFuture.allOf(futures()).join();
+        } catch (CompletionException e) {
+            // Let phases already in flight settle before the caller tears things down
+            CompletableFuture.allOf(futures()).handle((ignored, failure) -> null).join();
+            throw unwrap(e);
+        } finally {
+            workers.shutdown();
+            wallMillis = (System.nanoTime() - startedAt) / 1_000_000;
+        }
+    }
+
+    private CompletableFuture<?>[] futures() {
+        return phases.values().stream().map(p -> p.future).toArray(CompletableFuture[]::new);
+    }
+
+    private void run(Phase phase) {
+        long start = System.nanoTime();
+        try {
+            phase.step.run();
+        } catch (Exception e) {
+            throw new CompletionException(new IllegalStateException("Startup phase " + phase.name + " failed: " + e.getMessage(), e));
+        } finally {
+            record(phase.name, start, false);
+        }
+    }
+
+    private void record(String name, long start, boolean lazy) {
+        long end = System.nanoTime();
+        timings.add(new Timing(name, Thread.currentThread().getName(),
+            (start - startedAt) / 1_000_000, (end - start) / 1_000_000, lazy));
+    }
+
+    private static Exception unwrap(CompletionException e) {
+        Throwable cause = e.getCause();
+        if (cause instanceof IllegalStateException wrapper && wrapper.getCause() instanceof Exception original) {
+            return original;
+        }
+        return cause instanceof Exception exception ? exception : e;
+    }
+
+    /**
+     * Phase timings ordered by start time, lazy services after the eager phases.
+     */
+    public List<Timing> getTimings() {
+        return timings.stream()
+            .sorted(Comparator.comparing(Timing::lazy).thenComparingLong(Timing::offsetMillis))
+            .toList();
+    }
+
+    /**
+     * Sum of all eager phase durations; compared with {@link #getWallMillis()} it shows what ran in parallel.
+     */
+    public long getWorkMillis() {
+        return timings.stream().filter(t -> !t.lazy()).mapToLong(Timing::durationMillis).sum();
+    }
+
+    private static final class Phase {
+        private final String name;
+        private final Step step;
+        private final boolean mainThread;
+        private final List<Phase> dependsOn;
+        private CompletableFuture<Void> future;
+
+        private Phase(String name, Step step, boolean mainThread, List<Phase> dependsOn) {
+            this.name = name;
+            this.step = step;
+            this.mainThread = mainThread;
+            this.dependsOn = dependsOn;
+        }
+
+        private CompletableFuture<Void> dependencies() {
+            return CompletableFuture.allOf(dependsOn.stream().map(p -> p.future).toArray(CompletableFuture[]::new));
+        }
+    }
+
+    /**
+     * Service built on first access. Thread-safe, the factory runs at most once unless it throws.
+     */
+    public final class Lazy<T> implements Supplier<T> {
+        private final String name;
+        private final Supplier<T> factory;
+        private volatile T value;
+
+        private Lazy(String name, Supplier<T> factory) {
+            this.name = name;
+            this.factory = factory;
+        }
+
+        @Override
+        public T get() {
+            T result = value;
+            if (result == null) {
+                synchronized (this) {
+                    result = value;
+                    if (result == null) {
+                        long start = System.nanoTime();
+                        result = factory.get();
+                        record(name, start, true);
+                        value = result;
+                    }
+                }
+            }
+            return result;
+        }
+
+        public boolean isInitialized() {
+            return value != null;
+        }
+    }
+}
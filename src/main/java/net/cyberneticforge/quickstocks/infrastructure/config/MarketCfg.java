@@ -2,6 +2,9 @@ package net.cyberneticforge.quickstocks.infrastructure.config;
 
 import lombok.Getter;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.core.algorithms.MarketEngine;
+import net.cyberneticforge.quickstocks.core.algorithms.OrderFlowBook;
+import net.cyberneticforge.quickstocks.core.algorithms.SectorModel;
 
 import java.time.LocalTime;
 import java.time.ZoneId;
@@ -21,6 +24,34 @@ public class MarketCfg {
     private boolean startOpen;
     private boolean defaultStocks;
     
+    // Write-behind persistence settings
+    private int persistenceFlushInterval;
+    private int persistenceMaxPendingHistory;
+    private int persistenceBatchSize;
+    
+    // Price history retention settings
+    private int historyRawRetentionHours;
+    private int historyMinuteCandleRetentionDays;
+    private int historyHourCandleRetentionDays;
+    private int historyPruneInterval;
+    private int historyPruneBatchSize;
+    private int historyPruneMaxBatches;
+    private String historyTickStore;
+    private int historyTickSegmentSize;
+    
+    // Market snapshot settings
+    private boolean snapshotEnabled;
+    private int snapshotInterval;
+    
+    // Price event settings
+    private boolean legacyPriceUpdateEvents;
+    
+    // Activity-based tick cadence, converted to ticks of updateInterval
+    private volatile MarketEngine.Schedule tickSchedule;
+    
+    // Price impact of real shop trades in item instruments
+    private volatile OrderFlowBook.Settings orderFlow;
+    
     // Item trading settings
     private boolean itemsEnabled;
     private boolean seedItemsOnStartup;
@@ -32,6 +63,9 @@ public class MarketCfg {
     private boolean marketDeviceEnabled;
     private boolean cryptoCommandEnabled;
     
+    // Pricing model compiled from market.sectors, replaced as a whole on reload
+    private volatile SectorModel sectorModel;
+    
     // Price threshold settings
     private boolean priceThresholdEnabled;
     private double maxChangePercent;
@@ -51,6 +85,7 @@ public class MarketCfg {
     private LocalTime openTime;
     private LocalTime closeTime;
     private ZoneId timezone;
+    private boolean openingGapEnabled;
 
     public MarketCfg() {
         config = YamlParser.loadOrExtract(QuickStocksPlugin.getInstance(), "market.yml");
@@ -72,6 +107,40 @@ public class MarketCfg {
         config.addMissing("market.startOpen", true);
         config.addMissing("market.defaultStocks", true);
         
+        // Write-behind persistence settings
+        config.addMissing("market.persistence.flushInterval", 5);
+        config.addMissing("market.persistence.maxPendingHistory", 20000);
+        config.addMissing("market.persistence.batchSize", 500);
+        
+        // Price history retention settings
+        config.addMissing("market.history.rawRetentionHours", 48);
+        config.addMissing("market.history.minuteCandleRetentionDays", 14);
+        config.addMissing("market.history.hourCandleRetentionDays", 365);
+        config.addMissing("market.history.pruneInterval", 60);
+        config.addMissing("market.history.pruneBatchSize", 1000);
+        config.addMissing("market.history.pruneMaxBatches", 20);
+        config.addMissing("market.history.tickStore", "sql");
+        config.addMissing("market.history.tickSegmentSize", 4096);
+        
+        // Market snapshot settings
+        config.addMissing("market.snapshot.enabled", true);
+        config.addMissing("market.snapshot.interval", 300);
+        
+        // Price event settings
+        config.addMissing("market.events.legacyPriceUpdateEvents", true);
+        
+        // Tick scheduling settings
+        config.addMissing("market.scheduling.enabled", true);
+        config.addMissing("market.scheduling.hotMinutes", 10);
+        config.addMissing("market.scheduling.warmMinutes", 120);
+        config.addMissing("market.scheduling.warmInterval", 30);
+        config.addMissing("market.scheduling.coldInterval", 600);
+        
+        // Order flow settings
+        config.addMissing("market.orderFlow.enabled", true);
+        config.addMissing("market.orderFlow.maxImpact", 0.02);
+        config.addMissing("market.orderFlow.depth", 64);
+        
         // Item trading settings
         config.addMissing("market.items.enabled", true);
         config.addMissing("market.items.seedOnStartup", false);
@@ -103,6 +172,7 @@ public class MarketCfg {
         config.addMissing("market.hours.open-at", "06:00:00");
         config.addMissing("market.hours.close-at", "22:00:00");
         config.addMissing("market.hours.timezone", "UTC");
+        config.addMissing("market.hours.openingGap", true);
         
         config.saveChanges();
     }
@@ -117,6 +187,43 @@ public class MarketCfg {
         startOpen = config.getBoolean("market.startOpen", true);
         defaultStocks = config.getBoolean("market.defaultStocks", true);
         
+        // Write-behind persistence settings
+        persistenceFlushInterval = Math.max(1, config.getInt("market.persistence.flushInterval", 5));
+        persistenceMaxPendingHistory = config.getInt("market.persistence.maxPendingHistory", 20000);
+        persistenceBatchSize = config.getInt("market.persistence.batchSize", 500);
+        
+        // Price history retention settings (0 keeps data forever)
+        historyRawRetentionHours = Math.max(0, config.getInt("market.history.rawRetentionHours", 48));
+        historyMinuteCandleRetentionDays = Math.max(0, config.getInt("market.history.minuteCandleRetentionDays", 14));
+        historyHourCandleRetentionDays = Math.max(0, config.getInt("market.history.hourCandleRetentionDays", 365));
+        historyPruneInterval = Math.max(1, config.getInt("market.history.pruneInterval", 60));
+        historyPruneBatchSize = Math.max(1, config.getInt("market.history.pruneBatchSize", 1000));
+        historyPruneMaxBatches = Math.max(1, config.getInt("market.history.pruneMaxBatches", 20));
+        historyTickStore = config.getString("market.history.tickStore", "sql");
+        historyTickSegmentSize = Math.max(16, config.getInt("market.history.tickSegmentSize", 4096));
+        
+        // Market snapshot settings
+        snapshotEnabled = config.getBoolean("market.snapshot.enabled", true);
+        snapshotInterval = Math.max(10, config.getInt("market.snapshot.interval", 300));
+        
+        // Price event settings
+        legacyPriceUpdateEvents = config.getBoolean("market.events.legacyPriceUpdateEvents", true);
+        
+        // Tick scheduling settings
+        int tickSeconds = Math.max(1, updateInterval);
+        tickSchedule = new MarketEngine.Schedule(
+            config.getBoolean("market.scheduling.enabled", true),
+            config.getInt("market.scheduling.hotMinutes", 10) * 60 / tickSeconds,
+            config.getInt("market.scheduling.warmMinutes", 120) * 60 / tickSeconds,
+            config.getInt("market.scheduling.warmInterval", 30) / tickSeconds,
+            config.getInt("market.scheduling.coldInterval", 600) / tickSeconds);
+        
+        // Order flow settings
+        orderFlow = new OrderFlowBook.Settings(
+            config.getBoolean("market.orderFlow.enabled", true),
+            config.getDouble("market.orderFlow.maxImpact", 0.02),
+            config.getDouble("market.orderFlow.depth", 64));
+        
         // Item trading settings
         itemsEnabled = config.getBoolean("market.items.enabled", true);
         seedItemsOnStartup = config.getBoolean("market.items.seedOnStartup", false);
@@ -128,6 +235,9 @@ public class MarketCfg {
         marketDeviceEnabled = config.getBoolean("market.features.marketDevice", true);
         cryptoCommandEnabled = config.getBoolean("market.features.cryptoCommand", true);
         
+        // Sector weights and volatility defaults
+        sectorModel = SectorModel.compile(config.getConfigurationSection("market.sectors"));
+        
         // Price threshold settings
         priceThresholdEnabled = config.getBoolean("market.priceThreshold.enabled", true);
         maxChangePercent = config.getDouble("market.priceThreshold.maxChangePercent", 0.15);
@@ -147,6 +257,7 @@ public class MarketCfg {
         String openTimeStr = config.getString("market.hours.open-at", "06:00:00");
         String closeTimeStr = config.getString("market.hours.close-at", "22:00:00");
         String timezoneStr = config.getString("market.hours.timezone", "UTC");
+        openingGapEnabled = config.getBoolean("market.hours.openingGap", true);
         try {
             openTime = LocalTime.parse(openTimeStr);
             closeTime = LocalTime.parse(closeTimeStr);
@@ -44,6 +44,8 @@ public class TradingCfg {
         config.addMissing("trading.limits.maxOrderQty", 10000);
         config.addMissing("trading.limits.maxNotionalPerMinute", 250000);
         config.addMissing("trading.limits.perPlayerCooldownMs", 750);
+        config.addMissing("trading.limits.persistOnShutdown", true);
+        config.addMissing("trading.limits.maxQueuedTradesPerPlayer", 5);
         
         // Circuit breakers settings
         config.addMissing("trading.circuitBreakers.enable", true);
@@ -54,6 +56,7 @@ public class TradingCfg {
         config.addMissing("trading.orders.allowMarket", true);
         config.addMissing("trading.orders.allowLimit", true);
         config.addMissing("trading.orders.allowStop", true);
+        config.addMissing("trading.orders.maxPendingPerPlayer", 50);
         
         // Slippage settings
         config.addMissing("trading.slippage.mode", "linear");
@@ -73,6 +76,8 @@ public class TradingCfg {
         limitsConfig.setMaxOrderQty(config.getDouble("trading.limits.maxOrderQty", 10000));
         limitsConfig.setMaxNotionalPerMinute(config.getDouble("trading.limits.maxNotionalPerMinute", 250000));
         limitsConfig.setPerPlayerCooldownMs(config.getLong("trading.limits.perPlayerCooldownMs", 750));
+        limitsConfig.setPersistOnShutdown(config.getBoolean("trading.limits.persistOnShutdown", true));
+        limitsConfig.setMaxQueuedTradesPerPlayer(Math.max(1, config.getInt("trading.limits.maxQueuedTradesPerPlayer", 5)));
 
         circuitBreakersConfig.setEnable(config.getBoolean("trading.circuitBreakers.enable", true));
         List<Double> levels = config.getDoubleList("trading.circuitBreakers.levels");
@@ -89,6 +94,7 @@ public class TradingCfg {
         ordersConfig.setAllowMarket(config.getBoolean("trading.orders.allowMarket", true));
         ordersConfig.setAllowLimit(config.getBoolean("trading.orders.allowLimit", true));
         ordersConfig.setAllowStop(config.getBoolean("trading.orders.allowStop", true));
+        ordersConfig.setMaxPendingPerPlayer(Math.max(0, config.getInt("trading.orders.maxPendingPerPlayer", 50)));
 
         slippageConfig.setMode(config.getString("trading.slippage.mode", "linear"));
         slippageConfig.setK(config.getDouble("trading.slippage.k", 0.0005));
@@ -118,6 +124,8 @@ public class TradingCfg {
         private double maxOrderQty = 10000;
         private double maxNotionalPerMinute = 250000;
         private long perPlayerCooldownMs = 750;
+        private boolean persistOnShutdown = true; // keep the in-memory limits across restarts
+        private int maxQueuedTradesPerPlayer = 5; // trades waiting in a player's lane before new ones are rejected
     }
 
     // Circuit breaker configuration
@@ -136,6 +144,7 @@ public class TradingCfg {
         private boolean allowMarket = true;
         private boolean allowLimit = true;
         private boolean allowStop = true;
+        private int maxPendingPerPlayer = 50; // resting LIMIT/STOP orders per player
     }
 
     // Slippage configuration
@@ -0,0 +1,260 @@
+package net.cyberneticforge.quickstocks.infrastructure.db;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+import org.bukkit.Bukkit;
+import org.bukkit.plugin.Plugin;
+
+import java.sql.SQLException;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Asynchronous facade over {@link Db}.
+ * Every call runs on a virtual thread, bounded by a semaphore so async work can never
+ * drain the connection pool, and completes a {@link CompletableFuture}. Reads and writes take
+ * permits of their own when they go to separate pools, so reads don't queue behind writes. Use
+ * {@link #mainThread()} or {@link #thenSync} to resume on the server thread before
+ * touching Bukkit API.
+ */
+public class AsyncDb {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    /** Kept below the default pool size so synchronous main-thread callers always find a connection. */
+    public static final int DEFAULT_MAX_CONCURRENCY = 8;
+    public static final long DEFAULT_TIMEOUT_MILLIS = 5_000L;
+
+    private static final Executor MAIN_THREAD = task -> {
+        Plugin plugin = QuickStocksPlugin.getInstance();
+        if (plugin == null || !plugin.isEnabled()) {
+            return; // Continuations are dropped once the plugin is disabling
+        }
+        if (Bukkit.isPrimaryThread()) {
+            task.run();
+        } else {
+            Bukkit.getScheduler().runTask(plugin, task);
+        }
+    };
+
+    private final Db db;
+    private final ExecutorService executor;
+    private final Semaphore readPermits;
+    private final Semaphore writePermits;
+    private final long defaultTimeoutMillis;
+    private final Set<CompletableFuture<?>> pending = ConcurrentHashMap.newKeySet();
+    private volatile boolean closed;
+
+    public AsyncDb(Db db) {
+        this(db, DEFAULT_MAX_CONCURRENCY, DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    /**
+     * Concurrency for a pool of {@code poolSize} connections: one connection stays free for synchronous
+     * callers. A single-connection pool (the SQLite writer) gets its one permit, so there async calls
+     * share the connection with synchronous ones and wait on the pool like them.
+     */
+    public static int concurrencyFor(int poolSize) {
+        return Math.max(1, poolSize - 1);
+    }
+
+    /**
+     * An AsyncDb sized from the connection pools: reads are bounded by the read pool and writes by the
+     * write pool, or both by the write pool when reads go to it too.
+     */
+    public static AsyncDb forPools(Db db, int readPoolSize, int writePoolSize, boolean separateReadPool,
+                                   long defaultTimeoutMillis) {
+        Semaphore writePermits = new Semaphore(concurrencyFor(writePoolSize));
+        Semaphore readPermits = separateReadPool ? new Semaphore(concurrencyFor(readPoolSize)) : writePermits;
+        return new AsyncDb(db, readPermits, writePermits, defaultTimeoutMillis);
+    }
+
+    public AsyncDb(Db db, int maxConcurrency, long defaultTimeoutMillis) {
+        this(db, new Semaphore(Math.max(1, maxConcurrency)), null, defaultTimeoutMillis);
+    }
+
+    private AsyncDb(Db db, Semaphore readPermits, Semaphore writePermits, long defaultTimeoutMillis) {
+        this.db = db;
+        this.readPermits = readPermits;
+        this.writePermits = writePermits != null ? writePermits : readPermits;
+        this.defaultTimeoutMillis = defaultTimeoutMillis;
+        this.executor = Executors.newThreadPerTaskExecutor(Thread.ofVirtual().name("QuickStocks-db-", 0).factory());
+    }
+
+    /**
+     * Runs an arbitrary database call off the main thread using the default timeout.
+     */
+    public <T> CompletableFuture<T> supply(SqlCall<T> call) {
+        return supply(call, defaultTimeoutMillis);
+    }
+
+    /**
+     * Runs an arbitrary database call off the main thread.
+     * The future fails with {@link java.util.concurrent.TimeoutException} after {@code timeoutMillis};
+     * the underlying task is interrupted on timeout or cancellation.
+     */
+    public <T> CompletableFuture<T> supply(SqlCall<T> call, long timeoutMillis) {
+        return submit(call, writePermits, timeoutMillis);
+    }
+
+    /**
+     * Like {@link #supply(SqlCall)} for a call that only reads, which takes a read permit.
+     */
+    public <T> CompletableFuture<T> supplyRead(SqlCall<T> call) {
+        return submit(call, readPermits, defaultTimeoutMillis);
+    }
+
+    private <T> CompletableFuture<T> submit(SqlCall<T> call, Semaphore permits, long timeoutMillis) {
+        if (closed) {
+            return CompletableFuture.failedFuture(new RejectedExecutionException("AsyncDb is shut down"));
+        }
+
+        CompletableFuture<T> future = new CompletableFuture<>();
+        Future<?> task;
+        try {
+            task = executor.submit(() -> run(call, permits, future));
+        } catch (RejectedExecutionException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        pending.add(future);
+        if (timeoutMillis > 0) {
+            future.orTimeout(timeoutMillis, TimeUnit.MILLISECONDS);
+        }
+        future.whenComplete((result, error) -> {
+            pending.remove(future);
+            if (error != null) {
+                task.cancel(true);
+            }
+        });
+        return future;
+    }
+
+    private <T> void run(SqlCall<T> call, Semaphore permits, CompletableFuture<T> future) {
+        if (future.isDone()) {
+            return;
+        }
+        try {
+            permits.acquire();
+        } catch (InterruptedException e) {
+            future.completeExceptionally(e);
+            return;
+        }
+        try {
+            if (!future.isDone()) {
+                future.complete(call.call(db));
+            }
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+        } finally {
+            permits.release();
+        }
+    }
+
+    public CompletableFuture<List<Map<String, Object>>> query(String sql, Object... params) {
+        return submit(database -> database.query(sql, params), permitsFor(sql), defaultTimeoutMillis);
+    }
+
+    public <T> CompletableFuture<List<T>> query(String sql, Db.RowMapper<T> mapper, Object... params) {
+        return submit(database -> database.query(sql, mapper, params), permitsFor(sql), defaultTimeoutMillis);
+    }
+
+    /**
+     * Completes with the first mapped row, or {@code null} when there is none.
+     */
+    public <T> CompletableFuture<T> queryFirst(String sql, Db.RowMapper<T> mapper, Object... params) {
+        return submit(database -> database.queryFirst(sql, mapper, params), permitsFor(sql), defaultTimeoutMillis);
+    }
+
+    public CompletableFuture<Double> queryDouble(String sql, double defaultValue, Object... params) {
+        return submit(database -> database.queryDouble(sql, defaultValue, params), permitsFor(sql), defaultTimeoutMillis);
+    }
+
+    public CompletableFuture<Long> queryLong(String sql, long defaultValue, Object... params) {
+        return submit(database -> database.queryLong(sql, defaultValue, params), permitsFor(sql), defaultTimeoutMillis);
+    }
+
+    /**
+     * The permits of the pool {@link Db} routes the statement to.
+     */
+    private Semaphore permitsFor(String sql) {
+        return Db.isReadOnlyStatement(sql) ? readPermits : writePermits;
+    }
+
+    public CompletableFuture<Integer> execute(String sql, Object... params) {
+        return supply(database -> database.execute(sql, params));
+    }
+
+    public CompletableFuture<Void> executeTransaction(Db.TransactionBlock block) {
+        return supply(database -> {
+            database.executeTransaction(block);
+            return null;
+        });
+    }
+
+    /**
+     * Executor that runs continuations on the Bukkit main thread.
+     * Tasks submitted after the plugin starts disabling are silently dropped.
+     */
+    public static Executor mainThread() {
+        return MAIN_THREAD;
+    }
+
+    /**
+     * Delivers the outcome of {@code future} on the main thread. The error handler receives
+     * the unwrapped cause rather than a {@link CompletionException}.
+     */
+    public static <T> void thenSync(CompletableFuture<T> future, Consumer<? super T> onSuccess, Consumer<Throwable> onError) {
+        future.whenCompleteAsync((result, error) -> {
+            if (error == null) {
+                onSuccess.accept(result);
+            } else {
+                onError.accept(error instanceof CompletionException && error.getCause() != null ? error.getCause() : error);
+            }
+        }, MAIN_THREAD);
+    }
+
+    /**
+     * Cancels all in-flight calls and stops the executor. Must run before the pool is closed.
+     */
+    public void shutdown() {
+        closed = true;
+        int cancelled = 0;
+        for (CompletableFuture<?> future : pending) {
+            if (future.cancel(true)) {
+                cancelled++;
+            }
+        }
+        executor.shutdownNow();
+        try {
+            if (!executor.awaitTermination(2, TimeUnit.SECONDS)) {
+                logger.warning("Async database tasks did not terminate in time");
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        if (cancelled > 0) {
+            logger.info("Cancelled " + cancelled + " pending async database calls");
+        }
+    }
+
+    /**
+     * A unit of database work executed on the async executor.
+     */
+    @FunctionalInterface
+    public interface SqlCall<T> {
+        T call(Db db) throws SQLException;
+    }
+}
@@ -22,17 +22,19 @@ public class ConfigLoader {
      */
     public static DatabaseConfig loadDatabaseConfig() {
         DatabaseConfig config = new DatabaseConfig();
+        // Both files are merged before applying, so market.yml cannot reset database settings
+        Properties props = new Properties();
         
         try {
             // Load from config.yml (database and features settings)
             File configFile = new File("plugins/QuickStocks/config.yml");
             if (configFile.exists()) {
-                loadFromFile(config, configFile);
+                loadFromFile(props, configFile);
             } else {
                 // Try to load from classpath
                 InputStream stream = ConfigLoader.class.getResourceAsStream("/config.yml");
                 if (stream != null) {
-                    loadFromStream(config, stream);
+                    loadFromStream(props, stream);
                 } else {
                     logger.warning("No config.yml found, using defaults");
                 }
@@ -41,14 +43,18 @@ public class ConfigLoader {
             // Load from market.yml (price threshold settings)
             File marketFile = new File("plugins/QuickStocks/market.yml");
             if (marketFile.exists()) {
-                loadFromFile(config, marketFile);
+                loadFromFile(props, marketFile);
             } else {
                 // Try to load from classpath
                 InputStream stream = ConfigLoader.class.getResourceAsStream("/market.yml");
                 if (stream != null) {
-                    loadFromStream(config, stream);
+                    loadFromStream(props, stream);
                 }
             }
+            
+            // Apply configuration
+            applyConfig(config, props);
+            logger.info("Configuration loaded successfully");
         } catch (Exception e) {
             logger.warning("Failed to load config, using defaults: " + e.getMessage());
         }
@@ -56,47 +62,55 @@ public class ConfigLoader {
         return config;
     }
     
-    private static void loadFromFile(DatabaseConfig config, File file) throws Exception {
+    private static void loadFromFile(Properties props, File file) throws Exception {
         try (FileInputStream stream = new FileInputStream(file)) {
-            loadFromStream(config, stream);
+            loadFromStream(props, stream);
         }
     }
     
-    private static void loadFromStream(DatabaseConfig config, InputStream stream) {
+    /**
+     * Flattens the YAML subset of config.yml and market.yml into dotted keys such as {@code database.pool.maxSize}.
+     * Package-private for tests.
+     */
+    static void loadFromStream(Properties props, InputStream stream) {
         // Simple YAML-like parsing for basic configuration
         // This is a minimal implementation - in a real project you'd use a proper YAML library
-        Properties props = new Properties();
-        
-        // Convert simple YAML to properties format
+
+        // Convert simple YAML to properties format, tracking nested sections by indentation
         java.util.Scanner scanner = new java.util.Scanner(stream);
-        String currentSection = "";
+        java.util.Deque<String> sections = new java.util.ArrayDeque<>();
+        java.util.Deque<Integer> indents = new java.util.ArrayDeque<>();
         
         while (scanner.hasNextLine()) {
-            String line = scanner.nextLine().trim();
+            String rawLine = scanner.nextLine();
+            String line = rawLine.trim();
             
-            if (line.isEmpty() || line.startsWith("#")) {
+            if (line.isEmpty() || line.startsWith("#") || line.startsWith("-")) {
                 continue;
             }
             
-            if (line.endsWith(":") && !line.contains(" ")) {
-                // Section header
-                currentSection = line.substring(0, line.length() - 1) + ".";
-            } else if (line.contains(":")) {
-                // Key-value pair
+            int indent = rawLine.indexOf(line.charAt(0));
+            while (!indents.isEmpty() && indents.peekLast() >= indent) {
+                indents.removeLast();
+                sections.removeLast();
+            }
+            
+            if (line.contains(":")) {
                 String[] parts = line.split(":", 2);
-                if (parts.length == 2) {
-                    String key = parts[0].trim();
-                    String value = getValue(parts);
-
-                    props.setProperty(currentSection + key, value);
+                String key = parts[0].trim();
+                String value = getValue(parts);
+                
+                if (value.isEmpty() && !parts[1].contains("\"")) {
+                    // Section header
+                    sections.addLast(key);
+                    indents.addLast(indent);
+                } else {
+                    // Key-value pair
+                    String prefix = sections.isEmpty() ? "" : String.join(".", sections) + ".";
+                    props.setProperty(prefix + key, value);
                 }
             }
         }
-        
-        // Apply configuration
-        applyConfig(config, props);
-        
-        logger.info("Configuration loaded successfully");
     }
 
     private static @NotNull String getValue(String[] parts) {
@@ -120,10 +134,33 @@ public class ConfigLoader {
         String provider = props.getProperty("database.provider", "sqlite");
         config.setProvider(provider);
         
+        // Connection pool configuration
+        String poolMaxSize = props.getProperty("database.pool.maxSize", "10");
+        config.setPoolMaxSize(Integer.parseInt(poolMaxSize));
+        
+        String poolMinIdle = props.getProperty("database.pool.minIdle", "2");
+        config.setPoolMinIdle(Integer.parseInt(poolMinIdle));
+        
+        String readPoolMaxSize = props.getProperty("database.pool.readMaxSize", "4");
+        config.setReadPoolMaxSize(Integer.parseInt(readPoolMaxSize));
+        
+        // Query instrumentation
+        String slowQueryThresholdMs = props.getProperty("database.slowQuery.thresholdMs", "50");
+        config.setSlowQueryThresholdMs(Long.parseLong(slowQueryThresholdMs));
+        
+        String slowQueryLogInterval = props.getProperty("database.slowQuery.logIntervalSeconds", "30");
+        config.setSlowQueryLogIntervalSeconds(Long.parseLong(slowQueryLogInterval));
+        
         // SQLite configuration
         String sqliteFile = props.getProperty("database.sqlite.file", "plugins/QuickStocks/data.db");
         config.setSqliteFile(sqliteFile);
         
+        String sqliteBusyTimeout = props.getProperty("database.sqlite.busyTimeout", "5000");
+        config.setSqliteBusyTimeout(Integer.parseInt(sqliteBusyTimeout));
+        
+        String sqliteMmapSize = props.getProperty("database.sqlite.mmapSize", "268435456");
+        config.setSqliteMmapSize(Long.parseLong(sqliteMmapSize));
+        
         // MySQL configuration
         String mysqlHost = props.getProperty("database.mysql.host", "127.0.0.1");
         config.setMysqlHost(mysqlHost);
@@ -143,6 +180,9 @@ public class ConfigLoader {
         String mysqlUseSSL = props.getProperty("database.mysql.useSSL", "false");
         config.setMysqlUseSSL(Boolean.parseBoolean(mysqlUseSSL));
         
+        String mysqlReplicaUrl = props.getProperty("database.mysql.replicaUrl", "");
+        config.setMysqlReplicaUrl(mysqlReplicaUrl);
+        
         // PostgreSQL configuration
         String postgresHost = props.getProperty("database.postgres.host", "127.0.0.1");
         config.setPostgresHost(postgresHost);
@@ -159,6 +199,9 @@ public class ConfigLoader {
         String postgresPassword = props.getProperty("database.postgres.password", "");
         config.setPostgresPassword(postgresPassword);
         
+        String postgresReplicaUrl = props.getProperty("database.postgres.replicaUrl", "");
+        config.setPostgresReplicaUrl(postgresReplicaUrl);
+        
         // Features configuration
         String historyEnabled = props.getProperty("features.historyEnabled", "true");
         config.setHistoryEnabled(Boolean.parseBoolean(historyEnabled));
@@ -7,55 +7,93 @@ import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 
 import javax.sql.DataSource;
 import java.io.File;
+import java.util.function.Consumer;
 
 /**
- * Provides database connection through HikariCP connection pool.
+ * Provides database connections through HikariCP connection pools.
  * Supports SQLite, MySQL, and PostgreSQL based on configuration.
+ * <p>
+ * Writes and reads get separate routes: SQLite uses a single serialized writer connection
+ * plus a pool of read-only connections (WAL lets readers run alongside the writer), while
+ * MySQL/PostgreSQL read from an optional replica and otherwise share the primary pool.
  */
 public class DataSourceProvider {
     
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
+    /** sqlite-jdbc open flag for SQLITE_OPEN_READONLY. */
+    private static final String SQLITE_OPEN_READONLY = "1";
+    
     private final DatabaseConfig config;
     private HikariDataSource dataSource;
+    private HikariDataSource readDataSource;
     
     public DataSourceProvider(DatabaseConfig config) {
         this.config = config;
     }
     
     /**
-     * Initializes the data source with HikariCP connection pool.
+     * Initializes the write and read data sources with HikariCP connection pools.
      */
     public void initialize() {
-        HikariConfig hikariConfig = new HikariConfig();
-        
         switch (config.getProvider().toLowerCase()) {
             case "sqlite":
-                configureSQLite(hikariConfig);
+                initializeSQLite();
                 break;
             case "mysql":
-                configureMySQL(hikariConfig);
+                dataSource = createPool("write", this::configureMySQL, config.getPoolMaxSize());
+                readDataSource = createReplicaPool(config.getMysqlReplicaUrl(), config.getMysqlUser(), config.getMysqlPassword());
                 break;
             case "postgres":
-                configurePostgreSQL(hikariConfig);
+                dataSource = createPool("write", this::configurePostgreSQL, config.getPoolMaxSize());
+                readDataSource = createReplicaPool(config.getPostgresReplicaUrl(), config.getPostgresUser(), config.getPostgresPassword());
                 break;
             default:
                 throw new IllegalArgumentException("Unsupported database provider: " + config.getProvider());
         }
         
+        logger.info("Database connection pool initialized for " + config.getProvider()
+            + (readDataSource != dataSource ? " (separate read pool)" : ""));
+    }
+    
+    private void initializeSQLite() {
+        // One writer: concurrent SQLite writers only contend for the database lock
+        dataSource = createPool("write", hikari -> configureSQLite(hikari, false), 1);
+        readDataSource = createPool("read", hikari -> configureSQLite(hikari, true), config.getReadPoolMaxSize());
+    }
+    
+    private HikariDataSource createReplicaPool(String replicaUrl, String user, String password) {
+        if (replicaUrl == null || replicaUrl.isBlank()) {
+            return dataSource;
+        }
+        HikariDataSource replica = createPool("read", hikari -> {
+            hikari.setJdbcUrl(replicaUrl);
+            hikari.setUsername(user);
+            hikari.setPassword(password);
+            hikari.setReadOnly(true);
+        }, config.getReadPoolMaxSize());
+        logger.info("Configured read replica at: " + replicaUrl);
+        return replica;
+    }
+    
+    private HikariDataSource createPool(String role, Consumer<HikariConfig> configurer, int maxSize) {
+        HikariConfig hikariConfig = new HikariConfig();
+        configurer.accept(hikariConfig);
+        
         // Common HikariCP settings
-        hikariConfig.setMaximumPoolSize(10);
-        hikariConfig.setMinimumIdle(2);
+        int poolSize = Math.max(1, maxSize);
+        hikariConfig.setPoolName("QuickStocks-" + role);
+        hikariConfig.setMaximumPoolSize(poolSize);
+        hikariConfig.setMinimumIdle(Math.min(poolSize, Math.max(0, config.getPoolMinIdle())));
         hikariConfig.setConnectionTimeout(30000);
         hikariConfig.setIdleTimeout(600000);
         hikariConfig.setMaxLifetime(1800000);
         
-        dataSource = new HikariDataSource(hikariConfig);
-        logger.info("Database connection pool initialized for " + config.getProvider());
+        return new HikariDataSource(hikariConfig);
     }
     
     @SuppressWarnings("ResultOfMethodCallIgnored")
-    private void configureSQLite(HikariConfig config) {
+    private void configureSQLite(HikariConfig config, boolean readOnly) {
         String filePath = this.config.getSqliteFile();
         
         // Create directory if it doesn't exist
@@ -70,8 +108,14 @@ public class DataSourceProvider {
         config.addDataSourceProperty("synchronous", "NORMAL");
         config.addDataSourceProperty("cache_size", "10000");
         config.addDataSourceProperty("foreign_keys", "true");
-        
-        logger.info("Configured SQLite database at: " + filePath);
+        config.addDataSourceProperty("busy_timeout", String.valueOf(this.config.getSqliteBusyTimeout()));
+        config.addDataSourceProperty("mmap_size", String.valueOf(this.config.getSqliteMmapSize()));
+        if (readOnly) {
+            // sqlite-jdbc rejects Connection.setReadOnly after open, so the flag goes in at open time
+            config.addDataSourceProperty("open_mode", SQLITE_OPEN_READONLY);
+        } else {
+            logger.info("Configured SQLite database at: " + filePath);
+        }
     }
     
     private void configureMySQL(HikariConfig config) {
@@ -100,7 +144,7 @@ public class DataSourceProvider {
     }
     
     /**
-     * Gets the configured DataSource.
+     * Gets the configured DataSource for writes (and reads that need the primary).
      */
     public DataSource getDataSource() {
         if (dataSource == null) {
@@ -110,9 +154,44 @@ public class DataSourceProvider {
     }
     
     /**
-     * Closes the connection pool.
+     * Gets the DataSource for read-only statements. Same as {@link #getDataSource()}
+     * when no separate read route is configured.
+     */
+    public DataSource getReadDataSource() {
+        if (readDataSource == null) {
+            throw new IllegalStateException("DataSource not initialized. Call initialize() first.");
+        }
+        return readDataSource;
+    }
+    
+    /**
+     * Gets the maximum size of the write pool; 1 for SQLite, which has a single writer.
+     */
+    public int getWritePoolSize() {
+        return ((HikariDataSource) getDataSource()).getMaximumPoolSize();
+    }
+    
+    /**
+     * Gets the maximum size of the read pool, which is the write pool without a replica.
+     */
+    public int getReadPoolSize() {
+        return ((HikariDataSource) getReadDataSource()).getMaximumPoolSize();
+    }
+    
+    /**
+     * Whether reads go to a pool of their own (SQLite readers or a replica).
+     */
+    public boolean hasSeparateReadPool() {
+        return getReadDataSource() != getDataSource();
+    }
+    
+    /**
+     * Closes the connection pools.
      */
     public void close() {
+        if (readDataSource != null && readDataSource != dataSource && !readDataSource.isClosed()) {
+            readDataSource.close();
+        }
         if (dataSource != null && !dataSource.isClosed()) {
             dataSource.close();
             logger.info("Database connection pool closed");
@@ -14,8 +14,19 @@ public class DatabaseConfig {
     
     private String provider = "sqlite";
     
+    // Connection pool configuration
+    private int poolMaxSize = 10;
+    private int poolMinIdle = 2;
+    private int readPoolMaxSize = 4;
+    
+    // Query instrumentation
+    private long slowQueryThresholdMs = 50;
+    private long slowQueryLogIntervalSeconds = 30;
+    
     // SQLite configuration
     private String sqliteFile = "plugins/QuickStocks/data.db";
+    private int sqliteBusyTimeout = 5000;
+    private long sqliteMmapSize = 268435456L;
     
     // MySQL configuration
     private String mysqlHost = "127.0.0.1";
@@ -24,6 +35,7 @@ public class DatabaseConfig {
     private String mysqlUser = "root";
     private String mysqlPassword = "";
     private boolean mysqlUseSSL = false;
+    private String mysqlReplicaUrl = "";
     
     // PostgreSQL configuration
     private String postgresHost = "127.0.0.1";
@@ -31,6 +43,7 @@ public class DatabaseConfig {
     private String postgresDatabase = "QuickStocks";
     private String postgresUser = "postgres";
     private String postgresPassword = "";
+    private String postgresReplicaUrl = "";
     
     // Feature configuration
     private boolean historyEnabled = true;
@@ -18,6 +18,7 @@ public class DatabaseManager {
     private final boolean enableSeeding;
     private DataSourceProvider dataSourceProvider;
     private Db db;
+    private AsyncDb asyncDb;
     private MigrationRunner migrationRunner;
     
     public DatabaseManager(DatabaseConfig config) {
@@ -40,10 +41,14 @@ public class DatabaseManager {
         dataSourceProvider.initialize();
         
         // Create database utility
-        db = new Db(dataSourceProvider.getDataSource());
+        QueryMetrics metrics = new QueryMetrics(config.getSlowQueryThresholdMs(), config.getSlowQueryLogIntervalSeconds());
+        db = new Db(dataSourceProvider.getDataSource(), dataSourceProvider.getReadDataSource(), metrics,
+            SqlDialect.fromProvider(config.getProvider()));
+        asyncDb = AsyncDb.forPools(db, dataSourceProvider.getReadPoolSize(), dataSourceProvider.getWritePoolSize(),
+            dataSourceProvider.hasSeparateReadPool(), AsyncDb.DEFAULT_TIMEOUT_MILLIS);
         
         // Run migrations
-        migrationRunner = new MigrationRunner(db);
+        migrationRunner = new MigrationRunner(db.primary());
         migrationRunner.runMigrations();
         
         // Create tables if absent (defensive programming)
@@ -167,6 +172,16 @@ public class DatabaseManager {
         return db;
     }
     
+    /**
+     * Gets the asynchronous database facade.
+     */
+    public AsyncDb getAsyncDb() {
+        if (asyncDb == null) {
+            throw new IllegalStateException("Database not initialized");
+        }
+        return asyncDb;
+    }
+    
     /**
      * Gets the migration runner instance.
      */
@@ -183,6 +198,10 @@ public class DatabaseManager {
     public void shutdown() {
         logger.info("Shutting down database system...");
         
+        if (asyncDb != null) {
+            asyncDb.shutdown();
+        }
+        
         if (dataSourceProvider != null) {
             dataSourceProvider.close();
         }
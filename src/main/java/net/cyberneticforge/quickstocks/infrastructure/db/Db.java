@@ -9,41 +9,132 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
+import java.util.regex.Pattern;
 
 /**
  * Database utility class providing simplified access to database operations.
  * Handles connections, queries, and updates with proper resource management.
+ * Read-only statements (SELECT/WITH) are routed to the read data source, everything
+ * else goes to the primary; use {@link #primary()} when a read must see your own writes.
  */
 @SuppressWarnings({"ALL", "UnusedReturnValue"})
 public class Db {
     
+    /** Null when running outside the plugin (benchmarks, tools). */
     private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
     
-    private final DataSource dataSource;
+    private static final int STREAM_FETCH_SIZE = 256;
+    private static final Pattern LOCKING_READ = Pattern.compile("\\bFOR\\s+(UPDATE|SHARE)\\b|\\b(INSERT|UPDATE|DELETE)\\b", Pattern.CASE_INSENSITIVE);
+    
+    private final DataSource writeDataSource;
+    private final DataSource readDataSource;
+    private final QueryMetrics metrics;
+    private final SqlDialect dialect;
+    private final Db primary;
     
     public Db(DataSource dataSource) {
-        this.dataSource = dataSource;
+        this(dataSource, dataSource, new QueryMetrics(), SqlDialect.SQLITE);
+    }
+    
+    public Db(DataSource writeDataSource, DataSource readDataSource, QueryMetrics metrics, SqlDialect dialect) {
+        this.writeDataSource = writeDataSource;
+        this.readDataSource = readDataSource;
+        this.metrics = metrics;
+        this.dialect = dialect;
+        this.primary = writeDataSource == readDataSource ? this : new Db(writeDataSource, writeDataSource, metrics, dialect);
+    }
+    
+    /**
+     * Gets the SQL dialect of the configured provider, for upserts and other non-portable statements.
+     */
+    public SqlDialect getDialect() {
+        return dialect;
+    }
+    
+    /**
+     * Gets the latency statistics shared by this Db and its primary view.
+     */
+    public QueryMetrics getMetrics() {
+        return metrics;
     }
     
     /**
-     * Gets a database connection from the pool.
+     * Gets a database connection from the primary (writable) pool.
      */
     public Connection getConnection() throws SQLException {
-        return dataSource.getConnection();
+        return acquire(writeDataSource);
+    }
+    
+    /**
+     * Gets a connection from the read pool (SQLite readers or replica).
+     */
+    public Connection getReadConnection() throws SQLException {
+        return acquire(readDataSource);
+    }
+    
+    private Connection acquire(DataSource source) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return source.getConnection();
+        } finally {
+            metrics.recordAcquire(start);
+        }
+    }
+    
+    /**
+     * Returns a view of this Db that sends every statement to the primary,
+     * for reads that must observe writes which may not have reached a replica yet.
+     */
+    public Db primary() {
+        return primary;
+    }
+    
+    private Connection connectionFor(String sql) throws SQLException {
+        return isReadOnlyStatement(sql) ? getReadConnection() : getConnection();
+    }
+    
+    /**
+     * Whether a statement can safely run on a read-only connection.
+     */
+    static boolean isReadOnlyStatement(String sql) {
+        int i = 0;
+        int len = sql.length();
+        while (i < len) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c) || c == '(') {
+                i++;
+            } else if (sql.startsWith("--", i)) {
+                int end = sql.indexOf('\n', i);
+                i = end < 0 ? len : end + 1;
+            } else if (sql.startsWith("/*", i)) {
+                int end = sql.indexOf("*/", i + 2);
+                i = end < 0 ? len : end + 2;
+            } else {
+                break;
+            }
+        }
+        boolean select = sql.regionMatches(true, i, "SELECT", 0, 6) || sql.regionMatches(true, i, "WITH", 0, 4);
+        return select && !LOCKING_READ.matcher(sql).find();
     }
     
     /**
      * Executes a SQL statement (INSERT, UPDATE, DELETE) and returns the number of affected rows.
      */
     public int execute(String sql, Object... params) throws SQLException {
+        long start = System.nanoTime();
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             setParameters(stmt, params);
             int result = stmt.executeUpdate();
             
-            logger.debug("Executed SQL: " + sql + " (affected rows: " + result + ")");
+            if (logger != null && logger.isDebugEnabled()) {
+                logger.debug("Executed SQL: " + sql + " (affected rows: " + result + ")");
+            }
             return result;
+        } finally {
+            metrics.record(sql, start);
         }
     }
     
@@ -51,6 +142,7 @@ public class Db {
      * Executes a batch of SQL statements and returns the total affected rows.
      */
     public int executeBatch(String sql, List<Object[]> paramsList) throws SQLException {
+        long start = System.nanoTime();
         try (Connection conn = getConnection();
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
@@ -67,8 +159,12 @@ public class Db {
                 }
             }
             
-            logger.debug("Executed batch SQL: " + sql + " (total affected rows: " + totalAffected + ")");
+            if (logger != null && logger.isDebugEnabled()) {
+                logger.debug("Executed batch SQL: " + sql + " (total affected rows: " + totalAffected + ")");
+            }
             return totalAffected;
+        } finally {
+            metrics.record(sql, start);
         }
     }
     
@@ -76,7 +172,8 @@ public class Db {
      * Executes a SELECT query and returns the results as a list of maps.
      */
     public List<Map<String, Object>> query(String sql, Object... params) throws SQLException {
-        try (Connection conn = getConnection();
+        long start = System.nanoTime();
+        try (Connection conn = connectionFor(sql);
              PreparedStatement stmt = conn.prepareStatement(sql)) {
             
             setParameters(stmt, params);
@@ -96,12 +193,114 @@ public class Db {
                     results.add(row);
                 }
                 
-                logger.debug("Executed query: " + sql + " (returned " + results.size() + " rows)");
+                if (logger != null && logger.isDebugEnabled()) {
+                    logger.debug("Executed query: " + sql + " (returned " + results.size() + " rows)");
+                }
                 return results;
             }
+        } finally {
+            metrics.record(sql, start);
         }
     }
     
+    /**
+     * Executes a SELECT query and maps every row with the given mapper.
+     * Unlike {@link #query(String, Object...)} no per-row map is allocated and no metadata is read.
+     */
+    public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = connectionFor(sql);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setParameters(stmt, params);
+            List<T> results = mapRows(stmt, mapper);
+            
+            if (logger != null && logger.isDebugEnabled()) {
+                logger.debug("Executed query: " + sql + " (returned " + results.size() + " rows)");
+            }
+            return results;
+        } finally {
+            metrics.record(sql, start);
+        }
+    }
+    
+    /**
+     * Executes a SELECT query and maps the first row, or returns null if there are no results.
+     */
+    public <T> T queryFirst(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = connectionFor(sql);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setParameters(stmt, params);
+            return mapFirst(stmt, mapper);
+        } finally {
+            metrics.record(sql, start);
+        }
+    }
+    
+    /**
+     * Executes a SELECT query returning a single numeric value.
+     * Returns the default value if there is no row or the value is NULL.
+     */
+    public double queryDouble(String sql, double defaultValue, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = connectionFor(sql);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setParameters(stmt, params);
+            return readDouble(stmt, defaultValue);
+        } finally {
+            metrics.record(sql, start);
+        }
+    }
+    
+    /**
+     * Executes a SELECT query returning a single integral value.
+     * Returns the default value if there is no row or the value is NULL.
+     */
+    public long queryLong(String sql, long defaultValue, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = connectionFor(sql);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setParameters(stmt, params);
+            return readLong(stmt, defaultValue);
+        } finally {
+            metrics.record(sql, start);
+        }
+    }
+    
+    /**
+     * Executes a SELECT query and streams the rows to the callback while the cursor is open.
+     * Nothing is buffered, so this is meant for scans over large tables (exports, migrations).
+     * The ResultSet passed to the callback must not be retained after it returns.
+     */
+    public void queryEach(String sql, RowCallback callback, Object... params) throws SQLException {
+        long start = System.nanoTime();
+        try (Connection conn = connectionFor(sql);
+             PreparedStatement stmt = conn.prepareStatement(sql)) {
+            
+            setParameters(stmt, params);
+            stmt.setFetchSize(STREAM_FETCH_SIZE);
+            
+            try (ResultSet rs = stmt.executeQuery()) {
+                while (rs.next()) {
+                    callback.accept(rs);
+                }
+            }
+        } finally {
+            metrics.record(sql, start);
+        }
+    }
+    
+    /**
+     * Executes a SELECT query and hands each mapped row to the consumer while the cursor is open.
+     */
+    public <T> void queryEach(String sql, RowMapper<T> mapper, Consumer<? super T> consumer, Object... params) throws SQLException {
+        queryEach(sql, rs -> consumer.accept(mapper.map(rs)), params);
+    }
+    
     /**
      * Executes a SELECT query and returns the first result as a map, or null if no results.
      */
@@ -154,12 +353,16 @@ public class Db {
             boolean originalAutoCommit = conn.getAutoCommit();
             try {
                 conn.setAutoCommit(false);
-                block.execute(new TransactionDb(conn));
+                block.execute(new TransactionDb(conn, metrics));
                 conn.commit();
-                logger.debug("Transaction committed successfully");
+                if (logger != null && logger.isDebugEnabled()) {
+                    logger.debug("Transaction committed successfully");
+                }
             } catch (Exception e) {
                 conn.rollback();
-                logger.warning("Transaction rolled back due to error: " + e.getMessage());
+                if (logger != null) {
+                    logger.warning("Transaction rolled back due to error: " + e.getMessage());
+                }
                 if (e instanceof SQLException) {
                     throw (SQLException) e;
                 } else {
@@ -176,17 +379,87 @@ public class Db {
             stmt.setObject(i + 1, params[i]);
         }
     }
+    
+    private static <T> List<T> mapRows(PreparedStatement stmt, RowMapper<T> mapper) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            List<T> results = new ArrayList<>();
+            while (rs.next()) {
+                results.add(mapper.map(rs));
+            }
+            return results;
+        }
+    }
+    
+    private static <T> T mapFirst(PreparedStatement stmt, RowMapper<T> mapper) throws SQLException {
+        stmt.setMaxRows(1);
+        try (ResultSet rs = stmt.executeQuery()) {
+            return rs.next() ? mapper.map(rs) : null;
+        }
+    }
+    
+    private static double readDouble(PreparedStatement stmt, double defaultValue) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                return defaultValue;
+            }
+            double value = rs.getDouble(1);
+            return rs.wasNull() ? defaultValue : value;
+        }
+    }
+    
+    private static long readLong(PreparedStatement stmt, long defaultValue) throws SQLException {
+        try (ResultSet rs = stmt.executeQuery()) {
+            if (!rs.next()) {
+                return defaultValue;
+            }
+            long value = rs.getLong(1);
+            return rs.wasNull() ? defaultValue : value;
+        }
+    }
+    
+    /**
+     * Reads a nullable REAL column, returning null instead of 0.0 for SQL NULL.
+     */
+    public static Double getNullableDouble(ResultSet rs, String column) throws SQLException {
+        double value = rs.getDouble(column);
+        return rs.wasNull() ? null : value;
+    }
+    
+    /**
+     * Reads a nullable INTEGER column, returning null instead of 0 for SQL NULL.
+     */
+    public static Long getNullableLong(ResultSet rs, String column) throws SQLException {
+        long value = rs.getLong(column);
+        return rs.wasNull() ? null : value;
+    }
 
     public Map<String, Object> queryRow(String sql, Object... params) throws SQLException {
         return queryOne(sql, params);
     }
 
+    /**
+     * Maps the current row of a ResultSet to an object.
+     * Implementations read columns directly and must not advance the cursor.
+     */
+    @FunctionalInterface
+    public interface RowMapper<T> {
+        T map(ResultSet rs) throws SQLException;
+    }
+    
+    /**
+     * Receives each row of a streamed query while the cursor is still open.
+     */
+    @FunctionalInterface
+    public interface RowCallback {
+        void accept(ResultSet rs) throws SQLException;
+    }
+    
     /**
      * Functional interface for transaction blocks.
      */
     @FunctionalInterface
     public interface TransactionBlock {
-        void execute(TransactionDb db);
+        void execute(TransactionDb db) throws SQLException;
     }
     
     /**
@@ -194,21 +467,48 @@ public class Db {
      */
     public static class TransactionDb {
         private final Connection connection;
+        private final QueryMetrics metrics;
         
-        TransactionDb(Connection connection) {
+        TransactionDb(Connection connection, QueryMetrics metrics) {
             this.connection = connection;
+            this.metrics = metrics;
         }
         
         public int execute(String sql, Object... params) throws SQLException {
+            long start = System.nanoTime();
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 for (int i = 0; i < params.length; i++) {
                     stmt.setObject(i + 1, params[i]);
                 }
                 return stmt.executeUpdate();
+            } finally {
+                metrics.record(sql, start);
             }
         }
-        
+
+        /**
+         * Executes a batch on the transaction connection and returns the per-row update counts.
+         */
+        public int[] executeBatch(String sql, List<Object[]> paramsList) throws SQLException {
+            if (paramsList.isEmpty()) {
+                return new int[0];
+            }
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = connection.prepareStatement(sql)) {
+                for (Object[] params : paramsList) {
+                    for (int i = 0; i < params.length; i++) {
+                        stmt.setObject(i + 1, params[i]);
+                    }
+                    stmt.addBatch();
+                }
+                return stmt.executeBatch();
+            } finally {
+                metrics.record(sql, start);
+            }
+        }
+
         public List<Map<String, Object>> query(String sql, Object... params) throws SQLException {
+            long start = System.nanoTime();
             try (PreparedStatement stmt = connection.prepareStatement(sql)) {
                 for (int i = 0; i < params.length; i++) {
                     stmt.setObject(i + 1, params[i]);
@@ -231,6 +531,57 @@ public class Db {
                     
                     return results;
                 }
+            } finally {
+                metrics.record(sql, start);
+            }
+        }
+        
+        public <T> List<T> query(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = prepare(sql, params)) {
+                return mapRows(stmt, mapper);
+            } finally {
+                metrics.record(sql, start);
+            }
+        }
+        
+        public <T> T queryFirst(String sql, RowMapper<T> mapper, Object... params) throws SQLException {
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = prepare(sql, params)) {
+                return mapFirst(stmt, mapper);
+            } finally {
+                metrics.record(sql, start);
+            }
+        }
+        
+        public double queryDouble(String sql, double defaultValue, Object... params) throws SQLException {
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = prepare(sql, params)) {
+                return readDouble(stmt, defaultValue);
+            } finally {
+                metrics.record(sql, start);
+            }
+        }
+        
+        public long queryLong(String sql, long defaultValue, Object... params) throws SQLException {
+            long start = System.nanoTime();
+            try (PreparedStatement stmt = prepare(sql, params)) {
+                return readLong(stmt, defaultValue);
+            } finally {
+                metrics.record(sql, start);
+            }
+        }
+        
+        private PreparedStatement prepare(String sql, Object... params) throws SQLException {
+            PreparedStatement stmt = connection.prepareStatement(sql);
+            try {
+                for (int i = 0; i < params.length; i++) {
+                    stmt.setObject(i + 1, params[i]);
+                }
+                return stmt;
+            } catch (SQLException e) {
+                stmt.close();
+                throw e;
             }
         }
     }
@@ -23,9 +23,12 @@ public class MigrationRunner {
     private static final Pattern MIGRATION_PATTERN = Pattern.compile("V(\\d+)__(.+)\\.sql");
     
     private final Db db;
+    private final String schemaVersionUpsert;
     
     public MigrationRunner(Db db) {
         this.db = db;
+        this.schemaVersionUpsert = db.getDialect().upsert("schema_version",
+            List.of("version", "name", "executed_at", "success"), List.of("version"));
     }
     
     /**
@@ -110,6 +113,8 @@ public class MigrationRunner {
             "V13__plot_permission.sql",
             "V14__plot_permissions.sql",
             "V15__enhanced_crypto.sql",
+            "V16__price_candles.sql",
+            "V17__pending_orders.sql",
         };
         
         for (String filename : expectedMigrations) {
@@ -225,7 +230,7 @@ public class MigrationRunner {
             
             // Only record success after ALL statements have executed successfully
             db.execute(
-                "INSERT OR REPLACE INTO schema_version (version, name, executed_at, success) VALUES (?, ?, ?, ?)",
+                schemaVersionUpsert,
                 migration.version(),
                 migration.name(),
                 System.currentTimeMillis(),
@@ -237,10 +242,10 @@ public class MigrationRunner {
                        " completed successfully in " + duration + "ms");
             
         } catch (SQLException e) {
-            // Record failed migration - use INSERT OR REPLACE to handle retries
+            // Record failed migration - upsert to handle retries
             try {
                 db.execute(
-                    "INSERT OR REPLACE INTO schema_version (version, name, executed_at, success) VALUES (?, ?, ?, ?)",
+                    schemaVersionUpsert,
                     migration.version(),
                     migration.name(),
                     System.currentTimeMillis(),
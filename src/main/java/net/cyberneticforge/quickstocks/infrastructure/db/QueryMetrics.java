@@ -0,0 +1,242 @@
+package net.cyberneticforge.quickstocks.infrastructure.db;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Pattern;
+
+/**
+ * Latency statistics for database statements, grouped by SQL fingerprint.
+ * Each fingerprint keeps a count, total time, max and a log-scale histogram that
+ * percentiles are read from. Connection acquire wait is tracked separately.
+ * Statements slower than the configured threshold are written to a slow-query log,
+ * at most once per fingerprint per log interval.
+ */
+public class QueryMetrics {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    private static final int MAX_CACHED_FINGERPRINTS = 2048;
+    private static final int MAX_FINGERPRINT_LENGTH = 160;
+    private static final Pattern STRING_LITERAL = Pattern.compile("'(?:[^']|'')*'");
+    private static final Pattern NUMBER_LITERAL = Pattern.compile("\\b\\d+(?:\\.\\d+)?\\b");
+    private static final Pattern IN_LIST = Pattern.compile("\\(\\s*\\?(?:\\s*,\\s*\\?)+\\s*\\)");
+    private static final Pattern WHITESPACE = Pattern.compile("\\s+");
+
+    private final Map<String, String> fingerprintCache = new ConcurrentHashMap<>();
+    private final Map<String, Stats> statements = new ConcurrentHashMap<>();
+    private final Stats connectionAcquire = new Stats("<connection acquire>");
+    private volatile long slowThresholdNanos;
+    private volatile long slowLogIntervalNanos;
+
+    public QueryMetrics() {
+        this(50, 30);
+    }
+
+    public QueryMetrics(long slowThresholdMillis, long slowLogIntervalSeconds) {
+        configure(slowThresholdMillis, slowLogIntervalSeconds);
+    }
+
+    /**
+     * Updates the slow-query threshold and the minimum time between log lines per fingerprint.
+     * A threshold of 0 or less disables the slow-query log.
+     */
+    public void configure(long slowThresholdMillis, long slowLogIntervalSeconds) {
+        this.slowThresholdNanos = slowThresholdMillis <= 0 ? Long.MAX_VALUE : slowThresholdMillis * 1_000_000L;
+        this.slowLogIntervalNanos = Math.max(0, slowLogIntervalSeconds) * 1_000_000_000L;
+    }
+
+    /**
+     * Records a statement that started at {@code startNanos} (from {@link System#nanoTime()}).
+     */
+    public void record(String sql, long startNanos) {
+        long elapsed = System.nanoTime() - startNanos;
+        Stats stats = statements.computeIfAbsent(fingerprint(sql), Stats::new);
+        stats.add(elapsed);
+        if (elapsed >= slowThresholdNanos) {
+            logSlow(stats, elapsed);
+        }
+    }
+
+    /**
+     * Records the time spent waiting for a pooled connection.
+     */
+    public void recordAcquire(long startNanos) {
+        connectionAcquire.add(System.nanoTime() - startNanos);
+    }
+
+    public Snapshot getAcquireSnapshot() {
+        return connectionAcquire.snapshot();
+    }
+
+    /**
+     * Returns per-fingerprint snapshots ordered by total time spent, highest first.
+     */
+    public List<Snapshot> getTopByTotalTime(int limit) {
+        List<Snapshot> snapshots = new ArrayList<>(statements.size());
+        for (Stats stats : statements.values()) {
+            snapshots.add(stats.snapshot());
+        }
+        snapshots.sort(Comparator.comparingLong(Snapshot::totalNanos).reversed());
+        return snapshots.size() > limit ? snapshots.subList(0, limit) : snapshots;
+    }
+
+    public void reset() {
+        statements.clear();
+        connectionAcquire.reset();
+    }
+
+    private void logSlow(Stats stats, long elapsed) {
+        long now = System.nanoTime();
+        long last = stats.lastSlowLog.get();
+        if (last != 0 && now - last < slowLogIntervalNanos) {
+            stats.suppressedSlow.increment();
+            return;
+        }
+        if (!stats.lastSlowLog.compareAndSet(last, now) || logger == null) {
+            return;
+        }
+        long suppressed = stats.suppressedSlow.sumThenReset();
+        logger.warning(String.format("Slow query (%.1f ms) from %s: %s%s",
+            elapsed / 1_000_000.0, callerName(), stats.fingerprint,
+            suppressed > 0 ? " (+" + suppressed + " more since last report)" : ""));
+    }
+
+    /**
+     * Finds the first calling class outside the db layer, e.g. "HoldingsService".
+     */
+    private static String callerName() {
+        return StackWalker.getInstance().walk(frames -> frames
+            .map(StackWalker.StackFrame::getClassName)
+            .filter(name -> !name.startsWith(QueryMetrics.class.getPackageName()) && !name.startsWith("java."))
+            .findFirst()
+            .map(name -> name.substring(name.lastIndexOf('.') + 1))
+            .orElse("unknown"));
+    }
+
+    /**
+     * Normalizes SQL so statements that differ only in literals or IN-list length share one entry.
+     */
+    String fingerprint(String sql) {
+        String cached = fingerprintCache.get(sql);
+        if (cached != null) {
+            return cached;
+        }
+        String normalized = WHITESPACE.matcher(sql).replaceAll(" ").trim();
+        normalized = STRING_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = NUMBER_LITERAL.matcher(normalized).replaceAll("?");
+        normalized = IN_LIST.matcher(normalized).replaceAll("(?+)");
+        if (normalized.length() > MAX_FINGERPRINT_LENGTH) {
+            normalized = normalized.substring(0, MAX_FINGERPRINT_LENGTH) + "...";
+        }
+        if (fingerprintCache.size() < MAX_CACHED_FINGERPRINTS) {
+            fingerprintCache.put(sql, normalized);
+        }
+        return normalized;
+    }
+
+    /**
+     * Point-in-time view of one fingerprint. Times are in nanoseconds.
+     */
+    public record Snapshot(String fingerprint, long count, long totalNanos, long p50Nanos, long p95Nanos,
+                           long p99Nanos, long maxNanos) {
+
+        public double meanMillis() {
+            return count == 0 ? 0 : totalNanos / (double) count / 1_000_000.0;
+        }
+    }
+
+    /**
+     * Lock-free accumulator with a base-2 log histogram split into 4 sub-buckets per octave,
+     * starting at 1 microsecond. Percentiles are accurate to roughly 20%.
+     */
+    private static final class Stats {
+        private static final int SUB_BUCKETS = 4;
+        private static final int BUCKETS = 30 * SUB_BUCKETS; // 1 us .. ~18 minutes
+        private static final long MIN_NANOS = 1_000L;
+
+        private final String fingerprint;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder totalNanos = new LongAdder();
+        private final AtomicLong maxNanos = new AtomicLong();
+        private final AtomicLongArray histogram = new AtomicLongArray(BUCKETS);
+        private final AtomicLong lastSlowLog = new AtomicLong();
+        private final LongAdder suppressedSlow = new LongAdder();
+
+        private Stats(String fingerprint) {
+            this.fingerprint = fingerprint;
+        }
+
+        private void add(long nanos) {
+            count.increment();
+            totalNanos.add(nanos);
+            maxNanos.accumulateAndGet(nanos, Math::max);
+            histogram.incrementAndGet(bucketOf(nanos));
+        }
+
+        private static int bucketOf(long nanos) {
+            if (nanos < MIN_NANOS) {
+                return 0;
+            }
+            long scaled = nanos / MIN_NANOS;
+            int octave = 63 - Long.numberOfLeadingZeros(scaled);
+            // Two bits below the leading one select the sub-bucket
+            long mantissa = octave >= 2 ? scaled >>> (octave - 2) : scaled << (2 - octave);
+            int sub = (int) (mantissa & (SUB_BUCKETS - 1));
+            return Math.min(BUCKETS - 1, octave * SUB_BUCKETS + sub);
+        }
+
+        /** Upper bound of a bucket in nanoseconds. */
+        private static long upperBound(int bucket) {
+            int octave = bucket / SUB_BUCKETS;
+            int sub = bucket % SUB_BUCKETS;
+            long base = MIN_NANOS << octave;
+            return base + (base * (sub + 1)) / SUB_BUCKETS;
+        }
+
+        private Snapshot snapshot() {
+            long[] counts = new long[BUCKETS];
+            long total = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                counts[i] = histogram.get(i);
+                total += counts[i];
+            }
+            long max = maxNanos.get();
+            return new Snapshot(fingerprint, count.sum(), totalNanos.sum(),
+                percentile(counts, total, 0.50, max), percentile(counts, total, 0.95, max),
+                percentile(counts, total, 0.99, max), max);
+        }
+
+        private static long percentile(long[] counts, long total, double quantile, long max) {
+            if (total == 0) {
+                return 0;
+            }
+            long rank = (long) Math.ceil(quantile * total);
+            long seen = 0;
+            for (int i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank) {
+                    return Math.min(upperBound(i), max);
+                }
+            }
+            return max;
+        }
+
+        private void reset() {
+            count.reset();
+            totalNanos.reset();
+            maxNanos.set(0);
+            for (int i = 0; i < BUCKETS; i++) {
+                histogram.set(i, 0);
+            }
+        }
+    }
+}
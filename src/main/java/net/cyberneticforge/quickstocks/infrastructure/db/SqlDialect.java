@@ -0,0 +1,194 @@
+package net.cyberneticforge.quickstocks.infrastructure.db;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+
+/**
+ * Generates provider-specific SQL for statements that have no portable form,
+ * mainly single-statement upserts. Picked from {@link DatabaseConfig#getProvider()}.
+ * <p>
+ * Update expressions are built with {@link #excluded(String)} (the value that would have
+ * been inserted) and {@link #current(String, String)} (the value already stored). MySQL applies
+ * SET assignments left to right, so assignments that read a column must come before the one that
+ * overwrites it.
+ */
+public enum SqlDialect {
+
+    SQLITE {
+        @Override
+        public String excluded(String column) {
+            return "excluded." + column;
+        }
+
+        @Override
+        String onConflict(List<String> conflictColumns, String assignments) {
+            return " ON CONFLICT(" + String.join(", ", conflictColumns) + ") DO UPDATE SET " + assignments;
+        }
+
+        @Override
+        public String insertIgnore(String table, List<String> columns, List<String> conflictColumns) {
+            return insert(table, columns) + " ON CONFLICT(" + String.join(", ", conflictColumns) + ") DO NOTHING";
+        }
+
+        @Override
+        public String greatest(String a, String b) {
+            return "MAX(" + a + ", " + b + ")";
+        }
+
+        @Override
+        public String least(String a, String b) {
+            return "MIN(" + a + ", " + b + ")";
+        }
+
+        @Override
+        public String deleteLimited(String table, String where) {
+            return "DELETE FROM " + table + " WHERE rowid IN (SELECT rowid FROM " + table + " WHERE " + where + " LIMIT ?)";
+        }
+    },
+
+    MYSQL {
+        @Override
+        public String excluded(String column) {
+            return "VALUES(" + column + ")";
+        }
+
+        @Override
+        String onConflict(List<String> conflictColumns, String assignments) {
+            return " ON DUPLICATE KEY UPDATE " + assignments;
+        }
+
+        @Override
+        public String insertIgnore(String table, List<String> columns, List<String> conflictColumns) {
+            return "INSERT IGNORE" + insert(table, columns).substring("INSERT".length());
+        }
+
+        @Override
+        public String deleteLimited(String table, String where) {
+            return "DELETE FROM " + table + " WHERE " + where + " LIMIT ?";
+        }
+    },
+
+    POSTGRES {
+        @Override
+        public String excluded(String column) {
+            return "EXCLUDED." + column;
+        }
+
+        @Override
+        String onConflict(List<String> conflictColumns, String assignments) {
+            return " ON CONFLICT (" + String.join(", ", conflictColumns) + ") DO UPDATE SET " + assignments;
+        }
+
+        @Override
+        public String insertIgnore(String table, List<String> columns, List<String> conflictColumns) {
+            return insert(table, columns) + " ON CONFLICT (" + String.join(", ", conflictColumns) + ") DO NOTHING";
+        }
+
+        @Override
+        public String deleteLimited(String table, String where) {
+            return "DELETE FROM " + table + " WHERE ctid IN (SELECT ctid FROM " + table + " WHERE " + where + " LIMIT ?)";
+        }
+    };
+
+    /**
+     * Resolves the dialect for a configured provider name (sqlite | mysql | postgres).
+     */
+    public static SqlDialect fromProvider(String provider) {
+        return switch (provider == null ? "sqlite" : provider.toLowerCase()) {
+            case "mysql" -> MYSQL;
+            case "postgres" -> POSTGRES;
+            default -> SQLITE;
+        };
+    }
+
+    /**
+     * Reference to the value proposed by the INSERT inside an upsert's update clause.
+     */
+    public abstract String excluded(String column);
+
+    /**
+     * Reference to the stored value inside an upsert's update clause.
+     */
+    public String current(String table, String column) {
+        return table + "." + column;
+    }
+
+    abstract String onConflict(List<String> conflictColumns, String assignments);
+
+    /**
+     * INSERT that silently does nothing when a row with the same key exists.
+     */
+    public abstract String insertIgnore(String table, List<String> columns, List<String> conflictColumns);
+
+    /**
+     * Upsert with explicit update expressions, applied in map order when the key already exists.
+     *
+     * @param columns all inserted columns, bound in this order
+     * @param conflictColumns the primary key or unique columns
+     * @param updates column -&gt; SQL expression for the update branch
+     */
+    public String upsert(String table, List<String> columns, List<String> conflictColumns, Map<String, String> updates) {
+        StringJoiner assignments = new StringJoiner(", ");
+        updates.forEach((column, expression) -> assignments.add(column + " = " + expression));
+        return insert(table, columns) + onConflict(conflictColumns, assignments.toString());
+    }
+
+    /**
+     * Upsert that overwrites every non-key column with the inserted value.
+     */
+    public String upsert(String table, List<String> columns, List<String> conflictColumns) {
+        Map<String, String> updates = new LinkedHashMap<>();
+        for (String column : columns) {
+            if (!conflictColumns.contains(column)) {
+                updates.put(column, excluded(column));
+            }
+        }
+        return upsert(table, columns, conflictColumns, updates);
+    }
+
+    /**
+     * Upsert that adds the inserted values of {@code incrementColumns} to the stored ones
+     * and overwrites the remaining non-key columns.
+     */
+    public String upsertIncrement(String table, List<String> columns, List<String> conflictColumns, List<String> incrementColumns) {
+        Map<String, String> updates = new LinkedHashMap<>();
+        for (String column : columns) {
+            if (conflictColumns.contains(column)) {
+                continue;
+            }
+            updates.put(column, incrementColumns.contains(column)
+                ? current(table, column) + " + " + excluded(column)
+                : excluded(column));
+        }
+        return upsert(table, columns, conflictColumns, updates);
+    }
+
+    /**
+     * Larger of two expressions.
+     */
+    public String greatest(String a, String b) {
+        return "GREATEST(" + a + ", " + b + ")";
+    }
+
+    /**
+     * Smaller of two expressions.
+     */
+    public String least(String a, String b) {
+        return "LEAST(" + a + ", " + b + ")";
+    }
+
+    /**
+     * DELETE of at most {@code ?} rows matching {@code where}; the row limit is bound after the
+     * parameters of the condition. Used to prune large tables in short transactions.
+     */
+    public abstract String deleteLimited(String table, String where);
+
+    static String insert(String table, List<String> columns) {
+        List<String> placeholders = new ArrayList<>(Collections.nCopies(columns.size(), "?"));
+        return "INSERT INTO " + table + " (" + String.join(", ", columns) + ") VALUES (" + String.join(", ", placeholders) + ")";
+    }
+}
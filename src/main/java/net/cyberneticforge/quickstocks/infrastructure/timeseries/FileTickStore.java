@@ -0,0 +1,362 @@
+package net.cyberneticforge.quickstocks.infrastructure.timeseries;
+
+import net.cyberneticforge.quickstocks.QuickStocksPlugin;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URLDecoder;
+import java.net.URLEncoder;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * File-backed tick store with one directory of compressed segments per instrument.
+ * <p>
+ * New ticks go into the open segment, which is encoded in memory and backed by a log of raw points
+ * ({@code open.wal}) that every append only extends. Once it holds {@code segmentSize} points it is sealed as
+ * {@code <minTs>_<maxTs>.seg}, never modified again, and the log starts over. On load the log is replayed,
+ * minus a torn last record and any points a sealed segment already holds (a crash right after sealing).
+ * Sealed segments are memory-mapped for range scans and dropped whole by {@link #prune}.
+ * Tick reasons are not stored, ticks read back carry {@link #REASON}. Appends are idempotent by timestamp:
+ * ticks not newer than the latest stored tick of their instrument are skipped, so a retried append
+ * never duplicates points. I/O failures surface as {@link UncheckedIOException}.
+ */
+public class FileTickStore implements TickStore {
+
+    private static final PluginLogger logger = QuickStocksPlugin.getPluginLogger();
+
+    public static final String REASON = "TICK";
+    private static final String OPEN_LOG = "open.wal";
+    private static final int LOG_RECORD_BYTES = 3 * Long.BYTES; // ts, price, volume
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String IMPORTED_MARKER = ".imported";
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<String, Series> series = new ConcurrentHashMap<>();
+
+    public FileTickStore(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = Math.max(16, segmentSize);
+        Files.createDirectories(directory);
+        load();
+    }
+
+    private void load() throws IOException {
+        try (DirectoryStream<Path> instruments = Files.newDirectoryStream(directory, Files::isDirectory)) {
+            for (Path dir : instruments) {
+                String instrumentId = URLDecoder.decode(dir.getFileName().toString(), StandardCharsets.UTF_8);
+                series.put(instrumentId, Series.load(instrumentId, dir));
+            }
+        }
+        if (logger != null) {
+            logger.debug("Loaded tick store with " + series.size() + " instruments from " + directory);
+        }
+    }
+
+    @Override
+    public void append(Db.TransactionDb tx, List<Tick> ticks) {
+        Map<String, List<Tick>> byInstrument = new LinkedHashMap<>();
+        for (Tick tick : ticks) {
+            byInstrument.computeIfAbsent(tick.instrumentId(), id -> new ArrayList<>()).add(tick);
+        }
+        try {
+            for (Map.Entry<String, List<Tick>> entry : byInstrument.entrySet()) {
+                seriesFor(entry.getKey()).append(entry.getValue(), segmentSize);
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to append ticks", e);
+        }
+    }
+
+    @Override
+    public boolean isTransactional() {
+        return false;
+    }
+
+    @Override
+    public List<Tick> range(String instrumentId, long from, long to) {
+        Series s = series.get(instrumentId);
+        if (s == null) {
+            return List.of();
+        }
+        List<Tick> result = new ArrayList<>();
+        try {
+            s.scan(from, to, Integer.MAX_VALUE, (ts, price, volume) -> {
+                if (ts >= from && ts < to) {
+                    result.add(new Tick(instrumentId, ts, price, volume, REASON));
+                }
+            });
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read ticks of " + instrumentId, e);
+        }
+        result.sort(Comparator.comparingLong(Tick::ts));
+        return result;
+    }
+
+    @Override
+    public List<Tick> recent(String instrumentId, int limit) {
+        Series s = series.get(instrumentId);
+        if (s == null || limit <= 0) {
+            return List.of();
+        }
+        List<Tick> result = new ArrayList<>();
+        try {
+            s.scan(Long.MIN_VALUE, Long.MAX_VALUE, limit,
+                (ts, price, volume) -> result.add(new Tick(instrumentId, ts, price, volume, REASON)));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to read ticks of " + instrumentId, e);
+        }
+        result.sort(Comparator.comparingLong(Tick::ts).reversed());
+        return result.size() > limit ? new ArrayList<>(result.subList(0, limit)) : result;
+    }
+
+    /**
+     * Deletes sealed segments whose newest tick is older than {@code cutoff}. Segments are the unit of work,
+     * so at most {@code maxBatches} segments are removed per call.
+     */
+    @Override
+    public int prune(long cutoff, int batchSize, int maxBatches) {
+        int deleted = 0;
+        int remaining = maxBatches;
+        for (Series s : series.values()) {
+            if (remaining <= 0) {
+                break;
+            }
+            try {
+                PruneResult result = s.prune(cutoff, remaining);
+                deleted += result.points();
+                remaining -= result.segments();
+            } catch (IOException e) {
+                throw new UncheckedIOException("Failed to prune ticks of " + s.instrumentId, e);
+            }
+        }
+        return deleted;
+    }
+
+    /**
+     * Whether the one-time import from instrument_price_history already ran.
+     */
+    public boolean isImported() {
+        return Files.exists(directory.resolve(IMPORTED_MARKER));
+    }
+
+    /**
+     * Moves every tick of {@code source} into this store: the ticks are copied, the copied SQL rows deleted
+     * and the import marked as done. An interrupted import simply runs again, already copied ticks are skipped.
+     *
+     * @return number of imported ticks
+     */
+    public long importFrom(SqlTickStore source) throws SQLException {
+        AtomicLong imported = new AtomicLong();
+        AtomicLong newest = new AtomicLong(Long.MIN_VALUE);
+        source.scanAll(chunk -> {
+            append(null, chunk);
+            imported.addAndGet(chunk.size());
+            for (Tick tick : chunk) {
+                newest.accumulateAndGet(tick.ts(), Math::max);
+            }
+        });
+        if (imported.get() > 0) {
+            source.deleteUpTo(newest.get());
+        }
+        try {
+            Files.writeString(directory.resolve(IMPORTED_MARKER), Long.toString(System.currentTimeMillis()));
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to mark tick import as done", e);
+        }
+        return imported.get();
+    }
+
+    @Override
+    public void close() {
+        // The open segment's log is written on every append, nothing is left to flush
+        series.clear();
+    }
+
+    private Series seriesFor(String instrumentId) {
+        return series.computeIfAbsent(instrumentId, id -> {
+            Path dir = directory.resolve(URLEncoder.encode(id, StandardCharsets.UTF_8));
+            try {
+                Files.createDirectories(dir);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            return new Series(id, dir);
+        });
+    }
+
+    private record SegmentRef(Path path, int count, long minTs, long maxTs) {
+    }
+
+    private record PruneResult(int segments, int points) {
+    }
+
+    /**
+     * Segments of one instrument. All access is synchronized on the instance.
+     */
+    private static final class Series {
+        private final String instrumentId;
+        private final Path dir;
+        private final List<SegmentRef> sealed = new ArrayList<>(); // ordered by minTs
+        private TickSegment.Encoder open = new TickSegment.Encoder();
+
+        private Series(String instrumentId, Path dir) {
+            this.instrumentId = instrumentId;
+            this.dir = dir;
+        }
+
+        private static Series load(String instrumentId, Path dir) throws IOException {
+            Series s = new Series(instrumentId, dir);
+            try (DirectoryStream<Path> files = Files.newDirectoryStream(dir, "*" + SEGMENT_SUFFIX)) {
+                for (Path file : files) {
+                    TickSegment.Header header = TickSegment.readHeader(map(file));
+                    s.sealed.add(new SegmentRef(file, header.count(), header.minTs(), header.maxTs()));
+                }
+            }
+            s.sealed.sort(Comparator.comparingLong(SegmentRef::minTs));
+            Path log = dir.resolve(OPEN_LOG);
+            if (Files.exists(log)) {
+                s.replay(log);
+            }
+            return s;
+        }
+
+        /**
+         * Re-encodes the logged points newer than the last sealed segment, so new ticks continue the open bit
+         * stream. The log is rewritten when it held anything else.
+         */
+        private void replay(Path log) throws IOException {
+            ByteBuffer records = ByteBuffer.wrap(Files.readAllBytes(log));
+            ByteBuffer kept = ByteBuffer.allocate(records.capacity());
+            boolean dropped = records.capacity() % LOG_RECORD_BYTES != 0; // torn by a crash mid-append
+            while (records.remaining() >= LOG_RECORD_BYTES) {
+                long ts = records.getLong();
+                double price = records.getDouble();
+                double volume = records.getDouble();
+                if (ts <= lastTs()) {
+                    dropped = true; // sealed before a crash removed the log
+                    continue;
+                }
+                open.add(ts, price, volume);
+                kept.putLong(ts).putDouble(price).putDouble(volume);
+            }
+            if (dropped) {
+                writeAtomically(log, kept.flip(), false);
+            }
+        }
+
+        private synchronized void append(List<Tick> ticks, int segmentSize) throws IOException {
+            long stored = lastTs();
+            ByteBuffer records = ByteBuffer.allocate(ticks.size() * LOG_RECORD_BYTES);
+            for (Tick tick : ticks) {
+                if (tick.ts() <= stored) {
+                    continue; // Already written by an earlier, partly failed or repeated append
+                }
+                if (open.count() >= segmentSize) {
+                    seal();
+                    records.clear(); // the sealed segment holds the points logged so far
+                }
+                open.add(tick.ts(), tick.price(), tick.volume());
+                records.putLong(tick.ts()).putDouble(tick.price()).putDouble(tick.volume());
+            }
+            if (records.position() > 0) {
+                try (FileChannel channel = FileChannel.open(dir.resolve(OPEN_LOG), StandardOpenOption.CREATE,
+                    StandardOpenOption.WRITE, StandardOpenOption.APPEND)) {
+                    records.flip();
+                    while (records.hasRemaining()) {
+                        channel.write(records);
+                    }
+                }
+            }
+        }
+
+        private long lastTs() {
+            if (open.count() > 0) {
+                return open.maxTs();
+            }
+            return sealed.isEmpty() ? Long.MIN_VALUE : sealed.getLast().maxTs();
+        }
+
+        private void seal() throws IOException {
+            Path file = dir.resolve(open.minTs() + "_" + open.maxTs() + SEGMENT_SUFFIX);
+            writeAtomically(file, open.toBuffer(), true);
+            // Every logged point now lives in the sealed file; a crash before this delete is undone by replay
+            Files.deleteIfExists(dir.resolve(OPEN_LOG));
+            sealed.add(new SegmentRef(file, open.count(), open.minTs(), open.maxTs()));
+            sealed.sort(Comparator.comparingLong(SegmentRef::minTs));
+            open = new TickSegment.Encoder();
+        }
+
+        /**
+         * Decodes segments overlapping [from, to) from newest to oldest until at least {@code limit} points were seen.
+         */
+        private synchronized void scan(long from, long to, int limit, TickSegment.PointConsumer consumer) throws IOException {
+            int seen = 0;
+            if (open.count() > 0 && open.maxTs() >= from && open.minTs() < to) {
+                TickSegment.decode(open.toBuffer(), consumer);
+                seen += open.count();
+            }
+            for (int i = sealed.size() - 1; i >= 0 && seen < limit; i--) {
+                SegmentRef ref = sealed.get(i);
+                if (ref.maxTs() < from || ref.minTs() >= to) {
+                    continue;
+                }
+                TickSegment.decode(map(ref.path()), consumer);
+                seen += ref.count();
+            }
+        }
+
+        private synchronized PruneResult prune(long cutoff, int maxSegments) throws IOException {
+            int segments = 0;
+            int points = 0;
+            while (!sealed.isEmpty() && segments < maxSegments && sealed.getFirst().maxTs() < cutoff) {
+                SegmentRef ref = sealed.removeFirst();
+                Files.deleteIfExists(ref.path());
+                segments++;
+                points += ref.count();
+            }
+            return new PruneResult(segments, points);
+        }
+
+        private static ByteBuffer map(Path file) throws IOException {
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+                return channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            }
+        }
+
+        /**
+         * Writes through a temp file and a rename so readers and restarts never see a partial segment.
+         * Only sealed segments are fsynced; the open log isn't either, a lost tail is a few missing ticks.
+         */
+        private static void writeAtomically(Path file, ByteBuffer data, boolean sync) throws IOException {
+            Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+            try (FileChannel channel = FileChannel.open(tmp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+                while (data.hasRemaining()) {
+                    channel.write(data);
+                }
+                if (sync) {
+                    channel.force(false);
+                }
+            }
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        }
+    }
+}
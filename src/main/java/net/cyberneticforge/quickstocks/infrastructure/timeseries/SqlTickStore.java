@@ -0,0 +1,122 @@
+package net.cyberneticforge.quickstocks.infrastructure.timeseries;
+
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.function.Consumer;
+
+/**
+ * Tick store backed by the instrument_price_history table.
+ */
+public class SqlTickStore implements TickStore {
+
+    private static final String INSERT_SQL = """
+        INSERT INTO instrument_price_history (id, instrument_id, ts, price, volume, reason)
+        VALUES (?, ?, ?, ?, ?, ?)
+        """;
+
+    private static final Db.RowMapper<Tick> TICK_MAPPER = rs -> new Tick(
+        rs.getString("instrument_id"),
+        rs.getLong("ts"),
+        rs.getDouble("price"),
+        rs.getDouble("volume"),
+        rs.getString("reason")
+    );
+
+    private final Db database;
+    private final int batchSize;
+    private final String pruneSql;
+
+    public SqlTickStore(Db database, int batchSize) {
+        this.database = database;
+        this.batchSize = Math.max(1, batchSize);
+        this.pruneSql = database.getDialect().deleteLimited("instrument_price_history", "ts < ?");
+    }
+
+    @Override
+    public void append(Db.TransactionDb tx, List<Tick> ticks) throws SQLException {
+        for (int from = 0; from < ticks.size(); from += batchSize) {
+            List<Tick> chunk = ticks.subList(from, Math.min(ticks.size(), from + batchSize));
+            List<Object[]> params = new ArrayList<>(chunk.size());
+            for (Tick tick : chunk) {
+                params.add(new Object[]{
+                    UUID.randomUUID().toString(), tick.instrumentId(), tick.ts(), tick.price(), tick.volume(), tick.reason()
+                });
+            }
+            tx.executeBatch(INSERT_SQL, params);
+        }
+    }
+
+    @Override
+    public List<Tick> range(String instrumentId, long from, long to) throws SQLException {
+        return database.query("""
+            SELECT instrument_id, ts, price, volume, reason
+            FROM instrument_price_history
+            WHERE instrument_id = ? AND ts >= ? AND ts < ?
+            ORDER BY ts
+            """, TICK_MAPPER, instrumentId, from, to);
+    }
+
+    @Override
+    public List<Tick> recent(String instrumentId, int limit) throws SQLException {
+        return database.query("""
+            SELECT instrument_id, ts, price, volume, reason
+            FROM instrument_price_history
+            WHERE instrument_id = ?
+            ORDER BY ts DESC
+            LIMIT ?
+            """, TICK_MAPPER, instrumentId, limit);
+    }
+
+    @Override
+    public int prune(long cutoff, int batchSize, int maxBatches) throws SQLException {
+        int total = 0;
+        for (int i = 0; i < maxBatches; i++) {
+            int deleted = database.execute(pruneSql, cutoff, batchSize);
+            total += deleted;
+            if (deleted < batchSize) {
+                break;
+            }
+        }
+        return total;
+    }
+
+    /**
+     * Deletes every tick with {@code ts <= newest} in batches. Used once the ticks were imported into another store.
+     *
+     * @return number of deleted ticks
+     */
+    public int deleteUpTo(long newest) throws SQLException {
+        return prune(newest == Long.MAX_VALUE ? newest : newest + 1, batchSize, Integer.MAX_VALUE);
+    }
+
+    /**
+     * Streams every stored tick ordered by instrument and time, in chunks of the store's batch size.
+     * Used for the one-time import into another store.
+     */
+    public void scanAll(Consumer<List<Tick>> consumer) throws SQLException {
+        List<Tick> chunk = new ArrayList<>(batchSize);
+        database.queryEach("""
+            SELECT instrument_id, ts, price, volume, reason
+            FROM instrument_price_history
+            ORDER BY instrument_id, ts
+            """, TICK_MAPPER, tick -> {
+            chunk.add(tick);
+            if (chunk.size() >= batchSize) {
+                consumer.accept(List.copyOf(chunk));
+                chunk.clear();
+            }
+        });
+        if (!chunk.isEmpty()) {
+            consumer.accept(chunk);
+        }
+    }
+
+    @Override
+    public void close() {
+        // Nothing buffered, the connection pool is closed by DatabaseManager
+    }
+}
@@ -0,0 +1,283 @@
+package net.cyberneticforge.quickstocks.infrastructure.timeseries;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+
+/**
+ * Binary format of one tick segment file, Gorilla-style compressed.
+ * <p>
+ * Layout: a fixed header (magic, version, point count, min ts, max ts) followed by a bit stream.
+ * Timestamps are stored as delta-of-delta with variable-width buckets, prices and volumes as the
+ * XOR against the previous value, keeping only the meaningful bits. Evenly spaced ticks with
+ * slowly moving prices cost a few bits per field instead of 8 bytes.
+ */
+final class TickSegment {
+
+    static final int MAGIC = 0x5153544B; // "QSTK"
+    static final byte VERSION = 1;
+    /** magic + version + count + min ts + max ts */
+    static final int HEADER_BYTES = 4 + 1 + 4 + 8 + 8;
+
+    private TickSegment() {
+    }
+
+    /**
+     * Receives decoded points in stored order.
+     */
+    @FunctionalInterface
+    interface PointConsumer {
+        void accept(long ts, double price, double volume);
+    }
+
+    /**
+     * Reads the header of an encoded segment.
+     */
+    static Header readHeader(ByteBuffer buffer) throws IOException {
+        if (buffer.limit() < HEADER_BYTES || buffer.getInt(0) != MAGIC) {
+            throw new IOException("Not a tick segment");
+        }
+        if (buffer.get(4) != VERSION) {
+            throw new IOException("Unsupported tick segment version " + buffer.get(4));
+        }
+        return new Header(buffer.getInt(5), buffer.getLong(9), buffer.getLong(17));
+    }
+
+    /**
+     * Decodes every point of a segment. The buffer is read with absolute positions and is not modified.
+     */
+    static void decode(ByteBuffer buffer, PointConsumer consumer) throws IOException {
+        Header header = readHeader(buffer);
+        if (header.count() == 0) {
+            return;
+        }
+        BitReader in = new BitReader(buffer, HEADER_BYTES);
+        XorState priceState = new XorState();
+        XorState volumeState = new XorState();
+
+        long ts = in.readBits(64);
+        long delta = 0;
+        priceState.previous = in.readBits(64);
+        volumeState.previous = in.readBits(64);
+        consumer.accept(ts, Double.longBitsToDouble(priceState.previous), Double.longBitsToDouble(volumeState.previous));
+
+        for (int i = 1; i < header.count(); i++) {
+            delta += readDeltaOfDelta(in);
+            ts += delta;
+            double price = Double.longBitsToDouble(readXor(in, priceState));
+            double volume = Double.longBitsToDouble(readXor(in, volumeState));
+            consumer.accept(ts, price, volume);
+        }
+    }
+
+    private static long readDeltaOfDelta(BitReader in) {
+        if (!in.readBit()) {
+            return 0;
+        }
+        if (!in.readBit()) {
+            return in.readBits(7) - 63;
+        }
+        if (!in.readBit()) {
+            return in.readBits(9) - 255;
+        }
+        if (!in.readBit()) {
+            return in.readBits(12) - 2047;
+        }
+        return in.readBits(64);
+    }
+
+    private static long readXor(BitReader in, XorState state) {
+        if (!in.readBit()) {
+            return state.previous;
+        }
+        if (in.readBit()) {
+            state.leading = (int) in.readBits(5);
+            int significant = (int) in.readBits(6) + 1;
+            state.trailing = 64 - state.leading - significant;
+        }
+        int significant = 64 - state.leading - state.trailing;
+        long xor = in.readBits(significant) << state.trailing;
+        state.previous ^= xor;
+        return state.previous;
+    }
+
+    record Header(int count, long minTs, long maxTs) {
+    }
+
+    /**
+     * Incrementally encodes the points of the open segment of a series.
+     */
+    static final class Encoder {
+        private final BitWriter out = new BitWriter(256);
+        private final XorState priceState = new XorState();
+        private final XorState volumeState = new XorState();
+        private int count;
+        private long minTs = Long.MAX_VALUE;
+        private long maxTs = Long.MIN_VALUE;
+        private long previousTs;
+        private long previousDelta;
+
+        void add(long ts, double price, double volume) {
+            long priceBits = Double.doubleToRawLongBits(price);
+            long volumeBits = Double.doubleToRawLongBits(volume);
+            if (count == 0) {
+                out.writeBits(ts, 64);
+                out.writeBits(priceBits, 64);
+                out.writeBits(volumeBits, 64);
+                priceState.previous = priceBits;
+                volumeState.previous = volumeBits;
+            } else {
+                long delta = ts - previousTs;
+                writeDeltaOfDelta(delta - previousDelta);
+                previousDelta = delta;
+                writeXor(priceBits, priceState);
+                writeXor(volumeBits, volumeState);
+            }
+            previousTs = ts;
+            minTs = Math.min(minTs, ts);
+            maxTs = Math.max(maxTs, ts);
+            count++;
+        }
+
+        private void writeDeltaOfDelta(long dod) {
+            if (dod == 0) {
+                out.writeBits(0b0, 1);
+            } else if (dod >= -63 && dod <= 64) {
+                out.writeBits(0b10, 2);
+                out.writeBits(dod + 63, 7);
+            } else if (dod >= -255 && dod <= 256) {
+                out.writeBits(0b110, 3);
+                out.writeBits(dod + 255, 9);
+            } else if (dod >= -2047 && dod <= 2048) {
+                out.writeBits(0b1110, 4);
+                out.writeBits(dod + 2047, 12);
+            } else {
+                out.writeBits(0b1111, 4);
+                out.writeBits(dod, 64);
+            }
+        }
+
+        private void writeXor(long bits, XorState state) {
+            long xor = bits ^ state.previous;
+            state.previous = bits;
+            if (xor == 0) {
+                out.writeBits(0b0, 1);
+                return;
+            }
+            int leading = Math.min(31, Long.numberOfLeadingZeros(xor));
+            int trailing = Long.numberOfTrailingZeros(xor);
+            if (state.leading >= 0 && leading >= state.leading && trailing >= state.trailing) {
+                // Fits the previous window: only the window bits are stored
+                out.writeBits(0b10, 2);
+                out.writeBits(xor >>> state.trailing, 64 - state.leading - state.trailing);
+            } else {
+                int significant = 64 - leading - trailing;
+                out.writeBits(0b11, 2);
+                out.writeBits(leading, 5);
+                out.writeBits(significant - 1, 6);
+                out.writeBits(xor >>> trailing, significant);
+                state.leading = leading;
+                state.trailing = trailing;
+            }
+        }
+
+        int count() {
+            return count;
+        }
+
+        long minTs() {
+            return minTs;
+        }
+
+        long maxTs() {
+            return maxTs;
+        }
+
+        /**
+         * Header plus the bit stream so far, ready to be written to a file.
+         */
+        ByteBuffer toBuffer() {
+            byte[] bits = out.toByteArray();
+            ByteBuffer buffer = ByteBuffer.allocate(HEADER_BYTES + bits.length);
+            buffer.putInt(MAGIC).put(VERSION).putInt(count)
+                .putLong(count == 0 ? 0 : minTs).putLong(count == 0 ? 0 : maxTs)
+                .put(bits)
+                .flip();
+            return buffer;
+        }
+    }
+
+    private static final class XorState {
+        private long previous;
+        private int leading = -1;
+        private int trailing;
+    }
+
+    private static final class BitWriter {
+        private byte[] bytes;
+        private int bytePos;
+        private int bitPos;
+
+        private BitWriter(int initialCapacity) {
+            this.bytes = new byte[initialCapacity];
+        }
+
+        /**
+         * Writes the low {@code n} bits of {@code value}, most significant first.
+         */
+        private void writeBits(long value, int n) {
+            while (n > 0) {
+                if (bytePos == bytes.length) {
+                    bytes = Arrays.copyOf(bytes, bytes.length * 2);
+                }
+                int free = 8 - bitPos;
+                int take = Math.min(free, n);
+                int chunk = (int) ((value >>> (n - take)) & ((1 << take) - 1));
+                bytes[bytePos] |= (byte) (chunk << (free - take));
+                bitPos += take;
+                n -= take;
+                if (bitPos == 8) {
+                    bytePos++;
+                    bitPos = 0;
+                }
+            }
+        }
+
+        private byte[] toByteArray() {
+            return Arrays.copyOf(bytes, bytePos + (bitPos > 0 ? 1 : 0));
+        }
+    }
+
+    private static final class BitReader {
+        private final ByteBuffer buffer;
+        private int bytePos;
+        private int bitPos;
+
+        private BitReader(ByteBuffer buffer, int offset) {
+            this.buffer = buffer;
+            this.bytePos = offset;
+        }
+
+        private boolean readBit() {
+            return readBits(1) != 0;
+        }
+
+        private long readBits(int n) {
+            long value = 0;
+            while (n > 0) {
+                int available = 8 - bitPos;
+                int take = Math.min(available, n);
+                int current = buffer.get(bytePos) & 0xFF;
+                int chunk = (current >>> (available - take)) & ((1 << take) - 1);
+                value = (value << take) | chunk;
+                bitPos += take;
+                n -= take;
+                if (bitPos == 8) {
+                    bytePos++;
+                    bitPos = 0;
+                }
+            }
+            return value;
+        }
+    }
+}
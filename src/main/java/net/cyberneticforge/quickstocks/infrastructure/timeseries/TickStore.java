@@ -0,0 +1,62 @@
+package net.cyberneticforge.quickstocks.infrastructure.timeseries;
+
+import net.cyberneticforge.quickstocks.core.model.PriceHistory;
+import net.cyberneticforge.quickstocks.infrastructure.db.Db;
+
+import java.sql.SQLException;
+import java.util.List;
+
+/**
+ * Append-only storage for raw instrument price ticks.
+ * Selected by market.history.tickStore: {@code sql} keeps ticks in instrument_price_history,
+ * {@code file} keeps them in compressed per-instrument segment files.
+ */
+public interface TickStore {
+
+    /**
+     * Appends ticks. Database-backed stores write through {@code tx} so the ticks commit together
+     * with the caller's other writes; other stores write immediately and ignore it, so callers
+     * must only hand them ticks after their own transaction committed (see {@link #isTransactional()}).
+     */
+    void append(Db.TransactionDb tx, List<Tick> ticks) throws SQLException;
+
+    /**
+     * Whether {@link #append} takes part in the caller's transaction. Stores that don't
+     * are appended to after commit and must skip ticks they already hold when a failed append is retried.
+     */
+    default boolean isTransactional() {
+        return true;
+    }
+
+    /**
+     * Ticks of an instrument with {@code from <= ts < to}, oldest first.
+     */
+    List<Tick> range(String instrumentId, long from, long to) throws SQLException;
+
+    /**
+     * The most recent ticks of an instrument, newest first.
+     */
+    List<Tick> recent(String instrumentId, int limit) throws SQLException;
+
+    /**
+     * Removes ticks older than {@code cutoff}, doing at most about {@code maxBatches * batchSize} rows of work.
+     *
+     * @return number of removed ticks
+     */
+    int prune(long cutoff, int batchSize, int maxBatches) throws SQLException;
+
+    /**
+     * Makes all appended ticks durable and releases resources.
+     */
+    void close();
+
+    /**
+     * A single price observation.
+     */
+    record Tick(String instrumentId, long ts, double price, double volume, String reason) {
+
+        public PriceHistory toPriceHistory() {
+            return new PriceHistory(instrumentId + ":" + ts, instrumentId, ts, price, volume, reason);
+        }
+    }
+}
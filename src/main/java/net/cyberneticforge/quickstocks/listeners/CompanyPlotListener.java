@@ -7,6 +7,7 @@ import net.cyberneticforge.quickstocks.core.model.CompanyJob;
 import net.cyberneticforge.quickstocks.core.model.CompanyPlot;
 import net.cyberneticforge.quickstocks.core.model.Replaceable;
 import net.cyberneticforge.quickstocks.infrastructure.config.CompanyCfg;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.cyberneticforge.quickstocks.utils.ChatUT;
 import net.kyori.adventure.text.Component;
@@ -26,6 +27,7 @@ import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
 
 /**
  * Listener for company plot-related events.
@@ -62,28 +64,45 @@ public class CompanyPlotListener implements Listener {
         
         lastChunkByPlayer.put(player.getUniqueId(), chunkKey);
         
-        try {
+        // Look the chunk up off the main thread; only the auto-buy itself runs back on it
+        String worldName = toChunk.getWorld().getName();
+        int chunkX = toChunk.getX();
+        int chunkZ = toChunk.getZ();
+        String lastCompanyId = lastCompanyByPlayer.get(player.getUniqueId());
+        CompletableFuture<ChunkInfo> lookup = QuickStocksPlugin.getDatabaseManager().getAsyncDb().supplyRead(db -> {
             // Check for plot ownership - use toChunk (where player is moving TO)
             // This ensures messages show correctly when entering/leaving plots
-            Optional<CompanyPlot> toPlot = QuickStocksPlugin.getCompanyPlotService()
-                .getPlotByLocation(toChunk.getWorld().getName(), toChunk.getX(), toChunk.getZ());
-            
-            handleTerrainMessages(player, toPlot);
-            
-            // Handle auto-buy mode
-            Optional<String> autoBuyCompanyId = QuickStocksPlugin.getCompanyPlotService().getAutoBuyMode(playerUuid);
-            
-            if (autoBuyCompanyId.isEmpty()) {
-                return; // Auto-buy not enabled
+            Optional<CompanyPlot> toPlot = QuickStocksPlugin.getCompanyPlotService().getPlotByLocation(worldName, chunkX, chunkZ);
+            Map<String, String> companyNames = new HashMap<>();
+            for (String companyId : new String[]{toPlot.map(CompanyPlot::getCompanyId).orElse(null), lastCompanyId}) {
+                if (companyId != null && !companyNames.containsKey(companyId)) {
+                    companyNames.put(companyId, QuickStocksPlugin.getCompanyService().getCompanyById(companyId)
+                        .map(Company::getName).orElse("Unknown"));
+                }
             }
-            
-            String companyId = autoBuyCompanyId.get();
-            
-            // If the chunk they're moving to is already owned, skip auto-buy
-            if (toPlot.isPresent()) {
+            return new ChunkInfo(toPlot, QuickStocksPlugin.getCompanyPlotService().getAutoBuyMode(playerUuid), companyNames);
+        });
+        
+        AsyncDb.thenSync(lookup, info -> {
+            // A later chunk change supersedes this lookup
+            if (!player.isOnline() || !chunkKey.equals(lastChunkByPlayer.get(player.getUniqueId()))) {
                 return;
             }
             
+            handleTerrainMessages(player, info.plot(), info.companyNames());
+            
+            // Handle auto-buy mode; skip it if the chunk they're moving to is already owned
+            if (info.autoBuyCompanyId().isPresent() && info.plot().isEmpty()) {
+                autoBuyPlot(player, playerUuid, info.autoBuyCompanyId().get());
+            }
+        }, error -> logger.warning("Error in chunk transition handler: " + error.getMessage()));
+    }
+    
+    /**
+     * Buys the chunk the player entered for the company they enabled auto-buy for.
+     */
+    private void autoBuyPlot(Player player, String playerUuid, String companyId) {
+        try {
             // Try to buy the plot
             try {
                 CompanyPlot plot = QuickStocksPlugin.getCompanyPlotService().buyPlot(
@@ -120,10 +139,16 @@ public class CompanyPlotListener implements Listener {
         }
     }
     
+    /**
+     * Plot, auto-buy mode and the names of the companies involved, looked up for a chunk change.
+     */
+    private record ChunkInfo(Optional<CompanyPlot> plot, Optional<String> autoBuyCompanyId, Map<String, String> companyNames) {
+    }
+    
     /**
      * Handles terrain enter/leave messages.
      */
-    private void handleTerrainMessages(Player player, Optional<CompanyPlot> currentPlot) {
+    private void handleTerrainMessages(Player player, Optional<CompanyPlot> currentPlot, Map<String, String> companyNames) {
         try {
             CompanyCfg config = QuickStocksPlugin.getCompanyCfg();
 
@@ -152,12 +177,10 @@ public class CompanyPlotListener implements Listener {
             } else if (lastCompanyId == null) {
                 // Entering company territory from wilderness
                 message = config.getTerrainEnterMessage();
-                Optional<Company> company = QuickStocksPlugin.getCompanyService().getCompanyById(currentCompanyId);
-                companyName = company.map(Company::getName).orElse("Unknown");
+                companyName = companyNames.getOrDefault(currentCompanyId, "Unknown");
             } else {
                 // Moving from one company to another - show leave message for old, enter for new
-                Optional<Company> oldCompany = QuickStocksPlugin.getCompanyService().getCompanyById(lastCompanyId);
-                String oldCompanyName = oldCompany.map(Company::getName).orElse("Unknown");
+                String oldCompanyName = companyNames.getOrDefault(lastCompanyId, "Unknown");
 
                 String leaveMessage = config.getTerrainLeaveMessage();
                 if (leaveMessage != null && !leaveMessage.trim().isEmpty()) {
@@ -167,8 +190,7 @@ public class CompanyPlotListener implements Listener {
 
                 // Then show enter message for new company
                 message = config.getTerrainEnterMessage();
-                Optional<Company> newCompany = QuickStocksPlugin.getCompanyService().getCompanyById(currentCompanyId);
-                companyName = newCompany.map(Company::getName).orElse("Unknown");
+                companyName = companyNames.getOrDefault(currentCompanyId, "Unknown");
             }
 
             if (message != null && !message.trim().isEmpty()) {
@@ -3,9 +3,11 @@ package net.cyberneticforge.quickstocks.listeners;
 import net.cyberneticforge.quickstocks.QuickStocksPlugin;
 import net.cyberneticforge.quickstocks.core.enums.Translation;
 import net.cyberneticforge.quickstocks.core.model.*;
+import net.cyberneticforge.quickstocks.core.services.features.market.TradingService;
 import net.cyberneticforge.quickstocks.core.services.features.portfolio.HoldingsService;
 import net.cyberneticforge.quickstocks.gui.MarketGUI;
 import net.cyberneticforge.quickstocks.gui.PortfolioGUI;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import net.cyberneticforge.quickstocks.utils.ChatUT;
 import org.bukkit.Material;
@@ -19,6 +21,8 @@ import org.bukkit.inventory.ItemStack;
 import java.sql.SQLException;
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
 
 /**
  * Handles interactions with the Market GUI (company shares)
@@ -247,22 +251,23 @@ public class MarketGUIListener implements Listener {
                 return;
             }
             
-            // Execute the purchase
-            QuickStocksPlugin.getCompanyMarketService().buyShares(company.getId(), playerUuid, 1.0);
-            
-            Translation.Market_Buy_Success.sendMessage(player,
-                new Replaceable("%qty%", "1"),
-                new Replaceable("%company%", company.getName()),
-                new Replaceable("%total%", String.format("%.2f", price)));
-            Translation.Market_Balance_Updated.sendMessage(player,
-                new Replaceable("%balance%", String.format("%.2f", QuickStocksPlugin.getWalletService().getBalance(playerUuid))));
-            playSuccessSound(player);
+            // Execute the purchase in the player's trade lane
+            CompletableFuture<Double> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> {
+                QuickStocksPlugin.getCompanyMarketService().buyShares(company.getId(), playerUuid, 1.0);
+                return QuickStocksPlugin.getWalletService().getBalance(playerUuid);
+            });
+            AsyncDb.thenSync(trade, newBalance -> {
+                Translation.Market_Buy_Success.sendMessage(player,
+                    new Replaceable("%qty%", "1"),
+                    new Replaceable("%company%", company.getName()),
+                    new Replaceable("%total%", String.format("%.2f", price)));
+                Translation.Market_Balance_Updated.sendMessage(player,
+                    new Replaceable("%balance%", String.format("%.2f", newBalance)));
+                playSuccessSound(player);
+            }, error -> tradeFailed(player, "quick buy", error));
             
         } catch (Exception e) {
-            Translation.Market_Error_TransactionFailed.sendMessage(player,
-                new Replaceable("%error%", e.getMessage()));
-            playErrorSound(player);
-            logger.warning("Error in quick buy: " + e.getMessage());
+            tradeFailed(player, "quick buy", e);
         }
     }
     
@@ -280,22 +285,23 @@ public class MarketGUIListener implements Listener {
                 return;
             }
             
-            // Execute the sale
-            QuickStocksPlugin.getCompanyMarketService().sellShares(company.getId(), playerUuid, 1.0);
-            
-            Translation.Market_Sell_Success.sendMessage(player,
-                new Replaceable("%qty%", "1"),
-                new Replaceable("%company%", company.getName()),
-                new Replaceable("%total%", String.format("%.2f", price)));
-            Translation.Market_Balance_Updated.sendMessage(player,
-                new Replaceable("%balance%", String.format("%.2f", QuickStocksPlugin.getWalletService().getBalance(playerUuid))));
-            playSuccessSound(player);
+            // Execute the sale in the player's trade lane
+            CompletableFuture<Double> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> {
+                QuickStocksPlugin.getCompanyMarketService().sellShares(company.getId(), playerUuid, 1.0);
+                return QuickStocksPlugin.getWalletService().getBalance(playerUuid);
+            });
+            AsyncDb.thenSync(trade, newBalance -> {
+                Translation.Market_Sell_Success.sendMessage(player,
+                    new Replaceable("%qty%", "1"),
+                    new Replaceable("%company%", company.getName()),
+                    new Replaceable("%total%", String.format("%.2f", price)));
+                Translation.Market_Balance_Updated.sendMessage(player,
+                    new Replaceable("%balance%", String.format("%.2f", newBalance)));
+                playSuccessSound(player);
+            }, error -> tradeFailed(player, "quick sell", error));
             
         } catch (Exception e) {
-            Translation.Market_Error_TransactionFailed.sendMessage(player,
-                new Replaceable("%error%", e.getMessage()));
-            playErrorSound(player);
-            logger.warning("Error in quick sell: " + e.getMessage());
+            tradeFailed(player, "quick sell", e);
         }
     }
     
@@ -327,7 +333,8 @@ public class MarketGUIListener implements Listener {
             return;
         }
         
-        double currentPrice = stateOpt.get().lastPrice();
+        Double marketPrice = QuickStocksPlugin.getStockMarketService().getCurrentPrice(instrument.id());
+        double currentPrice = marketPrice != null ? marketPrice : stateOpt.get().lastPrice();
         
         switch (clickType) {
             case LEFT:
@@ -374,28 +381,28 @@ public class MarketGUIListener implements Listener {
                 return;
             }
             
-            // Execute the purchase using TradingService
-            var result = QuickStocksPlugin.getTradingService().executeBuyOrder(playerUuid, instrument.id(), quantity);
-            
-            if (result.success()) {
-                Translation.Market_Buy_Success.sendMessage(player,
-                    new Replaceable("%qty%", String.format("%.2f", quantity)),
-                    new Replaceable("%company%", instrument.displayName()),
-                    new Replaceable("%total%", String.format("%.2f", totalCost)));
-                Translation.Market_Balance_Updated.sendMessage(player,
-                    new Replaceable("%balance%", String.format("%.2f", QuickStocksPlugin.getWalletService().getBalance(playerUuid))));
-                playSuccessSound(player);
-            } else {
-                Translation.Market_Error_TransactionFailed.sendMessage(player,
-                    new Replaceable("%error%", result.message()));
-                playErrorSound(player);
-            }
+            // Execute the purchase using TradingService in the player's trade lane
+            CompletableFuture<Traded> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> new Traded(
+                QuickStocksPlugin.getTradingService().executeBuyOrder(playerUuid, instrument.id(), quantity),
+                QuickStocksPlugin.getWalletService().getBalance(playerUuid)));
+            AsyncDb.thenSync(trade, traded -> {
+                if (traded.result().success()) {
+                    Translation.Market_Buy_Success.sendMessage(player,
+                        new Replaceable("%qty%", String.format("%.2f", quantity)),
+                        new Replaceable("%company%", instrument.displayName()),
+                        new Replaceable("%total%", String.format("%.2f", totalCost)));
+                    Translation.Market_Balance_Updated.sendMessage(player,
+                        new Replaceable("%balance%", String.format("%.2f", traded.balance())));
+                    playSuccessSound(player);
+                } else {
+                    Translation.Market_Error_TransactionFailed.sendMessage(player,
+                        new Replaceable("%error%", traded.result().message()));
+                    playErrorSound(player);
+                }
+            }, error -> tradeFailed(player, "generic instrument buy", error));
             
         } catch (Exception e) {
-            Translation.Market_Error_TransactionFailed.sendMessage(player,
-                new Replaceable("%error%", e.getMessage()));
-            playErrorSound(player);
-            logger.warning("Error in generic instrument buy: " + e.getMessage());
+            tradeFailed(player, "generic instrument buy", e);
         }
     }
     
@@ -417,32 +424,50 @@ public class MarketGUIListener implements Listener {
                 return;
             }
             
-            // Execute the sale using TradingService
-            var result = QuickStocksPlugin.getTradingService().executeSellOrder(playerUuid, instrument.id(), quantity);
-            
-            if (result.success()) {
-                double totalValue = price * quantity;
-                Translation.Market_Sell_Success.sendMessage(player,
-                    new Replaceable("%qty%", String.format("%.2f", quantity)),
-                    new Replaceable("%company%", instrument.displayName()),
-                    new Replaceable("%total%", String.format("%.2f", totalValue)));
-                Translation.Market_Balance_Updated.sendMessage(player,
-                    new Replaceable("%balance%", String.format("%.2f", QuickStocksPlugin.getWalletService().getBalance(playerUuid))));
-                playSuccessSound(player);
-            } else {
-                Translation.Market_Error_TransactionFailed.sendMessage(player,
-                    new Replaceable("%error%", result.message()));
-                playErrorSound(player);
-            }
+            // Execute the sale using TradingService in the player's trade lane
+            CompletableFuture<Traded> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> new Traded(
+                QuickStocksPlugin.getTradingService().executeSellOrder(playerUuid, instrument.id(), quantity),
+                QuickStocksPlugin.getWalletService().getBalance(playerUuid)));
+            AsyncDb.thenSync(trade, traded -> {
+                if (traded.result().success()) {
+                    double totalValue = price * quantity;
+                    Translation.Market_Sell_Success.sendMessage(player,
+                        new Replaceable("%qty%", String.format("%.2f", quantity)),
+                        new Replaceable("%company%", instrument.displayName()),
+                        new Replaceable("%total%", String.format("%.2f", totalValue)));
+                    Translation.Market_Balance_Updated.sendMessage(player,
+                        new Replaceable("%balance%", String.format("%.2f", traded.balance())));
+                    playSuccessSound(player);
+                } else {
+                    Translation.Market_Error_TransactionFailed.sendMessage(player,
+                        new Replaceable("%error%", traded.result().message()));
+                    playErrorSound(player);
+                }
+            }, error -> tradeFailed(player, "generic instrument sell", error));
             
         } catch (Exception e) {
-            Translation.Market_Error_TransactionFailed.sendMessage(player,
-                new Replaceable("%error%", e.getMessage()));
-            playErrorSound(player);
-            logger.warning("Error in generic instrument sell: " + e.getMessage());
+            tradeFailed(player, "generic instrument sell", e);
+        }
+    }
+    
+    /**
+     * Reports a trade that failed or was rejected by the player's trade lane
+     */
+    private void tradeFailed(Player player, String action, Throwable error) {
+        Translation.Market_Error_TransactionFailed.sendMessage(player,
+            new Replaceable("%error%", error.getMessage()));
+        playErrorSound(player);
+        if (!(error instanceof RejectedExecutionException)) {
+            logger.warning("Error in " + action + ": " + error.getMessage());
         }
     }
     
+    /**
+     * Outcome of a trade and the balance right after it
+     */
+    private record Traded(TradingService.TradeResult result, double balance) {
+    }
+    
     /**
      * Shows detailed information about a generic instrument
      */
@@ -7,6 +7,7 @@ import net.cyberneticforge.quickstocks.core.services.features.market.TradingServ
 import net.cyberneticforge.quickstocks.core.services.features.portfolio.HoldingsService;
 import net.cyberneticforge.quickstocks.gui.MarketGUI;
 import net.cyberneticforge.quickstocks.gui.PortfolioGUI;
+import net.cyberneticforge.quickstocks.infrastructure.db.AsyncDb;
 import net.cyberneticforge.quickstocks.infrastructure.logging.PluginLogger;
 import org.bukkit.Material;
 import org.bukkit.entity.Player;
@@ -16,6 +17,9 @@ import org.bukkit.event.inventory.ClickType;
 import org.bukkit.event.inventory.InventoryClickEvent;
 import org.bukkit.inventory.ItemStack;
 
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+
 /**
  * Handles interactions with the Portfolio GUI
  */
@@ -121,24 +125,40 @@ public class PortfolioGUIListener implements Listener {
     private void handleSellAllShares(Player player, String playerUuid, String instrumentId, String symbol, HoldingsService.Holding holding) throws Exception {
         double qty = holding.qty();
         
-        // Execute the trade
-        TradingService.TradeResult result = QuickStocksPlugin.getTradingService().executeSellOrder(playerUuid, instrumentId, qty);
+        // Execute the trade in the player's trade lane
+        CompletableFuture<Sold> trade = QuickStocksPlugin.getTradeLanes().submit(playerUuid, () -> new Sold(
+            QuickStocksPlugin.getTradingService().executeSellOrder(playerUuid, instrumentId, qty),
+            QuickStocksPlugin.getWalletService().getBalance(playerUuid)));
         
-        if (result.success()) {
-            double totalValue = qty * holding.currentPrice();
-            Translation.GUI_Portfolio_SoldAll.sendMessage(player,
-                new Replaceable("%qty%", String.format("%.2f", qty)),
-                new Replaceable("%symbol%", symbol));
-            Translation.GUI_Portfolio_Received.sendMessage(player,
-                new Replaceable("%total%", String.format("%.2f", totalValue)));
-            Translation.GUI_Portfolio_NewBalance.sendMessage(player,
-                new Replaceable("%balance%", String.format("%.2f", QuickStocksPlugin.getWalletService().getBalance(playerUuid))));
-            
-            // Note: GUI will be refreshed on next view
-        } else {
+        AsyncDb.thenSync(trade, sold -> {
+            if (sold.result().success()) {
+                double totalValue = qty * holding.currentPrice();
+                Translation.GUI_Portfolio_SoldAll.sendMessage(player,
+                    new Replaceable("%qty%", String.format("%.2f", qty)),
+                    new Replaceable("%symbol%", symbol));
+                Translation.GUI_Portfolio_Received.sendMessage(player,
+                    new Replaceable("%total%", String.format("%.2f", totalValue)));
+                Translation.GUI_Portfolio_NewBalance.sendMessage(player,
+                    new Replaceable("%balance%", String.format("%.2f", sold.balance())));
+                
+                // Note: GUI will be refreshed on next view
+            } else {
+                Translation.GUI_Portfolio_SaleFailed.sendMessage(player,
+                    new Replaceable("%message%", sold.result().message()));
+            }
+        }, error -> {
             Translation.GUI_Portfolio_SaleFailed.sendMessage(player,
-                new Replaceable("%message%", result.message()));
-        }
+                new Replaceable("%message%", error.getMessage()));
+            if (!(error instanceof RejectedExecutionException)) {
+                logger.warning("Error selling all shares: " + error.getMessage());
+            }
+        });
+    }
+    
+    /**
+     * Outcome of a sale and the balance right after it
+     */
+    private record Sold(TradingService.TradeResult result, double balance) {
     }
     
     /**
@@ -0,0 +1,42 @@
+package net.cyberneticforge.quickstocks.listeners.shops;
+
+import com.Acrobot.ChestShop.Events.TransactionEvent;
+import net.cyberneticforge.quickstocks.core.algorithms.OrderFlowBook;
+import org.bukkit.event.EventHandler;
+import org.bukkit.event.EventPriority;
+import org.bukkit.event.Listener;
+import org.bukkit.inventory.ItemStack;
+
+/**
+ * Feeds completed ChestShop transactions into the market's order flow, so item instruments follow
+ * what players actually buy from and sell to shops. Only counts units in memory; no database access.
+ */
+public class ChestShopOrderFlowListener implements Listener {
+
+    private static final String ITEM_SYMBOL_PREFIX = "MC_";
+
+    private final OrderFlowBook orderFlow;
+
+    public ChestShopOrderFlowListener(OrderFlowBook orderFlow) {
+        this.orderFlow = orderFlow;
+    }
+
+    /**
+     * A customer buying from a shop is demand for the item, one selling to a shop is supply.
+     */
+    @EventHandler(priority = EventPriority.MONITOR, ignoreCancelled = true)
+    public void onTransaction(TransactionEvent event) {
+        if (!orderFlow.isEnabled()) return;
+
+        boolean bought = event.getTransactionType() == TransactionEvent.TransactionType.BUY;
+        for (ItemStack stack : event.getStock()) {
+            if (stack == null || stack.getAmount() <= 0) continue;
+            String symbol = ITEM_SYMBOL_PREFIX + stack.getType().name();
+            if (bought) {
+                orderFlow.record(symbol, stack.getAmount(), 0);
+            } else {
+                orderFlow.record(symbol, 0, stack.getAmount());
+            }
+        }
+    }
+}
@@ -0,0 +1,79 @@
+-- OHLC candle rollups for instrument price history
+-- Ticks are aggregated into 1m/1h/1d candles as they are persisted, so raw
+-- instrument_price_history rows can be pruned after a short retention horizon
+
+CREATE TABLE IF NOT EXISTS instrument_candles (
+  instrument_id TEXT NOT NULL,
+  resolution    TEXT NOT NULL,                 -- 1m | 1h | 1d
+  bucket_start  INTEGER NOT NULL,              -- epoch millis, aligned to the resolution
+  open          REAL NOT NULL,
+  high          REAL NOT NULL,
+  low           REAL NOT NULL,
+  close         REAL NOT NULL,
+  volume        REAL NOT NULL DEFAULT 0,       -- last reported volume in the bucket
+  tick_count    INTEGER NOT NULL DEFAULT 0,
+  PRIMARY KEY (instrument_id, resolution, bucket_start),
+  FOREIGN KEY (instrument_id) REFERENCES instruments(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_candles_resolution_bucket ON instrument_candles(resolution, bucket_start);
+
+-- Backfill candles from existing ticks (open/close taken from the first/last tick of each bucket)
+INSERT OR IGNORE INTO instrument_candles (instrument_id, resolution, bucket_start, open, high, low, close, volume, tick_count)
+SELECT agg.instrument_id, '1m', agg.bucket_start, o.price, agg.high, agg.low, c.price, c.volume, agg.tick_count
+FROM (
+  SELECT instrument_id, (ts / 60000) * 60000 AS bucket_start, MIN(ts) AS first_ts, MAX(ts) AS last_ts,
+         MAX(price) AS high, MIN(price) AS low, COUNT(*) AS tick_count
+  FROM instrument_price_history
+  GROUP BY instrument_id, (ts / 60000)
+) agg
+JOIN instrument_price_history o ON o.instrument_id = agg.instrument_id AND o.ts = agg.first_ts
+JOIN instrument_price_history c ON c.instrument_id = agg.instrument_id AND c.ts = agg.last_ts;
+
+INSERT OR IGNORE INTO instrument_candles (instrument_id, resolution, bucket_start, open, high, low, close, volume, tick_count)
+SELECT agg.instrument_id, '1h', agg.bucket_start, o.price, agg.high, agg.low, c.price, c.volume, agg.tick_count
+FROM (
+  SELECT instrument_id, (ts / 3600000) * 3600000 AS bucket_start, MIN(ts) AS first_ts, MAX(ts) AS last_ts,
+         MAX(price) AS high, MIN(price) AS low, COUNT(*) AS tick_count
+  FROM instrument_price_history
+  GROUP BY instrument_id, (ts / 3600000)
+) agg
+JOIN instrument_price_history o ON o.instrument_id = agg.instrument_id AND o.ts = agg.first_ts
+JOIN instrument_price_history c ON c.instrument_id = agg.instrument_id AND c.ts = agg.last_ts;
+
+INSERT OR IGNORE INTO instrument_candles (instrument_id, resolution, bucket_start, open, high, low, close, volume, tick_count)
+SELECT agg.instrument_id, '1d', agg.bucket_start, o.price, agg.high, agg.low, c.price, c.volume, agg.tick_count
+FROM (
+  SELECT instrument_id, (ts / 86400000) * 86400000 AS bucket_start, MIN(ts) AS first_ts, MAX(ts) AS last_ts,
+         MAX(price) AS high, MIN(price) AS low, COUNT(*) AS tick_count
+  FROM instrument_price_history
+  GROUP BY instrument_id, (ts / 86400000)
+) agg
+JOIN instrument_price_history o ON o.instrument_id = agg.instrument_id AND o.ts = agg.first_ts
+JOIN instrument_price_history c ON c.instrument_id = agg.instrument_id AND c.ts = agg.last_ts;
+
+-- Rolling window statistics now read 1m candles instead of scanning 7 days of raw ticks
+DROP VIEW IF EXISTS rolling_window_stats;
+
+CREATE VIEW IF NOT EXISTS rolling_window_stats AS
+SELECT
+    c.instrument_id,
+    SUM(c.tick_count) as data_points,
+    SUM(c.close * c.tick_count) / SUM(c.tick_count) as avg_price,
+    MIN(c.low) as min_price,
+    MAX(c.high) as max_price,
+    CASE
+        WHEN SUM(c.tick_count) >= 2 THEN
+            (MAX(c.high) - MIN(c.low)) / MIN(c.low)
+        ELSE 0.0
+    END as price_range_pct,
+    CASE
+        WHEN c.bucket_start >= (strftime('%s', 'now') * 1000 - 60 * 60 * 1000) THEN '1h'
+        WHEN c.bucket_start >= (strftime('%s', 'now') * 1000 - 24 * 60 * 60 * 1000) THEN '24h'
+        WHEN c.bucket_start >= (strftime('%s', 'now') * 1000 - 7 * 24 * 60 * 60 * 1000) THEN '7d'
+        ELSE 'older'
+    END as time_window
+FROM instrument_candles c
+WHERE c.resolution = '1m'
+  AND c.bucket_start >= (strftime('%s', 'now') * 1000 - 7 * 24 * 60 * 60 * 1000)
+GROUP BY c.instrument_id, time_window;
@@ -0,0 +1,20 @@
+-- Resting LIMIT and STOP orders
+-- Orders wait here until a price update triggers them, they expire or the player cancels them;
+-- executions are recorded in orders like any other trade
+
+CREATE TABLE IF NOT EXISTS pending_orders (
+  id            TEXT PRIMARY KEY,
+  player_uuid   TEXT NOT NULL,
+  instrument_id TEXT NOT NULL,
+  side          TEXT NOT NULL,                 -- BUY | SELL
+  order_type    TEXT NOT NULL,                 -- LIMIT | STOP
+  qty           REAL NOT NULL,
+  limit_price   REAL,                          -- LIMIT orders
+  stop_price    REAL,                          -- STOP orders; follows the price for trailing stops
+  trail_percent REAL,                          -- trailing distance in % of the best price, NULL for fixed stops
+  created_at    INTEGER NOT NULL,              -- epoch millis
+  expires_at    INTEGER,                       -- epoch millis, NULL = good till cancelled
+  FOREIGN KEY (instrument_id) REFERENCES instruments(id) ON DELETE CASCADE
+);
+
+CREATE INDEX IF NOT EXISTS idx_pending_orders_player ON pending_orders(player_uuid);
@@ -0,0 +1,126 @@
+package net.cyberneticforge.quickstocks.core.model;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the incremental indicators of PriceRing.
+ */
+@DisplayName("PriceRing Tests")
+public class PriceRingTest {
+
+    @Test
+    @DisplayName("Indicators match a full scan while the ring wraps")
+    public void testIndicatorsMatchFullScan() {
+        PriceRing ring = new PriceRing(64);
+        List<Double> history = new ArrayList<>();
+        Random random = new Random(42);
+        double price = 100.0;
+
+        for (int i = 0; i < 1_000; i++) {
+            // Repeated prices exercise ties in the monotonic deques
+            price = random.nextInt(10) == 0 ? price : Math.max(1.0, price + random.nextGaussian());
+            ring.add(price, i);
+            history.add(price);
+
+            for (int window : PriceRing.WINDOWS) {
+                List<Double> tail = history.subList(Math.max(0, history.size() - window), history.size());
+                double sum = 0.0;
+                double max = Double.NEGATIVE_INFINITY;
+                double min = Double.POSITIVE_INFINITY;
+                for (double p : tail) {
+                    sum += p;
+                    max = Math.max(max, p);
+                    min = Math.min(min, p);
+                }
+                assertEquals(sum / tail.size(), ring.average(window), 1e-9, "average(" + window + ") after " + (i + 1));
+                assertEquals(max, ring.max(window), "max(" + window + ") after " + (i + 1));
+                assertEquals(min, ring.min(window), "min(" + window + ") after " + (i + 1));
+            }
+        }
+        assertEquals(64, ring.size());
+    }
+
+    @Test
+    @DisplayName("Indexed access runs oldest to newest across the wrap")
+    public void testIndexedAccessAfterWrap() {
+        PriceRing ring = new PriceRing(51);
+        for (int i = 0; i < 120; i++) {
+            ring.add(i, 1_000L + i);
+        }
+
+        assertEquals(51, ring.size());
+        assertEquals(51, ring.capacity());
+        assertEquals(69.0, ring.priceAt(0), "Oldest kept point");
+        assertEquals(119.0, ring.priceAt(50), "Newest point");
+        assertEquals(1_069L, ring.timestampAt(0));
+        assertEquals(1_119L, ring.timestampAt(50));
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.priceAt(51));
+        assertThrows(IndexOutOfBoundsException.class, () -> ring.priceAt(-1));
+    }
+
+    @Test
+    @DisplayName("Short histories average over all stored points")
+    public void testWindowLongerThanHistory() {
+        PriceRing ring = new PriceRing(100);
+        ring.add(10.0, 1L);
+        ring.add(20.0, 2L);
+        ring.add(60.0, 3L);
+
+        assertEquals(30.0, ring.average(50), 1e-9);
+        assertEquals(60.0, ring.max(50));
+        assertEquals(10.0, ring.min(50));
+    }
+
+    @Test
+    @DisplayName("Empty ring reports no extremes")
+    public void testEmptyRing() {
+        PriceRing ring = new PriceRing(100);
+
+        assertEquals(0, ring.size());
+        assertEquals(0.0, ring.average(5));
+        assertTrue(Double.isNaN(ring.max(5)));
+        assertTrue(Double.isNaN(ring.min(5)));
+    }
+
+    @Test
+    @DisplayName("Reset keeps the newest points and rebuilds the indicators")
+    public void testResetKeepsNewestPoints() {
+        PriceRing ring = new PriceRing(60);
+        ring.add(1_000.0, 0L);
+
+        double[] prices = new double[80];
+        long[] timestamps = new long[80];
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = i;
+            timestamps[i] = i * 10L;
+        }
+        ring.reset(prices, timestamps);
+
+        assertEquals(60, ring.size());
+        assertEquals(20.0, ring.priceAt(0));
+        assertEquals(790L, ring.timestampAt(59));
+        assertEquals(77.0, ring.average(5), 1e-9);
+        assertEquals(79.0, ring.max(50));
+        assertEquals(30.0, ring.min(50));
+        assertThrows(IllegalArgumentException.class, () -> ring.reset(new double[2], new long[3]));
+    }
+
+    @Test
+    @DisplayName("Invalid capacities and windows are rejected")
+    public void testRejectsInvalidArguments() {
+        assertThrows(IllegalArgumentException.class, () -> new PriceRing(50));
+
+        PriceRing ring = new PriceRing(51);
+        ring.add(1.0, 0L);
+        assertThrows(IllegalArgumentException.class, () -> ring.average(7));
+    }
+}
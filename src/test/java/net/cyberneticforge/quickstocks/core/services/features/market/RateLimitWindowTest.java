@@ -0,0 +1,77 @@
+package net.cyberneticforge.quickstocks.core.services.features.market;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Tests for the sliding one-minute notional window of RateLimitService.
+ */
+@DisplayName("RateLimitService Window Tests")
+public class RateLimitWindowTest {
+
+    private static final long MINUTE = 60_000L;
+    private static final long T0 = 28_000_000L * MINUTE;
+
+    @Test
+    @DisplayName("Rolling to the same or an earlier minute keeps the window")
+    public void testRollToSameMinute() {
+        RateLimitService.Window window = new RateLimitService.Window(T0, 100.0, 50.0, T0 + 5_000);
+
+        assertSame(window, window.rollTo(T0));
+        assertSame(window, window.rollTo(T0 - MINUTE));
+    }
+
+    @Test
+    @DisplayName("Rolling one minute carries the current bucket into the previous one")
+    public void testRollToNextMinute() {
+        RateLimitService.Window window = new RateLimitService.Window(T0, 100.0, 50.0, T0 + 5_000);
+
+        assertEquals(new RateLimitService.Window(T0 + MINUTE, 0.0, 100.0, T0 + 5_000), window.rollTo(T0 + MINUTE));
+    }
+
+    @Test
+    @DisplayName("Rolling past the previous minute drops both buckets")
+    public void testRollPastPreviousMinute() {
+        RateLimitService.Window window = new RateLimitService.Window(T0, 100.0, 50.0, T0 + 5_000);
+
+        assertEquals(new RateLimitService.Window(T0 + 2 * MINUTE, 0.0, 0.0, T0 + 5_000), window.rollTo(T0 + 2 * MINUTE));
+    }
+
+    @Test
+    @DisplayName("Used notional weights the previous minute by its overlap with the last 60 seconds")
+    public void testUsedSlidesOverPreviousMinute() {
+        RateLimitService.Window window = new RateLimitService.Window(T0, 100.0, 80.0, T0);
+
+        assertEquals(180.0, window.used(T0), 1e-9, "At the minute start the previous minute counts fully");
+        assertEquals(140.0, window.used(T0 + 30_000), 1e-9, "Half way, half of the previous minute counts");
+        assertEquals(50.0, window.used(T0 + MINUTE + 30_000), 1e-9, "A minute later this minute becomes the previous one");
+        assertEquals(0.0, window.used(T0 + 2 * MINUTE), 1e-9, "Two minutes later nothing counts");
+    }
+
+    @Test
+    @DisplayName("Adding a trade rolls the window first and tracks the latest trade")
+    public void testPlus() {
+        RateLimitService.Window window = RateLimitService.Window.EMPTY
+            .plus(T0 + 1_000, 10.0)
+            .plus(T0 + 2_000, 15.0);
+        assertEquals(new RateLimitService.Window(T0, 25.0, 0.0, T0 + 2_000), window);
+
+        RateLimitService.Window next = window.plus(T0 + MINUTE + 500, 5.0);
+        assertEquals(new RateLimitService.Window(T0 + MINUTE, 5.0, 25.0, T0 + MINUTE + 500), next);
+    }
+
+    @Test
+    @DisplayName("Merging stored rows sums the buckets and keeps the newest minute and trade")
+    public void testMerge() {
+        // The two rows a restart reads back for one player: this minute and the previous one
+        RateLimitService.Window current = new RateLimitService.Window(T0, 30.0, 0.0, T0 + 4_000);
+        RateLimitService.Window previous = new RateLimitService.Window(T0, 0.0, 70.0, T0 - 20_000);
+
+        RateLimitService.Window merged = current.merge(previous);
+        assertEquals(new RateLimitService.Window(T0, 30.0, 70.0, T0 + 4_000), merged);
+        assertEquals(merged, previous.merge(current), "Merge order must not matter");
+    }
+}
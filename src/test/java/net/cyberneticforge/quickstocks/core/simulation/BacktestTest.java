@@ -0,0 +1,30 @@
+package net.cyberneticforge.quickstocks.core.simulation;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the headless price model backtest.
+ */
+@DisplayName("Backtest Tests")
+public class BacktestTest {
+
+    @Test
+    @DisplayName("Same seed reproduces the same report")
+    public void testSeededRunIsReproducible() throws Exception {
+        Backtest.Options options = new Backtest.Options(300, 2_000, 7L, 500);
+
+        Backtest.Report first = new Backtest(options, Backtest.loadConfig(null)).run();
+        Backtest.Report second = new Backtest(options, Backtest.loadConfig(null)).run();
+
+        assertEquals(first, second, "A seeded run should be deterministic");
+        assertEquals(300L * 2_000, first.dampeningChecks(), "Every instrument tick should pass the threshold controller");
+        assertTrue(Double.isFinite(first.drift()) && Double.isFinite(first.realizedVolatility()));
+        assertTrue(first.realizedVolatility() > 0, "Prices should move");
+        assertTrue(first.worstMaxDrawdown() >= first.meanMaxDrawdown() && first.worstMaxDrawdown() < 1.0);
+        assertEquals(3, first.circuitBreakerTriggers().size(), "Bundled config has three breaker levels");
+    }
+}
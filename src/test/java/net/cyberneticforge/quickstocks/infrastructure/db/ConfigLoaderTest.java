@@ -0,0 +1,102 @@
+package net.cyberneticforge.quickstocks.infrastructure.db;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Properties;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+/**
+ * Tests for the indentation-based YAML parsing of ConfigLoader.
+ */
+@DisplayName("ConfigLoader Tests")
+public class ConfigLoaderTest {
+
+    private static Properties parse(String yaml) {
+        Properties props = new Properties();
+        ConfigLoader.loadFromStream(props, new ByteArrayInputStream(yaml.getBytes(StandardCharsets.UTF_8)));
+        return props;
+    }
+
+    @Test
+    @DisplayName("Nested sections become dotted keys and close on dedent")
+    public void testNestedSections() {
+        Properties props = parse("""
+            database:
+              provider: mysql
+              pool:
+                maxSize: 12
+                readMaxSize: 3
+              mysql:
+                host: db.local
+            features:
+              historyEnabled: false
+            topLevel: 1
+            """);
+
+        assertEquals("mysql", props.getProperty("database.provider"));
+        assertEquals("12", props.getProperty("database.pool.maxSize"));
+        assertEquals("3", props.getProperty("database.pool.readMaxSize"));
+        assertEquals("db.local", props.getProperty("database.mysql.host"), "Sibling section after a deeper one");
+        assertEquals("false", props.getProperty("features.historyEnabled"), "Dedent by two levels");
+        assertEquals("1", props.getProperty("topLevel"));
+        assertNull(props.getProperty("database.pool.mysql.host"));
+    }
+
+    @Test
+    @DisplayName("Comments, list items and blank lines are skipped")
+    public void testSkippedLines() {
+        Properties props = parse("""
+            # header comment
+            market:
+
+              # section comment
+              symbols:
+                - AAPL
+                - MSFT
+              tickStore: file  # inline comment
+            """);
+
+        assertEquals("file", props.getProperty("market.tickStore"));
+        assertEquals(1, props.size());
+    }
+
+    @Test
+    @DisplayName("Quoted values keep colons and an empty quoted value is not a section")
+    public void testQuotedAndColonValues() {
+        Properties props = parse("""
+            database:
+              password: ""
+              mysql:
+                replicaUrl: jdbc:mysql://replica:3306/qs
+                user: "stocks"
+            """);
+
+        assertEquals("", props.getProperty("database.password"));
+        assertEquals("jdbc:mysql://replica:3306/qs", props.getProperty("database.mysql.replicaUrl"));
+        assertEquals("stocks", props.getProperty("database.mysql.user"));
+        assertFalse(props.containsKey("database.password.mysql.user"), "The empty value must not open a section");
+    }
+
+    @Test
+    @DisplayName("Indentation is measured, not assumed to be two spaces")
+    public void testIndentWidth() {
+        Properties props = parse("""
+            market:
+                priceThreshold:
+                    enabled: true
+                    maxChangePercent: 0.2
+                history:
+                    tickStore: sql
+            """);
+
+        assertEquals("true", props.getProperty("market.priceThreshold.enabled"));
+        assertEquals("0.2", props.getProperty("market.priceThreshold.maxChangePercent"));
+        assertEquals("sql", props.getProperty("market.history.tickStore"));
+    }
+}
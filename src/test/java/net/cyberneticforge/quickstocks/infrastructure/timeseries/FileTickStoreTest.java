@@ -0,0 +1,85 @@
+package net.cyberneticforge.quickstocks.infrastructure.timeseries;
+
+import net.cyberneticforge.quickstocks.infrastructure.timeseries.TickStore.Tick;
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Tests for the open segment log of the file tick store and its recovery on load.
+ */
+@DisplayName("FileTickStore Tests")
+public class FileTickStoreTest {
+
+    private static final String INSTRUMENT = "AAPL";
+    private static final int SEGMENT_SIZE = 16;
+
+    private static List<Tick> ticks(int from, int to) {
+        List<Tick> ticks = new ArrayList<>();
+        for (int i = from; i < to; i++) {
+            ticks.add(new Tick(INSTRUMENT, 1_000L * i, 100.0 + i, 10.0 * i, FileTickStore.REASON));
+        }
+        return ticks;
+    }
+
+    private static void assertSeries(int count, FileTickStore store) {
+        List<Tick> stored = store.range(INSTRUMENT, Long.MIN_VALUE, Long.MAX_VALUE);
+        assertEquals(ticks(0, count), stored);
+    }
+
+    @Test
+    @DisplayName("Appended ticks survive a reopen across sealed segments and the open log")
+    public void testReopen() throws IOException {
+        Path dir = Files.createTempDirectory("ticks");
+        FileTickStore store = new FileTickStore(dir, SEGMENT_SIZE);
+        for (int i = 0; i < 40; i += 3) {
+            store.append(null, ticks(i, Math.min(40, i + 3)));
+        }
+        store.append(null, ticks(30, 40)); // a retried append is skipped
+        assertSeries(40, store);
+
+        assertSeries(40, new FileTickStore(dir, SEGMENT_SIZE));
+    }
+
+    @Test
+    @DisplayName("A log left behind by a crash right after sealing is not replayed twice")
+    public void testCrashAfterSeal() throws IOException {
+        Path dir = Files.createTempDirectory("ticks");
+        FileTickStore store = new FileTickStore(dir, SEGMENT_SIZE);
+        store.append(null, ticks(0, SEGMENT_SIZE));
+        Path log = dir.resolve(INSTRUMENT).resolve("open.wal");
+        byte[] beforeSeal = Files.readAllBytes(log);
+        store.append(null, ticks(SEGMENT_SIZE, SEGMENT_SIZE + 1));
+        // The sealed segment was written, but the log was never removed
+        Files.write(log, beforeSeal);
+
+        FileTickStore reopened = new FileTickStore(dir, SEGMENT_SIZE);
+        assertSeries(SEGMENT_SIZE, reopened);
+        reopened.append(null, ticks(SEGMENT_SIZE, 3 * SEGMENT_SIZE));
+        assertSeries(3 * SEGMENT_SIZE, reopened);
+
+        assertSeries(3 * SEGMENT_SIZE, new FileTickStore(dir, SEGMENT_SIZE));
+    }
+
+    @Test
+    @DisplayName("A torn last log record is dropped and later appends stay aligned")
+    public void testTornLog() throws IOException {
+        Path dir = Files.createTempDirectory("ticks");
+        new FileTickStore(dir, SEGMENT_SIZE).append(null, ticks(0, 5));
+        Files.write(dir.resolve(INSTRUMENT).resolve("open.wal"), new byte[]{1, 2, 3, 4, 5}, StandardOpenOption.APPEND);
+
+        FileTickStore reopened = new FileTickStore(dir, SEGMENT_SIZE);
+        assertSeries(5, reopened);
+        reopened.append(null, ticks(5, 8));
+
+        assertSeries(8, new FileTickStore(dir, SEGMENT_SIZE));
+    }
+}
@@ -0,0 +1,136 @@
+package net.cyberneticforge.quickstocks.infrastructure.timeseries;
+
+import org.junit.jupiter.api.DisplayName;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * Tests for the compressed tick segment encoding.
+ */
+@DisplayName("TickSegment Tests")
+public class TickSegmentTest {
+
+    private record Point(long ts, double price, double volume) {
+    }
+
+    @Test
+    @DisplayName("Delta-of-delta round-trips in every bucket, negative values included")
+    public void testDeltaOfDeltaBuckets() throws IOException {
+        // Bucket edges of the 7, 9 and 12 bit encodings, values just outside them, the 64 bit fallback
+        // and timestamps that go backwards
+        long[] deltaOfDeltas = {0, 1, -1, 64, -63, 65, -64, 256, -255, 257, -256, 2048, -2047, 2049, -2048,
+            1_000_000_000L, -1_000_000_000L, -5_000, 0, 0};
+        List<Point> points = new ArrayList<>();
+        long ts = 1_700_000_000_000L;
+        long delta = 1_000;
+        points.add(new Point(ts, 100.0, 5.0));
+        for (long dod : deltaOfDeltas) {
+            delta += dod;
+            ts += delta;
+            points.add(new Point(ts, 100.0, 5.0));
+        }
+
+        assertRoundTrip(points);
+    }
+
+    @Test
+    @DisplayName("XOR values reuse the previous bit window and widen it when needed")
+    public void testXorWindowReuse() throws IOException {
+        // 100.5 -> 100.25 fits the window opened by 100.0 -> 100.5; 1e-300 needs a new one; the repeats store one bit
+        double[] prices = {100.0, 100.5, 100.25, 100.75, 1e-300, 100.75, 100.75, -0.0, 0.0, Double.NaN,
+            Double.MAX_VALUE, Double.MIN_VALUE, 100.5};
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            points.add(new Point(60_000L * i, prices[i], i % 3 == 0 ? 0.0 : i * 1.5));
+        }
+
+        assertRoundTrip(points);
+    }
+
+    @Test
+    @DisplayName("Steady ticks compress to a few bits per point")
+    public void testSteadyTicksCompress() {
+        TickSegment.Encoder encoder = new TickSegment.Encoder();
+        for (int i = 0; i < 1_000; i++) {
+            encoder.add(1_700_000_000_000L + i * 5_000L, 42.0, 10.0);
+        }
+
+        int bytes = encoder.toBuffer().remaining();
+        assertTrue(bytes < TickSegment.HEADER_BYTES + 24 + 1_000, "Expected about 3 bits per point, got " + bytes + " bytes");
+    }
+
+    @Test
+    @DisplayName("Header carries the count and time range")
+    public void testHeader() throws IOException {
+        TickSegment.Encoder encoder = new TickSegment.Encoder();
+        encoder.add(500L, 1.0, 0.0);
+        encoder.add(300L, 2.0, 0.0);
+        encoder.add(900L, 3.0, 0.0);
+
+        TickSegment.Header header = TickSegment.readHeader(encoder.toBuffer());
+        assertEquals(new TickSegment.Header(3, 300L, 900L), header);
+    }
+
+    @Test
+    @DisplayName("An encoder keeps appending after being written out")
+    public void testIncrementalEncoding() throws IOException {
+        TickSegment.Encoder encoder = new TickSegment.Encoder();
+        List<Point> points = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            Point point = new Point(1_000L * i + (i % 2) * 7, 50.0 + i * 0.125, i);
+            encoder.add(point.ts(), point.price(), point.volume());
+            points.add(point);
+            assertPoints(points, decode(encoder.toBuffer()));
+        }
+    }
+
+    @Test
+    @DisplayName("Empty segments decode to nothing and foreign data is rejected")
+    public void testEmptyAndInvalidSegments() throws IOException {
+        ByteBuffer empty = new TickSegment.Encoder().toBuffer();
+        assertEquals(new TickSegment.Header(0, 0L, 0L), TickSegment.readHeader(empty));
+        assertEquals(0, decode(empty).size());
+
+        assertThrows(IOException.class, () -> TickSegment.readHeader(ByteBuffer.allocate(8)));
+        ByteBuffer wrongMagic = ByteBuffer.allocate(TickSegment.HEADER_BYTES);
+        wrongMagic.putInt(0, 0x12345678);
+        assertThrows(IOException.class, () -> TickSegment.readHeader(wrongMagic));
+        ByteBuffer wrongVersion = empty.duplicate();
+        wrongVersion.put(4, (byte) (TickSegment.VERSION + 1));
+        assertThrows(IOException.class, () -> TickSegment.readHeader(wrongVersion));
+    }
+
+    private static void assertRoundTrip(List<Point> points) throws IOException {
+        TickSegment.Encoder encoder = new TickSegment.Encoder();
+        for (Point point : points) {
+            encoder.add(point.ts(), point.price(), point.volume());
+        }
+        assertPoints(points, decode(encoder.toBuffer()));
+    }
+
+    private static List<Point> decode(ByteBuffer buffer) throws IOException {
+        List<Point> decoded = new ArrayList<>();
+        TickSegment.decode(buffer, (ts, price, volume) -> decoded.add(new Point(ts, price, volume)));
+        return decoded;
+    }
+
+    private static void assertPoints(List<Point> expected, List<Point> actual) {
+        assertEquals(expected.size(), actual.size(), "Point count");
+        for (int i = 0; i < expected.size(); i++) {
+            Point e = expected.get(i);
+            Point a = actual.get(i);
+            assertEquals(e.ts(), a.ts(), "Timestamp of point " + i);
+            // Compare raw bits so -0.0 and NaN payloads must survive exactly
+            assertEquals(Double.doubleToRawLongBits(e.price()), Double.doubleToRawLongBits(a.price()), "Price of point " + i);
+            assertEquals(Double.doubleToRawLongBits(e.volume()), Double.doubleToRawLongBits(a.volume()), "Volume of point " + i);
+        }
+    }
+}